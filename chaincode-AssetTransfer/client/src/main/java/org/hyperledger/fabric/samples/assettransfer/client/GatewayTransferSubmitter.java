@@ -0,0 +1,54 @@
+package org.hyperledger.fabric.samples.assettransfer.client;
+
+import java.nio.charset.StandardCharsets;
+
+import org.hyperledger.fabric.client.CommitException;
+import org.hyperledger.fabric.client.CommitStatusException;
+import org.hyperledger.fabric.client.Contract;
+import org.hyperledger.fabric.client.EndorseException;
+import org.hyperledger.fabric.client.SubmitException;
+import org.hyperledger.fabric.protos.peer.TxValidationCode;
+
+/**
+ * Fabric Gateway 로 basic 체인코드의 TransferCoinIdempotent 를 호출한다.
+ */
+public final class GatewayTransferSubmitter implements TransferSubmitter {
+
+    static final String TRANSACTION_NAME = "TransferCoinIdempotent";
+
+    private final Contract contract;
+
+    public GatewayTransferSubmitter(Contract contract) {
+        this.contract = contract;
+    }
+
+    @Override
+    public String submit(TransferRequest request) throws TransferConflictException, TransferStatusUnknownException, TransferFailedException {
+        try {
+            byte[] result = contract.submitTransaction(
+                    TRANSACTION_NAME,
+                    request.getRequestId(),
+                    request.getSenderAssetId(),
+                    request.getReceiverAssetId(),
+                    request.getCoinName(),
+                    request.getAmount());
+
+            // 체인코드는 잔액 부족 등으로 실패하면 예외 대신 빈 응답으로 끝나고, 이 경우 requestId 도 기록하지 않는다.
+            if (result == null || result.length == 0) {
+                throw new TransferFailedException(request + " failed: empty response from " + TRANSACTION_NAME);
+            }
+
+            return new String(result, StandardCharsets.UTF_8);
+
+        } catch (CommitException e) {
+            if (e.getCode() == TxValidationCode.MVCC_READ_CONFLICT || e.getCode() == TxValidationCode.PHANTOM_READ_CONFLICT) {
+                throw new TransferConflictException("Transaction " + e.getTransactionId() + " failed with " + e.getCode(), e);
+            }
+            throw new TransferFailedException("Transaction " + e.getTransactionId() + " failed with " + e.getCode(), e);
+        } catch (CommitStatusException e) {
+            throw new TransferStatusUnknownException(request + " commit status unknown: " + e.getMessage(), e);
+        } catch (EndorseException | SubmitException e) {
+            throw new TransferFailedException(request + " failed: " + e.getMessage(), e);
+        }
+    }
+}
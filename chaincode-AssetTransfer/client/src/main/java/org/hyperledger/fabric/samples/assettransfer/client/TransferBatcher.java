@@ -0,0 +1,247 @@
+package org.hyperledger.fabric.samples.assettransfer.client;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TransferCoin 요청 큐
+ * 큐에서 꺼낸 요청을 wave 로 나눠 보낸다. 한 wave 안의 요청들은 쓰는 asset 이 서로 겹치지 않으므로 병렬로 submit 하고,
+ * 같은 asset(예: 매점 계정 같은 hot key)을 쓰는 요청은 들어온 순서대로 다음 wave 로 미뤄 직렬화한다.
+ * MVCC 충돌과 commit 여부를 확인하지 못한 요청은 같은 requestId 로 exponential backoff 재시도한다.
+ * 요청은 TransferCoinIdempotent 로 보내므로, 이미 commit 된 요청을 다시 보내도 잔액은 한 번만 바뀐다.
+ */
+public final class TransferBatcher implements AutoCloseable {
+
+    private final TransferSubmitter submitter;
+    private final Config config;
+    private final TransferMetrics metrics = new TransferMetrics();
+
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final ExecutorService submitPool;
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+    public static final class Config {
+        private int maxBatchSize = 256;
+        private int parallelism = 16;
+        private int maxAttempts = 5;
+        private Duration initialBackoff = Duration.ofMillis(50);
+        private Duration maxBackoff = Duration.ofSeconds(2);
+        private Duration batchWindow = Duration.ofMillis(20);
+
+        public Config maxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        public Config parallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public Config maxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        public Config initialBackoff(Duration initialBackoff) {
+            this.initialBackoff = initialBackoff;
+            return this;
+        }
+
+        public Config maxBackoff(Duration maxBackoff) {
+            this.maxBackoff = maxBackoff;
+            return this;
+        }
+
+        public Config batchWindow(Duration batchWindow) {
+            this.batchWindow = batchWindow;
+            return this;
+        }
+    }
+
+    private static final class Pending {
+        private final TransferRequest request;
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+
+        private Pending(TransferRequest request) {
+            this.request = request;
+        }
+    }
+
+    public TransferBatcher(TransferSubmitter submitter) {
+        this(submitter, new Config());
+    }
+
+    public TransferBatcher(TransferSubmitter submitter, Config config) {
+        this.submitter = submitter;
+        this.config = config;
+        this.submitPool = Executors.newFixedThreadPool(config.parallelism);
+        this.dispatcher = new Thread(this::dispatchLoop, "transfer-batcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    public CompletableFuture<String> enqueue(TransferRequest request) {
+        if (!running) {
+            throw new IllegalStateException("TransferBatcher is closed");
+        }
+        Pending pending = new Pending(request);
+        metrics.recordEnqueued();
+        queue.add(pending);
+        return pending.result;
+    }
+
+    public TransferMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 이미 큐에 들어온 요청을 모두 처리한 뒤 종료한다.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        dispatcher.join();
+        submitPool.shutdown();
+        submitPool.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    private void dispatchLoop() {
+        List<Pending> batch = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(config.batchWindow.toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, config.maxBatchSize - 1);
+
+                for (List<Pending> wave : planWaves(batch)) {
+                    runWave(wave);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 요청 순서를 유지하면서 쓰는 key 가 겹치지 않는 요청끼리 묶는다.
+     * 미뤄진 요청의 key 는 같은 wave 에서 막아 두어, 같은 key 에 대한 요청이 앞 요청을 추월하지 않게 한다.
+     */
+    private List<List<Pending>> planWaves(List<Pending> batch) {
+        List<List<Pending>> waves = new ArrayList<>();
+        List<Pending> remaining = batch;
+
+        while (!remaining.isEmpty()) {
+            List<Pending> wave = new ArrayList<>();
+            List<Pending> deferred = new ArrayList<>();
+            Set<String> lockedKeys = new HashSet<>();
+            Set<String> blockedKeys = new HashSet<>();
+
+            for (Pending pending : remaining) {
+                String[] keys = pending.request.getWriteKeys();
+                boolean free = true;
+                for (String key : keys) {
+                    if (lockedKeys.contains(key) || blockedKeys.contains(key)) {
+                        free = false;
+                        break;
+                    }
+                }
+
+                if (free) {
+                    wave.add(pending);
+                    lockedKeys.addAll(List.of(keys));
+                } else {
+                    deferred.add(pending);
+                    blockedKeys.addAll(List.of(keys));
+                }
+            }
+
+            metrics.recordWave(deferred.size());
+            waves.add(wave);
+            remaining = deferred;
+        }
+
+        return waves;
+    }
+
+    private void runWave(List<Pending> wave) {
+        CompletableFuture<?>[] submissions = new CompletableFuture<?>[wave.size()];
+        for (int i = 0; i < wave.size(); i++) {
+            Pending pending = wave.get(i);
+            submissions[i] = CompletableFuture.runAsync(() -> submitWithRetry(pending), submitPool);
+        }
+        CompletableFuture.allOf(submissions).join();
+    }
+
+    private void submitWithRetry(Pending pending) {
+        for (int attempt = 1; ; attempt++) {
+            Exception retryable;
+            try {
+                String response = submitter.submit(pending.request);
+                if (response == null || response.isEmpty()) {
+                    throw new TransferFailedException(pending.request + " failed: empty response");
+                }
+                metrics.recordCommitted();
+                pending.result.complete(response);
+                return;
+
+            } catch (TransferConflictException e) {
+                metrics.recordConflict();
+                retryable = e;
+
+            } catch (TransferStatusUnknownException e) {
+                metrics.recordStatusUnknown();
+                retryable = e;
+
+            } catch (TransferFailedException | RuntimeException e) {
+                metrics.recordFailed();
+                pending.result.completeExceptionally(e);
+                return;
+            }
+
+            if (attempt >= config.maxAttempts) {
+                metrics.recordFailed();
+                pending.result.completeExceptionally(retryable);
+                return;
+            }
+            metrics.recordRetry();
+            if (!sleep(backoff(attempt))) {
+                pending.result.completeExceptionally(retryable);
+                return;
+            }
+        }
+    }
+
+    // full jitter: [0, min(maxBackoff, initialBackoff * 2^(attempt-1))]
+    private long backoff(int attempt) {
+        long ceiling = Math.min(config.maxBackoff.toMillis(), config.initialBackoff.toMillis() << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
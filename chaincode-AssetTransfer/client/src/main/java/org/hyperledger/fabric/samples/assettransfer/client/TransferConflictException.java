@@ -0,0 +1,11 @@
+package org.hyperledger.fabric.samples.assettransfer.client;
+
+public class TransferConflictException extends Exception {
+    public TransferConflictException(String message) {
+        super(message);
+    }
+
+    public TransferConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,11 @@
+package org.hyperledger.fabric.samples.assettransfer.client;
+
+public class TransferFailedException extends Exception {
+    public TransferFailedException(String message) {
+        super(message);
+    }
+
+    public TransferFailedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
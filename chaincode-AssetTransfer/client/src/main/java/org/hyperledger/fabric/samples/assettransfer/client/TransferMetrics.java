@@ -0,0 +1,103 @@
+package org.hyperledger.fabric.samples.assettransfer.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TransferBatcher 처리량 / 충돌 지표
+ */
+public final class TransferMetrics {
+
+    private final long startedNanos = System.nanoTime();
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong committed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong conflicts = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong statusUnknown = new AtomicLong();
+    private final AtomicLong waves = new AtomicLong();
+    private final AtomicLong serializedByHotKey = new AtomicLong();
+
+    void recordEnqueued() {
+        enqueued.incrementAndGet();
+    }
+
+    void recordCommitted() {
+        committed.incrementAndGet();
+    }
+
+    void recordFailed() {
+        failed.incrementAndGet();
+    }
+
+    void recordConflict() {
+        conflicts.incrementAndGet();
+    }
+
+    void recordStatusUnknown() {
+        statusUnknown.incrementAndGet();
+    }
+
+    void recordRetry() {
+        retries.incrementAndGet();
+    }
+
+    void recordWave(int deferred) {
+        waves.incrementAndGet();
+        serializedByHotKey.addAndGet(deferred);
+    }
+
+    public long getEnqueued() {
+        return enqueued.get();
+    }
+
+    public long getCommitted() {
+        return committed.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public long getConflicts() {
+        return conflicts.get();
+    }
+
+    public long getRetries() {
+        return retries.get();
+    }
+
+    /**
+     * commit 여부를 확인하지 못해 같은 requestId 로 다시 보낸 횟수
+     */
+    public long getStatusUnknown() {
+        return statusUnknown.get();
+    }
+
+    public long getWaves() {
+        return waves.get();
+    }
+
+    /**
+     * 같은 key 를 쓰는 앞선 요청 때문에 다음 wave 로 미뤄진 횟수
+     */
+    public long getSerializedByHotKey() {
+        return serializedByHotKey.get();
+    }
+
+    public double getCommittedPerSecond() {
+        double seconds = (System.nanoTime() - startedNanos) / 1e9;
+        return seconds == 0 ? 0 : committed.get() / seconds;
+    }
+
+    public double getConflictRate() {
+        long attempts = committed.get() + failed.get() + retries.get();
+        return attempts == 0 ? 0 : (double) conflicts.get() / attempts;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TransferMetrics{enqueued=%d, committed=%d, failed=%d, conflicts=%d, retries=%d, statusUnknown=%d, waves=%d, serializedByHotKey=%d, committed/s=%.1f}",
+                getEnqueued(), getCommitted(), getFailed(), getConflicts(), getRetries(), getStatusUnknown(), getWaves(), getSerializedByHotKey(), getCommittedPerSecond());
+    }
+}
@@ -0,0 +1,62 @@
+package org.hyperledger.fabric.samples.assettransfer.client;
+
+import java.util.Objects;
+
+/**
+ * TransferCoinIdempotent 한 건
+ * requestId 가 같으면 체인코드가 재전송을 중복 제거하므로 재시도해도 잔액이 두 번 바뀌지 않는다.
+ */
+public final class TransferRequest {
+
+    private final String requestId;
+    private final String senderAssetId;
+    private final String receiverAssetId;
+    private final String coinName;
+    private final String amount;
+
+    private TransferRequest(String requestId, String senderAssetId, String receiverAssetId, String coinName, String amount) {
+        this.requestId = Objects.requireNonNull(requestId, "requestId");
+        this.senderAssetId = Objects.requireNonNull(senderAssetId, "senderAssetId");
+        this.receiverAssetId = Objects.requireNonNull(receiverAssetId, "receiverAssetId");
+        this.coinName = Objects.requireNonNull(coinName, "coinName");
+        this.amount = Objects.requireNonNull(amount, "amount");
+    }
+
+    public static TransferRequest of(String requestId, String senderAssetId, String receiverAssetId, String coinName, String amount) {
+        return new TransferRequest(requestId, senderAssetId, receiverAssetId, coinName, amount);
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public String getSenderAssetId() {
+        return senderAssetId;
+    }
+
+    public String getReceiverAssetId() {
+        return receiverAssetId;
+    }
+
+    public String getCoinName() {
+        return coinName;
+    }
+
+    public String getAmount() {
+        return amount;
+    }
+
+    /**
+     * 트랜잭션이 쓰는 state key 들. 겹치는 요청끼리는 MVCC 충돌이 나므로 동시에 보내지 않는다.
+     * 보유량 index 는 Asset 마다 다른 key 라 넣지 않는다.
+     * 잔액 checksum bucket 은 chaincode 가 txId 로 고르므로 미리 알 수 없다. 같은 bucket 을 고른 요청(확률 1/64)은 MVCC 충돌로 실패하고 다시 보낸다.
+     */
+    public String[] getWriteKeys() {
+        return new String[]{senderAssetId, receiverAssetId};
+    }
+
+    @Override
+    public String toString() {
+        return "TransferRequest{" + requestId + ": " + senderAssetId + " -> " + receiverAssetId + " " + amount + " " + coinName + "}";
+    }
+}
@@ -0,0 +1,11 @@
+package org.hyperledger.fabric.samples.assettransfer.client;
+
+public class TransferStatusUnknownException extends Exception {
+    public TransferStatusUnknownException(String message) {
+        super(message);
+    }
+
+    public TransferStatusUnknownException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
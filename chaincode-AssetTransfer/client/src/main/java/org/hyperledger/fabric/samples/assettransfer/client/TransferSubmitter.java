@@ -0,0 +1,17 @@
+package org.hyperledger.fabric.samples.assettransfer.client;
+
+/**
+ * TransferCoinIdempotent 를 submit 하고 commit 될 때까지 기다린다.
+ * 실제 네트워크는 GatewayTransferSubmitter, 테스트는 in-process 구현을 사용한다.
+ */
+public interface TransferSubmitter {
+
+    /**
+     * @return commit 된 트랜잭션의 TransferResponse JSON
+     * @throws TransferConflictException      MVCC read conflict 등 다시 보내면 성공할 수 있는 경우
+     * @throws TransferStatusUnknownException submit 은 됐지만 commit 여부를 확인하지 못한 경우. 같은 requestId 로 다시 보내면
+     *                                        이미 commit 됐을 때는 처음 결과를, 아니면 새로 commit 한 결과를 받는다.
+     * @throws TransferFailedException        재시도해도 소용없는 경우 (체인코드가 응답 없이 끝난 경우 포함)
+     */
+    String submit(TransferRequest request) throws TransferConflictException, TransferStatusUnknownException, TransferFailedException;
+}
@@ -0,0 +1,92 @@
+package org.hyperledger.fabric.samples.assettransfer.client;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 테스트용 gateway stand-in
+ * endorse 단계에서 읽은 key 버전이 commit 시점에 바뀌었으면 MVCC_READ_CONFLICT 로 실패시키고,
+ * 체인코드처럼 requestId 로 재전송을 중복 제거한다.
+ * injectStatusUnknown 은 commit 은 하되 commit status 조회가 실패한 것처럼 TransferStatusUnknownException 을 던진다.
+ */
+public class InProcessGateway implements TransferSubmitter {
+
+    private final Map<String, Long> balances = new HashMap<>();
+    private final Map<String, Long> versions = new HashMap<>();
+    private final Map<String, String> committedRequests = new HashMap<>();
+    private final Map<String, AtomicInteger> injectedConflicts = new HashMap<>();
+    private final Map<String, AtomicInteger> injectedStatusUnknown = new HashMap<>();
+    private final long endorseLatencyMillis;
+
+    public InProcessGateway(long endorseLatencyMillis) {
+        this.endorseLatencyMillis = endorseLatencyMillis;
+    }
+
+    public synchronized void createAsset(String assetId, long balance) {
+        balances.put(assetId, balance);
+        versions.put(assetId, 0L);
+    }
+
+    public synchronized long getBalance(String assetId) {
+        return balances.get(assetId);
+    }
+
+    public synchronized void injectConflicts(String requestId, int count) {
+        injectedConflicts.put(requestId, new AtomicInteger(count));
+    }
+
+    public synchronized void injectStatusUnknown(String requestId, int count) {
+        injectedStatusUnknown.put(requestId, new AtomicInteger(count));
+    }
+
+    @Override
+    public String submit(TransferRequest request) throws TransferConflictException, TransferStatusUnknownException, TransferFailedException {
+        long senderVersion;
+        long receiverVersion;
+        synchronized (this) {
+            String committed = committedRequests.get(request.getRequestId());
+            if (committed != null) {
+                return committed;
+            }
+            if (!balances.containsKey(request.getSenderAssetId()) || !balances.containsKey(request.getReceiverAssetId())) {
+                throw new TransferFailedException("Unknown asset in " + request);
+            }
+            senderVersion = versions.get(request.getSenderAssetId());
+            receiverVersion = versions.get(request.getReceiverAssetId());
+        }
+
+        try {
+            TimeUnit.MILLISECONDS.sleep(endorseLatencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransferFailedException("interrupted", e);
+        }
+
+        synchronized (this) {
+            AtomicInteger injected = injectedConflicts.get(request.getRequestId());
+            if (injected != null && injected.getAndDecrement() > 0) {
+                throw new TransferConflictException("injected MVCC_READ_CONFLICT for " + request.getRequestId());
+            }
+            if (versions.get(request.getSenderAssetId()) != senderVersion || versions.get(request.getReceiverAssetId()) != receiverVersion) {
+                throw new TransferConflictException("MVCC_READ_CONFLICT for " + request.getRequestId());
+            }
+
+            long amount = Long.parseLong(request.getAmount());
+            balances.merge(request.getSenderAssetId(), -amount, Long::sum);
+            balances.merge(request.getReceiverAssetId(), amount, Long::sum);
+            versions.merge(request.getSenderAssetId(), 1L, Long::sum);
+            versions.merge(request.getReceiverAssetId(), 1L, Long::sum);
+
+            String response = "{\"transactionId\":\"" + request.getRequestId() + "\"}";
+            committedRequests.put(request.getRequestId(), response);
+
+            AtomicInteger unknown = injectedStatusUnknown.get(request.getRequestId());
+            if (unknown != null && unknown.getAndDecrement() > 0) {
+                throw new TransferStatusUnknownException("injected commit status failure for " + request.getRequestId());
+            }
+            return response;
+        }
+    }
+}
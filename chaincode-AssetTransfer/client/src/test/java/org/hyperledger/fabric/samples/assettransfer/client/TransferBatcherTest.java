@@ -0,0 +1,144 @@
+package org.hyperledger.fabric.samples.assettransfer.client;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("TransferBatcher 테스트")
+public class TransferBatcherTest {
+
+    @Test
+    public void hot_key_를_쓰는_요청은_직렬화되어_충돌없이_commit_된다() throws Exception {
+        //given
+        InProcessGateway gateway = new InProcessGateway(5);
+        gateway.createAsset("store", 0);
+        for (int i = 0; i < 30; i++) {
+            gateway.createAsset("student" + i, 10);
+        }
+
+        //when
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        TransferBatcher batcher = new TransferBatcher(gateway);
+        for (int i = 0; i < 30; i++) {
+            results.add(batcher.enqueue(TransferRequest.of("req" + i, "student" + i, "store", "point", "1")));
+        }
+        CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).join();
+        batcher.close();
+
+        //then
+        assertThat(gateway.getBalance("store")).isEqualTo(30L);
+        assertThat(batcher.getMetrics().getCommitted()).isEqualTo(30L);
+        assertThat(batcher.getMetrics().getConflicts()).isEqualTo(0L);
+        assertThat(batcher.getMetrics().getSerializedByHotKey()).isGreaterThan(0L);
+    }
+
+    @Test
+    public void 서로_다른_asset_을_쓰는_요청은_같은_wave_로_병렬_submit_된다() throws Exception {
+        //given
+        InProcessGateway gateway = new InProcessGateway(5);
+        for (int i = 0; i < 20; i++) {
+            gateway.createAsset("student" + i, 10);
+            gateway.createAsset("store" + i, 0);
+        }
+
+        //when
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        TransferBatcher batcher = new TransferBatcher(gateway, new TransferBatcher.Config().batchWindow(Duration.ofMillis(200)));
+        for (int i = 0; i < 20; i++) {
+            results.add(batcher.enqueue(TransferRequest.of("req" + i, "student" + i, "store" + i, "point", "3")));
+        }
+        CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).join();
+        batcher.close();
+
+        //then
+        for (int i = 0; i < 20; i++) {
+            assertThat(gateway.getBalance("store" + i)).isEqualTo(3L);
+        }
+        assertThat(batcher.getMetrics().getSerializedByHotKey()).isEqualTo(0L);
+        assertThat(batcher.getMetrics().getWaves()).isLessThanOrEqualTo(20L);
+    }
+
+    @Test
+    public void MVCC_충돌은_backoff_후_재시도한다() throws Exception {
+        //given
+        InProcessGateway gateway = new InProcessGateway(1);
+        gateway.createAsset("student", 10);
+        gateway.createAsset("store", 0);
+        gateway.injectConflicts("req", 2);
+
+        //when
+        TransferBatcher batcher = new TransferBatcher(gateway, new TransferBatcher.Config().initialBackoff(Duration.ofMillis(1)));
+        String response = batcher.enqueue(TransferRequest.of("req", "student", "store", "point", "4")).get();
+        batcher.close();
+
+        //then
+        assertThat(response).isNotNull();
+        assertThat(gateway.getBalance("store")).isEqualTo(4L);
+        assertThat(batcher.getMetrics().getConflicts()).isEqualTo(2L);
+        assertThat(batcher.getMetrics().getRetries()).isEqualTo(2L);
+    }
+
+    @Test
+    public void 재시도_횟수를_넘으면_실패로_끝난다() throws Exception {
+        //given
+        InProcessGateway gateway = new InProcessGateway(1);
+        gateway.createAsset("student", 10);
+        gateway.createAsset("store", 0);
+        gateway.injectConflicts("req", 10);
+
+        //when
+        TransferBatcher batcher = new TransferBatcher(gateway, new TransferBatcher.Config().maxAttempts(3).initialBackoff(Duration.ofMillis(1)));
+        CompletableFuture<String> result = batcher.enqueue(TransferRequest.of("req", "student", "store", "point", "4"));
+        batcher.close();
+
+        //then
+        assertThat(result.isCompletedExceptionally()).isTrue();
+        assertThat(gateway.getBalance("store")).isEqualTo(0L);
+        assertThat(batcher.getMetrics().getFailed()).isEqualTo(1L);
+    }
+
+    @Test
+    public void commit_status_를_모르면_같은_requestId_로_재시도해_한_번만_반영한다() throws Exception {
+        //given
+        InProcessGateway gateway = new InProcessGateway(1);
+        gateway.createAsset("student", 10);
+        gateway.createAsset("store", 0);
+        gateway.injectStatusUnknown("req", 1);
+
+        //when
+        TransferBatcher batcher = new TransferBatcher(gateway, new TransferBatcher.Config().initialBackoff(Duration.ofMillis(1)));
+        String response = batcher.enqueue(TransferRequest.of("req", "student", "store", "point", "4")).get();
+        batcher.close();
+
+        //then
+        assertThat(response).contains("\"transactionId\":\"req\"");
+        assertThat(gateway.getBalance("store")).isEqualTo(4L);
+        assertThat(gateway.getBalance("student")).isEqualTo(6L);
+        assertThat(batcher.getMetrics().getStatusUnknown()).isEqualTo(1L);
+        assertThat(batcher.getMetrics().getRetries()).isEqualTo(1L);
+        assertThat(batcher.getMetrics().getCommitted()).isEqualTo(1L);
+    }
+
+    @Test
+    public void 빈_응답은_commit_이_아니라_실패로_끝난다() throws Exception {
+        //given
+        TransferSubmitter submitter = request -> "";
+
+        //when
+        TransferBatcher batcher = new TransferBatcher(submitter);
+        CompletableFuture<String> result = batcher.enqueue(TransferRequest.of("req", "student", "store", "point", "4"));
+        batcher.close();
+
+        //then
+        assertThat(result.isCompletedExceptionally()).isTrue();
+        assertThat(batcher.getMetrics().getCommitted()).isEqualTo(0L);
+        assertThat(batcher.getMetrics().getFailed()).isEqualTo(1L);
+        assertThat(batcher.getMetrics().getRetries()).isEqualTo(0L);
+    }
+}
@@ -0,0 +1,60 @@
+package org.hyperledger.fabric.samples.assettransfer.ledger;
+
+/**
+ * AssetTransfer 의 world state key 구분
+ * Asset 은 asset composite key (asset, assetId), rootAsset 은 meta composite key (meta, rootAsset) 에 있다.
+ * MigrateAssetKeys 이전의 ledger 는 assetId / rootAsset 을 그대로 key 로 쓰므로 두 형식을 모두 읽는다.
+ * 이름이 있는 tenant 의 key 는 같은 key 앞에 tenant/tenantId 가 붙는다 (tenant, tenantId, asset, assetId).
+ * assetId 는 tenant 안에서만 유일하므로 Asset 을 모으는 쪽은 (tenantId(key), assetId(key)) 로 구분한다.
+ */
+public final class AssetKeys {
+
+    public static final String ROOT_ASSET_ID = "rootAsset";
+
+    private static final char NAMESPACE = '\u0000';
+    private static final String TENANT_PREFIX = NAMESPACE + "tenant" + NAMESPACE;
+    private static final String ASSET_PREFIX = NAMESPACE + "asset" + NAMESPACE;
+    private static final String ROOT_ASSET_KEY = NAMESPACE + "meta" + NAMESPACE + ROOT_ASSET_ID + NAMESPACE;
+
+    private AssetKeys() {
+    }
+
+    /**
+     * @return tenant key 면 tenantId, 기본 tenant 의 key 면 null
+     */
+    public static String tenantId(String key) {
+        if (!key.startsWith(TENANT_PREFIX)) {
+            return null;
+        }
+        int end = key.indexOf(NAMESPACE, TENANT_PREFIX.length());
+        return end < 0 ? null : key.substring(TENANT_PREFIX.length(), end);
+    }
+
+    public static boolean isRootAsset(String key) {
+        return ROOT_ASSET_KEY.equals(unscoped(key)) || ROOT_ASSET_ID.equals(key);
+    }
+
+    /**
+     * @return Asset key 이면 assetId, rootAsset 이나 다른 keyspace(request 기록 등)면 null
+     */
+    public static String assetId(String key) {
+        String unscoped = unscoped(key);
+        if (unscoped.startsWith(ASSET_PREFIX)) {
+            int end = unscoped.indexOf(NAMESPACE, ASSET_PREFIX.length());
+            return end == unscoped.length() - 1 ? unscoped.substring(ASSET_PREFIX.length(), end) : null;
+        }
+        if (key.isEmpty() || key.charAt(0) == NAMESPACE || key.equals(ROOT_ASSET_ID)) {
+            return null;
+        }
+        return key;
+    }
+
+    // tenant/tenantId 를 뗀 기본 tenant 형식의 key. tenant key 가 아니면 그대로 돌려준다.
+    private static String unscoped(String key) {
+        if (!key.startsWith(TENANT_PREFIX)) {
+            return key;
+        }
+        int end = key.indexOf(NAMESPACE, TENANT_PREFIX.length());
+        return end < 0 ? key : key.substring(end);
+    }
+}
@@ -0,0 +1,263 @@
+package org.hyperledger.fabric.samples.assettransfer.ledger;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.hyperledger.fabric.protos.common.Block;
+import org.hyperledger.fabric.protos.common.BlockData;
+import org.hyperledger.fabric.protos.common.BlockHeader;
+import org.hyperledger.fabric.protos.common.BlockMetadata;
+import org.hyperledger.fabric.protos.common.BlockMetadataIndex;
+import org.hyperledger.fabric.protos.common.ChannelHeader;
+import org.hyperledger.fabric.protos.common.Envelope;
+import org.hyperledger.fabric.protos.common.Payload;
+import org.hyperledger.fabric.protos.ledger.rwset.NsReadWriteSet;
+import org.hyperledger.fabric.protos.ledger.rwset.TxReadWriteSet;
+import org.hyperledger.fabric.protos.ledger.rwset.kvrwset.KVRWSet;
+import org.hyperledger.fabric.protos.ledger.rwset.kvrwset.KVRead;
+import org.hyperledger.fabric.protos.ledger.rwset.kvrwset.KVWrite;
+import org.hyperledger.fabric.protos.peer.ChaincodeAction;
+import org.hyperledger.fabric.protos.peer.ChaincodeActionPayload;
+import org.hyperledger.fabric.protos.peer.ChaincodeEvent;
+import org.hyperledger.fabric.protos.peer.ChaincodeInvocationSpec;
+import org.hyperledger.fabric.protos.peer.ChaincodeProposalPayload;
+import org.hyperledger.fabric.protos.peer.ChaincodeSpec;
+import org.hyperledger.fabric.protos.peer.ProposalResponsePayload;
+import org.hyperledger.fabric.protos.peer.Transaction;
+import org.hyperledger.fabric.protos.peer.TransactionAction;
+
+/**
+ * peer / orderer 의 blockfile_NNNNNN 을 순서대로 읽는다 (read-only).
+ * blkstorage 는 block 마다 [varint 길이][header, data, metadata 를 이어붙인 직렬화] 형식으로 저장한다.
+ * 마지막 block 이 잘려 있으면(비정상 종료) 거기서 멈춘다.
+ * block 안의 envelope, rwset, event 는 fabric-protos 의 생성 class 로 decode 한다.
+ */
+public final class BlockFileReader implements Iterable<LedgerBlock> {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final List<Path> blockFiles;
+
+    private BlockFileReader(List<Path> blockFiles) {
+        this.blockFiles = blockFiles;
+    }
+
+    /**
+     * @param chainsDir ledgersData/chains/chains/&lt;channel&gt; 또는 orderer 의 chains/&lt;channel&gt;
+     */
+    public static BlockFileReader open(Path chainsDir) throws IOException {
+        try (Stream<Path> files = Files.list(chainsDir)) {
+            return new BlockFileReader(files
+                    .filter(file -> file.getFileName().toString().startsWith("blockfile_"))
+                    .sorted()
+                    .collect(Collectors.toList()));
+        }
+    }
+
+    public List<Path> getBlockFiles() {
+        return blockFiles;
+    }
+
+    @Override
+    public Iterator<LedgerBlock> iterator() {
+        return new Iterator<LedgerBlock>() {
+            private int fileIndex = -1;
+            private DataInputStream input;
+            private LedgerBlock next = advance();
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public LedgerBlock next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                LedgerBlock current = next;
+                next = advance();
+                return current;
+            }
+
+            private LedgerBlock advance() {
+                try {
+                    while (true) {
+                        if (input == null) {
+                            if (++fileIndex >= blockFiles.size()) {
+                                return null;
+                            }
+                            input = new DataInputStream(new BufferedInputStream(Files.newInputStream(blockFiles.get(fileIndex)), BUFFER_SIZE));
+                        }
+
+                        byte[] serialized = readBlockBytes(input);
+                        if (serialized != null) {
+                            return decodeStoredBlock(serialized);
+                        }
+                        input.close();
+                        input = null;
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    private static byte[] readBlockBytes(DataInputStream input) throws IOException {
+        int first = input.read();
+        if (first < 0) {
+            return null;
+        }
+        int length;
+        try {
+            length = CodedInputStream.readRawVarint32(first, input);
+        } catch (InvalidProtocolBufferException e) {
+            return null;
+        }
+        if (length == 0) {
+            return null;
+        }
+
+        byte[] serialized = new byte[length];
+        try {
+            input.readFully(serialized);
+        } catch (EOFException e) {
+            return null;
+        }
+        return serialized;
+    }
+
+    static LedgerBlock decodeStoredBlock(byte[] serialized) throws IOException {
+        // blkstorage 직렬화는 proto.Buffer 의 EncodeVarint / EncodeRawBytes 를 이어붙인 것이라 common.Block 으로 다시 묶는다
+        CodedInputStream input = CodedInputStream.newInstance(serialized);
+        BlockHeader header = BlockHeader.newBuilder()
+                .setNumber(input.readUInt64())
+                .setDataHash(input.readBytes())
+                .setPreviousHash(input.readBytes())
+                .build();
+
+        int dataCount = input.readUInt32();
+        BlockData.Builder data = BlockData.newBuilder();
+        for (int i = 0; i < dataCount; i++) {
+            data.addData(input.readBytes());
+        }
+
+        BlockMetadata.Builder metadata = BlockMetadata.newBuilder();
+        if (!input.isAtEnd()) {
+            int metadataCount = input.readUInt32();
+            for (int i = 0; i < metadataCount; i++) {
+                metadata.addMetadata(input.readBytes());
+            }
+        }
+
+        return decodeBlock(Block.newBuilder().setHeader(header).setData(data).setMetadata(metadata).build());
+    }
+
+    /**
+     * common.Block protobuf 직렬화(deliver service, gateway block event 의 Block.toByteArray())를 decode 한다.
+     */
+    public static LedgerBlock decodeBlockMessage(byte[] block) throws InvalidProtocolBufferException {
+        return decodeBlock(Block.parseFrom(block));
+    }
+
+    /**
+     * gateway block event 로 받은 common.Block 을 decode 한다.
+     */
+    public static LedgerBlock decodeBlock(Block block) throws InvalidProtocolBufferException {
+        long number = block.getHeader().getNumber();
+        List<ByteString> envelopes = block.getData().getDataList();
+        List<ByteString> metadata = block.getMetadata().getMetadataList();
+        int filterIndex = BlockMetadataIndex.TRANSACTIONS_FILTER_VALUE;
+        ByteString transactionFilter = metadata.size() > filterIndex ? metadata.get(filterIndex) : ByteString.EMPTY;
+
+        List<LedgerTransaction> transactions = new ArrayList<>(envelopes.size());
+        for (int i = 0; i < envelopes.size(); i++) {
+            int validationCode = i < transactionFilter.size() ? transactionFilter.byteAt(i) & 0xFF : LedgerTransaction.VALID;
+            transactions.add(decodeEnvelope(number, i, envelopes.get(i), validationCode));
+        }
+        return new LedgerBlock(number, transactions);
+    }
+
+    static LedgerTransaction decodeEnvelope(long blockNumber, int index, ByteString envelope, int validationCode) throws InvalidProtocolBufferException {
+        Payload payload = Payload.parseFrom(Envelope.parseFrom(envelope).getPayload());
+        ChannelHeader channelHeader = ChannelHeader.parseFrom(payload.getHeader().getChannelHeader());
+        Instant timestamp = Instant.ofEpochSecond(channelHeader.getTimestamp().getSeconds(), channelHeader.getTimestamp().getNanos());
+
+        Endorsement endorsement = new Endorsement();
+        if (channelHeader.getType() == LedgerTransaction.ENDORSER_TRANSACTION) {
+            decodeEndorserTransaction(Transaction.parseFrom(payload.getData()), endorsement);
+        }
+
+        return new LedgerTransaction(blockNumber, index, channelHeader.getType(), channelHeader.getTxId(), channelHeader.getChannelId(), timestamp, validationCode,
+                endorsement.chaincodeName, endorsement.args, endorsement.writes, endorsement.reads, endorsement.eventName, endorsement.eventPayload);
+    }
+
+    private static final class Endorsement {
+        private String chaincodeName;
+        private final List<byte[]> args = new ArrayList<>();
+        private final List<KeyWrite> writes = new ArrayList<>();
+        private final List<KeyRead> reads = new ArrayList<>();
+        private String eventName;
+        private byte[] eventPayload;
+    }
+
+    // Transaction -> TransactionAction -> ChaincodeActionPayload
+    private static void decodeEndorserTransaction(Transaction transaction, Endorsement endorsement) throws InvalidProtocolBufferException {
+        for (TransactionAction action : transaction.getActionsList()) {
+            ChaincodeActionPayload actionPayload = ChaincodeActionPayload.parseFrom(action.getPayload());
+            decodeProposalPayload(ChaincodeProposalPayload.parseFrom(actionPayload.getChaincodeProposalPayload()), endorsement);
+
+            ProposalResponsePayload proposalResponsePayload = ProposalResponsePayload.parseFrom(actionPayload.getAction().getProposalResponsePayload());
+            ChaincodeAction chaincodeAction = ChaincodeAction.parseFrom(proposalResponsePayload.getExtension());
+            decodeReadWriteSet(TxReadWriteSet.parseFrom(chaincodeAction.getResults()), endorsement);
+
+            if (!chaincodeAction.getEvents().isEmpty()) {
+                ChaincodeEvent event = ChaincodeEvent.parseFrom(chaincodeAction.getEvents());
+                endorsement.eventName = event.getEventName();
+                endorsement.eventPayload = event.getPayload().toByteArray();
+            }
+        }
+    }
+
+    // ChaincodeProposalPayload -> ChaincodeInvocationSpec -> ChaincodeSpec{chaincode_id, input}
+    private static void decodeProposalPayload(ChaincodeProposalPayload proposalPayload, Endorsement endorsement) throws InvalidProtocolBufferException {
+        ChaincodeSpec chaincodeSpec = ChaincodeInvocationSpec.parseFrom(proposalPayload.getInput()).getChaincodeSpec();
+        endorsement.chaincodeName = chaincodeSpec.getChaincodeId().getName();
+        for (ByteString arg : chaincodeSpec.getInput().getArgsList()) {
+            endorsement.args.add(arg.toByteArray());
+        }
+    }
+
+    // TxReadWriteSet -> NsReadWriteSet -> KVRWSet
+    private static void decodeReadWriteSet(TxReadWriteSet txReadWriteSet, Endorsement endorsement) throws InvalidProtocolBufferException {
+        for (NsReadWriteSet nsReadWriteSet : txReadWriteSet.getNsRwsetList()) {
+            String namespace = nsReadWriteSet.getNamespace();
+            KVRWSet kvReadWriteSet = KVRWSet.parseFrom(nsReadWriteSet.getRwset());
+            for (KVRead read : kvReadWriteSet.getReadsList()) {
+                // version 이 없으면 읽을 때 key 가 없었다
+                long blockNumber = read.hasVersion() ? read.getVersion().getBlockNum() : -1;
+                long txNumber = read.hasVersion() ? read.getVersion().getTxNum() : -1;
+                endorsement.reads.add(new KeyRead(namespace, read.getKey(), blockNumber, txNumber));
+            }
+            for (KVWrite write : kvReadWriteSet.getWritesList()) {
+                endorsement.writes.add(new KeyWrite(namespace, write.getKey(), write.getValue().toByteArray(), write.getIsDelete()));
+            }
+        }
+    }
+}
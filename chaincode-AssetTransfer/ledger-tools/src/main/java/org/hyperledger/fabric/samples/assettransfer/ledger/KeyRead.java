@@ -0,0 +1,36 @@
+package org.hyperledger.fabric.samples.assettransfer.ledger;
+
+/**
+ * 트랜잭션 read set 의 한 항목. 읽은 시점의 key 버전(block, tx)을 함께 가진다.
+ * key 가 없었으면 blockNumber / txNumber 는 -1 이다.
+ */
+public final class KeyRead {
+
+    private final String namespace;
+    private final String key;
+    private final long blockNumber;
+    private final long txNumber;
+
+    KeyRead(String namespace, String key, long blockNumber, long txNumber) {
+        this.namespace = namespace;
+        this.key = key;
+        this.blockNumber = blockNumber;
+        this.txNumber = txNumber;
+    }
+
+    public String getNamespace() {
+        return namespace;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getBlockNumber() {
+        return blockNumber;
+    }
+
+    public long getTxNumber() {
+        return txNumber;
+    }
+}
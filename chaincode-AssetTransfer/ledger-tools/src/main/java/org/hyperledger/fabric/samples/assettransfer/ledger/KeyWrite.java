@@ -0,0 +1,41 @@
+package org.hyperledger.fabric.samples.assettransfer.ledger;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 트랜잭션 write set 의 한 항목
+ */
+public final class KeyWrite {
+
+    private final String namespace;
+    private final String key;
+    private final byte[] value;
+    private final boolean delete;
+
+    KeyWrite(String namespace, String key, byte[] value, boolean delete) {
+        this.namespace = namespace;
+        this.key = key;
+        this.value = value;
+        this.delete = delete;
+    }
+
+    public String getNamespace() {
+        return namespace;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public byte[] getValue() {
+        return value;
+    }
+
+    public String getStringValue() {
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    public boolean isDelete() {
+        return delete;
+    }
+}
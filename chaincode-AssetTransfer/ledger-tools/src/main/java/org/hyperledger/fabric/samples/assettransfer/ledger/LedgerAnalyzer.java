@@ -0,0 +1,122 @@
+package org.hyperledger.fabric.samples.assettransfer.ledger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * peer 의 ledgersData 를 직접 읽는 offline 분석기
+ * stateLeveldb 에서 tenant 별 잔액 snapshot / coin 별 합계 / key, value 크기 분포를,
+ * block 파일에서 key 별 write 횟수(hot key)를 구한다. peer 가 멈춰 있거나 백업본일 때 사용한다.
+ *
+ * usage: LedgerAnalyzer &lt;ledgersData&gt; [--channel mychannel] [--namespace basic] [--top 20]
+ */
+public final class LedgerAnalyzer {
+
+    public static final String DEFAULT_CHANNEL = "mychannel";
+    public static final String DEFAULT_NAMESPACE = "basic";
+    public static final int DEFAULT_TOP = 20;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private LedgerAnalyzer() {
+    }
+
+    public static LedgerReport analyze(Path ledgersData, String channel, String namespace, int top) throws IOException {
+        LedgerReport report = new LedgerReport(channel, namespace);
+        analyzeState(StateDbReader.open(ledgersData.resolve("stateLeveldb"), channel).getState(namespace), report);
+        analyzeBlocks(BlockFileReader.open(ledgersData.resolve("chains").resolve("chains").resolve(channel)), namespace, top, report);
+        return report;
+    }
+
+    static void analyzeState(Map<String, byte[]> state, LedgerReport report) {
+        for (Map.Entry<String, byte[]> entry : state.entrySet()) {
+            byte[] value = entry.getValue();
+            report.addStateKey(entry.getKey().getBytes(StandardCharsets.UTF_8).length, value.length);
+
+            // assetId 는 tenant 안에서만 유일하므로 key 에서 (tenantId, assetId) 를 읽는다
+            String assetId = AssetKeys.assetId(entry.getKey());
+            JsonNode document = assetId == null ? null : parse(value);
+            JsonNode coin = document == null ? null : document.get("coin");
+            if (coin == null || !coin.isObject()) {
+                report.addNonAssetDocument();
+                continue;
+            }
+
+            String tenantId = AssetKeys.tenantId(entry.getKey());
+            Iterator<Map.Entry<String, JsonNode>> balances = coin.fields();
+            while (balances.hasNext()) {
+                Map.Entry<String, JsonNode> balance = balances.next();
+                report.addBalance(tenantId, assetId, balance.getKey(), balance.getValue().asLong());
+            }
+        }
+    }
+
+    private static void analyzeBlocks(BlockFileReader blocks, String namespace, int top, LedgerReport report) {
+        Map<String, Long> writeCounts = new HashMap<>();
+        for (LedgerBlock block : blocks) {
+            report.countBlock();
+            for (LedgerTransaction transaction : block.getTransactions()) {
+                report.countTransaction(transaction, namespace.equals(transaction.getChaincodeName()));
+                if (!transaction.isValid()) {
+                    continue;
+                }
+                for (KeyWrite write : transaction.getWrites(namespace)) {
+                    writeCounts.merge(write.getKey(), 1L, Long::sum);
+                }
+            }
+        }
+
+        List<Map.Entry<String, Long>> ranked = new ArrayList<>(writeCounts.entrySet());
+        ranked.sort(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        for (Map.Entry<String, Long> entry : ranked.subList(0, Math.min(top, ranked.size()))) {
+            report.addHotKey(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private static JsonNode parse(byte[] value) {
+        try {
+            return objectMapper.readTree(value);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("usage: LedgerAnalyzer <ledgersData> [--channel mychannel] [--namespace basic] [--top 20]");
+            System.exit(1);
+        }
+
+        String channel = DEFAULT_CHANNEL;
+        String namespace = DEFAULT_NAMESPACE;
+        int top = DEFAULT_TOP;
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--channel":
+                    channel = args[i + 1];
+                    break;
+                case "--namespace":
+                    namespace = args[i + 1];
+                    break;
+                case "--top":
+                    top = Integer.parseInt(args[i + 1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        LedgerReport report = analyze(Paths.get(args[0]), channel, namespace, top);
+        System.out.println(objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(report));
+    }
+}
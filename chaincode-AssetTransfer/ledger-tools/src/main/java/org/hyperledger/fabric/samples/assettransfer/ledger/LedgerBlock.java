@@ -0,0 +1,23 @@
+package org.hyperledger.fabric.samples.assettransfer.ledger;
+
+import java.util.Collections;
+import java.util.List;
+
+public final class LedgerBlock {
+
+    private final long number;
+    private final List<LedgerTransaction> transactions;
+
+    LedgerBlock(long number, List<LedgerTransaction> transactions) {
+        this.number = number;
+        this.transactions = Collections.unmodifiableList(transactions);
+    }
+
+    public long getNumber() {
+        return number;
+    }
+
+    public List<LedgerTransaction> getTransactions() {
+        return transactions;
+    }
+}
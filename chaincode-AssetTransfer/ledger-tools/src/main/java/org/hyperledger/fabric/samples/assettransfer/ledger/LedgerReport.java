@@ -0,0 +1,185 @@
+package org.hyperledger.fabric.samples.assettransfer.ledger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * LedgerAnalyzer 결과. Jackson 으로 그대로 JSON 출력한다.
+ */
+public final class LedgerReport {
+
+    private final String channel;
+    private final String namespace;
+
+    private long blocks;
+    private long transactions;
+    private long validTransactions;
+    private long namespaceTransactions;
+
+    private long stateKeys;
+    private long nonAssetDocuments;
+    private final TenantBalances defaultTenant = new TenantBalances();
+    private final Map<String, TenantBalances> tenants = new TreeMap<>();
+    private final Map<String, Long> keySizeHistogram = new TreeMap<>();
+    private final Map<String, Long> valueSizeHistogram = new TreeMap<>();
+    private final List<HotKey> hotKeys = new ArrayList<>();
+
+    public static final class HotKey {
+        private final String key;
+        private final long writes;
+
+        HotKey(String key, long writes) {
+            this.key = key;
+            this.writes = writes;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public long getWrites() {
+            return writes;
+        }
+    }
+
+    /**
+     * tenant 하나의 잔액. assetId 와 coin 이름은 tenant 안에서만 유일하다.
+     */
+    public static final class TenantBalances {
+        private final Map<String, Map<String, Long>> balances = new TreeMap<>();
+        private final Map<String, Long> coinTotals = new TreeMap<>();
+
+        /**
+         * assetId -> coin -> 잔액
+         */
+        public Map<String, Map<String, Long>> getBalances() {
+            return balances;
+        }
+
+        public Map<String, Long> getCoinTotals() {
+            return coinTotals;
+        }
+
+        void add(String assetId, String coinName, long balance) {
+            balances.computeIfAbsent(assetId, id -> new TreeMap<>()).put(coinName, balance);
+            coinTotals.merge(coinName, balance, Long::sum);
+        }
+    }
+
+    LedgerReport(String channel, String namespace) {
+        this.channel = channel;
+        this.namespace = namespace;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    public String getNamespace() {
+        return namespace;
+    }
+
+    public long getBlocks() {
+        return blocks;
+    }
+
+    public long getTransactions() {
+        return transactions;
+    }
+
+    public long getValidTransactions() {
+        return validTransactions;
+    }
+
+    /**
+     * namespace 의 체인코드를 호출한 valid 트랜잭션 수
+     */
+    public long getNamespaceTransactions() {
+        return namespaceTransactions;
+    }
+
+    public long getStateKeys() {
+        return stateKeys;
+    }
+
+    /**
+     * coin 맵이 없는 문서(rootAsset, index, 다른 스키마의 asset 등) 수
+     */
+    public long getNonAssetDocuments() {
+        return nonAssetDocuments;
+    }
+
+    /**
+     * 기본 tenant 의 assetId -> coin -> 잔액
+     */
+    public Map<String, Map<String, Long>> getBalances() {
+        return defaultTenant.getBalances();
+    }
+
+    public Map<String, Long> getCoinTotals() {
+        return defaultTenant.getCoinTotals();
+    }
+
+    /**
+     * 이름이 있는 tenant 의 tenantId -> 잔액
+     */
+    public Map<String, TenantBalances> getTenants() {
+        return tenants;
+    }
+
+    /**
+     * key 길이(byte) 상한 -> key 수
+     */
+    public Map<String, Long> getKeySizeHistogram() {
+        return keySizeHistogram;
+    }
+
+    public Map<String, Long> getValueSizeHistogram() {
+        return valueSizeHistogram;
+    }
+
+    public List<HotKey> getHotKeys() {
+        return hotKeys;
+    }
+
+    void countBlock() {
+        blocks++;
+    }
+
+    void countTransaction(LedgerTransaction transaction, boolean inNamespace) {
+        transactions++;
+        if (transaction.isValid()) {
+            validTransactions++;
+            if (inNamespace) {
+                namespaceTransactions++;
+            }
+        }
+    }
+
+    void addStateKey(int keyBytes, int valueBytes) {
+        stateKeys++;
+        keySizeHistogram.merge(bucket(keyBytes), 1L, Long::sum);
+        valueSizeHistogram.merge(bucket(valueBytes), 1L, Long::sum);
+    }
+
+    void addNonAssetDocument() {
+        nonAssetDocuments++;
+    }
+
+    void addBalance(String tenantId, String assetId, String coinName, long balance) {
+        TenantBalances tenant = tenantId == null ? defaultTenant : tenants.computeIfAbsent(tenantId, id -> new TenantBalances());
+        tenant.add(assetId, coinName, balance);
+    }
+
+    void addHotKey(String key, long writes) {
+        hotKeys.add(new HotKey(key, writes));
+    }
+
+    // size 이상인 가장 작은 2 의 거듭제곱으로 묶는다. 문자열 정렬이 크기 순이 되도록 0 으로 채운다.
+    static String bucket(int size) {
+        int upper = size <= 1 ? size : Integer.highestOneBit(size - 1) << 1;
+        return String.format("<=%08d", upper);
+    }
+}
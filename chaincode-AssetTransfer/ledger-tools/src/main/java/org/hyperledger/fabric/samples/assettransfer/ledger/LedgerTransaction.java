@@ -0,0 +1,135 @@
+package org.hyperledger.fabric.samples.assettransfer.ledger;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.hyperledger.fabric.protos.common.HeaderType;
+import org.hyperledger.fabric.protos.peer.TxValidationCode;
+
+/**
+ * block 안의 트랜잭션 하나를 분석에 필요한 만큼 decode 한 것
+ */
+public final class LedgerTransaction {
+
+    public static final int ENDORSER_TRANSACTION = HeaderType.ENDORSER_TRANSACTION_VALUE;
+
+    public static final int VALID = TxValidationCode.VALID_VALUE;
+
+    private final long blockNumber;
+    private final int index;
+    private final int type;
+    private final String txId;
+    private final String channelId;
+    private final Instant timestamp;
+    private final int validationCode;
+    private final String chaincodeName;
+    private final List<byte[]> args;
+    private final List<KeyWrite> writes;
+    private final List<KeyRead> reads;
+    private final String eventName;
+    private final byte[] eventPayload;
+
+    LedgerTransaction(long blockNumber, int index, int type, String txId, String channelId, Instant timestamp, int validationCode,
+                      String chaincodeName, List<byte[]> args, List<KeyWrite> writes, List<KeyRead> reads, String eventName, byte[] eventPayload) {
+        this.blockNumber = blockNumber;
+        this.index = index;
+        this.type = type;
+        this.txId = txId;
+        this.channelId = channelId;
+        this.timestamp = timestamp;
+        this.validationCode = validationCode;
+        this.chaincodeName = chaincodeName;
+        this.args = Collections.unmodifiableList(args);
+        this.writes = Collections.unmodifiableList(writes);
+        this.reads = Collections.unmodifiableList(reads);
+        this.eventName = eventName;
+        this.eventPayload = eventPayload;
+    }
+
+    public long getBlockNumber() {
+        return blockNumber;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    public String getTxId() {
+        return txId;
+    }
+
+    public String getChannelId() {
+        return channelId;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public int getValidationCode() {
+        return validationCode;
+    }
+
+    public boolean isValid() {
+        return validationCode == VALID;
+    }
+
+    public boolean isEndorserTransaction() {
+        return type == ENDORSER_TRANSACTION;
+    }
+
+    /**
+     * proposal 에서 호출한 체인코드 이름. endorser 트랜잭션이 아니면 null
+     */
+    public String getChaincodeName() {
+        return chaincodeName;
+    }
+
+    /**
+     * proposal 의 ChaincodeInput.args. 첫 번째가 함수 이름이다.
+     */
+    public List<byte[]> getArgs() {
+        return args;
+    }
+
+    public List<String> getStringArgs() {
+        List<String> stringArgs = new ArrayList<>(args.size());
+        for (byte[] arg : args) {
+            stringArgs.add(new String(arg, StandardCharsets.UTF_8));
+        }
+        return stringArgs;
+    }
+
+    public List<KeyWrite> getWrites() {
+        return writes;
+    }
+
+    public List<KeyWrite> getWrites(String namespace) {
+        List<KeyWrite> namespaceWrites = new ArrayList<>();
+        for (KeyWrite write : writes) {
+            if (write.getNamespace().equals(namespace)) {
+                namespaceWrites.add(write);
+            }
+        }
+        return namespaceWrites;
+    }
+
+    public List<KeyRead> getReads() {
+        return reads;
+    }
+
+    public String getEventName() {
+        return eventName;
+    }
+
+    public byte[] getEventPayload() {
+        return eventPayload;
+    }
+}
@@ -0,0 +1,220 @@
+package org.hyperledger.fabric.samples.assettransfer.ledger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * peer 가 떠 있지 않은 LevelDB 디렉토리를 read-only 로 읽어 최신 key / value 를 만든다.
+ * LOCK 은 잡지 않고, 모든 table(.ldb/.sst)과 write-ahead log(.log)를 읽어 key 마다 sequence 가 가장 큰 항목을 남긴다.
+ * key 는 byte 를 그대로 보존하도록 ISO-8859-1 String 으로 다루며, 이 String 의 정렬 순서는 LevelDB 의 bytewise 순서와 같다.
+ */
+public final class LevelDbReader {
+
+    private static final long TABLE_MAGIC = 0xdb4775248b80fb57L;
+    private static final int FOOTER_SIZE = 48;
+    private static final int BLOCK_TRAILER_SIZE = 5;
+    private static final int SNAPPY_COMPRESSION = 1;
+
+    private static final int LOG_BLOCK_SIZE = 32768;
+    private static final int LOG_HEADER_SIZE = 7;
+    private static final int LOG_FULL = 1;
+    private static final int LOG_FIRST = 2;
+    private static final int LOG_MIDDLE = 3;
+    private static final int LOG_LAST = 4;
+
+    private static final int TYPE_DELETION = 0;
+    private static final int TYPE_VALUE = 1;
+
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    private static final class Entry {
+        private final long sequence;
+        private final byte[] value;
+
+        private Entry(long sequence, byte[] value) {
+            this.sequence = sequence;
+            this.value = value;
+        }
+    }
+
+    private LevelDbReader() {
+    }
+
+    public static LevelDbReader open(Path directory) throws IOException {
+        LevelDbReader reader = new LevelDbReader();
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.sorted().collect(Collectors.toList());
+        }
+
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            if (name.endsWith(".ldb") || name.endsWith(".sst")) {
+                reader.readTable(file);
+            } else if (name.endsWith(".log") && !name.equals("LOG")) {
+                reader.readLog(file);
+            }
+        }
+        return reader;
+    }
+
+    /**
+     * 삭제되지 않은 최신 값 전체 (key 순)
+     */
+    public NavigableMap<String, byte[]> snapshot() {
+        NavigableMap<String, byte[]> snapshot = new TreeMap<>();
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            if (entry.getValue().value != null) {
+                snapshot.put(entry.getKey(), entry.getValue().value);
+            }
+        }
+        return Collections.unmodifiableNavigableMap(snapshot);
+    }
+
+    public static String key(byte[] bytes) {
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    public static byte[] bytes(String key) {
+        return key.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private void put(byte[] userKey, long sequence, int type, byte[] value) {
+        String key = key(userKey);
+        Entry current = entries.get(key);
+        if (current == null || current.sequence < sequence) {
+            entries.put(key, new Entry(sequence, type == TYPE_VALUE ? value : null));
+        }
+    }
+
+    private void readTable(Path file) throws IOException {
+        ByteBuffer table;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            table = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        if (table.capacity() < FOOTER_SIZE || table.getLong(table.capacity() - 8) != TABLE_MAGIC) {
+            throw new IOException(file + " is not a LevelDB table");
+        }
+
+        byte[] footer = new byte[FOOTER_SIZE];
+        table.position(table.capacity() - FOOTER_SIZE);
+        table.get(footer);
+        ProtoReader footerReader = new ProtoReader(footer);
+        footerReader.readVarint(); // metaindex offset
+        footerReader.readVarint(); // metaindex size
+        long indexOffset = footerReader.readVarint();
+        long indexSize = footerReader.readVarint();
+
+        byte[] index = readBlock(table, indexOffset, indexSize);
+        forEachBlockEntry(index, (key, handle) -> {
+            ProtoReader handleReader = new ProtoReader(handle);
+            long offset = handleReader.readVarint();
+            long size = handleReader.readVarint();
+            forEachBlockEntry(readBlock(table, offset, size), (internalKey, value) -> {
+                int userKeyLength = internalKey.length - 8;
+                long trailer = ByteBuffer.wrap(internalKey, userKeyLength, 8).order(ByteOrder.LITTLE_ENDIAN).getLong();
+                byte[] userKey = new byte[userKeyLength];
+                System.arraycopy(internalKey, 0, userKey, 0, userKeyLength);
+                put(userKey, trailer >>> 8, (int) (trailer & 0xFF), value);
+            });
+        });
+    }
+
+    private static byte[] readBlock(ByteBuffer table, long offset, long size) {
+        byte[] block = new byte[(int) size + BLOCK_TRAILER_SIZE];
+        table.position((int) offset);
+        table.get(block);
+        int compression = block[(int) size];
+        if (compression == SNAPPY_COMPRESSION) {
+            return Snappy.uncompress(block, 0, (int) size);
+        }
+        byte[] raw = new byte[(int) size];
+        System.arraycopy(block, 0, raw, 0, (int) size);
+        return raw;
+    }
+
+    private interface BlockEntryConsumer {
+        void accept(byte[] key, byte[] value);
+    }
+
+    private static void forEachBlockEntry(byte[] block, BlockEntryConsumer consumer) {
+        ByteBuffer buffer = ByteBuffer.wrap(block).order(ByteOrder.LITTLE_ENDIAN);
+        int restarts = buffer.getInt(block.length - 4);
+        int limit = block.length - 4 - 4 * restarts;
+
+        ProtoReader reader = new ProtoReader(block, 0, limit);
+        byte[] previousKey = new byte[0];
+        while (reader.hasRemaining()) {
+            int shared = (int) reader.readVarint();
+            int nonShared = (int) reader.readVarint();
+            int valueLength = (int) reader.readVarint();
+            byte[] key = new byte[shared + nonShared];
+            System.arraycopy(previousKey, 0, key, 0, shared);
+            reader.readRaw(key, shared, nonShared);
+            byte[] value = new byte[valueLength];
+            reader.readRaw(value, 0, valueLength);
+
+            consumer.accept(key, value);
+            previousKey = key;
+        }
+    }
+
+    private void readLog(Path file) throws IOException {
+        byte[] log = Files.readAllBytes(file);
+        ByteBuffer buffer = ByteBuffer.wrap(log).order(ByteOrder.LITTLE_ENDIAN);
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+
+        int position = 0;
+        while (position + LOG_HEADER_SIZE <= log.length) {
+            int blockRemaining = LOG_BLOCK_SIZE - position % LOG_BLOCK_SIZE;
+            if (blockRemaining < LOG_HEADER_SIZE) {
+                position += blockRemaining;
+                continue;
+            }
+
+            int length = buffer.getShort(position + 4) & 0xFFFF;
+            int type = log[position + 6];
+            if (type == 0 || position + LOG_HEADER_SIZE + length > log.length) {
+                break;
+            }
+            record.write(log, position + LOG_HEADER_SIZE, length);
+            position += LOG_HEADER_SIZE + length;
+
+            if (type == LOG_FULL || type == LOG_LAST) {
+                applyWriteBatch(record.toByteArray());
+                record.reset();
+            } else if (type != LOG_FIRST && type != LOG_MIDDLE) {
+                break;
+            }
+        }
+    }
+
+    private void applyWriteBatch(byte[] batch) {
+        ByteBuffer header = ByteBuffer.wrap(batch).order(ByteOrder.LITTLE_ENDIAN);
+        long sequence = header.getLong(0);
+        int count = header.getInt(8);
+
+        ProtoReader reader = new ProtoReader(batch, 12, batch.length - 12);
+        for (int i = 0; i < count && reader.hasRemaining(); i++) {
+            int type = (int) reader.readVarint();
+            byte[] key = reader.readBytes();
+            byte[] value = type == TYPE_VALUE ? reader.readBytes() : null;
+            put(key, sequence + i, type, value);
+        }
+    }
+}
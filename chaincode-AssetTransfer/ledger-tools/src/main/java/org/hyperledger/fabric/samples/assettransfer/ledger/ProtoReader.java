@@ -0,0 +1,113 @@
+package org.hyperledger.fabric.samples.assettransfer.ledger;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * LevelDB 의 varint 와 statedb DBValue 를 읽는 최소 decoder
+ * block / rwset 은 fabric-protos 로 decode 하고, 이 class 는 proto 정의가 공개되지 않은 LevelDB 쪽 형식에만 쓴다.
+ */
+final class ProtoReader {
+
+    private static final int VARINT = 0;
+    private static final int FIXED64 = 1;
+    private static final int LENGTH_DELIMITED = 2;
+    private static final int FIXED32 = 5;
+
+    private final byte[] buffer;
+    private final int limit;
+    private int position;
+
+    private int field;
+    private int wireType;
+
+    ProtoReader(byte[] buffer) {
+        this(buffer, 0, buffer.length);
+    }
+
+    ProtoReader(byte[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.position = offset;
+        this.limit = offset + length;
+    }
+
+    /**
+     * 다음 field 의 tag 를 읽는다.
+     *
+     * @return 더 읽을 field 가 있으면 true
+     */
+    boolean next() {
+        if (position >= limit) {
+            return false;
+        }
+        long tag = readVarint();
+        field = (int) (tag >>> 3);
+        wireType = (int) (tag & 0x7);
+        return true;
+    }
+
+    boolean hasRemaining() {
+        return position < limit;
+    }
+
+    int field() {
+        return field;
+    }
+
+    long readVarint() {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (position >= limit) {
+                throw new IllegalStateException("Truncated varint");
+            }
+            byte b = buffer[position++];
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IllegalStateException("Malformed varint");
+    }
+
+    byte[] readBytes() {
+        int length = (int) readVarint();
+        if (length < 0 || position + length > limit) {
+            throw new IllegalStateException("Truncated length-delimited field " + field);
+        }
+        byte[] bytes = new byte[length];
+        System.arraycopy(buffer, position, bytes, 0, length);
+        position += length;
+        return bytes;
+    }
+
+    void readRaw(byte[] target, int offset, int length) {
+        if (position + length > limit) {
+            throw new IllegalStateException("Truncated raw bytes");
+        }
+        System.arraycopy(buffer, position, target, offset, length);
+        position += length;
+    }
+
+    String readString() {
+        return new String(readBytes(), StandardCharsets.UTF_8);
+    }
+
+    void skip() {
+        switch (wireType) {
+            case VARINT:
+                readVarint();
+                break;
+            case FIXED64:
+                position += 8;
+                break;
+            case LENGTH_DELIMITED:
+                int length = (int) readVarint();
+                position += length;
+                break;
+            case FIXED32:
+                position += 4;
+                break;
+            default:
+                throw new IllegalStateException("Unsupported wire type " + wireType + " for field " + field);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.hyperledger.fabric.samples.assettransfer.ledger;
+
+/**
+ * LevelDB block 용 snappy raw format decoder
+ */
+final class Snappy {
+
+    private Snappy() {
+    }
+
+    static byte[] uncompress(byte[] input, int offset, int length) {
+        int position = offset;
+        int limit = offset + length;
+
+        int uncompressedLength = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = input[position++] & 0xFF;
+            uncompressedLength |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+        }
+
+        byte[] output = new byte[uncompressedLength];
+        int written = 0;
+        while (position < limit) {
+            int tag = input[position++] & 0xFF;
+            switch (tag & 0x3) {
+                case 0: {
+                    int literalLength = tag >>> 2;
+                    if (literalLength >= 60) {
+                        int bytes = literalLength - 59;
+                        literalLength = 0;
+                        for (int i = 0; i < bytes; i++) {
+                            literalLength |= (input[position++] & 0xFF) << (8 * i);
+                        }
+                    }
+                    literalLength += 1;
+                    System.arraycopy(input, position, output, written, literalLength);
+                    position += literalLength;
+                    written += literalLength;
+                    break;
+                }
+                case 1: {
+                    int copyLength = 4 + ((tag >>> 2) & 0x7);
+                    int copyOffset = ((tag >>> 5) << 8) | (input[position++] & 0xFF);
+                    written = copy(output, written, copyOffset, copyLength);
+                    break;
+                }
+                case 2: {
+                    int copyLength = (tag >>> 2) + 1;
+                    int copyOffset = (input[position] & 0xFF) | (input[position + 1] & 0xFF) << 8;
+                    position += 2;
+                    written = copy(output, written, copyOffset, copyLength);
+                    break;
+                }
+                default: {
+                    int copyLength = (tag >>> 2) + 1;
+                    int copyOffset = (input[position] & 0xFF) | (input[position + 1] & 0xFF) << 8
+                            | (input[position + 2] & 0xFF) << 16 | (input[position + 3] & 0xFF) << 24;
+                    position += 4;
+                    written = copy(output, written, copyOffset, copyLength);
+                }
+            }
+        }
+
+        if (written != uncompressedLength) {
+            throw new IllegalStateException("Snappy block decoded to " + written + " bytes, expected " + uncompressedLength);
+        }
+        return output;
+    }
+
+    // 겹치는 copy(offset < length)는 run-length 반복이므로 한 byte 씩 복사한다
+    private static int copy(byte[] output, int written, int offset, int length) {
+        if (offset <= 0 || offset > written) {
+            throw new IllegalStateException("Invalid snappy copy offset " + offset);
+        }
+        int from = written - offset;
+        for (int i = 0; i < length; i++) {
+            output[written + i] = output[from + i];
+        }
+        return written + length;
+    }
+}
@@ -0,0 +1,222 @@
+package org.hyperledger.fabric.samples.assettransfer.ledger;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * ExportSnapshot 이 돌려준 chunk JSON 들을 하나의 zip archive 로 묶고 검증하는 CLI
+ * archive 에는 manifest.json 과 index 를 붙인 chunks/00000.json ... 이 들어간다.
+ * 가져올 때는 chunk 를 index 순서대로 ImportSnapshot 에 넘기고 마지막에 manifest 를 FinishSnapshotImport 에 넘긴다.
+ *
+ * manifest 의 digest 는 chunk sha256 을 순서대로 이은 hash 이다: d(0) = "", d(i+1) = sha256(d(i) + chunk(i).sha256)
+ *
+ * usage: SnapshotArchive assemble &lt;archive.zip&gt; &lt;chunk.json&gt;...
+ *        SnapshotArchive verify &lt;archive.zip&gt;
+ */
+public final class SnapshotArchive {
+
+    public static final int VERSION = 1;
+    public static final String MANIFEST_ENTRY = "manifest.json";
+    public static final String CHUNK_ENTRY_FORMAT = "chunks/%05d.json";
+
+    // chaincode 의 MAX_SNAPSHOT_CHUNK_BYTES 와 같다
+    private static final long MAX_CHUNK_RAW_BYTES = 16 * 1024 * 1024;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private SnapshotArchive() {
+    }
+
+    /**
+     * chunk 파일을 주어진 순서대로 검증하고 index 를 붙여 archive 로 쓴다
+     *
+     * @return manifest
+     * @throws IllegalStateException chunk 가 깨졌거나 마지막 chunk 에 다음 bookmark 가 남아 있을 때
+     */
+    public static ObjectNode assemble(Path archive, List<Path> chunkFiles) throws IOException {
+        if (chunkFiles.isEmpty()) {
+            throw new IllegalArgumentException("No snapshot chunks");
+        }
+
+        List<ObjectNode> chunks = new ArrayList<>(chunkFiles.size());
+        for (Path chunkFile : chunkFiles) {
+            JsonNode chunk = objectMapper.readTree(chunkFile.toFile());
+            if (!(chunk instanceof ObjectNode)) {
+                throw new IllegalStateException(chunkFile + " is not a snapshot chunk");
+            }
+            ObjectNode indexed = (ObjectNode) chunk;
+            indexed.put("index", chunks.size());
+            chunks.add(indexed);
+        }
+        String lastBookmark = chunks.get(chunks.size() - 1).path("bookmark").asText("");
+        if (!lastBookmark.isEmpty()) {
+            throw new IllegalStateException("Snapshot export is incomplete, next bookmark " + lastBookmark);
+        }
+
+        ObjectNode manifest = manifest(chunks);
+        try (OutputStream file = Files.newOutputStream(archive);
+             ZipOutputStream zip = new ZipOutputStream(file)) {
+            zip.putNextEntry(new ZipEntry(MANIFEST_ENTRY));
+            zip.write(objectMapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(manifest));
+            zip.closeEntry();
+            for (ObjectNode chunk : chunks) {
+                zip.putNextEntry(new ZipEntry(String.format(CHUNK_ENTRY_FORMAT, chunk.get("index").asInt())));
+                zip.write(objectMapper.writeValueAsBytes(chunk));
+                zip.closeEntry();
+            }
+        }
+        return manifest;
+    }
+
+    /**
+     * archive 의 chunk 를 모두 다시 검증하고 manifest 합계와 비교한다
+     *
+     * @return manifest
+     * @throws IllegalStateException chunk 가 깨졌거나 manifest 와 다를 때
+     */
+    public static ObjectNode verify(Path archive) throws IOException {
+        try (ZipFile zip = new ZipFile(archive.toFile())) {
+            ZipEntry manifestEntry = zip.getEntry(MANIFEST_ENTRY);
+            if (manifestEntry == null) {
+                throw new IllegalStateException(archive + " has no " + MANIFEST_ENTRY);
+            }
+            JsonNode manifest;
+            try (InputStream in = zip.getInputStream(manifestEntry)) {
+                manifest = objectMapper.readTree(in);
+            }
+
+            List<ObjectNode> chunks = new ArrayList<>();
+            for (int index = 0; ; index++) {
+                ZipEntry entry = zip.getEntry(String.format(CHUNK_ENTRY_FORMAT, index));
+                if (entry == null) {
+                    break;
+                }
+                try (InputStream in = zip.getInputStream(entry)) {
+                    chunks.add((ObjectNode) objectMapper.readTree(in));
+                }
+            }
+
+            ObjectNode actual = manifest(chunks);
+            for (String field : new String[]{"version", "chunks", "records", "rawBytes", "digest"}) {
+                if (!actual.path(field).asText().equals(manifest.path(field).asText())) {
+                    throw new IllegalStateException("Snapshot archive does not match manifest: " + actual + " != " + manifest);
+                }
+            }
+            return actual;
+        }
+    }
+
+    static ObjectNode manifest(List<ObjectNode> chunks) {
+        long records = 0;
+        long rawBytes = 0;
+        String digest = "";
+        for (int index = 0; index < chunks.size(); index++) {
+            ObjectNode chunk = chunks.get(index);
+            if (chunk.path("index").asInt(-1) != index) {
+                throw new IllegalStateException("Snapshot chunk " + index + " has index " + chunk.path("index"));
+            }
+            verifyChunk(chunk);
+            records += chunk.get("records").asLong();
+            rawBytes += chunk.get("rawBytes").asLong();
+            digest = sha256((digest + chunk.get("sha256").asText()).getBytes(StandardCharsets.UTF_8));
+        }
+
+        ObjectNode manifest = objectMapper.createObjectNode();
+        manifest.put("version", VERSION);
+        manifest.put("chunks", chunks.size());
+        manifest.put("records", records);
+        manifest.put("rawBytes", rawBytes);
+        manifest.put("digest", digest);
+        return manifest;
+    }
+
+    // 압축을 풀어 sha256, rawBytes, record 수를 확인한다
+    static void verifyChunk(JsonNode chunk) {
+        int index = chunk.path("index").asInt(-1);
+        long rawBytes = chunk.path("rawBytes").asLong(-1);
+        if (!chunk.hasNonNull("data") || !chunk.hasNonNull("sha256") || rawBytes < 0 || rawBytes > MAX_CHUNK_RAW_BYTES) {
+            throw new IllegalStateException("Snapshot chunk " + index + " is incomplete or too large");
+        }
+
+        byte[] payload;
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(chunk.get("data").asText())))) {
+            payload = in.readNBytes((int) rawBytes + 1);
+        } catch (IllegalArgumentException | IOException e) {
+            throw new IllegalStateException("Snapshot chunk " + index + " is not valid gzip/base64: " + e.getMessage());
+        }
+        if (payload.length != rawBytes || !sha256(payload).equals(chunk.get("sha256").asText())) {
+            throw new IllegalStateException("Snapshot chunk " + index + " checksum mismatch");
+        }
+
+        int records = countRecords(payload);
+        if (records != chunk.path("records").asInt(-1)) {
+            throw new IllegalStateException("Snapshot chunk " + index + " has " + records + " records, expected " + chunk.path("records"));
+        }
+    }
+
+    // record: kind(1 byte), id(modified UTF-8), value 길이(int), value
+    private static int countRecords(byte[] payload) {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        int records = 0;
+        try {
+            while (in.available() > 0) {
+                in.readByte();
+                in.readUTF();
+                int length = in.readInt();
+                if (length < 0 || in.skipBytes(length) != length) {
+                    throw new EOFException();
+                }
+                records++;
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Truncated snapshot record " + records);
+        }
+        return records;
+    }
+
+    static String sha256(byte[] content) {
+        try {
+            return String.format("%064x", new BigInteger(1, MessageDigest.getInstance("SHA-256").digest(content)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 3 && args[0].equals("assemble")) {
+            List<Path> chunkFiles = new ArrayList<>();
+            for (int i = 2; i < args.length; i++) {
+                chunkFiles.add(Paths.get(args[i]));
+            }
+            System.out.println(objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(assemble(Paths.get(args[1]), chunkFiles)));
+        } else if (args.length == 2 && args[0].equals("verify")) {
+            System.out.println(objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(verify(Paths.get(args[1]))));
+        } else {
+            System.out.println("usage: SnapshotArchive assemble <archive.zip> <chunk.json>...");
+            System.out.println("       SnapshotArchive verify <archive.zip>");
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.hyperledger.fabric.samples.assettransfer.ledger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * peer 의 stateLeveldb 에서 채널 / 체인코드 namespace 의 world state 를 꺼낸다.
+ * key 는 leveldbhelper 의 "channel 0x00" prefix 뒤에 stateleveldb 의 "'d' namespace 0x00 key" 형식이고,
+ * value 는 DBValue{version_bytes = 1, value = 2, metadata = 3} 이다.
+ */
+public final class StateDbReader {
+
+    private static final char SEPARATOR = '\u0000';
+    private static final char DATA_KEY_PREFIX = 'd';
+    // LevelDbReader 의 key 는 ISO-8859-1 이므로 모든 key 보다 크다
+    private static final char KEY_STOPPER = '\uFFFF';
+
+    private final String dataPrefix;
+    private final NavigableMap<String, byte[]> channelData;
+
+    private StateDbReader(String dataPrefix, NavigableMap<String, byte[]> channelData) {
+        this.dataPrefix = dataPrefix;
+        this.channelData = channelData;
+    }
+
+    /**
+     * @param stateLevelDb ledgersData/stateLeveldb
+     */
+    public static StateDbReader open(Path stateLevelDb, String channel) throws IOException {
+        String dataPrefix = latin1(channel) + SEPARATOR + DATA_KEY_PREFIX;
+        NavigableMap<String, byte[]> snapshot = LevelDbReader.open(stateLevelDb).snapshot();
+        return new StateDbReader(dataPrefix, snapshot.subMap(dataPrefix, true, dataPrefix + KEY_STOPPER, false));
+    }
+
+    public Set<String> getNamespaces() {
+        Set<String> namespaces = new TreeSet<>();
+        for (String key : channelData.keySet()) {
+            int separator = key.indexOf(SEPARATOR, dataPrefix.length());
+            if (separator >= 0) {
+                namespaces.add(utf8(key.substring(dataPrefix.length(), separator)));
+            }
+        }
+        return namespaces;
+    }
+
+    /**
+     * namespace 의 key / value. key 는 체인코드가 쓴 원래 state key 이다.
+     */
+    public NavigableMap<String, byte[]> getState(String namespace) {
+        String namespacePrefix = dataPrefix + latin1(namespace) + SEPARATOR;
+
+        NavigableMap<String, byte[]> state = new TreeMap<>();
+        for (Map.Entry<String, byte[]> entry : channelData.subMap(namespacePrefix, true, namespacePrefix + KEY_STOPPER, false).entrySet()) {
+            state.put(utf8(entry.getKey().substring(namespacePrefix.length())), value(entry.getValue()));
+        }
+        return Collections.unmodifiableNavigableMap(state);
+    }
+
+    // DBValue 는 peer 내부 proto 라 fabric-protos 에 없으므로 value field 만 직접 꺼낸다
+    private static byte[] value(byte[] dbValue) {
+        byte[] value = new byte[0];
+        ProtoReader reader = new ProtoReader(dbValue);
+        while (reader.next()) {
+            if (reader.field() == 2) {
+                value = reader.readBytes();
+            } else {
+                reader.skip();
+            }
+        }
+        return value;
+    }
+
+    private static String latin1(String utf8) {
+        return LevelDbReader.key(utf8.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String utf8(String latin1) {
+        return new String(LevelDbReader.bytes(latin1), StandardCharsets.UTF_8);
+    }
+}
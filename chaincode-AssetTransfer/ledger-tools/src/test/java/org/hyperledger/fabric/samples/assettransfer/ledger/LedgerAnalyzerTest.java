@@ -0,0 +1,113 @@
+package org.hyperledger.fabric.samples.assettransfer.ledger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("network/backup 기반 offline ledger 분석 테스트")
+public class LedgerAnalyzerTest {
+
+    private static final Path LEDGERS_DATA = Paths.get(System.getProperty("ledger.backup.dir", "../../network/backup"))
+            .resolve("peer0.org1").resolve("ledgersData");
+
+    @Test
+    public void block_파일을_순서대로_decode_한다() throws Exception {
+        //given
+        BlockFileReader reader = BlockFileReader.open(LEDGERS_DATA.resolve("chains/chains/mychannel"));
+
+        //when
+        List<LedgerBlock> blocks = new ArrayList<>();
+        reader.forEach(blocks::add);
+
+        //then
+        assertThat(blocks).hasSize(8);
+        for (int i = 0; i < blocks.size(); i++) {
+            assertThat(blocks.get(i).getNumber()).isEqualTo((long) i);
+        }
+
+        LedgerTransaction transfer = blocks.get(7).getTransactions().get(0);
+        assertThat(transfer.getChaincodeName()).isEqualTo("basic");
+        assertThat(transfer.getStringArgs()).containsExactly("TransferAsset", "asset6", "Christopher");
+        assertThat(transfer.getWrites("basic")).hasSize(1);
+        assertThat(transfer.getWrites("basic").get(0).getStringValue()).contains("\"owner\":\"Christopher\"");
+        assertThat(transfer.isValid()).isTrue();
+    }
+
+    @Test
+    public void stateLeveldb_에서_namespace_별_world_state_를_읽는다() throws Exception {
+        //given
+        StateDbReader reader = StateDbReader.open(LEDGERS_DATA.resolve("stateLeveldb"), "mychannel");
+
+        //when
+        Map<String, byte[]> basic = reader.getState("basic");
+
+        //then
+        assertThat(reader.getNamespaces()).contains("basic", "_lifecycle");
+        assertThat(basic.keySet()).containsExactly("asset1", "asset2", "asset3", "asset4", "asset5", "asset6");
+        assertThat(new String(basic.get("asset6"), StandardCharsets.UTF_8)).contains("\"owner\":\"Christopher\"");
+    }
+
+    @Test
+    public void 백업_ledger_의_hot_key_와_크기_분포를_구한다() throws Exception {
+        //when
+        LedgerReport report = LedgerAnalyzer.analyze(LEDGERS_DATA, "mychannel", "basic", 1);
+
+        //then
+        assertThat(report.getBlocks()).isEqualTo(8L);
+        assertThat(report.getNamespaceTransactions()).isEqualTo(2L);
+        assertThat(report.getStateKeys()).isEqualTo(6L);
+        assertThat(report.getKeySizeHistogram()).containsEntry("<=00000008", 6L);
+        assertThat(report.getHotKeys()).hasSize(1);
+        assertThat(report.getHotKeys().get(0).getKey()).isEqualTo("asset6");
+        assertThat(report.getHotKeys().get(0).getWrites()).isEqualTo(2L);
+    }
+
+    @Test
+    public void coin_맵이_있는_Asset_의_잔액과_coin_별_합계를_구한다() {
+        //given
+        Map<String, byte[]> state = new TreeMap<>();
+        state.put("rootAsset", "{\"assetId\":\"rootAsset\",\"coin\":{\"point\":\"0\"}}".getBytes(StandardCharsets.UTF_8));
+        state.put("s1", "{\"assetId\":\"s1\",\"coin\":{\"point\":\"30\",\"meal\":\"2\"}}".getBytes(StandardCharsets.UTF_8));
+        state.put("s2", "{\"assetId\":\"s2\",\"coin\":{\"point\":\"12\"}}".getBytes(StandardCharsets.UTF_8));
+        LedgerReport report = new LedgerReport("mychannel", "basic");
+
+        //when
+        LedgerAnalyzer.analyzeState(state, report);
+
+        //then
+        assertThat(report.getBalances()).containsOnlyKeys("s1", "s2");
+        assertThat(report.getCoinTotals()).containsEntry("point", 42L).containsEntry("meal", 2L);
+        assertThat(report.getNonAssetDocuments()).isEqualTo(1L);
+    }
+
+    @Test
+    public void tenant_key_의_잔액은_tenant_별로_따로_모은다() {
+        //given
+        Map<String, byte[]> state = new TreeMap<>();
+        state.put("\u0000asset\u0000s1\u0000", "{\"assetId\":\"s1\",\"coin\":{\"point\":\"30\"}}".getBytes(StandardCharsets.UTF_8));
+        state.put("\u0000tenant\u0000school1\u0000asset\u0000s1\u0000", "{\"assetId\":\"s1\",\"coin\":{\"point\":\"5\"}}".getBytes(StandardCharsets.UTF_8));
+        state.put("\u0000tenant\u0000school1\u0000meta\u0000rootAsset\u0000", "{\"assetId\":\"rootAsset\",\"coin\":{\"point\":\"0\"}}".getBytes(StandardCharsets.UTF_8));
+        LedgerReport report = new LedgerReport("mychannel", "basic");
+
+        //when
+        LedgerAnalyzer.analyzeState(state, report);
+
+        //then
+        assertThat(AssetKeys.tenantId("\u0000tenant\u0000school1\u0000asset\u0000s1\u0000")).isEqualTo("school1");
+        assertThat(AssetKeys.isRootAsset("\u0000tenant\u0000school1\u0000meta\u0000rootAsset\u0000")).isTrue();
+        assertThat(report.getBalances()).containsOnlyKeys("s1");
+        assertThat(report.getCoinTotals()).containsEntry("point", 30L);
+        assertThat(report.getTenants()).containsOnlyKeys("school1");
+        assertThat(report.getTenants().get("school1").getCoinTotals()).containsEntry("point", 5L);
+        assertThat(report.getNonAssetDocuments()).isEqualTo(1L);
+    }
+}
@@ -0,0 +1,97 @@
+package org.hyperledger.fabric.samples.assettransfer.ledger;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("snapshot chunk archive 테스트")
+public class SnapshotArchiveTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void chunk_들을_archive_로_묶고_manifest_와_같은지_검증한다() throws IOException {
+        //given
+        Path first = writeChunk("first.json", "\u0000asset\u0000s2\u0000", "rootAsset", "s1");
+        Path second = writeChunk("second.json", "", "s2");
+        Path archive = dir.resolve("snapshot.zip");
+
+        //when
+        ObjectNode assembled = SnapshotArchive.assemble(archive, Arrays.asList(first, second));
+        ObjectNode verified = SnapshotArchive.verify(archive);
+
+        //then
+        assertThat(assembled.get("chunks").asInt()).isEqualTo(2);
+        assertThat(assembled.get("records").asLong()).isEqualTo(3L);
+        assertThat(verified.get("digest").asText()).isEqualTo(assembled.get("digest").asText());
+        assertThat(verified.get("rawBytes").asLong()).isEqualTo(assembled.get("rawBytes").asLong());
+    }
+
+    @Test
+    public void 깨진_chunk_나_끝나지_않은_export_는_archive_로_묶지_않는다() throws IOException {
+        //given
+        Path chunk = writeChunk("chunk.json", "", "s1", "s2");
+        ObjectNode tampered = (ObjectNode) objectMapper.readTree(chunk.toFile());
+        tampered.put("records", 1);
+        Path tamperedChunk = dir.resolve("tampered.json");
+        objectMapper.writeValue(tamperedChunk.toFile(), tampered);
+        Path incomplete = writeChunk("incomplete.json", "\u0000asset\u0000s3\u0000", "s1");
+
+        //when, then
+        assertThatThrownBy(() -> SnapshotArchive.assemble(dir.resolve("tampered.zip"), Arrays.asList(tamperedChunk)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("records");
+        assertThatThrownBy(() -> SnapshotArchive.assemble(dir.resolve("incomplete.zip"), Arrays.asList(incomplete)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("incomplete");
+    }
+
+    // ExportSnapshot 과 같은 형식의 chunk: kind, id, value 길이, value 를 이어 붙여 gzip + base64
+    private Path writeChunk(String name, String bookmark, String... assetIds) throws IOException {
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(raw);
+        for (String assetId : assetIds) {
+            byte[] value = ("{\"assetId\":\"" + assetId + "\"}").getBytes(StandardCharsets.UTF_8);
+            out.writeByte(assetId.equals("rootAsset") ? 'M' : 'A');
+            out.writeUTF(assetId);
+            out.writeInt(value.length);
+            out.write(value);
+        }
+        out.flush();
+        byte[] payload = raw.toByteArray();
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(payload);
+        }
+
+        ObjectNode chunk = objectMapper.createObjectNode();
+        chunk.put("bookmark", bookmark);
+        chunk.put("records", assetIds.length);
+        chunk.put("rawBytes", payload.length);
+        chunk.put("sha256", SnapshotArchive.sha256(payload));
+        chunk.put("data", Base64.getEncoder().encodeToString(compressed.toByteArray()));
+
+        Path file = dir.resolve(name);
+        Files.write(file, objectMapper.writeValueAsBytes(chunk));
+        return file;
+    }
+}
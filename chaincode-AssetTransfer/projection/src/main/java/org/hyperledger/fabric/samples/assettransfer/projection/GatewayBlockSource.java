@@ -0,0 +1,33 @@
+package org.hyperledger.fabric.samples.assettransfer.projection;
+
+import java.io.IOException;
+
+import org.hyperledger.fabric.client.CloseableIterator;
+import org.hyperledger.fabric.client.Network;
+import org.hyperledger.fabric.protos.common.Block;
+import org.hyperledger.fabric.samples.assettransfer.ledger.BlockFileReader;
+
+/**
+ * gateway 의 block event 로 projection 을 따라가게 한다.
+ * store 의 checkpoint 다음 block 부터 받으므로, 연결이 끊겨 follow 가 끝나면 다시 호출해서 이어 받는다.
+ * 기록된 block 으로 재현할 때는 대신 BlockFileReader 를 ProjectionStore.applyAll 에 넘긴다.
+ */
+public final class GatewayBlockSource {
+
+    private final Network network;
+
+    public GatewayBlockSource(Network network) {
+        this.network = network;
+    }
+
+    public void follow(ProjectionStore store) throws IOException {
+        try (CloseableIterator<Block> blocks = network.newBlockEventsRequest()
+                .startBlock(store.getLastBlock() + 1)
+                .build()
+                .getEvents()) {
+            while (blocks.hasNext()) {
+                store.apply(BlockFileReader.decodeBlock(blocks.next()));
+            }
+        }
+    }
+}
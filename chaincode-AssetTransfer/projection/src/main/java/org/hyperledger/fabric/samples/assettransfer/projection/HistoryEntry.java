@@ -0,0 +1,57 @@
+package org.hyperledger.fabric.samples.assettransfer.projection;
+
+import java.time.Instant;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Asset 한 건의 변경 이력 (GetHistoryForAssetId 의 항목과 같은 내용)
+ */
+public final class HistoryEntry {
+
+    private final long blockNumber;
+    private final int txIndex;
+    private final String txId;
+    private final Instant timestamp;
+    private final String function;
+    private final boolean delete;
+    private final JsonNode value;
+
+    HistoryEntry(long blockNumber, int txIndex, String txId, Instant timestamp, String function, boolean delete, JsonNode value) {
+        this.blockNumber = blockNumber;
+        this.txIndex = txIndex;
+        this.txId = txId;
+        this.timestamp = timestamp;
+        this.function = function;
+        this.delete = delete;
+        this.value = value;
+    }
+
+    public long getBlockNumber() {
+        return blockNumber;
+    }
+
+    public int getTxIndex() {
+        return txIndex;
+    }
+
+    public String getTxId() {
+        return txId;
+    }
+
+    public String getTimestamp() {
+        return timestamp.toString();
+    }
+
+    public String getFunction() {
+        return function;
+    }
+
+    public boolean isDelete() {
+        return delete;
+    }
+
+    public JsonNode getValue() {
+        return value;
+    }
+}
@@ -0,0 +1,50 @@
+package org.hyperledger.fabric.samples.assettransfer.projection;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * projection 에 반영하는 단위. 유효한 트랜잭션 중 대상 namespace 의 simple key write 만 남긴 것
+ */
+final class ProjectedTransaction {
+
+    private final long blockNumber;
+    private final int index;
+    private final String txId;
+    private final Instant timestamp;
+    private final String function;
+    private final List<ProjectedWrite> writes;
+
+    ProjectedTransaction(long blockNumber, int index, String txId, Instant timestamp, String function, List<ProjectedWrite> writes) {
+        this.blockNumber = blockNumber;
+        this.index = index;
+        this.txId = txId;
+        this.timestamp = timestamp;
+        this.function = function;
+        this.writes = writes;
+    }
+
+    long getBlockNumber() {
+        return blockNumber;
+    }
+
+    int getIndex() {
+        return index;
+    }
+
+    String getTxId() {
+        return txId;
+    }
+
+    Instant getTimestamp() {
+        return timestamp;
+    }
+
+    String getFunction() {
+        return function;
+    }
+
+    List<ProjectedWrite> getWrites() {
+        return writes;
+    }
+}
@@ -0,0 +1,26 @@
+package org.hyperledger.fabric.samples.assettransfer.projection;
+
+final class ProjectedWrite {
+
+    private final String key;
+    private final boolean delete;
+    private final byte[] value;
+
+    ProjectedWrite(String key, boolean delete, byte[] value) {
+        this.key = key;
+        this.delete = delete;
+        this.value = value;
+    }
+
+    String getKey() {
+        return key;
+    }
+
+    boolean isDelete() {
+        return delete;
+    }
+
+    byte[] getValue() {
+        return value;
+    }
+}
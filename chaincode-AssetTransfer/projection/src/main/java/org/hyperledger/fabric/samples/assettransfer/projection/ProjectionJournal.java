@@ -0,0 +1,173 @@
+package org.hyperledger.fabric.samples.assettransfer.projection;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * projection 을 재시작 후 복원하기 위한 memory-mapped append-only journal
+ *
+ * header (32 bytes) : magic, version, 마지막으로 반영한 block 번호, commit 된 끝 위치
+ * record            : [int 길이][block][tx index][txId][timestamp][function][write 수]([key][delete][value])*
+ *
+ * block 의 record 를 모두 쓴 뒤 header 를 갱신하고 force 한다.
+ * 중간에 죽으면 header 의 끝 위치 뒤에 남은 record 는 무시되고 그 block 은 다시 받는다.
+ */
+final class ProjectionJournal implements AutoCloseable {
+
+    private static final int MAGIC = 0x50524a31; // "PRJ1"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int LAST_BLOCK_OFFSET = 8;
+    private static final int END_OFFSET = 16;
+    private static final int INITIAL_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long lastBlock;
+    private int committedEnd;
+    private int position;
+
+    private ProjectionJournal(FileChannel channel) throws IOException {
+        this.channel = channel;
+        boolean created = channel.size() == 0;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(channel.size(), INITIAL_SIZE));
+
+        if (created) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putLong(LAST_BLOCK_OFFSET, -1);
+            buffer.putLong(END_OFFSET, HEADER_SIZE);
+            buffer.force();
+        } else if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a projection journal (version " + VERSION + ")");
+        }
+
+        this.lastBlock = buffer.getLong(LAST_BLOCK_OFFSET);
+        this.committedEnd = (int) buffer.getLong(END_OFFSET);
+        this.position = committedEnd;
+    }
+
+    static ProjectionJournal open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            return new ProjectionJournal(channel);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    long getLastBlock() {
+        return lastBlock;
+    }
+
+    long getSize() {
+        return committedEnd;
+    }
+
+    void replay(Consumer<ProjectedTransaction> consumer) {
+        ByteBuffer reader = buffer.duplicate();
+        reader.position(HEADER_SIZE);
+        while (reader.position() < committedEnd) {
+            int length = reader.getInt();
+            int next = reader.position() + length;
+            consumer.accept(readRecord(reader));
+            reader.position(next);
+        }
+    }
+
+    void append(ProjectedTransaction transaction) throws IOException {
+        byte[] txId = utf8(transaction.getTxId());
+        byte[] function = utf8(transaction.getFunction());
+        int length = 8 + 4 + 4 + txId.length + 8 + 4 + 4 + function.length + 4;
+        List<byte[]> keys = new ArrayList<>(transaction.getWrites().size());
+        for (ProjectedWrite write : transaction.getWrites()) {
+            byte[] key = utf8(write.getKey());
+            keys.add(key);
+            length += 4 + key.length + 1 + 4 + write.getValue().length;
+        }
+
+        ensureCapacity(4 + length);
+        buffer.position(position);
+        buffer.putInt(length);
+        buffer.putLong(transaction.getBlockNumber());
+        buffer.putInt(transaction.getIndex());
+        putBytes(txId);
+        buffer.putLong(transaction.getTimestamp().getEpochSecond());
+        buffer.putInt(transaction.getTimestamp().getNano());
+        putBytes(function);
+        buffer.putInt(transaction.getWrites().size());
+        for (int i = 0; i < keys.size(); i++) {
+            ProjectedWrite write = transaction.getWrites().get(i);
+            putBytes(keys.get(i));
+            buffer.put((byte) (write.isDelete() ? 1 : 0));
+            putBytes(write.getValue());
+        }
+        position = buffer.position();
+    }
+
+    void commit(long blockNumber) {
+        buffer.force(HEADER_SIZE, position - HEADER_SIZE);
+        buffer.putLong(LAST_BLOCK_OFFSET, blockNumber);
+        buffer.putLong(END_OFFSET, position);
+        buffer.force(0, HEADER_SIZE);
+        lastBlock = blockNumber;
+        committedEnd = position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void ensureCapacity(int needed) throws IOException {
+        if ((long) position + needed <= buffer.capacity()) {
+            return;
+        }
+        long size = Math.max((long) buffer.capacity() * 2, (long) position + needed);
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Projection journal is full (2 GB)");
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    private void putBytes(byte[] bytes) {
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static ProjectedTransaction readRecord(ByteBuffer reader) {
+        long blockNumber = reader.getLong();
+        int index = reader.getInt();
+        String txId = new String(getBytes(reader), StandardCharsets.UTF_8);
+        Instant timestamp = Instant.ofEpochSecond(reader.getLong(), reader.getInt());
+        String function = new String(getBytes(reader), StandardCharsets.UTF_8);
+        int count = reader.getInt();
+        List<ProjectedWrite> writes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String key = new String(getBytes(reader), StandardCharsets.UTF_8);
+            boolean delete = reader.get() != 0;
+            writes.add(new ProjectedWrite(key, delete, getBytes(reader)));
+        }
+        return new ProjectedTransaction(blockNumber, index, txId, timestamp, function, writes);
+    }
+
+    private static byte[] getBytes(ByteBuffer reader) {
+        byte[] bytes = new byte[reader.getInt()];
+        reader.get(bytes);
+        return bytes;
+    }
+
+    private static byte[] utf8(String value) {
+        return (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+    }
+}
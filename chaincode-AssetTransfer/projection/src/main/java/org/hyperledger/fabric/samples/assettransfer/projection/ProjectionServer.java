@@ -0,0 +1,151 @@
+package org.hyperledger.fabric.samples.assettransfer.projection;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.hyperledger.fabric.samples.assettransfer.ledger.BlockFileReader;
+
+/**
+ * projection 을 로컬 HTTP 로 조회한다 (GET, JSON)
+ *
+ * /checkpoint                 마지막으로 반영한 block 번호
+ * /assets                     rootAsset 을 뺀 모든 Asset
+ * /assets/{id}                Asset 하나
+ * /assets/{id}/history        Asset 변경 이력
+ * /coins                      rootAsset 의 coin 목록
+ * /coins/{coin}/holders       coin 잔액 (assetId 순서)
+ * /owners/{owner}/assets      owner 가 가진 assetId
+ * /tenants                    이름이 있는 tenant id
+ * /tenants/{tenant}/...       위의 assets, coins, owners 를 tenant 에서 조회한다 (tenant 가 없는 경로는 기본 tenant)
+ *
+ * 사용법: ProjectionServer &lt;journal&gt; &lt;chainsDir&gt; [--namespace basic] [--port 8080]
+ * chainsDir 의 block 중 journal checkpoint 이후의 것만 반영한 뒤 조회를 받는다.
+ */
+public final class ProjectionServer {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ProjectionStore store;
+    private final HttpServer server;
+
+    public ProjectionServer(ProjectionStore store, int port) throws IOException {
+        this.store = store;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        this.server.createContext("/", this::handle);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("usage: ProjectionServer <journal> <chainsDir> [--namespace basic] [--port 8080]");
+            return;
+        }
+
+        String namespace = "basic";
+        int port = 8080;
+        for (int i = 2; i + 1 < args.length; i += 2) {
+            if (args[i].equals("--namespace")) {
+                namespace = args[i + 1];
+            } else if (args[i].equals("--port")) {
+                port = Integer.parseInt(args[i + 1]);
+            }
+        }
+
+        ProjectionStore store = ProjectionStore.open(namespace, Paths.get(args[0]));
+        Path chainsDir = Paths.get(args[1]);
+        int applied = store.applyAll(BlockFileReader.open(chainsDir));
+        System.out.println("applied " + applied + " blocks, checkpoint " + store.getLastBlock());
+
+        new ProjectionServer(store, port).start();
+        System.out.println("projection listening on 127.0.0.1:" + port);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                send(exchange, 405, Collections.singletonMap("error", "GET only"));
+                return;
+            }
+
+            String[] path = exchange.getRequestURI().getRawPath().replaceAll("^/+|/+$", "").split("/");
+            for (int i = 0; i < path.length; i++) {
+                path[i] = URLDecoder.decode(path[i], StandardCharsets.UTF_8);
+            }
+
+            Object body = route(path);
+            if (body == null) {
+                send(exchange, 404, Collections.singletonMap("error", "not found"));
+            } else {
+                send(exchange, 200, body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private Object route(String[] path) {
+        switch (path[0]) {
+            case "checkpoint":
+                return path.length == 1 ? Collections.singletonMap("lastBlock", store.getLastBlock()) : null;
+            case "tenants":
+                if (path.length == 1) {
+                    return store.getTenants();
+                }
+                return path.length > 2 ? route(path[1], Arrays.copyOfRange(path, 2, path.length)) : null;
+            default:
+                return route(null, path);
+        }
+    }
+
+    private Object route(String tenantId, String[] path) {
+        switch (path[0]) {
+            case "assets":
+                if (path.length == 1) {
+                    return store.getAllAssets(tenantId);
+                }
+                if (path.length == 2) {
+                    return store.getAsset(tenantId, path[1]);
+                }
+                return path.length == 3 && path[2].equals("history") ? store.getHistory(tenantId, path[1]) : null;
+            case "coins":
+                if (path.length == 1) {
+                    return store.getCoins(tenantId);
+                }
+                return path.length == 3 && path[2].equals("holders") ? store.getHolders(tenantId, path[1]) : null;
+            case "owners":
+                return path.length == 3 && path[2].equals("assets") ? store.getAssetsByOwner(tenantId, path[1]) : null;
+            default:
+                return null;
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, json.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(json);
+        }
+    }
+}
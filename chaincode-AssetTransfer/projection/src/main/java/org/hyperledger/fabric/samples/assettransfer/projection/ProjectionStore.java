@@ -0,0 +1,437 @@
+package org.hyperledger.fabric.samples.assettransfer.projection;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.hyperledger.fabric.samples.assettransfer.ledger.AssetKeys;
+import org.hyperledger.fabric.samples.assettransfer.ledger.KeyWrite;
+import org.hyperledger.fabric.samples.assettransfer.ledger.LedgerBlock;
+import org.hyperledger.fabric.samples.assettransfer.ledger.LedgerTransaction;
+
+/**
+ * commit 된 block 으로 만드는 off-chain 조회용 projection
+ * peer 에 evaluate 로 보내던 GetAllAssets / 잔액 조회 / GetHistoryForAssetId 를 로컬에서 처리한다.
+ *
+ * block 의 유효한 트랜잭션 중 대상 namespace 의 write set 을 반영하므로 world state 와 같은 결과가 된다.
+ * 이력의 function 은 BalanceChanged chaincode event 가 있으면 그 op, 없으면 트랜잭션의 첫 번째 인자다.
+ * 이미 반영한 block 번호 이하의 block 은 건너뛰므로 같은 block 을 다시 받아도 된다.
+ * Asset 은 (tenant, assetId) 로 저장하며 asset composite key 와 migration 이전의 assetId key 를 모두 받는다.
+ * tenant 를 받지 않는 조회는 기본 tenant 의 것이다.
+ */
+public final class ProjectionStore implements AutoCloseable {
+
+    public static final String BALANCE_EVENT_NAME = "BalanceChanged";
+    public static final String ROOT_ASSET = AssetKeys.ROOT_ASSET_ID;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final String namespace;
+    private final ProjectionJournal journal;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // tenant id(기본 tenant 는 null) -> Asset 과 index
+    private final Map<String, Partition> partitions = new HashMap<>();
+    private long lastBlock = -1;
+
+    private ProjectionStore(String namespace, ProjectionJournal journal) {
+        this.namespace = namespace;
+        this.journal = journal;
+    }
+
+    public static ProjectionStore inMemory(String namespace) {
+        return new ProjectionStore(namespace, null);
+    }
+
+    /**
+     * journal 파일이 있으면 그 내용으로 복원하고 마지막 checkpoint 다음 block 부터 이어서 받는다.
+     */
+    public static ProjectionStore open(String namespace, Path journalFile) throws IOException {
+        ProjectionJournal journal = ProjectionJournal.open(journalFile);
+        ProjectionStore store = new ProjectionStore(namespace, journal);
+        journal.replay(store::project);
+        store.lastBlock = journal.getLastBlock();
+        return store;
+    }
+
+    public String getNamespace() {
+        return namespace;
+    }
+
+    public long getLastBlock() {
+        lock.readLock().lock();
+        try {
+            return lastBlock;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return 반영했으면 true, 이미 반영한 block 이면 false
+     */
+    public boolean apply(LedgerBlock block) throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (block.getNumber() <= lastBlock) {
+                return false;
+            }
+
+            for (LedgerTransaction transaction : block.getTransactions()) {
+                if (!transaction.isValid() || !transaction.isEndorserTransaction()) {
+                    continue;
+                }
+
+                List<ProjectedWrite> writes = new ArrayList<>();
+                for (KeyWrite write : transaction.getWrites(namespace)) {
+                    if (AssetKeys.isRootAsset(write.getKey()) || AssetKeys.assetId(write.getKey()) != null) {
+                        writes.add(new ProjectedWrite(write.getKey(), write.isDelete(), write.getValue()));
+                    }
+                }
+                if (writes.isEmpty()) {
+                    continue;
+                }
+
+                ProjectedTransaction projected = new ProjectedTransaction(block.getNumber(), transaction.getIndex(), transaction.getTxId(),
+                        transaction.getTimestamp(), functionOf(transaction), writes);
+                if (journal != null) {
+                    journal.append(projected);
+                }
+                project(projected);
+            }
+
+            if (journal != null) {
+                journal.commit(block.getNumber());
+            }
+            lastBlock = block.getNumber();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return 새로 반영한 block 수
+     */
+    public int applyAll(Iterable<LedgerBlock> blocks) throws IOException {
+        int applied = 0;
+        for (LedgerBlock block : blocks) {
+            if (apply(block)) {
+                applied++;
+            }
+        }
+        return applied;
+    }
+
+    public ObjectNode getAsset(String assetId) {
+        return getAsset(null, assetId);
+    }
+
+    /**
+     * @param tenantId tenant id, 기본 tenant 면 null
+     */
+    public ObjectNode getAsset(String tenantId, String assetId) {
+        lock.readLock().lock();
+        try {
+            Partition partition = partitions.get(tenantId);
+            ObjectNode asset = partition == null ? null : partition.assets.get(assetId);
+            return asset == null ? null : asset.deepCopy();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<ObjectNode> getAllAssets() {
+        return getAllAssets(null);
+    }
+
+    /**
+     * GetAllAssets 와 같이 rootAsset 을 뺀 tenant 의 모든 Asset 을 key 순서로 돌려준다.
+     */
+    public List<ObjectNode> getAllAssets(String tenantId) {
+        lock.readLock().lock();
+        try {
+            Partition partition = partitions.get(tenantId);
+            List<ObjectNode> results = new ArrayList<>();
+            if (partition != null) {
+                for (ObjectNode asset : partition.assets.values()) {
+                    results.add(asset.deepCopy());
+                }
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return 이름이 있는 tenant id (기본 tenant 는 빠진다)
+     */
+    public List<String> getTenants() {
+        lock.readLock().lock();
+        try {
+            List<String> tenantIds = new ArrayList<>();
+            for (String tenantId : partitions.keySet()) {
+                if (tenantId != null) {
+                    tenantIds.add(tenantId);
+                }
+            }
+            Collections.sort(tenantIds);
+            return tenantIds;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<String> getCoins() {
+        return getCoins(null);
+    }
+
+    public List<String> getCoins(String tenantId) {
+        lock.readLock().lock();
+        try {
+            Partition partition = partitions.get(tenantId);
+            List<String> coins = new ArrayList<>();
+            if (partition != null && partition.rootAsset != null && partition.rootAsset.get("coin") != null) {
+                partition.rootAsset.get("coin").fieldNames().forEachRemaining(coins::add);
+            }
+            Collections.sort(coins);
+            return coins;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Long getBalance(String assetId, String coinName) {
+        return getBalance(null, assetId, coinName);
+    }
+
+    public Long getBalance(String tenantId, String assetId, String coinName) {
+        lock.readLock().lock();
+        try {
+            Partition partition = partitions.get(tenantId);
+            NavigableMap<String, Long> holders = partition == null ? null : partition.balancesByCoin.get(coinName);
+            return holders == null ? null : holders.get(assetId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public NavigableMap<String, Long> getHolders(String coinName) {
+        return getHolders(null, coinName);
+    }
+
+    /**
+     * @return assetId 순서의 coin 잔액
+     */
+    public NavigableMap<String, Long> getHolders(String tenantId, String coinName) {
+        lock.readLock().lock();
+        try {
+            Partition partition = partitions.get(tenantId);
+            NavigableMap<String, Long> holders = partition == null ? null : partition.balancesByCoin.get(coinName);
+            return holders == null ? new TreeMap<>() : new TreeMap<>(holders);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<String> getAssetsByOwner(String owner) {
+        return getAssetsByOwner(null, owner);
+    }
+
+    public List<String> getAssetsByOwner(String tenantId, String owner) {
+        lock.readLock().lock();
+        try {
+            Partition partition = partitions.get(tenantId);
+            NavigableSet<String> assetIds = partition == null ? null : partition.assetsByOwner.get(owner);
+            return assetIds == null ? new ArrayList<>() : new ArrayList<>(assetIds);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<HistoryEntry> getHistory(String assetId) {
+        return getHistory(null, assetId);
+    }
+
+    public List<HistoryEntry> getHistory(String tenantId, String assetId) {
+        lock.readLock().lock();
+        try {
+            Partition partition = partitions.get(tenantId);
+            List<HistoryEntry> entries = partition == null ? null : partition.history.get(assetId);
+            return entries == null ? new ArrayList<>() : new ArrayList<>(entries);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    private void project(ProjectedTransaction transaction) {
+        // MigrateAssetKeys 는 같은 트랜잭션에서 새 key 에 쓰고 이전 key 를 지운다. write set 은 key 순서라 지우는 쪽이 뒤에 올 수 있으므로 그 삭제는 건너뛴다.
+        Set<String> written = new HashSet<>();
+        for (ProjectedWrite write : transaction.getWrites()) {
+            if (!write.isDelete()) {
+                written.add(scopedKey(write.getKey()));
+            }
+        }
+
+        for (ProjectedWrite write : transaction.getWrites()) {
+            if (write.isDelete() && written.contains(scopedKey(write.getKey()))) {
+                continue;
+            }
+            Partition partition = partitions.computeIfAbsent(AssetKeys.tenantId(write.getKey()), tenantId -> new Partition());
+            String key = projectedKey(write.getKey());
+            ObjectNode document = write.isDelete() ? null : parse(write.getValue());
+
+            if (key.equals(ROOT_ASSET)) {
+                partition.rootAsset = document;
+                continue;
+            }
+
+            partition.unindex(key, partition.assets.remove(key));
+            if (document != null) {
+                partition.assets.put(key, document);
+                partition.index(key, document);
+            }
+
+            partition.history.computeIfAbsent(key, k -> new ArrayList<>()).add(new HistoryEntry(transaction.getBlockNumber(), transaction.getIndex(),
+                    transaction.getTxId(), transaction.getTimestamp(), transaction.getFunction(), write.isDelete(), document));
+        }
+    }
+
+    // rootAsset 은 ROOT_ASSET, Asset 은 assetId
+    private static String projectedKey(String key) {
+        return AssetKeys.isRootAsset(key) ? ROOT_ASSET : AssetKeys.assetId(key);
+    }
+
+    // tenant 가 다르면 같은 assetId 라도 다른 Asset 이다
+    private static String scopedKey(String key) {
+        String tenantId = AssetKeys.tenantId(key);
+        return tenantId == null ? projectedKey(key) : tenantId + '\u0000' + projectedKey(key);
+    }
+
+    private static Long balanceOf(JsonNode value) {
+        if (value.isIntegralNumber()) {
+            return value.asLong();
+        }
+        if (value.isTextual()) {
+            try {
+                return Long.parseLong(value.asText());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static ObjectNode parse(byte[] value) {
+        try {
+            JsonNode node = objectMapper.readTree(value);
+            if (node instanceof ObjectNode) {
+                return (ObjectNode) node;
+            }
+        } catch (IOException e) {
+            System.out.println("Projection skipped non-JSON value: " + e.getMessage());
+        }
+        return null;
+    }
+
+    private static String functionOf(LedgerTransaction transaction) {
+        if (BALANCE_EVENT_NAME.equals(transaction.getEventName()) && transaction.getEventPayload() != null) {
+            try {
+                JsonNode op = objectMapper.readTree(transaction.getEventPayload()).get("op");
+                if (op != null) {
+                    return op.asText();
+                }
+            } catch (IOException e) {
+                System.out.println("Projection skipped malformed event: " + e.getMessage());
+            }
+        }
+
+        List<byte[]> args = transaction.getArgs();
+        return args.isEmpty() ? "" : new String(args.get(0), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * tenant 하나의 Asset 과 index. assetId 와 coin 이름은 tenant 안에서만 유일하므로 tenant 마다 따로 둔다.
+     */
+    private static final class Partition {
+        private final NavigableMap<String, ObjectNode> assets = new TreeMap<>();
+        private final Map<String, NavigableMap<String, Long>> balancesByCoin = new HashMap<>();
+        private final Map<String, NavigableSet<String>> assetsByOwner = new HashMap<>();
+        private final Map<String, List<HistoryEntry>> history = new HashMap<>();
+        private ObjectNode rootAsset;
+
+        private void index(String assetId, ObjectNode asset) {
+            JsonNode owner = asset.get("owner");
+            if (owner != null && owner.isTextual()) {
+                assetsByOwner.computeIfAbsent(owner.asText(), k -> new TreeSet<>()).add(assetId);
+            }
+
+            JsonNode coin = asset.get("coin");
+            if (coin != null && coin.isObject()) {
+                Iterator<Map.Entry<String, JsonNode>> balances = coin.fields();
+                while (balances.hasNext()) {
+                    Map.Entry<String, JsonNode> balance = balances.next();
+                    Long value = balanceOf(balance.getValue());
+                    if (value != null) {
+                        balancesByCoin.computeIfAbsent(balance.getKey(), k -> new TreeMap<>()).put(assetId, value);
+                    }
+                }
+            }
+        }
+
+        private void unindex(String assetId, ObjectNode asset) {
+            if (asset == null) {
+                return;
+            }
+
+            JsonNode owner = asset.get("owner");
+            if (owner != null && owner.isTextual()) {
+                NavigableSet<String> assetIds = assetsByOwner.get(owner.asText());
+                if (assetIds != null) {
+                    assetIds.remove(assetId);
+                    if (assetIds.isEmpty()) {
+                        assetsByOwner.remove(owner.asText());
+                    }
+                }
+            }
+
+            JsonNode coin = asset.get("coin");
+            if (coin != null && coin.isObject()) {
+                coin.fieldNames().forEachRemaining(coinName -> {
+                    NavigableMap<String, Long> holders = balancesByCoin.get(coinName);
+                    if (holders != null) {
+                        holders.remove(assetId);
+                        if (holders.isEmpty()) {
+                            balancesByCoin.remove(coinName);
+                        }
+                    }
+                });
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package org.hyperledger.fabric.samples.assettransfer.projection;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Timestamp;
+import org.hyperledger.fabric.protos.common.Block;
+import org.hyperledger.fabric.protos.common.BlockData;
+import org.hyperledger.fabric.protos.common.BlockHeader;
+import org.hyperledger.fabric.protos.common.BlockMetadata;
+import org.hyperledger.fabric.protos.common.ChannelHeader;
+import org.hyperledger.fabric.protos.common.Envelope;
+import org.hyperledger.fabric.protos.common.Header;
+import org.hyperledger.fabric.protos.common.HeaderType;
+import org.hyperledger.fabric.protos.common.Payload;
+import org.hyperledger.fabric.protos.ledger.rwset.NsReadWriteSet;
+import org.hyperledger.fabric.protos.ledger.rwset.TxReadWriteSet;
+import org.hyperledger.fabric.protos.ledger.rwset.kvrwset.KVRWSet;
+import org.hyperledger.fabric.protos.ledger.rwset.kvrwset.KVWrite;
+import org.hyperledger.fabric.protos.peer.ChaincodeAction;
+import org.hyperledger.fabric.protos.peer.ChaincodeActionPayload;
+import org.hyperledger.fabric.protos.peer.ChaincodeEndorsedAction;
+import org.hyperledger.fabric.protos.peer.ChaincodeEvent;
+import org.hyperledger.fabric.protos.peer.ChaincodeID;
+import org.hyperledger.fabric.protos.peer.ChaincodeInput;
+import org.hyperledger.fabric.protos.peer.ChaincodeInvocationSpec;
+import org.hyperledger.fabric.protos.peer.ChaincodeProposalPayload;
+import org.hyperledger.fabric.protos.peer.ChaincodeSpec;
+import org.hyperledger.fabric.protos.peer.ProposalResponsePayload;
+import org.hyperledger.fabric.protos.peer.Transaction;
+import org.hyperledger.fabric.protos.peer.TransactionAction;
+import org.hyperledger.fabric.protos.peer.TxValidationCode;
+
+/**
+ * 테스트용 common.Block
+ * gateway block event 와 같은 모양으로 만들어 BlockFileReader.decodeBlockMessage 로 읽는다.
+ */
+final class BlockBuilder {
+
+    private final long number;
+    private final List<Envelope> envelopes = new ArrayList<>();
+    private final ByteArrayOutputStream validationCodes = new ByteArrayOutputStream();
+
+    private BlockBuilder(long number) {
+        this.number = number;
+    }
+
+    static BlockBuilder block(long number) {
+        return new BlockBuilder(number);
+    }
+
+    /**
+     * @param writes key, value 쌍 (value 가 null 이면 삭제)
+     */
+    BlockBuilder transaction(String txId, boolean valid, String eventPayload, String[] args, String... writes) {
+        KVRWSet.Builder kvRwSet = KVRWSet.newBuilder();
+        for (int i = 0; i < writes.length; i += 2) {
+            KVWrite.Builder write = KVWrite.newBuilder().setKey(writes[i]);
+            if (writes[i + 1] == null) {
+                write.setIsDelete(true);
+            } else {
+                write.setValue(ByteString.copyFromUtf8(writes[i + 1]));
+            }
+            kvRwSet.addWrites(write);
+        }
+
+        ChaincodeAction.Builder chaincodeAction = ChaincodeAction.newBuilder()
+                .setResults(TxReadWriteSet.newBuilder()
+                        .addNsRwset(NsReadWriteSet.newBuilder().setNamespace("basic").setRwset(kvRwSet.build().toByteString()))
+                        .build().toByteString());
+        if (eventPayload != null) {
+            chaincodeAction.setEvents(ChaincodeEvent.newBuilder()
+                    .setEventName("BalanceChanged")
+                    .setPayload(ByteString.copyFromUtf8(eventPayload))
+                    .build().toByteString());
+        }
+
+        ChaincodeInput.Builder input = ChaincodeInput.newBuilder();
+        for (String arg : args) {
+            input.addArgs(ByteString.copyFromUtf8(arg));
+        }
+        ChaincodeSpec chaincodeSpec = ChaincodeSpec.newBuilder()
+                .setChaincodeId(ChaincodeID.newBuilder().setName("basic"))
+                .setInput(input)
+                .build();
+
+        ChaincodeActionPayload actionPayload = ChaincodeActionPayload.newBuilder()
+                .setChaincodeProposalPayload(ChaincodeProposalPayload.newBuilder()
+                        .setInput(ChaincodeInvocationSpec.newBuilder().setChaincodeSpec(chaincodeSpec).build().toByteString())
+                        .build().toByteString())
+                .setAction(ChaincodeEndorsedAction.newBuilder()
+                        .setProposalResponsePayload(ProposalResponsePayload.newBuilder()
+                                .setExtension(chaincodeAction.build().toByteString())
+                                .build().toByteString()))
+                .build();
+        Transaction transaction = Transaction.newBuilder()
+                .addActions(TransactionAction.newBuilder().setPayload(actionPayload.toByteString()))
+                .build();
+
+        ChannelHeader channelHeader = ChannelHeader.newBuilder()
+                .setType(HeaderType.ENDORSER_TRANSACTION_VALUE)
+                .setTimestamp(Timestamp.newBuilder().setSeconds(1_600_000_000L + number))
+                .setChannelId("mychannel")
+                .setTxId(txId)
+                .build();
+        Payload payload = Payload.newBuilder()
+                .setHeader(Header.newBuilder().setChannelHeader(channelHeader.toByteString()))
+                .setData(transaction.toByteString())
+                .build();
+
+        envelopes.add(Envelope.newBuilder().setPayload(payload.toByteString()).build());
+        validationCodes.write(valid ? TxValidationCode.VALID_VALUE : TxValidationCode.MVCC_READ_CONFLICT_VALUE);
+        return this;
+    }
+
+    byte[] toByteArray() {
+        BlockData.Builder data = BlockData.newBuilder();
+        for (Envelope envelope : envelopes) {
+            data.addData(envelope.toByteString());
+        }
+        BlockMetadata metadata = BlockMetadata.newBuilder()
+                .addMetadata(ByteString.EMPTY)
+                .addMetadata(ByteString.EMPTY)
+                .addMetadata(ByteString.copyFrom(validationCodes.toByteArray()))
+                .build();
+        return Block.newBuilder()
+                .setHeader(BlockHeader.newBuilder().setNumber(number))
+                .setData(data)
+                .setMetadata(metadata)
+                .build()
+                .toByteArray();
+    }
+}
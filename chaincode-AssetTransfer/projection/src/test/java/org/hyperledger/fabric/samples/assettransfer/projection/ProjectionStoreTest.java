@@ -0,0 +1,146 @@
+package org.hyperledger.fabric.samples.assettransfer.projection;
+
+import org.hyperledger.fabric.samples.assettransfer.ledger.BlockFileReader;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("network/backup block replay 기반 projection 테스트")
+public class ProjectionStoreTest {
+
+    private static final Path CHAINS = Paths.get(System.getProperty("ledger.backup.dir", "../../network/backup"))
+            .resolve("peer0.org1/ledgersData/chains/chains/mychannel");
+
+    @Test
+    public void 기록된_block_을_replay_해서_world_state_와_이력을_만든다() throws Exception {
+        //given
+        ProjectionStore store = ProjectionStore.inMemory("basic");
+
+        //when
+        int applied = store.applyAll(BlockFileReader.open(CHAINS));
+
+        //then
+        assertThat(applied).isEqualTo(8);
+        assertThat(store.getLastBlock()).isEqualTo(7L);
+        assertThat(store.getAllAssets()).hasSize(6);
+        assertThat(store.getAsset("asset6").get("owner").asText()).isEqualTo("Christopher");
+        assertThat(store.getAssetsByOwner("Christopher")).containsExactly("asset6");
+
+        List<HistoryEntry> history = store.getHistory("asset6");
+        assertThat(history).extracting(HistoryEntry::getFunction).containsExactly("InitLedger", "TransferAsset");
+        assertThat(history).extracting(HistoryEntry::getBlockNumber).containsExactly(6L, 7L);
+    }
+
+    @Test
+    public void journal_로_재시작하면_checkpoint_다음_block_부터_이어서_받는다(@TempDir Path dir) throws Exception {
+        //given
+        Path journal = dir.resolve("projection.journal");
+        try (ProjectionStore store = ProjectionStore.open("basic", journal)) {
+            store.applyAll(BlockFileReader.open(CHAINS));
+        }
+
+        //when
+        try (ProjectionStore restarted = ProjectionStore.open("basic", journal)) {
+            int applied = restarted.applyAll(BlockFileReader.open(CHAINS));
+
+            //then
+            assertThat(applied).isZero();
+            assertThat(restarted.getLastBlock()).isEqualTo(7L);
+            assertThat(restarted.getAsset("asset6").get("owner").asText()).isEqualTo("Christopher");
+            assertThat(restarted.getHistory("asset6")).hasSize(2);
+        }
+    }
+
+    @Test
+    public void coin_잔액_index_와_BalanceChanged_event_의_op_를_반영한다() throws Exception {
+        //given
+        ProjectionStore store = ProjectionStore.inMemory("basic");
+        byte[] created = BlockBuilder.block(0)
+                .transaction("tx1", true, null, new String[]{"InitLedger"},
+                        "rootAsset", "{\"assetId\":\"rootAsset\",\"coin\":{\"point\":\"0\"}}")
+                .transaction("tx2", true, null, new String[]{"CreateAssetsBatch", "[]"},
+                        "s1", "{\"assetId\":\"s1\",\"owner\":\"kim\",\"coin\":{\"point\":\"100\"}}",
+                        "m1", "{\"assetId\":\"m1\",\"owner\":\"cafe\",\"coin\":{\"point\":\"0\"}}")
+                .toByteArray();
+        byte[] transferred = BlockBuilder.block(1)
+                .transaction("tx3", true, "{\"v\":1,\"op\":\"TransferCoin\",\"ch\":[[\"s1\",\"point\",70],[\"m1\",\"point\",30]]}",
+                        new String[]{"TransferCoinIdempotent", "req-1", "s1", "m1", "point", "30"},
+                        "s1", "{\"assetId\":\"s1\",\"owner\":\"kim\",\"coin\":{\"point\":\"70\"}}",
+                        "m1", "{\"assetId\":\"m1\",\"owner\":\"cafe\",\"coin\":{\"point\":\"30\"}}",
+                        "\u0000request\u0000req-1\u0000", "{}")
+                .transaction("tx4", false, null, new String[]{"TransferCoin", "s1", "m1", "point", "70"},
+                        "s1", "{\"assetId\":\"s1\",\"owner\":\"kim\",\"coin\":{\"point\":\"0\"}}")
+                .toByteArray();
+
+        //when
+        store.apply(BlockFileReader.decodeBlockMessage(created));
+        store.apply(BlockFileReader.decodeBlockMessage(transferred));
+
+        //then
+        assertThat(store.getCoins()).containsExactly("point");
+        assertThat(store.getHolders("point")).containsEntry("s1", 70L).containsEntry("m1", 30L);
+        assertThat(store.getHistory("s1")).extracting(HistoryEntry::getFunction).containsExactly("CreateAssetsBatch", "TransferCoin");
+        assertThat(store.getAllAssets()).hasSize(2);
+    }
+
+    @Test
+    public void MigrateAssetKeys_로_key_가_바뀌어도_Asset_과_이력을_이어간다() throws Exception {
+        //given
+        ProjectionStore store = ProjectionStore.inMemory("basic");
+        byte[] legacy = BlockBuilder.block(0)
+                .transaction("tx1", true, null, new String[]{"InitLedger"},
+                        "rootAsset", "{\"assetId\":\"rootAsset\",\"coin\":{\"point\":\"0\"}}",
+                        "s1", "{\"assetId\":\"s1\",\"owner\":\"kim\",\"coin\":{\"point\":\"100\"}}")
+                .toByteArray();
+        byte[] migrated = BlockBuilder.block(1)
+                .transaction("tx2", true, null, new String[]{"MigrateAssetKeys", "500"},
+                        "\u0000asset\u0000s1\u0000", "{\"assetId\":\"s1\",\"owner\":\"kim\",\"coin\":{\"point\":\"100\"}}",
+                        "\u0000meta\u0000rootAsset\u0000", "{\"assetId\":\"rootAsset\",\"coin\":{\"point\":\"0\"}}",
+                        "rootAsset", null,
+                        "s1", null)
+                .toByteArray();
+
+        //when
+        store.apply(BlockFileReader.decodeBlockMessage(legacy));
+        store.apply(BlockFileReader.decodeBlockMessage(migrated));
+
+        //then
+        assertThat(store.getAllAssets()).hasSize(1);
+        assertThat(store.getCoins()).containsExactly("point");
+        assertThat(store.getHolders("point")).containsEntry("s1", 100L);
+        assertThat(store.getHistory("s1")).extracting(HistoryEntry::getFunction).containsExactly("InitLedger", "MigrateAssetKeys");
+    }
+
+    @Test
+    public void tenant_가_다른_같은_assetId_는_따로_반영한다() throws Exception {
+        //given
+        ProjectionStore store = ProjectionStore.inMemory("basic");
+        byte[] block = BlockBuilder.block(0)
+                .transaction("tx1", true, null, new String[]{"CreateAsset", "s1"},
+                        "\u0000asset\u0000s1\u0000", "{\"assetId\":\"s1\",\"owner\":\"kim\",\"coin\":{\"point\":\"100\"}}")
+                .transaction("tx2", true, "{\"v\":2,\"t\":\"school1\",\"op\":\"UpdateAssetCoin\",\"ch\":[[\"s1\",\"point\",5]]}",
+                        new String[]{"UpdateAssetCoin", "s1", "point", "5"},
+                        "\u0000tenant\u0000school1\u0000meta\u0000rootAsset\u0000", "{\"assetId\":\"rootAsset\",\"coin\":{\"point\":\"0\",\"meal\":\"0\"}}",
+                        "\u0000tenant\u0000school1\u0000asset\u0000s1\u0000", "{\"assetId\":\"s1\",\"owner\":\"lee\",\"coin\":{\"point\":\"5\"}}")
+                .toByteArray();
+
+        //when
+        store.apply(BlockFileReader.decodeBlockMessage(block));
+
+        //then
+        assertThat(store.getTenants()).containsExactly("school1");
+        assertThat(store.getBalance("s1", "point")).isEqualTo(100L);
+        assertThat(store.getBalance("school1", "s1", "point")).isEqualTo(5L);
+        assertThat(store.getCoins()).isEmpty();
+        assertThat(store.getCoins("school1")).containsExactly("meal", "point");
+        assertThat(store.getAssetsByOwner("school1", "lee")).containsExactly("s1");
+        assertThat(store.getHistory("s1")).extracting(HistoryEntry::getFunction).containsExactly("CreateAsset");
+        assertThat(store.getHistory("school1", "s1")).extracting(HistoryEntry::getFunction).containsExactly("UpdateAssetCoin");
+    }
+}
@@ -0,0 +1,102 @@
+package org.hyperledger.fabric.samples.assettransfer.appcds;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hyperledger.fabric.contract.ContractRouter;
+import org.hyperledger.fabric.samples.assettransfer.Asset;
+import org.hyperledger.fabric.samples.assettransfer.BatchItemResult;
+import org.hyperledger.fabric.samples.assettransfer.ChecksumBucket;
+import org.hyperledger.fabric.samples.assettransfer.ChecksumRange;
+import org.hyperledger.fabric.samples.assettransfer.CoinChecksum;
+import org.hyperledger.fabric.samples.assettransfer.CoinHolder;
+import org.hyperledger.fabric.samples.assettransfer.RequestRecord;
+import org.hyperledger.fabric.samples.assettransfer.SnapshotChunk;
+import org.hyperledger.fabric.samples.assettransfer.SnapshotImport;
+import org.hyperledger.fabric.samples.assettransfer.SnapshotManifest;
+import org.hyperledger.fabric.samples.assettransfer.TenantSummary;
+import org.hyperledger.fabric.samples.assettransfer.TenantSummaryPage;
+import org.hyperledger.fabric.samples.assettransfer.TransferCoinsResponse;
+import org.hyperledger.fabric.samples.assettransfer.TransferLeg;
+import org.hyperledger.fabric.samples.assettransfer.TransferResponse;
+import org.hyperledger.fabric.shim.Chaincode;
+import org.hyperledger.fabric.shim.ChaincodeServer;
+
+/**
+ * AppCDS archive 를 만들 때(gradle appCdsArchive) 클래스를 적재시키는 trainer
+ * 체인코드 배포본에는 들어가지 않고, 설치 classpath 는 그대로 둔 채 --module-path 의 automatic module 로 실행된다.
+ * (classpath 에 jar 를 하나라도 더하면 실행 시 classpath 와 달라져 JVM 이 archive 를 버린다)
+ * ContractRouter.main 과 같은 경로로 contract 를 찾고 metadata 를 만든 뒤, peer 연결 대신 WarmupStub 으로 TRANSACTIONS 를 보낸다.
+ * 첫 트랜잭션이 끝난 시점의 JVM uptime 을 출력하므로 gradle measureStartup 이 기동 시간 비교에도 쓴다.
+ */
+public final class ContractWarmup {
+
+    /**
+     * 체인코드가 JSON 으로 주고받는 타입 목록
+     * TRANSACTIONS 가 거치지 않는 타입도 archive 에 들어가도록 마지막에 Jackson reader / writer 를 만든다.
+     * 새 @DataType 이나 응답 타입을 추가하면 여기에도 등록한다.
+     */
+    static final List<Class<?>> DATA_TYPES = List.of(
+            Asset.class, TransferResponse.class, TransferCoinsResponse.class, TransferLeg.class, RequestRecord.class, BatchItemResult.class,
+            CoinHolder.class, CoinChecksum.class, ChecksumBucket.class, ChecksumRange.class,
+            TenantSummary.class, TenantSummaryPage.class,
+            SnapshotChunk.class, SnapshotManifest.class, SnapshotImport.class);
+
+    // 빈 ledger 에서 순서대로 실행한다. 첫 번째가 time-to-first-transaction 을 재는 트랜잭션이다.
+    private static final String[][] TRANSACTIONS = {
+            {"InitLedger"},
+            {"CreateCoin", "point"},
+            {"CreateAsset", "s1", "1", "warmup", "ROLE_STUDENT"},
+            {"CreateAsset", "m1", "m1", "warmup", "ROLE_STOREMANAGER"},
+            {"UpdateAssetCoin", "s1", "point", "100"},
+            {"TransferCoin", "s1", "m1", "point", "1"},
+            {"GetAsset", "s1"},
+            {"TransferCoins", "s1", "m1", "[{\"coinName\":\"point\",\"amount\":\"1\"}]"},
+            {"TransferCoinIdempotent", "warmup-request", "s1", "m1", "point", "1"},
+            {"GetAllAssets"},
+            {"GetCoinChecksum", "point"},
+    };
+
+    private ContractWarmup() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        ContractRouter router = new ContractRouter(new String[]{"--id", "basic:warmup"});
+        // startRouterWithChaincodeServer 가 contract 를 찾고 metadata 를 만든 다음 start 를 부른다
+        router.startRouterWithChaincodeServer(new ChaincodeServer() {
+            @Override
+            public void start() {
+                train(router);
+            }
+
+            @Override
+            public void stop() {
+            }
+        });
+    }
+
+    private static void train(ContractRouter router) {
+        long routerReady = ManagementFactory.getRuntimeMXBean().getUptime();
+
+        NavigableMap<String, byte[]> state = new TreeMap<>();
+        for (int i = 0; i < TRANSACTIONS.length; i++) {
+            Chaincode.Response response = router.invoke(WarmupStub.of(state, "warmup-" + i, TRANSACTIONS[i]));
+            if (response.getStatus() != Chaincode.Response.Status.SUCCESS) {
+                throw new IllegalStateException(TRANSACTIONS[i][0] + " failed: " + response.getMessage());
+            }
+            if (i == 0) {
+                long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+                System.out.println("router ready: " + routerReady + " ms, time-to-first-transaction: " + uptime + " ms");
+            }
+        }
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        for (Class<?> dataType : DATA_TYPES) {
+            objectMapper.readerFor(dataType);
+            objectMapper.writerFor(dataType);
+        }
+    }
+}
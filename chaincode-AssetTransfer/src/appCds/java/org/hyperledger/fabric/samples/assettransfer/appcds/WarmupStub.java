@@ -0,0 +1,179 @@
+package org.hyperledger.fabric.samples.assettransfer.appcds;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+
+import com.google.protobuf.ByteString;
+import org.hyperledger.fabric.protos.msp.Identities;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+
+/**
+ * ContractWarmup 이 peer 없이 ContractRouter 로 트랜잭션을 보낼 때 쓰는 ChaincodeStub
+ * 메모리의 ledger 하나를 여러 트랜잭션이 같이 쓰고, 체인코드가 부르는 메소드만 구현한다 (나머지는 UnsupportedOperationException).
+ * creator 는 warmup-identity.pem 의 인증서이므로 Context / ClientIdentity 생성까지 실제 트랜잭션과 같은 경로를 탄다.
+ */
+final class WarmupStub implements InvocationHandler {
+
+    static final String MSP_ID = "WarmupMSP";
+
+    private static final String MAX_UNICODE_RUNE = "\uDBFF\uDFFF";
+    private static final byte[] CREATOR = creator();
+
+    private final NavigableMap<String, byte[]> state;
+    private final String txId;
+    private final List<byte[]> args = new ArrayList<>();
+    private final List<String> stringArgs = new ArrayList<>();
+
+    private WarmupStub(NavigableMap<String, byte[]> state, String txId, String... args) {
+        this.state = state;
+        this.txId = txId;
+        for (String arg : args) {
+            this.args.add(arg.getBytes(StandardCharsets.UTF_8));
+            this.stringArgs.add(arg);
+        }
+    }
+
+    /**
+     * @param args function 이름과 인자 (peer 가 보내는 ChaincodeInput.args 와 같은 순서)
+     */
+    static ChaincodeStub of(NavigableMap<String, byte[]> state, String txId, String... args) {
+        return (ChaincodeStub) Proxy.newProxyInstance(ChaincodeStub.class.getClassLoader(),
+                new Class<?>[]{ChaincodeStub.class}, new WarmupStub(state, txId, args));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] a) {
+        switch (method.getName()) {
+            case "getArgs":
+                return args;
+            case "getStringArgs":
+                return stringArgs;
+            case "getFunction":
+                return stringArgs.isEmpty() ? null : stringArgs.get(0);
+            case "getParameters":
+                return stringArgs.isEmpty() ? Collections.emptyList() : stringArgs.subList(1, stringArgs.size());
+            case "getTxId":
+                return txId;
+            case "getChannelId":
+                return "warmup";
+            case "getTxTimestamp":
+                return Instant.EPOCH;
+            case "getCreator":
+                return CREATOR;
+            case "getTransient":
+                return Collections.emptyMap();
+            case "getState":
+                return state.getOrDefault((String) a[0], new byte[0]);
+            case "getStringState":
+                return new String(state.getOrDefault((String) a[0], new byte[0]), StandardCharsets.UTF_8);
+            case "putState":
+                state.put((String) a[0], (byte[]) a[1]);
+                return null;
+            case "putStringState":
+                state.put((String) a[0], ((String) a[1]).getBytes(StandardCharsets.UTF_8));
+                return null;
+            case "delState":
+                state.remove((String) a[0]);
+                return null;
+            case "setEvent":
+                return null;
+            case "createCompositeKey":
+                return new CompositeKey((String) a[0], (String[]) a[1]);
+            case "splitCompositeKey":
+                return CompositeKey.parseCompositeKey((String) a[0]);
+            case "getStateByPartialCompositeKey":
+                return scan(partialKey(a));
+            case "toString":
+                return "WarmupStub(" + txId + ")";
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == a[0];
+            default:
+                throw new UnsupportedOperationException("ChaincodeStub." + method.getName() + " is not used by the warm-up");
+        }
+    }
+
+    // (CompositeKey), (String compositeKey), (String objectType, String... attributes) 세 가지 overload
+    private static String partialKey(Object[] a) {
+        if (a[0] instanceof CompositeKey) {
+            return a[0].toString();
+        }
+        if (a.length == 2) {
+            return new CompositeKey((String) a[0], (String[]) a[1]).toString();
+        }
+        return (String) a[0];
+    }
+
+    private QueryResultsIterator<KeyValue> scan(String prefix) {
+        List<KeyValue> results = new ArrayList<>();
+        for (Map.Entry<String, byte[]> entry : state.subMap(prefix, true, prefix + MAX_UNICODE_RUNE, false).entrySet()) {
+            results.add(new Entry(entry.getKey(), entry.getValue()));
+        }
+        return new QueryResultsIterator<KeyValue>() {
+            @Override
+            public Iterator<KeyValue> iterator() {
+                return results.iterator();
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    private static byte[] creator() {
+        try (InputStream in = WarmupStub.class.getResourceAsStream("warmup-identity.pem")) {
+            if (in == null) {
+                throw new IllegalStateException("warmup-identity.pem not found");
+            }
+            return Identities.SerializedIdentity.newBuilder()
+                    .setMspid(MSP_ID)
+                    .setIdBytes(ByteString.readFrom(in))
+                    .build()
+                    .toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class Entry implements KeyValue {
+        private final String key;
+        private final byte[] value;
+
+        private Entry(String key, byte[] value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public byte[] getValue() {
+            return value;
+        }
+
+        @Override
+        public String getStringValue() {
+            return new String(value, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package exception;
+
+public class BatchSizeExceededException extends RuntimeException {
+    public BatchSizeExceededException(String message) {
+        super(message);
+    }
+}
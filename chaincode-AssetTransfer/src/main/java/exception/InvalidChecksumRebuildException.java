@@ -0,0 +1,7 @@
+package exception;
+
+public class InvalidChecksumRebuildException extends RuntimeException {
+    public InvalidChecksumRebuildException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package exception;
+
+public class InvalidSnapshotException extends RuntimeException {
+    public InvalidSnapshotException(String message) {
+        super(message);
+    }
+}
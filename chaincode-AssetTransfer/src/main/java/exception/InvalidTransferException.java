@@ -0,0 +1,7 @@
+package exception;
+
+public class InvalidTransferException extends RuntimeException {
+    public InvalidTransferException(String message) {
+        super(message);
+    }
+}
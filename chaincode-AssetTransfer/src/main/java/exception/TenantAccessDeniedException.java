@@ -0,0 +1,7 @@
+package exception;
+
+public class TenantAccessDeniedException extends RuntimeException{
+    public TenantAccessDeniedException(String message) {
+        super(message);
+    }
+}
@@ -1,9 +1,10 @@
 
 package org.hyperledger.fabric.samples.assettransfer;
 
-import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import exception.NotEnoughCoinValueException;
 import lombok.*;
 import org.hyperledger.fabric.contract.annotation.DataType;
@@ -25,7 +26,7 @@ public class Asset {
     private String owner;
 
     @Property()
-    private HashMap<String, String> coin;
+    private CoinBalances coin;
 
     @Property()
     private String userRole;
@@ -39,15 +40,21 @@ public class Asset {
     @Property()
     private String amount;
 
-    public static Asset of(final String assetId, final String studentId, final String owner, final HashMap<String, String> coin, final String userRole, final String sender, final String receiver, final String amount) {
+    // AssetCache 가 여러 트랜잭션에 같이 넘겨주는 Asset 이면 true
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient boolean readOnly;
+
+    public static Asset of(final String assetId, final String studentId, final String owner, final Map<String, String> coin, final String userRole, final String sender, final String receiver, final String amount) {
         return new Asset(assetId, studentId, owner, coin, userRole, sender, receiver, amount);
     }
 
-    public Asset(String assetId, String identifier, String owner, HashMap<String, String> coin, String userRole, String sender, String receiver, String amount) {
+    public Asset(String assetId, String identifier, String owner, Map<String, String> coin, String userRole, String sender, String receiver, String amount) {
         this.assetId = assetId;
         this.identifier = identifier;
         this.owner = owner;
-        this.coin = coin;
+        this.coin = CoinBalances.of(coin);
         this.userRole = userRole;
         this.sender = sender;
         this.receiver = receiver;
@@ -67,12 +74,26 @@ public class Asset {
         return Objects.hash(this.getAssetId(), getOwner(), getCoin(), getSender(), getReceiver(), getAmount());
     }
 
+    /**
+     * @return 바꿔도 되는 복사본
+     */
+    public Asset copy() {
+        return new Asset(assetId, identifier, owner, coin, userRole, sender, receiver, amount);
+    }
+
+    Asset readOnly() {
+        coin.readOnly();
+        readOnly = true;
+        return this;
+    }
+
     public void changeOwner(String owner){
+        checkWritable();
         this.owner = owner;
     }
 
     public void createCoin(String coinName){
-        coin.put(coinName, "0");
+        coin.putLong(coinName, 0);
     }
 
     public void createCoin(String coinName, String coinValue){
@@ -84,16 +105,50 @@ public class Asset {
     }
 
     public void modifyCoinValue(String senderAssetId, String receiverAssetId, String coinName, String amount) throws NotEnoughCoinValueException {
-        int modifiedCoinValue = Integer.parseInt(coin.get(coinName)) + Integer.parseInt(amount);
+        checkWritable();
+        long modifiedCoinValue = Math.addExact(coin.getLong(coinName), Long.parseLong(amount));
         if (modifiedCoinValue < 0) {
             String errormessage = String.format("Asset %s does not have enough coin", senderAssetId);
             throw new NotEnoughCoinValueException(errormessage);
         }
 
-        coin.put(coinName, String.valueOf(modifiedCoinValue));
+        coin.putLong(coinName, modifiedCoinValue);
 
         sender = senderAssetId;
         receiver = receiverAssetId;
         this.amount = amount;
     }
+
+    /**
+     * 여러 coin 잔액을 한 번에 바꾼다. 하나라도 음수가 되면 아무것도 바꾸지 않는다.
+     *
+     * @param deltas coinNames 와 같은 순서로 더할 값
+     * @return coinNames 순서의 바뀐 잔액
+     */
+    public long[] modifyCoinValues(String senderAssetId, String receiverAssetId, String[] coinNames, long[] deltas, String amount) throws NotEnoughCoinValueException {
+        checkWritable();
+        long[] modifiedCoinValues = new long[coinNames.length];
+        for (int i = 0; i < coinNames.length; i++) {
+            modifiedCoinValues[i] = Math.addExact(coin.getLong(coinNames[i]), deltas[i]);
+            if (modifiedCoinValues[i] < 0) {
+                String errormessage = String.format("Asset %s does not have enough coin", assetId);
+                throw new NotEnoughCoinValueException(errormessage);
+            }
+        }
+
+        for (int i = 0; i < coinNames.length; i++) {
+            coin.putLong(coinNames[i], modifiedCoinValues[i]);
+        }
+
+        sender = senderAssetId;
+        receiver = receiverAssetId;
+        this.amount = amount;
+        return modifiedCoinValues;
+    }
+
+    private void checkWritable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException(String.format("Asset %s is a shared read-only view, use copy()", assetId));
+        }
+    }
 }
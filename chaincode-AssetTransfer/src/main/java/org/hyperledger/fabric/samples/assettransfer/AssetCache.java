@@ -0,0 +1,148 @@
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * world state 에서 읽은 Asset JSON 의 decode 결과 cache
+ * key 가 state 의 key 가 아니라 읽은 bytes 의 hash 이므로 값이 바뀌면 자연히 miss 가 되고 무효화할 필요가 없다.
+ * hash 가 같아도 bytes 를 비교해서 같을 때만 hit 로 본다.
+ *
+ * cache 된 Asset 은 여러 트랜잭션이 같이 보는 read-only view 이므로 바꾸려면 copy 로 받는다.
+ * 항목 수와 bytes 합계 상한을 넘으면 가장 오래 쓰지 않은 것부터 지운다 (LRU).
+ */
+final class AssetCache {
+
+    private final ObjectMapper objectMapper;
+    private final int maxEntries;
+    private final long maxBytes;
+
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    AssetCache(ObjectMapper objectMapper, int maxEntries, long maxBytes) {
+        this.objectMapper = objectMapper;
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return 공유되는 read-only Asset (바꾸려고 하면 UnsupportedOperationException)
+     */
+    Asset view(final byte[] assetJSON) throws JsonProcessingException {
+        if (assetJSON == null || assetJSON.length == 0 || maxEntries <= 0) {
+            return decode(assetJSON).readOnly();
+        }
+
+        long hash = hash(assetJSON);
+        synchronized (this) {
+            Entry entry = entries.get(hash);
+            if (entry != null && Arrays.equals(entry.content, assetJSON)) {
+                hits.increment();
+                return entry.asset;
+            }
+        }
+
+        misses.increment();
+        Asset asset = decode(assetJSON).readOnly();
+        if (assetJSON.length <= maxBytes) {
+            put(hash, new Entry(assetJSON.clone(), asset));
+        }
+        return asset;
+    }
+
+    /**
+     * @return 바꿔도 되는 Asset
+     */
+    Asset copy(final byte[] assetJSON) throws JsonProcessingException {
+        return view(assetJSON).copy();
+    }
+
+    long getHits() {
+        return hits.sum();
+    }
+
+    long getMisses() {
+        return misses.sum();
+    }
+
+    long getEvictions() {
+        return evictions.sum();
+    }
+
+    double getHitRate() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized long getBytes() {
+        return bytes;
+    }
+
+    synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    private synchronized void put(long hash, Entry entry) {
+        Entry previous = entries.put(hash, entry);
+        if (previous != null) {
+            bytes -= previous.content.length;
+        }
+        bytes += entry.content.length;
+
+        Iterator<Map.Entry<Long, Entry>> eldest = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || bytes > maxBytes) && eldest.hasNext()) {
+            bytes -= eldest.next().getValue().content.length;
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private Asset decode(byte[] assetJSON) throws JsonProcessingException {
+        try {
+            return objectMapper.readValue(assetJSON, Asset.class);
+        } catch (JsonProcessingException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // FNV-1a 64
+    static long hash(byte[] content) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : content) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static final class Entry {
+        private final byte[] content;
+        private final Asset asset;
+
+        private Entry(byte[] content, Asset asset) {
+            this.content = content;
+            this.asset = asset;
+        }
+    }
+}
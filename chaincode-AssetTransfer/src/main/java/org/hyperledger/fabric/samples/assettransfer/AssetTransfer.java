@@ -5,13 +5,23 @@
 package org.hyperledger.fabric.samples.assettransfer;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeMap;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import exception.*;
 import org.hyperledger.fabric.contract.Context;
 import org.hyperledger.fabric.contract.ContractInterface;
@@ -23,9 +33,11 @@ import org.hyperledger.fabric.contract.annotation.License;
 import org.hyperledger.fabric.contract.annotation.Transaction;
 import org.hyperledger.fabric.shim.ChaincodeException;
 import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
 import org.hyperledger.fabric.shim.ledger.KeyModification;
 import org.hyperledger.fabric.shim.ledger.KeyValue;
 import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIteratorWithMetadata;
 
 @Contract(
         name = "basic",
@@ -43,7 +55,58 @@ import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
 @Default
 public final class AssetTransfer implements ContractInterface {
 
-    private final static ObjectMapper objectMapper = new ObjectMapper();
+    final static ObjectMapper objectMapper = new ObjectMapper();
+
+    // Asset 은 asset composite key, rootAsset(coin 목록)은 meta composite key 아래에 둔다.
+    // 범위 조회는 partial composite key 로 하므로 다른 keyspace(meta, request 등)가 섞이지 않는다.
+    // tenant 를 쓰면 모든 key 앞에 tenant/tenantId 가 붙는다 (Tenant). 아래 *_KEY 상수는 기본 tenant 의 key 다.
+    static final String ASSET_KEY = "asset";
+    static final String META_KEY = "meta";
+    static final String ROOT_ASSET_ID = "rootAsset";
+    static final String ROOT_ASSET_KEY = new CompositeKey(META_KEY, ROOT_ASSET_ID).toString();
+    static final int MAX_MIGRATION_CHUNK = 500;
+
+    // ImportSnapshot 진행 상황 (chunk 수, record 수, bytes, digest)
+    static final String SNAPSHOT_IMPORT_ID = "snapshotImport";
+    static final long MAX_SNAPSHOT_CHUNK_BYTES = 16 * 1024 * 1024;
+
+    // client request ID 중복 제거용 keyspace (composite key 이므로 simple key 범위 조회에 섞이지 않는다)
+    static final String REQUEST_KEY = "request";
+    static final String REQUEST_EXPIRY_INDEX = "requestExpiry";
+    static final int MAX_PRUNE_CHUNK = 500;
+
+    // CreateAssetsBatch 한 번에 받을 수 있는 최대 Asset 수 (endorsement timeout 안에 끝나도록 peer 환경변수로 조정)
+    static final String MAX_BATCH_SIZE_ENV = "CHAINCODE_MAX_BATCH_SIZE";
+    static final int DEFAULT_MAX_BATCH_SIZE = 500;
+    static final int maxBatchSize = intEnv(MAX_BATCH_SIZE_ENV, DEFAULT_MAX_BATCH_SIZE);
+
+    // rootAsset 처럼 거의 모든 트랜잭션이 읽는 문서의 decode 결과를 재사용한다 (0 이면 끈다)
+    static final String ASSET_CACHE_ENTRIES_ENV = "CHAINCODE_ASSET_CACHE_ENTRIES";
+    static final String ASSET_CACHE_BYTES_ENV = "CHAINCODE_ASSET_CACHE_BYTES";
+    static final int DEFAULT_ASSET_CACHE_ENTRIES = 1024;
+    static final int DEFAULT_ASSET_CACHE_BYTES = 8 * 1024 * 1024;
+    static final AssetCache assetCache = new AssetCache(objectMapper,
+            intEnv(ASSET_CACHE_ENTRIES_ENV, DEFAULT_ASSET_CACHE_ENTRIES), intEnv(ASSET_CACHE_BYTES_ENV, DEFAULT_ASSET_CACHE_BYTES));
+
+    // GetAllAssets, CreateCoin, RemoveCoin, UpdateAllAssetCoin 의 decode / encode 를 나눠서 처리한다 (1 이면 순차)
+    static final String SCAN_PARALLELISM_ENV = "CHAINCODE_SCAN_PARALLELISM";
+    static final String SCAN_PAGE_SIZE_ENV = "CHAINCODE_SCAN_PAGE_SIZE";
+    static final int DEFAULT_SCAN_PAGE_SIZE = 256;
+    static final BulkScan bulkScan = new BulkScan(
+            intEnv(SCAN_PARALLELISM_ENV, Runtime.getRuntime().availableProcessors()), intEnv(SCAN_PAGE_SIZE_ENV, DEFAULT_SCAN_PAGE_SIZE));
+
+    // client identity 로 tenant 를 정한다 (CHAINCODE_TENANT_SOURCE, 기본값은 tenant 없음)
+    private static final TenantResolver defaultTenants = TenantResolver.fromEnvironment();
+
+    private final TenantResolver tenants;
+
+    public AssetTransfer() {
+        this(defaultTenants);
+    }
+
+    AssetTransfer(final TenantResolver tenants) {
+        this.tenants = tenants;
+    }
 
     /**
      * methodName : InitLedger
@@ -54,10 +117,11 @@ public final class AssetTransfer implements ContractInterface {
      */
     @Transaction(intent = Transaction.TYPE.SUBMIT)
     public void InitLedger(final Context ctx) throws JsonProcessingException {
-
+        Tenant tenant = tenants.resolve(ctx);
         ChaincodeStub stub = ctx.getStub();
-        Asset asset = new Asset("rootAsset","0", "rootOwner",new HashMap<String ,String>(), null, null,null,null);
-        stub.putStringState(asset.getAssetId(), objectMapper.writeValueAsString(asset));
+        Asset asset = new Asset(ROOT_ASSET_ID,"0", "rootOwner",new HashMap<String ,String>(), null, null,null,null);
+        stub.putStringState(tenant.rootKey(), objectMapper.writeValueAsString(asset));
+        registerTenant(stub, tenant);
         System.out.println("InitLedger Success");
     }
 
@@ -72,14 +136,16 @@ public final class AssetTransfer implements ContractInterface {
      */
     @Transaction(intent = Transaction.TYPE.EVALUATE)
     public boolean AssetExists(final Context ctx, final String assetId) {
+        Tenant tenant = tenants.resolve(ctx);
+
         try {
-            if (assetId == null || assetId.contains(" ") || assetId.isEmpty() || assetId.isBlank()) {
+            if (assetId == null || assetId.contains(" ") || assetId.isEmpty() || assetId.isBlank() || assetId.contains(CompositeKey.NAMESPACE)) {
                 String errorMessage = "assetId is null or empty or blank";
                 throw new EmptyValueException(errorMessage);
             }
 
             ChaincodeStub stub = ctx.getStub();
-            String assetJSON = stub.getStringState(assetId);
+            String assetJSON = stub.getStringState(tenant.assetKey(assetId));
 
             if (assetJSON == null || assetJSON.isEmpty()) {
                 return false;
@@ -112,6 +178,7 @@ public final class AssetTransfer implements ContractInterface {
             final String userRole
     )
     {
+        Tenant tenant = tenants.resolve(ctx);
 
         try {
 
@@ -124,8 +191,8 @@ public final class AssetTransfer implements ContractInterface {
 
             HashMap<String, String> coin = new HashMap<>();
 
-            Asset rootAsset = objectMapper.readValue(stub.getStringState("rootAsset"), Asset.class);
-            HashMap<String, String> rootCoin = rootAsset.getCoin();
+            Asset rootAsset = assetCache.view(stub.getState(tenant.rootKey()));
+            Map<String, String> rootCoin = rootAsset.getCoin();
 
             for (String key : rootCoin.keySet()) {
                 coin.put(key, "0");
@@ -133,7 +200,9 @@ public final class AssetTransfer implements ContractInterface {
 
             Asset asset = Asset.of(assetId, studentId, owner, coin, userRole,null, null, null);
             String assetJSON = objectMapper.writeValueAsString(asset);
-            stub.putStringState(assetId, assetJSON);
+            stub.putStringState(tenant.assetKey(assetId), assetJSON);
+
+            BalanceEvent.of("CreateAsset", tenant).created(asset).emit(stub);
 
             return asset;
 
@@ -147,6 +216,84 @@ public final class AssetTransfer implements ContractInterface {
     }
 
 
+    /**
+     * methodName : CreateAssetsBatch
+     * author : Jaeyeop Jung
+     * description : 학기 초 Asset 일괄 생성
+     * assetsJSON 은 [assetId, studentId, owner, userRole] 배열의 JSON 배열이다.
+     * rootAsset 은 한 번만 읽고, 이미 있거나 batch 안에서 중복되거나 형식이 잘못된 항목은 건너뛴 뒤 항목별 결과를 돌려준다.
+     * 항목 수가 CHAINCODE_MAX_BATCH_SIZE 를 넘으면 아무것도 쓰지 않는다.
+     *
+     * @param ctx        the ctx
+     * @param assetsJSON the asset tuples
+     * @return 항목별 결과 (BatchItemResult 배열)
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String CreateAssetsBatch(final Context ctx, final String assetsJSON) {
+        Tenant tenant = tenants.resolve(ctx);
+
+        try {
+            String[][] tuples = objectMapper.readValue(assetsJSON, String[][].class);
+            if (tuples.length > maxBatchSize) {
+                String errorMessage = String.format("Batch size %d exceeds limit %d", tuples.length, maxBatchSize);
+                throw new BatchSizeExceededException(errorMessage);
+            }
+
+            ChaincodeStub stub = ctx.getStub();
+
+            CoinBalances coin = new CoinBalances();
+            Asset rootAsset = assetCache.view(stub.getState(tenant.rootKey()));
+            for (String key : rootAsset.getCoin().keySet()) {
+                coin.putLong(key, 0);
+            }
+
+            BalanceEvent event = BalanceEvent.of("CreateAssetsBatch", tenant);
+            List<BatchItemResult> results = new ArrayList<>(tuples.length);
+            Set<String> seen = new HashSet<>();
+            for (int i = 0; i < tuples.length; i++) {
+                String[] tuple = tuples[i];
+                String assetId = tuple != null && tuple.length > 0 ? tuple[0] : null;
+
+                BatchItemStatus status;
+                String message = null;
+                if (tuple == null || tuple.length != 4) {
+                    status = BatchItemStatus.INVALID;
+                    message = "expected [assetId, studentId, owner, userRole]";
+                } else if (assetId == null || assetId.contains(" ") || assetId.isBlank() || assetId.contains(CompositeKey.NAMESPACE)) {
+                    status = BatchItemStatus.INVALID;
+                    message = "assetId is null or empty or blank";
+                } else if (!seen.add(assetId)) {
+                    status = BatchItemStatus.DUPLICATE_IN_BATCH;
+                } else if (AssetExists(ctx, assetId)) {
+                    status = BatchItemStatus.ALREADY_EXISTS;
+                } else {
+                    Asset asset = Asset.of(assetId, tuple[1], tuple[2], coin, tuple[3], null, null, null);
+                    stub.putStringState(tenant.assetKey(assetId), objectMapper.writeValueAsString(asset));
+                    event.created(asset);
+                    status = BatchItemStatus.CREATED;
+                }
+
+                results.add(BatchItemResult.builder()
+                        .index(i)
+                        .assetId(assetId)
+                        .status(status)
+                        .message(message)
+                        .build());
+            }
+            event.emit(stub);
+
+            return objectMapper.writeValueAsString(results);
+
+        } catch (BatchSizeExceededException e){
+            System.out.println(e.getMessage());
+        } catch (JsonProcessingException e) {
+            System.out.println("Object to Json Exception: " + e.getMessage());
+        }
+
+        return null;
+    }
+
+
     /**
      * methodName : GetAsset
      * author : 공용
@@ -158,6 +305,8 @@ public final class AssetTransfer implements ContractInterface {
      */
     @Transaction(intent = Transaction.TYPE.EVALUATE)
     public Asset GetAsset(final Context ctx, final String assetId) {
+        Tenant tenant = tenants.resolve(ctx);
+
         try{
             if(!AssetExists(ctx, assetId)){
                 String errorMessage = String.format("Asset %s does not exist", assetId);
@@ -165,11 +314,8 @@ public final class AssetTransfer implements ContractInterface {
             }
 
             ChaincodeStub stub = ctx.getStub();
-            String assetJSON = stub.getStringState(assetId);
 
-            Asset asset = objectMapper.readValue(assetJSON, Asset.class);
-
-            return asset;
+            return assetCache.view(stub.getState(tenant.assetKey(assetId)));
 
         } catch (AssetNotFoundException e){
             System.out.println(e.getMessage());
@@ -181,6 +327,75 @@ public final class AssetTransfer implements ContractInterface {
     }
 
 
+    /**
+     * methodName : GetAssets
+     * author : Jaeyeop Jung
+     * description : 여러 Asset 을 한 번에 읽기
+     * key 마다 한 번만 읽고, fieldsJSON / coinsJSON 에 있는 field 와 coin 만 남긴다 (비어있으면 전체).
+     * 없는 assetId 는 실패시키지 않고 missing 에 담는다.
+     *
+     * @param ctx          the ctx
+     * @param assetIdsJSON the asset ids
+     * @param fieldsJSON   the fields to return
+     * @param coinsJSON    the coins to return
+     * @return {"assets": [...], "missing": [...]}
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetAssets(final Context ctx, final String assetIdsJSON, final String fieldsJSON, final String coinsJSON) {
+        Tenant tenant = tenants.resolve(ctx);
+
+        try {
+            Set<String> assetIds = new LinkedHashSet<>(Arrays.asList(objectMapper.readValue(assetIdsJSON, String[].class)));
+            if (assetIds.size() > maxBatchSize) {
+                String errorMessage = String.format("Batch size %d exceeds limit %d", assetIds.size(), maxBatchSize);
+                throw new BatchSizeExceededException(errorMessage);
+            }
+            Set<String> fields = readProjection(fieldsJSON);
+            Set<String> coins = readProjection(coinsJSON);
+
+            ChaincodeStub stub = ctx.getStub();
+
+            ObjectNode response = objectMapper.createObjectNode();
+            ArrayNode assets = response.putArray("assets");
+            ArrayNode missing = response.putArray("missing");
+
+            for (String assetId : assetIds) {
+                boolean validId = assetId != null && !assetId.isBlank() && !assetId.contains(CompositeKey.NAMESPACE);
+                String assetJSON = validId ? stub.getStringState(tenant.assetKey(assetId)) : null;
+                if (assetJSON == null || assetJSON.isEmpty()) {
+                    missing.add(assetId);
+                    continue;
+                }
+
+                ObjectNode asset = (ObjectNode) objectMapper.readTree(assetJSON);
+                if (!fields.isEmpty()) {
+                    asset.retain(fields);
+                }
+                if (!coins.isEmpty() && asset.get("coin") instanceof ObjectNode) {
+                    ((ObjectNode) asset.get("coin")).retain(coins);
+                }
+                assets.add(asset);
+            }
+
+            return objectMapper.writeValueAsString(response);
+
+        } catch (BatchSizeExceededException e){
+            System.out.println(e.getMessage());
+        } catch (JsonProcessingException e) {
+            System.out.println("Object to Json Exception: " + e.getMessage());
+        }
+
+        return null;
+    }
+
+    private Set<String> readProjection(final String projectionJSON) throws JsonProcessingException {
+        if (projectionJSON == null || projectionJSON.isBlank()) {
+            return new HashSet<>();
+        }
+        return new HashSet<>(Arrays.asList(objectMapper.readValue(projectionJSON, String[].class)));
+    }
+
+
     /**
      * methodName : ChangeOwner
      * author : Jaeyeop Jung
@@ -198,6 +413,8 @@ public final class AssetTransfer implements ContractInterface {
             final String newOwner
     )
     {
+        Tenant tenant = tenants.resolve(ctx);
+
         try {
             if(!AssetExists(ctx, assetId)){
                 String errorMessage = String.format("Asset %s does not exist", assetId);
@@ -206,10 +423,10 @@ public final class AssetTransfer implements ContractInterface {
 
             ChaincodeStub stub = ctx.getStub();
 
-            Asset asset = objectMapper.readValue(stub.getStringState(assetId), Asset.class);
+            Asset asset = assetCache.copy(stub.getState(tenant.assetKey(assetId)));
             asset.changeOwner(newOwner);
 
-            stub.putStringState(assetId, objectMapper.writeValueAsString(asset));
+            stub.putStringState(tenant.assetKey(assetId), objectMapper.writeValueAsString(asset));
 
             return asset;
 
@@ -235,6 +452,8 @@ public final class AssetTransfer implements ContractInterface {
      */
     @Transaction(intent = Transaction.TYPE.SUBMIT)
     public boolean DeleteAsset(final Context ctx, final String assetId) {
+        Tenant tenant = tenants.resolve(ctx);
+
         try {
             if (!AssetExists(ctx, assetId)) {
                 String errorMessage = String.format("Asset %s does not exist", assetId);
@@ -243,11 +462,17 @@ public final class AssetTransfer implements ContractInterface {
 
             ChaincodeStub stub = ctx.getStub();
 
-            stub.delState(assetId);
+            Asset asset = assetCache.view(stub.getState(tenant.assetKey(assetId)));
+            stub.delState(tenant.assetKey(assetId));
+            HolderIndex.of(tenant).deleted(asset).apply(stub);
+
+            BalanceEvent.of("DeleteAsset", tenant).deleted(assetId).emit(stub);
 
             return true;
         } catch (AssetNotFoundException e){
             System.out.println(e.getMessage());
+        } catch (JsonProcessingException e) {
+            System.out.println("Object to Json Exception: " + e.getMessage());
         }
 
         return false;
@@ -264,28 +489,78 @@ public final class AssetTransfer implements ContractInterface {
      */
     @Transaction(intent = Transaction.TYPE.EVALUATE)
     public String GetAllAssets(final Context ctx) {
+        Tenant tenant = tenants.resolve(ctx);
 
         try {
 
             ChaincodeStub stub = ctx.getStub();
 
-            List<Asset> queryResults = new ArrayList<>();
+            // asset keyspace 전체를 partial composite key 로 조회한다 (rootAsset 과 다른 keyspace 는 포함되지 않는다)
+            QueryResultsIterator<KeyValue> results = stub.getStateByPartialCompositeKey(tenant.allAssets());
+
+            // Asset 마다 decode / encode 한 결과를 조회 순서대로 이어 붙인다 (List<Asset> 을 직렬화한 것과 같다)
+            List<String> queryResults = bulkScan.map(results,
+                    result -> objectMapper.writeValueAsString(objectMapper.readValue(result.getStringValue(), Asset.class)));
+
+            StringJoiner assetsJSON = new StringJoiner(",", "[", "]");
+            for (String assetJSON : queryResults) {
+                assetsJSON.add(assetJSON);
+            }
+            return assetsJSON.toString();
+
+        } catch (JsonProcessingException e) {
+            System.out.println("Object to Json Exception: " + e.getMessage());
+        }
+
+        return null;
+    }
+
+    /**
+     * methodName : GetTopHolders
+     * author : Jaeyeop Jung
+     * description : coin 잔액이 큰 순서로 n 개의 Asset 을 조회한다 (같으면 assetId 순서)
+     * 보유량 순위 index 의 key n 개만 읽으며 잔액이 0 인 Asset 은 나오지 않는다.
+     *
+     * @param ctx      the ctx
+     * @param coinName the coin name
+     * @param n        the n
+     * @return CoinHolder 배열
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetTopHolders(final Context ctx, final String coinName, final String n) {
+        Tenant tenant = tenants.resolve(ctx);
+        ChaincodeStub stub = ctx.getStub();
 
-            // To retrieve all assets from the ledger use getStateByRange with empty startKey & endKey.
-            // Giving empty startKey & endKey is interpreted as all the keys from beginning to end.
-            // As another example, if you use startKey = 'asset0', endKey = 'asset9' ,
-            // then getStateByRange will retrieve asset with keys between asset0 (inclusive) and asset9 (exclusive) in lexical order.
-            QueryResultsIterator<KeyValue> results = stub.getStateByRange("", "rootAsset");
+        try {
+            if(coinName == null || coinName.isBlank() || coinName.contains(CompositeKey.NAMESPACE)){
+                String errorMessage = "coinName is null or empty or blank";
+                throw new EmptyValueException(errorMessage);
+            }
+            int size = Integer.parseInt(n);
+            if (size <= 0 || size > maxBatchSize) {
+                String errorMessage = String.format("Top holders %d exceeds limit %d", size, maxBatchSize);
+                throw new BatchSizeExceededException(errorMessage);
+            }
 
-            for (KeyValue result: results) {
-                Asset asset = objectMapper.readValue(result.getStringValue(), Asset.class);
-                queryResults.add(asset);
+            List<CoinHolder> holders = new ArrayList<>(size);
+            QueryResultsIteratorWithMetadata<KeyValue> page = stub.getStateByPartialCompositeKeyWithPagination(HolderIndex.coinKey(tenant, coinName), size, "");
+            for (KeyValue keyValue : page) {
+                holders.add(HolderIndex.parse(stub, tenant, keyValue.getKey()));
             }
+            page.close();
 
-            return objectMapper.writeValueAsString(queryResults);
+            return objectMapper.writeValueAsString(holders);
 
+        } catch (EmptyValueException e){
+            System.out.println(e.getMessage());
+        } catch (BatchSizeExceededException e) {
+            System.out.println(e.getMessage());
+        } catch (NumberFormatException e) {
+            System.out.println("NumberFormatException: " + e.getMessage());
         } catch (JsonProcessingException e) {
             System.out.println("Object to Json Exception: " + e.getMessage());
+        } catch (Exception e) {
+            System.out.println("QueryResultsIterator close Excepiton: " + e.getMessage());
         }
 
         return null;
@@ -302,6 +577,8 @@ public final class AssetTransfer implements ContractInterface {
      */
     @Transaction(intent = Transaction.TYPE.EVALUATE)
     public boolean CoinExists(final Context ctx, final String coinName) {
+        Tenant tenant = tenants.resolve(ctx);
+
         try {
             if(coinName == null || coinName.contains(" ") || coinName.isEmpty() || coinName.isBlank()){
                 String errorMessage = "coinName is null or empty or blank";
@@ -310,7 +587,7 @@ public final class AssetTransfer implements ContractInterface {
 
             ChaincodeStub stub = ctx.getStub();
 
-            Asset root = objectMapper.readValue(stub.getStringState("rootAsset"), Asset.class);
+            Asset root = assetCache.view(stub.getState(tenant.rootKey()));
             if(!root.getCoin().containsKey(coinName)){
                 return false;
             }
@@ -337,6 +614,8 @@ public final class AssetTransfer implements ContractInterface {
      */
     @Transaction(intent = Transaction.TYPE.SUBMIT)
     public boolean CreateCoin(final Context ctx, final String coinName) {
+        Tenant tenant = tenants.resolve(ctx);
+
         try {
 
             if(CoinExists(ctx, coinName)){
@@ -346,17 +625,23 @@ public final class AssetTransfer implements ContractInterface {
 
             ChaincodeStub stub = ctx.getStub();
 
-            Asset rootAsset = objectMapper.readValue(stub.getStringState("rootAsset"), Asset.class);
+            Asset rootAsset = assetCache.copy(stub.getState(tenant.rootKey()));
             rootAsset.createCoin(coinName);
-            stub.putStringState(rootAsset.getAssetId(), objectMapper.writeValueAsString(rootAsset));
+            stub.putStringState(tenant.rootKey(), objectMapper.writeValueAsString(rootAsset));
+            BalanceChecksum.create(stub, tenant, coinName);
 
-            QueryResultsIterator<KeyValue> assetIter = stub.getStateByRange("", "rootAsset");
-            for (KeyValue keyValue : assetIter) {
+            QueryResultsIterator<KeyValue> assetIter = stub.getStateByPartialCompositeKey(tenant.allAssets());
+            List<BulkScan.Write> writes = bulkScan.map(assetIter, keyValue -> {
                 Asset asset = objectMapper.readValue(keyValue.getStringValue(), Asset.class);
                 asset.createCoin(coinName);
-                stub.putStringState(asset.getAssetId(), objectMapper.writeValueAsString(asset));
+                return new BulkScan.Write(keyValue.getKey(), asset, objectMapper.writeValueAsString(asset));
+            });
+            for (BulkScan.Write write : writes) {
+                stub.putStringState(write.getKey(), write.getValue());
             }
 
+            BalanceEvent.of("CreateCoin", tenant).coin(coinName).emit(stub);
+
             return true;
 
         } catch (AlreadyExistsCoinException e){
@@ -379,6 +664,8 @@ public final class AssetTransfer implements ContractInterface {
      */
     @Transaction(intent = Transaction.TYPE.SUBMIT)
     public boolean RemoveCoin(final Context ctx, final String coinName) {
+        Tenant tenant = tenants.resolve(ctx);
+
         try {
             if(!CoinExists(ctx, coinName)){
                 String errorMessage = String.format("Coin %s is does not exists", coinName);
@@ -387,13 +674,23 @@ public final class AssetTransfer implements ContractInterface {
 
             ChaincodeStub stub = ctx.getStub();
 
-            QueryResultsIterator<KeyValue> assetIdIter = stub.getStateByRange("", "");
+            Asset rootAsset = assetCache.copy(stub.getState(tenant.rootKey()));
+            rootAsset.removeCoin(coinName);
+            stub.putStringState(tenant.rootKey(), objectMapper.writeValueAsString(rootAsset));
 
-            for (KeyValue keyValue : assetIdIter) {
+            QueryResultsIterator<KeyValue> assetIdIter = stub.getStateByPartialCompositeKey(tenant.allAssets());
+            List<BulkScan.Write> writes = bulkScan.map(assetIdIter, keyValue -> {
                 Asset asset = objectMapper.readValue(keyValue.getStringValue(), Asset.class);
                 asset.removeCoin(coinName);
-                stub.putStringState(asset.getAssetId(), objectMapper.writeValueAsString(asset));
+                return new BulkScan.Write(keyValue.getKey(), asset, objectMapper.writeValueAsString(asset));
+            });
+            for (BulkScan.Write write : writes) {
+                stub.putStringState(write.getKey(), write.getValue());
             }
+            HolderIndex.removeCoin(stub, tenant, coinName);
+            BalanceChecksum.remove(stub, tenant, coinName);
+
+            BalanceEvent.of("RemoveCoin", tenant).coin(coinName).emit(stub);
 
             return true;
 
@@ -413,6 +710,7 @@ public final class AssetTransfer implements ContractInterface {
             final String coinValue,
             final String userRole
     ) {
+        Tenant tenant = tenants.resolve(ctx);
         ChaincodeStub stub = ctx.getStub();
 
         try {
@@ -421,14 +719,24 @@ public final class AssetTransfer implements ContractInterface {
                 throw new CoinNotFoundException(errorMessage);
             }
 
-            QueryResultsIterator<KeyValue> assetIdIter = stub.getStateByRange("", "rootAsset");
-            for (KeyValue keyValue : assetIdIter) {
+            long delta = Long.parseLong(coinValue);
+            QueryResultsIterator<KeyValue> assetIdIter = stub.getStateByPartialCompositeKey(tenant.allAssets());
+            List<BulkScan.Write> writes = bulkScan.map(assetIdIter, keyValue -> {
                 Asset asset = objectMapper.readValue(keyValue.getStringValue(), Asset.class);
-                if (asset.getUserRole().equals(userRole)){
-                    asset.modifyCoinValue(null, null, coinName, coinValue);
-                    stub.putStringState(asset.getAssetId(), objectMapper.writeValueAsString(asset));
+                if (!asset.getUserRole().equals(userRole)){
+                    return null;
                 }
+                asset.modifyCoinValue(null, null, coinName, coinValue);
+                return new BulkScan.Write(keyValue.getKey(), asset, objectMapper.writeValueAsString(asset));
+            });
+            HolderIndex index = HolderIndex.of(tenant);
+            for (BulkScan.Write write : writes) {
+                long balance = write.getAsset().getCoin().getLong(coinName);
+                stub.putStringState(write.getKey(), write.getValue());
+                index.changed(write.getAsset().getAssetId(), coinName, balance - delta, balance);
             }
+            index.apply(stub);
+            BalanceEvent.of("UpdateAllAssetCoin", tenant).changedAll(coinName, userRole, delta).emit(stub);
 
             return true;
 
@@ -447,6 +755,8 @@ public final class AssetTransfer implements ContractInterface {
             final String coinName,
             final String coinValue
     ) {
+        Tenant tenant = tenants.resolve(ctx);
+
         try {
             ChaincodeStub stub = ctx.getStub();
 
@@ -459,10 +769,13 @@ public final class AssetTransfer implements ContractInterface {
                 throw new CoinNotFoundException(errorMessage);
             }
 
-            Asset asset = objectMapper.readValue(stub.getStringState(assetId), Asset.class);
-            asset.modifyCoinValue(null, null, coinName, coinValue);
+            BalancePatch patch = BalancePatch.of(stub.getState(tenant.assetKey(assetId)), null, null, coinName, coinValue);
+            stub.putState(tenant.assetKey(assetId), patch.getJson());
+            HolderIndex.of(tenant)
+                    .changed(assetId, coinName, patch.getBalance() - Long.parseLong(coinValue), patch.getBalance())
+                    .apply(stub);
 
-            stub.putStringState(assetId, objectMapper.writeValueAsString(asset));
+            BalanceEvent.of("UpdateAssetCoin", tenant).changed(assetId, coinName, patch.getBalance()).emit(stub);
 
             return true;
 
@@ -492,6 +805,8 @@ public final class AssetTransfer implements ContractInterface {
      */
     @Transaction(intent = Transaction.TYPE.SUBMIT)
     public String TransferCoin(final Context ctx, final String senderAssetId, final String receiverAssetId, final String coinName, final String amount) {
+        Tenant tenant = tenants.resolve(ctx);
+
         try{
             if(!AssetExists(ctx, senderAssetId)){
                 String errorMessage = String.format("Asset %s is does not exists", senderAssetId);
@@ -508,20 +823,30 @@ public final class AssetTransfer implements ContractInterface {
 
             ChaincodeStub stub = ctx.getStub();
 
-            Asset senderAsset = objectMapper.readValue(stub.getStringState(senderAssetId), Asset.class);
-            Asset receiverAsset = objectMapper.readValue(stub.getStringState(receiverAssetId), Asset.class);
+            // 저장된 JSON 에서 잔액과 transfer field 만 바꾼다 (Asset binding 없이)
+            byte[] senderJSON = stub.getState(tenant.assetKey(senderAssetId));
+            byte[] receiverJSON = stub.getState(tenant.assetKey(receiverAssetId));
 
-            senderAsset.modifyCoinValue(senderAssetId, receiverAssetId, coinName, "-" + amount);
-            receiverAsset.modifyCoinValue(senderAssetId, receiverAssetId, coinName, amount);
+            BalancePatch senderPatch = BalancePatch.of(senderJSON, senderAssetId, receiverAssetId, coinName, "-" + amount);
+            BalancePatch receiverPatch = BalancePatch.of(receiverJSON, senderAssetId, receiverAssetId, coinName, amount);
 
-            stub.putStringState(senderAssetId, objectMapper.writeValueAsString(senderAsset));
-            stub.putStringState(receiverAssetId, objectMapper.writeValueAsString(receiverAsset));
+            stub.putState(tenant.assetKey(senderAssetId), senderPatch.getJson());
+            stub.putState(tenant.assetKey(receiverAssetId), receiverPatch.getJson());
+            HolderIndex.of(tenant)
+                    .changed(senderAssetId, coinName, senderPatch.getBalance() + Long.parseLong(amount), senderPatch.getBalance())
+                    .changed(receiverAssetId, coinName, receiverPatch.getBalance() - Long.parseLong(amount), receiverPatch.getBalance())
+                    .apply(stub);
+
+            BalanceEvent.of("TransferCoin", tenant)
+                    .changed(senderAssetId, coinName, senderPatch.getBalance())
+                    .changed(receiverAssetId, coinName, receiverPatch.getBalance())
+                    .emit(stub);
 
             return objectMapper.writeValueAsString(
                     TransferResponse.builder()
                     .transactionId(stub.getTxId())
-                    .senderIdentifier(senderAsset.getIdentifier())
-                    .receiverIdentifier(receiverAsset.getIdentifier())
+                    .senderIdentifier(senderPatch.getIdentifier())
+                    .receiverIdentifier(receiverPatch.getIdentifier())
                     .coinName(coinName)
                     .amount(amount)
                     .build());
@@ -541,73 +866,1051 @@ public final class AssetTransfer implements ContractInterface {
         return null;
     }
 
-    @Transaction(intent = Transaction.TYPE.EVALUATE)
-    public String GetHistoryForAssetId(final Context ctx, final String assetId) {
+    /**
+     * methodName : TransferCoins
+     * author : Jaeyeop Jung
+     * description : 두 Asset 사이에서 여러 coin 을 한 번에 주고받기 (여러 coin 으로 결제, coin 교환)
+     * legsJSON 은 TransferLeg 배열이고 amount 가 양수면 sender → receiver, 음수면 receiver → sender 로 옮긴다.
+     * 같은 coin 의 leg 는 합쳐서 계산하고, 두 Asset 을 한 번씩 읽고 한 번씩 쓴다. leg 하나라도 실패하면 아무것도 쓰지 않는다.
+     * Asset 의 amount field 에는 "coinName:amount" 를 쉼표로 이어서 남긴다.
+     *
+     * @param ctx             the ctx
+     * @param senderAssetId   the sender asset id
+     * @param receiverAssetId the receiver asset id
+     * @param legsJSON        the transfer legs
+     * @return the combined transfer response
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String TransferCoins(final Context ctx, final String senderAssetId, final String receiverAssetId, final String legsJSON) {
+        Tenant tenant = tenants.resolve(ctx);
+
         try {
-            if(!AssetExists(ctx, assetId)){
-                String errorMessage = String.format("Asset %s is does not exists", assetId);
-                throw new AssetNotFoundException(errorMessage);
+            TransferLeg[] legs = objectMapper.readValue(legsJSON, TransferLeg[].class);
+            if (legs.length == 0) {
+                throw new InvalidTransferException("legs is empty");
+            }
+            if (legs.length > maxBatchSize) {
+                String errorMessage = String.format("Batch size %d exceeds limit %d", legs.length, maxBatchSize);
+                throw new BatchSizeExceededException(errorMessage);
+            }
+            for (String assetId : new String[]{senderAssetId, receiverAssetId}) {
+                if (assetId == null || assetId.contains(" ") || assetId.isBlank() || assetId.contains(CompositeKey.NAMESPACE)) {
+                    throw new EmptyValueException("assetId is null or empty or blank");
+                }
+            }
+            if (senderAssetId.equals(receiverAssetId)) {
+                String errorMessage = String.format("Asset %s cannot transfer to itself", senderAssetId);
+                throw new InvalidTransferException(errorMessage);
             }
 
             ChaincodeStub stub = ctx.getStub();
 
-            Map<Long, String> response = new HashMap<>();
+            Asset root = assetCache.view(stub.getState(tenant.rootKey()));
+            Map<String, Long> net = new LinkedHashMap<>();
+            for (TransferLeg leg : legs) {
+                if (leg == null || leg.getCoinName() == null || leg.getAmount() == null) {
+                    throw new InvalidTransferException("expected {coinName, amount}");
+                }
+                if (!root.getCoin().containsKey(leg.getCoinName())) {
+                    String errorMessage = String.format("Coin %s is does not exists", leg.getCoinName());
+                    throw new CoinNotFoundException(errorMessage);
+                }
+                net.merge(leg.getCoinName(), Long.parseLong(leg.getAmount()), Math::addExact);
+            }
 
-            QueryResultsIterator<KeyModification> history = stub.getHistoryForKey(assetId);
-            if (history == null) {
-                String errorMessage = String.format("Product %s does not exist", assetId);
-                System.out.println(errorMessage);
-                throw new ChaincodeException(errorMessage, "Incorrect AssetId");
+            String[] coinNames = new String[net.size()];
+            long[] senderDeltas = new long[net.size()];
+            long[] receiverDeltas = new long[net.size()];
+            List<TransferLeg> merged = new ArrayList<>(net.size());
+            StringJoiner amount = new StringJoiner(",");
+            int i = 0;
+            for (Map.Entry<String, Long> entry : net.entrySet()) {
+                coinNames[i] = entry.getKey();
+                receiverDeltas[i] = entry.getValue();
+                senderDeltas[i] = Math.negateExact(entry.getValue());
+                merged.add(TransferLeg.builder().coinName(entry.getKey()).amount(entry.getValue().toString()).build());
+                amount.add(entry.getKey() + ":" + entry.getValue());
+                i++;
             }
 
-            long cnt = 1;
-            for (KeyModification keyModification : history) {
-                String value = "TIMESTAMP = " + keyModification.getTimestamp() + " TxId = " + keyModification.getTxId() + " Value = " + keyModification.getStringValue();
-                response.put(cnt++, value);
+            byte[] senderJSON = stub.getState(tenant.assetKey(senderAssetId));
+            if (senderJSON == null || senderJSON.length == 0) {
+                String errorMessage = String.format("Asset %s is does not exists", senderAssetId);
+                throw new AssetNotFoundException(errorMessage);
+            }
+            byte[] receiverJSON = stub.getState(tenant.assetKey(receiverAssetId));
+            if (receiverJSON == null || receiverJSON.length == 0) {
+                String errorMessage = String.format("Asset %s is does not exists", receiverAssetId);
+                throw new AssetNotFoundException(errorMessage);
             }
-            history.close();
 
-            return objectMapper.writeValueAsString(response);
+            BalancePatch senderPatch = BalancePatch.of(senderJSON, senderAssetId, senderAssetId, receiverAssetId, coinNames, senderDeltas, amount.toString());
+            BalancePatch receiverPatch = BalancePatch.of(receiverJSON, receiverAssetId, senderAssetId, receiverAssetId, coinNames, receiverDeltas, amount.toString());
+
+            stub.putState(tenant.assetKey(senderAssetId), senderPatch.getJson());
+            stub.putState(tenant.assetKey(receiverAssetId), receiverPatch.getJson());
+
+            HolderIndex index = HolderIndex.of(tenant);
+            BalanceEvent event = BalanceEvent.of("TransferCoins", tenant);
+            for (int leg = 0; leg < coinNames.length; leg++) {
+                index.changed(senderAssetId, coinNames[leg], senderPatch.getBalance(leg) - senderDeltas[leg], senderPatch.getBalance(leg))
+                        .changed(receiverAssetId, coinNames[leg], receiverPatch.getBalance(leg) - receiverDeltas[leg], receiverPatch.getBalance(leg));
+                event.changed(senderAssetId, coinNames[leg], senderPatch.getBalance(leg))
+                        .changed(receiverAssetId, coinNames[leg], receiverPatch.getBalance(leg));
+            }
+            index.apply(stub);
+            event.emit(stub);
+
+            return objectMapper.writeValueAsString(
+                    TransferCoinsResponse.builder()
+                    .transactionId(stub.getTxId())
+                    .senderIdentifier(senderPatch.getIdentifier())
+                    .receiverIdentifier(receiverPatch.getIdentifier())
+                    .legs(merged)
+                    .build());
 
+        } catch (InvalidTransferException e){
+            System.out.println(e.getMessage());
+        } catch (BatchSizeExceededException e){
+            System.out.println(e.getMessage());
+        } catch (EmptyValueException e){
+            System.out.println(e.getMessage());
         } catch (AssetNotFoundException e){
             System.out.println(e.getMessage());
+        } catch (CoinNotFoundException e){
+            System.out.println(e.getMessage());
+        } catch (NotEnoughCoinValueException e){
+            System.out.println(e.getMessage());
         } catch (JsonProcessingException e) {
             System.out.println("Object to Json Exception: " + e.getMessage());
-        } catch (Exception e){
-            System.out.println("QueryResultsIterator close Excepiton: " + e.getMessage());
+        } catch (NumberFormatException e) {
+            System.out.println("NumberFormatException: " + e.getMessage());
+        } catch (ArithmeticException e) {
+            System.out.println("ArithmeticException: " + e.getMessage());
         }
 
         return null;
     }
 
     /**
-     * methodName : DeleteCoin
-     * author : GB A
-     * description :
+     * methodName : TransferCoinIdempotent
+     * author : Jaeyeop Jung
+     * description : client request ID 로 중복 제거되는 TransferCoin
+     * 같은 requestId 로 다시 호출하면 잔액을 건드리지 않고 처음 결과를 그대로 돌려준다.
+     * requestId 가 비어있으면 TransferCoin 과 같다.
      *
-     * @param ctx         the ctx
-     * @param delCoinName   the delcoinname
-     * @return null
+     * @param ctx             the ctx
+     * @param requestId       the client request id
+     * @param senderAssetId   the from asset id
+     * @param receiverAssetId the to asset id
+     * @param coinName        the coin name
+     * @param amount          the amount
+     * @return the transfer response
      */
     @Transaction(intent = Transaction.TYPE.SUBMIT)
-    public Asset DeleteCoin(final Context ctx, final String delCoinName) {
+    public String TransferCoinIdempotent(final Context ctx, final String requestId, final String senderAssetId, final String receiverAssetId, final String coinName, final String amount) {
+        Tenant tenant = tenants.resolve(ctx);
+
+        if (requestId == null || requestId.isBlank()) {
+            return TransferCoin(ctx, senderAssetId, receiverAssetId, coinName, amount);
+        }
+
+        ChaincodeStub stub = ctx.getStub();
+
+        RequestRecord record = findRequest(stub, tenant, requestId);
+        if (record != null) {
+            return replayRequest(record, "TransferCoin");
+        }
+
+        String response = TransferCoin(ctx, senderAssetId, receiverAssetId, coinName, amount);
+        if (response != null) {
+            saveRequest(stub, tenant, requestId, "TransferCoin", response);
+        }
+
+        return response;
+    }
+
+    /**
+     * methodName : UpdateAssetCoinIdempotent
+     * author : Jaeyeop Jung
+     * description : client request ID 로 중복 제거되는 UpdateAssetCoin
+     *
+     * @param ctx       the ctx
+     * @param requestId the client request id
+     * @param assetId   the asset id
+     * @param coinName  the coin name
+     * @param coinValue the coin value
+     * @return 수정 여부
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public boolean UpdateAssetCoinIdempotent(final Context ctx, final String requestId, final String assetId, final String coinName, final String coinValue) {
+        Tenant tenant = tenants.resolve(ctx);
+
+        if (requestId == null || requestId.isBlank()) {
+            return UpdateAssetCoin(ctx, assetId, coinName, coinValue);
+        }
+
+        ChaincodeStub stub = ctx.getStub();
+
+        RequestRecord record = findRequest(stub, tenant, requestId);
+        if (record != null) {
+            return Boolean.parseBoolean(replayRequest(record, "UpdateAssetCoin"));
+        }
+
+        boolean response = UpdateAssetCoin(ctx, assetId, coinName, coinValue);
+        if (response) {
+            saveRequest(stub, tenant, requestId, "UpdateAssetCoin", String.valueOf(true));
+        }
+
+        return response;
+    }
+
+    /**
+     * methodName : PruneRequestIds
+     * author : Jaeyeop Jung
+     * description : retentionSeconds 보다 오래된 request ID 를 최대 maxDeletes 개 삭제
+     * 만료 index 가 생성 시각 순이므로 오래된 것부터 읽고 만료되지 않은 첫 key 에서 멈춘다.
+     * 반환값이 maxDeletes 와 같으면 남은 것이 있을 수 있으므로 다시 호출한다.
+     *
+     * @param ctx              the ctx
+     * @param retentionSeconds the retention seconds
+     * @param maxDeletes       the max deletes
+     * @return 삭제한 request ID 수
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public int PruneRequestIds(final Context ctx, final String retentionSeconds, final String maxDeletes) {
+        Tenant tenant = tenants.resolve(ctx);
+        ChaincodeStub stub = ctx.getStub();
+        int pruned = 0;
 
         try {
-            ChaincodeStub stub = ctx.getStub();
+            long cutoff = stub.getTxTimestamp().getEpochSecond() - Long.parseLong(retentionSeconds);
+            int limit = Math.min(Integer.parseInt(maxDeletes), MAX_PRUNE_CHUNK);
 
-            Asset rootAsset = objectMapper.readValue(stub.getStringState("rootAsset"), Asset.class);
-            for ( String coinName : rootAsset.getCoin().keySet()){
-                if (coinName.equals(delCoinName)){
+            QueryResultsIterator<KeyValue> expiryIter = stub.getStateByPartialCompositeKey(tenant.partialKey(REQUEST_EXPIRY_INDEX));
+            for (KeyValue keyValue : expiryIter) {
+                if (pruned >= limit) {
+                    break;
+                }
+
+                List<String> attributes = tenant.attributes(stub, keyValue.getKey());
+                if (Long.parseLong(attributes.get(0)) >= cutoff) {
+                    break;
+                }
+
+                stub.delState(tenant.key(REQUEST_KEY, attributes.get(1)));
+                stub.delState(keyValue.getKey());
+                pruned++;
+            }
+            expiryIter.close();
+
+        } catch (NumberFormatException e) {
+            System.out.println("NumberFormatException: " + e.getMessage());
+        } catch (Exception e) {
+            System.out.println("QueryResultsIterator close Excepiton: " + e.getMessage());
+        }
+
+        return pruned;
+    }
+
+    /**
+     * methodName : MigrateAssetKeys
+     * author : Jaeyeop Jung
+     * description : 이전 버전이 assetId 그대로 저장한 Asset 을 asset composite key 로 최대 maxKeys 개 옮긴다
+     * rootAsset 은 옮길 Asset 이 남아 있지 않을 때 마지막으로 옮기므로, 이전 key 에 rootAsset 이 남아 있으면 migration 이 끝나지 않은 것이다.
+     * 반환값이 0 이 될 때까지 다시 호출한다. 끝나기 전에는 옮기지 않은 Asset 조회와 coin 관련 트랜잭션이 실패한다.
+     * 이전 버전에는 tenant 가 없었으므로 호출한 tenant 와 상관없이 기본 tenant 로 옮기고, tenant 관리자만 실행할 수 있다.
+     *
+     * @param ctx     the ctx
+     * @param maxKeys the max keys
+     * @return 옮긴 key 수
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public int MigrateAssetKeys(final Context ctx, final String maxKeys) {
+        Tenant tenant = Tenant.DEFAULT;
+        ChaincodeStub stub = ctx.getStub();
+        int migrated = 0;
+
+        try {
+            if (!tenants.isAdmin(ctx)) {
+                String errorMessage = "Client identity is not a tenant administrator";
+                throw new TenantAccessDeniedException(errorMessage);
+            }
+            int limit = Math.min(Integer.parseInt(maxKeys), MAX_MIGRATION_CHUNK);
+            String legacyRootJSON = null;
+            boolean remaining = false;
+
+            // 빈 범위 조회는 simple key 만 돌려주므로 composite key 로 옮긴 Asset 과 request 기록은 나오지 않는다
+            QueryResultsIterator<KeyValue> legacyIter = stub.getStateByRange("", "");
+            for (KeyValue keyValue : legacyIter) {
+                String key = keyValue.getKey();
+                if (key.equals(ROOT_ASSET_ID)) {
+                    legacyRootJSON = keyValue.getStringValue();
+                    continue;
+                }
+                if (migrated >= limit) {
+                    remaining = true;
+                    break;
+                }
+
+                String migratedKey;
+                try {
+                    migratedKey = tenant.assetKey(key);
+                } catch (IllegalArgumentException e) {
+                    System.out.println(String.format("Asset key %s can not be migrated: %s", key, e.getMessage()));
+                    continue;
+                }
+
+                stub.putState(migratedKey, keyValue.getValue());
+                stub.delState(key);
+                migrated++;
+            }
+            legacyIter.close();
+
+            if (!remaining && legacyRootJSON != null && migrated < limit) {
+                String rootJSON = stub.getStringState(tenant.rootKey());
+                if (rootJSON == null || rootJSON.isEmpty()) {
+                    stub.putStringState(tenant.rootKey(), legacyRootJSON);
+                } else {
+                    // upgrade 후 InitLedger 가 먼저 실행된 경우 이전 coin 목록을 합친다
+                    Asset rootAsset = objectMapper.readValue(rootJSON, Asset.class);
+                    for (String coinName : objectMapper.readValue(legacyRootJSON, Asset.class).getCoin().keySet()) {
+                        if (!rootAsset.getCoin().containsKey(coinName)) {
+                            rootAsset.createCoin(coinName);
+                        }
+                    }
+                    stub.putStringState(tenant.rootKey(), objectMapper.writeValueAsString(rootAsset));
+                }
+                registerTenant(stub, tenant);
+                stub.delState(ROOT_ASSET_ID);
+                migrated++;
+            }
+
+        } catch (TenantAccessDeniedException e) {
+            System.out.println(e.getMessage());
+        } catch (NumberFormatException e) {
+            System.out.println("NumberFormatException: " + e.getMessage());
+        } catch (JsonProcessingException e) {
+            System.out.println("Object to Json Exception: " + e.getMessage());
+        } catch (Exception e) {
+            System.out.println("QueryResultsIterator close Excepiton: " + e.getMessage());
+        }
+
+        return migrated;
+    }
+
+    /**
+     * methodName : IndexHolders
+     * author : Jaeyeop Jung
+     * description : asset keyspace 를 pageSize 개씩 읽어 보유량 순위 index 를 채운다
+     * index 가 없던 버전에서 upgrade 한 ledger 에서 GetTopHolders 를 쓰기 전에 한 번 실행한다 (ImportSnapshot 은 index 를 같이 쓴다).
+     * 현재 잔액의 key 를 다시 쓰므로 여러 번 실행해도 결과가 같다. 돌려준 bookmark 로 다시 호출하고, 빈 문자열이면 끝이다.
+     *
+     * @param ctx      the ctx
+     * @param bookmark the bookmark
+     * @param pageSize the page size
+     * @return 다음 bookmark
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String IndexHolders(final Context ctx, final String bookmark, final String pageSize) {
+        Tenant tenant = tenants.resolve(ctx);
+        ChaincodeStub stub = ctx.getStub();
+
+        try {
+            int size = Integer.parseInt(pageSize);
+            if (size <= 0 || size > MAX_MIGRATION_CHUNK) {
+                String errorMessage = String.format("Page size %d exceeds limit %d", size, MAX_MIGRATION_CHUNK);
+                throw new BatchSizeExceededException(errorMessage);
+            }
+
+            QueryResultsIteratorWithMetadata<KeyValue> page = stub.getStateByPartialCompositeKeyWithPagination(tenant.allAssets(), size, bookmark == null ? "" : bookmark);
+            int fetched = 0;
+            for (KeyValue keyValue : page) {
+                HolderIndex.index(stub, tenant, objectMapper.readValue(keyValue.getStringValue(), Asset.class));
+                fetched++;
+            }
+            String next = fetched < size ? "" : page.getMetadata().getBookmark();
+            page.close();
+
+            return next;
+
+        } catch (BatchSizeExceededException e) {
+            System.out.println(e.getMessage());
+        } catch (NumberFormatException e) {
+            System.out.println("NumberFormatException: " + e.getMessage());
+        } catch (JsonProcessingException e) {
+            System.out.println("Object to Json Exception: " + e.getMessage());
+        } catch (Exception e) {
+            System.out.println("QueryResultsIterator close Excepiton: " + e.getMessage());
+        }
+
+        return null;
+    }
+
+    /**
+     * methodName : GetCoinChecksum
+     * author : Jaeyeop Jung
+     * description : coin 의 잔액 checksum (BalanceChecksum) 을 돌려준다
+     * 장부 DB 에서 같은 방법으로 구한 sum, count 와 비교하고, 다르면 GetCoinChecksumRange 로 page 별로 비교해 범위를 좁힌다.
+     * bucket 수만큼만 읽으므로 Asset 수와 상관없다. complete 가 false 면 먼저 RebuildCoinChecksum 을 끝까지 실행한다.
+     *
+     * @param ctx      the ctx
+     * @param coinName the coin name
+     * @return CoinChecksum JSON
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetCoinChecksum(final Context ctx, final String coinName) {
+        Tenant tenant = tenants.resolve(ctx);
+        ChaincodeStub stub = ctx.getStub();
+
+        try {
+            if (!CoinExists(ctx, coinName)) {
+                String errorMessage = String.format("Coin %s is does not exists", coinName);
+                throw new CoinNotFoundException(errorMessage);
+            }
+
+            BalanceChecksum.Total total = new BalanceChecksum.Total();
+            boolean complete = true;
+            for (ChecksumBucket bucket : BalanceChecksum.read(stub, tenant, coinName)) {
+                if (bucket == null || bucket.getCursor() != null) {
+                    complete = false;
+                } else {
+                    total.merge(bucket);
+                }
+            }
+
+            return objectMapper.writeValueAsString(CoinChecksum.builder()
+                    .coinName(coinName)
+                    .sum(Long.toString(total.getSum()))
+                    .count(total.getCount())
+                    .complete(complete)
+                    .build());
+
+        } catch (CoinNotFoundException e) {
+            System.out.println(e.getMessage());
+        } catch (JsonProcessingException e) {
+            System.out.println("Object to Json Exception: " + e.getMessage());
+        }
+
+        return null;
+    }
+
+    /**
+     * methodName : GetCoinChecksumRange
+     * author : Jaeyeop Jung
+     * description : asset keyspace 를 pageSize 개씩 읽어 page 의 assetId 범위와 그 범위의 잔액 checksum 을 돌려준다
+     * GetCoinChecksum 이 장부 DB 와 다를 때 page 별로 비교해 다른 범위만 GetAssets 로 읽는다. 돌려준 bookmark 로 다시 호출하고, 빈 문자열이면 끝이다.
+     *
+     * @param ctx      the ctx
+     * @param coinName the coin name
+     * @param bookmark the bookmark
+     * @param pageSize the page size
+     * @return ChecksumRange JSON
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetCoinChecksumRange(final Context ctx, final String coinName, final String bookmark, final String pageSize) {
+        Tenant tenant = tenants.resolve(ctx);
+        ChaincodeStub stub = ctx.getStub();
+
+        try {
+            int size = Integer.parseInt(pageSize);
+            if (size <= 0 || size > MAX_MIGRATION_CHUNK) {
+                String errorMessage = String.format("Page size %d exceeds limit %d", size, MAX_MIGRATION_CHUNK);
+                throw new BatchSizeExceededException(errorMessage);
+            }
+            if (!CoinExists(ctx, coinName)) {
+                String errorMessage = String.format("Coin %s is does not exists", coinName);
+                throw new CoinNotFoundException(errorMessage);
+            }
+
+            QueryResultsIteratorWithMetadata<KeyValue> page = stub.getStateByPartialCompositeKeyWithPagination(tenant.allAssets(), size, bookmark == null ? "" : bookmark);
+            BalanceChecksum.Total total = new BalanceChecksum.Total();
+            String firstAssetId = null;
+            String lastAssetId = null;
+            int fetched = 0;
+            for (KeyValue keyValue : page) {
+                Asset asset = objectMapper.readValue(keyValue.getStringValue(), Asset.class);
+                if (asset.getCoin().containsKey(coinName)) {
+                    total.add(asset.getAssetId(), asset.getCoin().getLong(coinName));
+                }
+                firstAssetId = firstAssetId == null ? asset.getAssetId() : firstAssetId;
+                lastAssetId = asset.getAssetId();
+                fetched++;
+            }
+            String next = fetched < size ? "" : page.getMetadata().getBookmark();
+            page.close();
+
+            return objectMapper.writeValueAsString(ChecksumRange.builder()
+                    .firstAssetId(firstAssetId)
+                    .lastAssetId(lastAssetId)
+                    .sum(Long.toString(total.getSum()))
+                    .count(total.getCount())
+                    .bookmark(next)
+                    .build());
+
+        } catch (BatchSizeExceededException e) {
+            System.out.println(e.getMessage());
+        } catch (CoinNotFoundException e) {
+            System.out.println(e.getMessage());
+        } catch (NumberFormatException e) {
+            System.out.println("NumberFormatException: " + e.getMessage());
+        } catch (JsonProcessingException e) {
+            System.out.println("Object to Json Exception: " + e.getMessage());
+        } catch (Exception e) {
+            System.out.println("QueryResultsIterator close Excepiton: " + e.getMessage());
+        }
+
+        return null;
+    }
+
+    /**
+     * methodName : RebuildCoinChecksum
+     * author : Jaeyeop Jung
+     * description : asset keyspace 를 pageSize 개씩 읽어 coin 의 잔액 checksum 을 다시 만든다
+     * checksum 이전에 만든 coin 이나 ImportSnapshot 의 rootAsset 으로 처음 생긴 coin 에서 한 번 실행한다. 빈 bookmark 로 시작하면 bucket 을 비우고 처음부터 더한다.
+     * 진행 중에도 다른 트랜잭션의 잔액 변경은 이미 읽은 범위에만 반영되므로 끝까지 실행하면 현재 잔액과 같아진다.
+     * page 의 합은 txId 의 bucket 에 더하고, 모든 bucket 에 cursor 를 쓴다.
+     * 돌려준 bookmark 로 다시 호출하고, 빈 문자열이면 끝이다. 이미 읽은 범위의 bookmark 로 호출하면 실패한다.
+     *
+     * @param ctx      the ctx
+     * @param coinName the coin name
+     * @param bookmark the bookmark
+     * @param pageSize the page size
+     * @return 다음 bookmark
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String RebuildCoinChecksum(final Context ctx, final String coinName, final String bookmark, final String pageSize) {
+        Tenant tenant = tenants.resolve(ctx);
+        ChaincodeStub stub = ctx.getStub();
+
+        try {
+            int size = Integer.parseInt(pageSize);
+            if (size <= 0 || size > MAX_MIGRATION_CHUNK) {
+                String errorMessage = String.format("Page size %d exceeds limit %d", size, MAX_MIGRATION_CHUNK);
+                throw new BatchSizeExceededException(errorMessage);
+            }
+            if (!CoinExists(ctx, coinName)) {
+                String errorMessage = String.format("Coin %s is does not exists", coinName);
+                throw new CoinNotFoundException(errorMessage);
+            }
+
+            BalanceChecksum.Total[] totals = new BalanceChecksum.Total[BalanceChecksum.BUCKETS];
+            String cursor = "";
+            boolean restart = bookmark == null || bookmark.isEmpty();
+            List<ChecksumBucket> buckets = restart ? null : BalanceChecksum.read(stub, tenant, coinName);
+            for (int bucket = 0; bucket < totals.length; bucket++) {
+                if (restart) {
+                    totals[bucket] = new BalanceChecksum.Total();
+                } else if (buckets.get(bucket) == null || buckets.get(bucket).getCursor() == null) {
+                    String errorMessage = String.format("Checksum rebuild of coin %s is not in progress", coinName);
+                    throw new InvalidChecksumRebuildException(errorMessage);
+                } else {
+                    totals[bucket] = BalanceChecksum.Total.of(buckets.get(bucket));
+                    cursor = buckets.get(bucket).getCursor();
+                }
+            }
+
+            BalanceChecksum.Total total = totals[BalanceChecksum.bucket(stub.getTxId())];
+            QueryResultsIteratorWithMetadata<KeyValue> page = stub.getStateByPartialCompositeKeyWithPagination(tenant.allAssets(), size, restart ? "" : bookmark);
+            int fetched = 0;
+            for (KeyValue keyValue : page) {
+                if (keyValue.getKey().compareTo(cursor) <= 0) {
+                    String errorMessage = String.format("Bookmark of coin %s checksum rebuild is behind the rebuilt range", coinName);
+                    throw new InvalidChecksumRebuildException(errorMessage);
+                }
+                Asset asset = objectMapper.readValue(keyValue.getStringValue(), Asset.class);
+                if (asset.getCoin().containsKey(coinName)) {
+                    total.add(asset.getAssetId(), asset.getCoin().getLong(coinName));
+                }
+                cursor = keyValue.getKey();
+                fetched++;
+            }
+            String next = fetched < size ? "" : page.getMetadata().getBookmark();
+            page.close();
+
+            BalanceChecksum.write(stub, tenant, coinName, totals, next.isEmpty() ? null : cursor);
+
+            return next;
+
+        } catch (BatchSizeExceededException e) {
+            System.out.println(e.getMessage());
+        } catch (CoinNotFoundException e) {
+            System.out.println(e.getMessage());
+        } catch (InvalidChecksumRebuildException e) {
+            System.out.println(e.getMessage());
+        } catch (NumberFormatException e) {
+            System.out.println("NumberFormatException: " + e.getMessage());
+        } catch (JsonProcessingException e) {
+            System.out.println("Object to Json Exception: " + e.getMessage());
+        } catch (Exception e) {
+            System.out.println("QueryResultsIterator close Excepiton: " + e.getMessage());
+        }
+
+        return null;
+    }
+
+    /**
+     * methodName : GetTenantSummaries
+     * author : Jaeyeop Jung
+     * description : 관리자용. 등록된 tenant 를 pageSize 개씩 읽어 tenant 별 Asset 수와 coin 별 발행량 합계를 돌려준다
+     * 돌려준 bookmark 로 다시 호출하고, 빈 문자열이면 끝이다. tenant 를 쓰지 않으면 기본 tenant 하나만 돌려준다.
+     * tenant 마다 Asset 을 모두 읽으므로 Asset 이 많은 tenant 가 있으면 pageSize 를 줄인다.
+     *
+     * @param ctx      the ctx
+     * @param bookmark the bookmark
+     * @param pageSize the page size
+     * @return TenantSummaryPage JSON
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetTenantSummaries(final Context ctx, final String bookmark, final String pageSize) {
+        ChaincodeStub stub = ctx.getStub();
+
+        try {
+            if (!tenants.isAdmin(ctx)) {
+                String errorMessage = "Client identity is not a tenant administrator";
+                throw new TenantAccessDeniedException(errorMessage);
+            }
+            int size = Integer.parseInt(pageSize);
+            if (size <= 0 || size > maxBatchSize) {
+                String errorMessage = String.format("Page size %d exceeds limit %d", size, maxBatchSize);
+                throw new BatchSizeExceededException(errorMessage);
+            }
+
+            List<Tenant> page = new ArrayList<>(size);
+            String next = "";
+            if (tenants.getSource() == TenantResolver.Source.NONE) {
+                page.add(Tenant.DEFAULT);
+            } else {
+                QueryResultsIteratorWithMetadata<KeyValue> registry = stub.getStateByPartialCompositeKeyWithPagination(Tenant.registry(), size, bookmark == null ? "" : bookmark);
+                for (KeyValue keyValue : registry) {
+                    page.add(Tenant.of(keyValue.getStringValue()));
+                }
+                next = page.size() < size ? "" : registry.getMetadata().getBookmark();
+                registry.close();
+            }
+
+            List<TenantSummary> summaries = new ArrayList<>(page.size());
+            for (Tenant tenant : page) {
+                summaries.add(summarize(stub, tenant));
+            }
+
+            return objectMapper.writeValueAsString(TenantSummaryPage.builder()
+                    .tenants(summaries)
+                    .bookmark(next)
+                    .build());
+
+        } catch (TenantAccessDeniedException e) {
+            System.out.println(e.getMessage());
+        } catch (BatchSizeExceededException e) {
+            System.out.println(e.getMessage());
+        } catch (NumberFormatException e) {
+            System.out.println("NumberFormatException: " + e.getMessage());
+        } catch (JsonProcessingException e) {
+            System.out.println("Object to Json Exception: " + e.getMessage());
+        } catch (Exception e) {
+            System.out.println("QueryResultsIterator close Excepiton: " + e.getMessage());
+        }
+
+        return null;
+    }
+
+    private TenantSummary summarize(final ChaincodeStub stub, final Tenant tenant) throws JsonProcessingException {
+        Map<String, Long> coins = new TreeMap<>();
+        byte[] rootJSON = stub.getState(tenant.rootKey());
+        if (rootJSON != null && rootJSON.length > 0) {
+            for (String coinName : assetCache.view(rootJSON).getCoin().keySet()) {
+                coins.put(coinName, 0L);
+            }
+        }
+
+        List<CoinBalances> balances = bulkScan.map(stub.getStateByPartialCompositeKey(tenant.allAssets()),
+                keyValue -> objectMapper.readValue(keyValue.getStringValue(), Asset.class).getCoin());
+        for (CoinBalances coin : balances) {
+            for (String coinName : coin.keySet()) {
+                coins.merge(coinName, coin.getLong(coinName), Math::addExact);
+            }
+        }
+
+        return TenantSummary.builder()
+                .tenantId(tenant.getId())
+                .assets((long) balances.size())
+                .coins(coins)
+                .build();
+    }
+
+    /**
+     * methodName : ExportSnapshot
+     * author : Jaeyeop Jung
+     * description : asset keyspace 를 pageSize 개씩 읽어 압축한 snapshot chunk 로 돌려준다
+     * 첫 page(bookmark 가 빈 문자열)에는 rootAsset 이 먼저 들어간다. 돌려준 bookmark 로 다시 호출하고, 빈 문자열이면 끝이다.
+     * page 마다 따로 조회하므로 export 중에 바뀐 Asset 은 어느 page 에 들어갈지 보장하지 않는다 (쓰기를 멈추고 export 한다).
+     *
+     * @param ctx      the ctx
+     * @param bookmark the bookmark
+     * @param pageSize the page size
+     * @return SnapshotChunk JSON
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String ExportSnapshot(final Context ctx, final String bookmark, final String pageSize) {
+        Tenant tenant = tenants.resolve(ctx);
+        ChaincodeStub stub = ctx.getStub();
+
+        try {
+            int size = Integer.parseInt(pageSize);
+            if (size <= 0 || size > maxBatchSize) {
+                String errorMessage = String.format("Page size %d exceeds limit %d", size, maxBatchSize);
+                throw new BatchSizeExceededException(errorMessage);
+            }
+
+            List<SnapshotCodec.Record> records = new ArrayList<>(size + 1);
+            String start = bookmark == null ? "" : bookmark;
+            if (start.isEmpty()) {
+                byte[] rootJSON = stub.getState(tenant.rootKey());
+                if (rootJSON != null && rootJSON.length > 0) {
+                    records.add(new SnapshotCodec.Record(SnapshotCodec.ROOT, ROOT_ASSET_ID, rootJSON));
+                }
+            }
+
+            QueryResultsIteratorWithMetadata<KeyValue> page = stub.getStateByPartialCompositeKeyWithPagination(tenant.allAssets(), size, start);
+            int fetched = 0;
+            for (KeyValue keyValue : page) {
+                String assetId = tenant.attributes(stub, keyValue.getKey()).get(0);
+                records.add(new SnapshotCodec.Record(SnapshotCodec.ASSET, assetId, keyValue.getValue()));
+                fetched++;
+            }
+            String next = fetched < size ? "" : page.getMetadata().getBookmark();
+            page.close();
+
+            return objectMapper.writeValueAsString(SnapshotCodec.encode(records, next));
+
+        } catch (BatchSizeExceededException e) {
+            System.out.println(e.getMessage());
+        } catch (NumberFormatException e) {
+            System.out.println("NumberFormatException: " + e.getMessage());
+        } catch (JsonProcessingException e) {
+            System.out.println("Object to Json Exception: " + e.getMessage());
+        } catch (Exception e) {
+            System.out.println("QueryResultsIterator close Excepiton: " + e.getMessage());
+        }
+
+        return null;
+    }
+
+    /**
+     * methodName : ImportSnapshot
+     * author : Jaeyeop Jung
+     * description : ExportSnapshot chunk 하나를 검증(sha256, 크기, record 수)하고 그대로 쓴다
+     * chunk 는 index 순서대로만 받고, 이미 가져온 index 를 다시 보내면 아무것도 쓰지 않는다.
+     * 가져온 chunk 수, record 수, bytes, digest 를 meta keyspace 에 누적하므로 마지막에 FinishSnapshotImport 로 manifest 와 비교한다.
+     * 이미 있던 Asset 을 덮어쓰면 이전 잔액과 비교해 보유량 index 를 고치고, 바뀐 잔액은 BalanceChanged event 로 보낸다.
+     *
+     * @param ctx       the ctx
+     * @param chunkJSON the snapshot chunk (index 포함)
+     * @return 누적된 SnapshotImport JSON
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String ImportSnapshot(final Context ctx, final String chunkJSON) {
+        Tenant tenant = tenants.resolve(ctx);
+        ChaincodeStub stub = ctx.getStub();
+
+        try {
+            SnapshotChunk chunk = objectMapper.readValue(chunkJSON, SnapshotChunk.class);
+            SnapshotImport progress = findSnapshotImport(stub, tenant);
+            if (chunk.getIndex() == null) {
+                throw new InvalidSnapshotException("Snapshot chunk has no index");
+            }
+            if (chunk.getIndex() < progress.getNextIndex()) {
+                System.out.println(String.format("Snapshot chunk %d is already imported", chunk.getIndex()));
+                return objectMapper.writeValueAsString(progress);
+            }
+            if (chunk.getIndex() > progress.getNextIndex()) {
+                String errorMessage = String.format("Snapshot chunk %d is out of order, expected %d", chunk.getIndex(), progress.getNextIndex());
+                throw new InvalidSnapshotException(errorMessage);
+            }
+            // 첫 chunk 는 rootAsset 이 하나 더 있다
+            if (chunk.getRecords() > maxBatchSize + 1) {
+                String errorMessage = String.format("Batch size %d exceeds limit %d", chunk.getRecords(), maxBatchSize);
+                throw new BatchSizeExceededException(errorMessage);
+            }
+
+            HolderIndex index = HolderIndex.of(tenant);
+            BalanceEvent event = BalanceEvent.of("ImportSnapshot", tenant);
+            for (SnapshotCodec.Record record : SnapshotCodec.decode(chunk, MAX_SNAPSHOT_CHUNK_BYTES)) {
+                if (record.getKind() == SnapshotCodec.ROOT) {
+                    stub.putState(tenant.rootKey(), record.getValue());
+                    registerTenant(stub, tenant);
+                    continue;
+                }
+
+                String key;
+                try {
+                    key = tenant.assetKey(record.getId());
+                } catch (IllegalArgumentException e) {
+                    throw new InvalidSnapshotException(String.format("Asset key %s can not be imported: %s", record.getId(), e.getMessage()));
+                }
+                Asset asset = objectMapper.readValue(new String(record.getValue(), StandardCharsets.UTF_8), Asset.class);
+                String previousJSON = stub.getStringState(key);
+                stub.putState(key, record.getValue());
+                imported(index, event, record.getId(), previousJSON, asset);
+            }
+            index.apply(stub);
+            event.emit(stub);
+
+            SnapshotImport imported = SnapshotImport.builder()
+                    .nextIndex(progress.getNextIndex() + 1)
+                    .records(progress.getRecords() + chunk.getRecords())
+                    .rawBytes(progress.getRawBytes() + chunk.getRawBytes())
+                    .digest(SnapshotCodec.chain(progress.getDigest(), chunk.getSha256()))
+                    .build();
+            String importedJSON = objectMapper.writeValueAsString(imported);
+            stub.putStringState(tenant.key(META_KEY, SNAPSHOT_IMPORT_ID), importedJSON);
+
+            return importedJSON;
+
+        } catch (InvalidSnapshotException e) {
+            System.out.println(e.getMessage());
+        } catch (BatchSizeExceededException e) {
+            System.out.println(e.getMessage());
+        } catch (JsonProcessingException e) {
+            System.out.println("Object to Json Exception: " + e.getMessage());
+        }
+
+        return null;
+    }
+
+    /**
+     * methodName : FinishSnapshotImport
+     * author : Jaeyeop Jung
+     * description : ImportSnapshot 으로 누적한 chunk 수, record 수, bytes, digest 를 manifest 와 비교한다
+     * 모두 같으면 누적값을 지우고 true, 하나라도 다르면 누적값을 남기고 false 를 돌려준다.
+     *
+     * @param ctx          the ctx
+     * @param manifestJSON the snapshot manifest
+     * @return 검증 여부
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public boolean FinishSnapshotImport(final Context ctx, final String manifestJSON) {
+        Tenant tenant = tenants.resolve(ctx);
+        ChaincodeStub stub = ctx.getStub();
+
+        try {
+            SnapshotManifest manifest = objectMapper.readValue(manifestJSON, SnapshotManifest.class);
+            SnapshotImport progress = findSnapshotImport(stub, tenant);
+
+            if (manifest.getVersion() != SnapshotCodec.VERSION
+                    || manifest.getChunks() != progress.getNextIndex()
+                    || manifest.getRecords() != progress.getRecords()
+                    || manifest.getRawBytes() != progress.getRawBytes()
+                    || !progress.getDigest().equals(manifest.getDigest())) {
+                String errorMessage = String.format("Snapshot import %s does not match %s", progress, manifest);
+                throw new InvalidSnapshotException(errorMessage);
+            }
+
+            stub.delState(tenant.key(META_KEY, SNAPSHOT_IMPORT_ID));
+            return true;
+
+        } catch (InvalidSnapshotException e) {
+            System.out.println(e.getMessage());
+        } catch (JsonProcessingException e) {
+            System.out.println("Object to Json Exception: " + e.getMessage());
+        }
+
+        return false;
+    }
+
+    // 가져온 Asset 의 잔액을 덮어쓴 Asset 의 잔액과 비교해 보유량 index 와 event 에 넣는다. snapshot 에 없는 coin 은 0 이 된다.
+    private void imported(final HolderIndex index, final BalanceEvent event, final String assetId, final String previousJSON, final Asset asset) throws JsonProcessingException {
+        CoinBalances balances = asset.getCoin();
+        if (previousJSON == null || previousJSON.isEmpty()) {
+            for (String coinName : balances.keySet()) {
+                index.changed(assetId, coinName, 0, balances.getLong(coinName));
+            }
+            event.created(asset);
+            return;
+        }
+
+        CoinBalances previous = objectMapper.readValue(previousJSON, Asset.class).getCoin();
+        for (String coinName : balances.keySet()) {
+            long before = previous.containsKey(coinName) ? previous.getLong(coinName) : 0;
+            long balance = balances.getLong(coinName);
+            index.changed(assetId, coinName, before, balance);
+            if (before != balance) {
+                event.changed(assetId, coinName, balance);
+            }
+        }
+        for (String coinName : previous.keySet()) {
+            if (!balances.containsKey(coinName)) {
+                index.changed(assetId, coinName, previous.getLong(coinName), 0);
+                event.changed(assetId, coinName, 0);
+            }
+        }
+    }
+
+    // 이름이 있는 tenant 는 rootAsset 을 처음 쓸 때 등록한다 (GetTenantSummaries)
+    private void registerTenant(final ChaincodeStub stub, final Tenant tenant) {
+        if (!tenant.isDefault()) {
+            stub.putStringState(tenant.registryKey(), tenant.getId());
+        }
+    }
+
+    private SnapshotImport findSnapshotImport(final ChaincodeStub stub, final Tenant tenant) throws JsonProcessingException {
+        String importJSON = stub.getStringState(tenant.key(META_KEY, SNAPSHOT_IMPORT_ID));
+        if (importJSON == null || importJSON.isEmpty()) {
+            return SnapshotImport.builder().nextIndex(0).records(0).rawBytes(0).digest("").build();
+        }
+        return objectMapper.readValue(importJSON, SnapshotImport.class);
+    }
+
+    private RequestRecord findRequest(final ChaincodeStub stub, final Tenant tenant, final String requestId) {
+        String recordJSON = stub.getStringState(tenant.key(REQUEST_KEY, requestId));
+        if (recordJSON == null || recordJSON.isEmpty()) {
+            return null;
+        }
+
+        try {
+            return objectMapper.readValue(recordJSON, RequestRecord.class);
+        } catch (JsonProcessingException e) {
+            System.out.println("Object to Json Exception: " + e.getMessage());
+        }
+
+        return null;
+    }
+
+    private String replayRequest(final RequestRecord record, final String function) {
+        if (!record.getFunction().equals(function)) {
+            System.out.println(String.format("Request %s was already used for %s", record.getRequestId(), record.getFunction()));
+            return null;
+        }
+
+        return record.getResponse();
+    }
+
+    private void saveRequest(final ChaincodeStub stub, final Tenant tenant, final String requestId, final String function, final String response) {
+        long createdAt = stub.getTxTimestamp().getEpochSecond();
+        RequestRecord record = RequestRecord.builder()
+                .requestId(requestId)
+                .function(function)
+                .transactionId(stub.getTxId())
+                .createdAt(createdAt)
+                .response(response)
+                .build();
+
+        try {
+            stub.putStringState(tenant.key(REQUEST_KEY, requestId), objectMapper.writeValueAsString(record));
+            stub.putStringState(tenant.key(REQUEST_EXPIRY_INDEX, String.format("%019d", createdAt), requestId), requestId);
+        } catch (JsonProcessingException e) {
+            System.out.println("Object to Json Exception: " + e.getMessage());
+        }
+    }
+
+    static String assetKey(final String assetId) {
+        return new CompositeKey(ASSET_KEY, assetId).toString();
+    }
+
+    /**
+     * methodName : GetDecodeCacheStats
+     * author : Jaeyeop Jung
+     * description : 이 peer 의 체인코드 process 에 있는 Asset decode cache 통계 (peer 마다 다르므로 evaluate 로만 쓴다)
+     *
+     * @param ctx the ctx
+     * @return hits, misses, evictions, hitRate, entries, bytes
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetDecodeCacheStats(final Context ctx) {
+        ObjectNode stats = objectMapper.createObjectNode();
+        stats.put("hits", assetCache.getHits());
+        stats.put("misses", assetCache.getMisses());
+        stats.put("evictions", assetCache.getEvictions());
+        stats.put("hitRate", assetCache.getHitRate());
+        stats.put("entries", assetCache.size());
+        stats.put("bytes", assetCache.getBytes());
+        return stats.toString();
+    }
+
+    private static int intEnv(final String name, final int defaultValue) {
+        String value = System.getenv(name);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        return Integer.parseInt(value.trim());
+    }
+
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetHistoryForAssetId(final Context ctx, final String assetId) {
+        Tenant tenant = tenants.resolve(ctx);
+
+        try {
+            if(!AssetExists(ctx, assetId)){
+                String errorMessage = String.format("Asset %s is does not exists", assetId);
+                throw new AssetNotFoundException(errorMessage);
+            }
+
+            ChaincodeStub stub = ctx.getStub();
+
+            Map<Long, String> response = new HashMap<>();
+
+            QueryResultsIterator<KeyModification> history = stub.getHistoryForKey(tenant.assetKey(assetId));
+            if (history == null) {
+                String errorMessage = String.format("Product %s does not exist", assetId);
+                System.out.println(errorMessage);
+                throw new ChaincodeException(errorMessage, "Incorrect AssetId");
+            }
+
+            long cnt = 1;
+            for (KeyModification keyModification : history) {
+                String value = "TIMESTAMP = " + keyModification.getTimestamp() + " TxId = " + keyModification.getTxId() + " Value = " + keyModification.getStringValue();
+                response.put(cnt++, value);
+            }
+            history.close();
+
+            return objectMapper.writeValueAsString(response);
+
+        } catch (AssetNotFoundException e){
+            System.out.println(e.getMessage());
+        } catch (JsonProcessingException e) {
+            System.out.println("Object to Json Exception: " + e.getMessage());
+        } catch (Exception e){
+            System.out.println("QueryResultsIterator close Excepiton: " + e.getMessage());
+        }
+
+        return null;
+    }
+
+    /**
+     * methodName : DeleteCoin
+     * author : GB A
+     * description :
+     *
+     * @param ctx         the ctx
+     * @param delCoinName   the delcoinname
+     * @return null
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public Asset DeleteCoin(final Context ctx, final String delCoinName) {
+        Tenant tenant = tenants.resolve(ctx);
+
+        try {
+            ChaincodeStub stub = ctx.getStub();
+
+            Asset rootAsset = assetCache.copy(stub.getState(tenant.rootKey()));
+            for ( String coinName : rootAsset.getCoin().keySet()){
+                if (coinName.equals(delCoinName)){
+
+                    rootAsset.getCoin().remove(delCoinName);
+                    stub.putStringState(tenant.rootKey(), objectMapper.writeValueAsString(rootAsset));
 
-                    QueryResultsIterator<KeyValue> results = stub.getStateByRange("", "");
+                    QueryResultsIterator<KeyValue> results = stub.getStateByPartialCompositeKey(tenant.allAssets());
 
                     for (KeyValue result: results) {
                         Asset asset = objectMapper.readValue(result.getStringValue(), Asset.class);
                         asset.getCoin().remove(delCoinName);
 
                         Asset asAsset = new Asset(asset.getAssetId(), asset.getIdentifier(), asset.getOwner(), asset.getCoin() , asset.getUserRole(), asset.getSender() ,asset.getReceiver(), asset.getAmount());
-                        stub.putStringState(asset.getAssetId(), objectMapper.writeValueAsString(asAsset));
+                        stub.putStringState(result.getKey(), objectMapper.writeValueAsString(asAsset));
                     }
+                    HolderIndex.removeCoin(stub, tenant, delCoinName);
+                    BalanceChecksum.remove(stub, tenant, delCoinName);
+                    BalanceEvent.of("DeleteCoin", tenant).coin(delCoinName).emit(stub);
                     return null;
                 }
             }
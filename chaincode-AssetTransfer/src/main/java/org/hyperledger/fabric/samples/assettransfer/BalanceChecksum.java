@@ -0,0 +1,207 @@
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+
+/**
+ * coin 별 잔액 checksum (장부 DB 와의 reconciliation 용)
+ * 잔액이 0 이 아닌 Asset 마다 h(assetId, 잔액) = SHA-256(assetId + "\0" + 잔액 10진수) 앞 8 byte 를 unsigned long 으로 읽어 mod P 한 값을 구하고
+ * sum = Σh mod P, count = Asset 수 를 유지한다 (P = 2^61 - 1). 더하기라서 순서와 상관없고, 잔액 하나가 바뀌면 h 하나를 빼고 더하면 된다.
+ *
+ * 값은 checksum/coinName/bucket 의 BUCKETS 개 key 에 나눠 두고 GetCoinChecksum 이 모두 더한다 (Asset 수와 상관없이 BUCKETS 번 읽는다).
+ * 더하기라서 어느 bucket 에 더해도 합은 같으므로, 잔액을 바꾸는 트랜잭션은 Math.floorMod(txId.hashCode(), BUCKETS) 로 고른
+ * bucket 하나를 coin 마다 읽고 그 트랜잭션의 변경을 모두 더해 다시 쓴다. 따로 합칠 delta 가 남지 않는다.
+ * 같은 coin 의 잔액 변경 두 건은 같은 bucket 을 고를 때(확률 1/BUCKETS)만 MVCC 충돌이 나므로
+ * 같은 block 의 변경 n 건 중 대략 n(n-1)/2/BUCKETS 쌍이 충돌하고, client(TransferBatcher)가 다시 보낸다.
+ *
+ * bucket 이 없는 coin(checksum 이전에 만든 coin, ImportSnapshot 의 rootAsset 으로 처음 생긴 coin)은 RebuildCoinChecksum 전까지 갱신하지 않는다.
+ * rebuild 중에는 bucket 의 cursor(rebuild 가 마지막으로 읽은 asset key) 뒤의 Asset 은 rebuild 가 읽을 때 현재 잔액으로 더하므로 갱신하지 않는다.
+ * rebuild 는 page 마다 모든 bucket 의 cursor 를 쓰므로 그 block 의 같은 coin 잔액 변경과 충돌한다.
+ */
+final class BalanceChecksum {
+
+    static final String CHECKSUM_KEY = "checksum";
+    static final int BUCKETS = 64;
+    static final long PRIME = (1L << 61) - 1;
+
+    private static final ObjectMapper objectMapper = AssetTransfer.objectMapper;
+
+    private static final ThreadLocal<MessageDigest> sha256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final Tenant tenant;
+    // coinName -> 그 coin 의 잔액 변경
+    private final Map<String, List<Change>> changes = new LinkedHashMap<>();
+
+    private BalanceChecksum(Tenant tenant) {
+        this.tenant = tenant;
+    }
+
+    static BalanceChecksum of(final Tenant tenant) {
+        return new BalanceChecksum(tenant);
+    }
+
+    BalanceChecksum changed(final String assetId, final String coinName, final long previous, final long balance) {
+        changes.computeIfAbsent(coinName, key -> new ArrayList<>(2)).add(new Change(assetId, previous, balance));
+        return this;
+    }
+
+    /**
+     * 바뀐 coin 마다 txId 의 bucket 하나를 읽고 쓴다
+     */
+    void apply(final ChaincodeStub stub) throws JsonProcessingException {
+        for (Map.Entry<String, List<Change>> entry : changes.entrySet()) {
+            String key = key(tenant, entry.getKey(), bucket(stub.getTxId()));
+            String bucketJSON = stub.getStringState(key);
+            if (bucketJSON == null || bucketJSON.isEmpty()) {
+                continue;
+            }
+            ChecksumBucket checksumBucket = objectMapper.readValue(bucketJSON, ChecksumBucket.class);
+            String cursor = checksumBucket.getCursor();
+            Total total = Total.of(checksumBucket);
+            for (Change change : entry.getValue()) {
+                if (cursor != null && tenant.assetKey(change.assetId).compareTo(cursor) > 0) {
+                    continue;
+                }
+                total.remove(change.assetId, change.previous).add(change.assetId, change.balance);
+            }
+            stub.putStringState(key, objectMapper.writeValueAsString(total.toBucket(cursor)));
+        }
+    }
+
+    /**
+     * 새 coin 은 모든 잔액이 0 이므로 빈 bucket 으로 시작한다
+     */
+    static void create(final ChaincodeStub stub, final Tenant tenant, final String coinName) throws JsonProcessingException {
+        Total[] totals = new Total[BUCKETS];
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            totals[bucket] = new Total();
+        }
+        write(stub, tenant, coinName, totals, null);
+    }
+
+    static void remove(final ChaincodeStub stub, final Tenant tenant, final String coinName) {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            stub.delState(key(tenant, coinName, bucket));
+        }
+    }
+
+    /**
+     * @return bucket 순서대로, 없는 bucket 은 null
+     */
+    static List<ChecksumBucket> read(final ChaincodeStub stub, final Tenant tenant, final String coinName) throws JsonProcessingException {
+        List<ChecksumBucket> buckets = new ArrayList<>(BUCKETS);
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            String bucketJSON = stub.getStringState(key(tenant, coinName, bucket));
+            buckets.add(bucketJSON == null || bucketJSON.isEmpty() ? null : objectMapper.readValue(bucketJSON, ChecksumBucket.class));
+        }
+        return buckets;
+    }
+
+    static void write(final ChaincodeStub stub, final Tenant tenant, final String coinName, final Total[] totals, final String cursor) throws JsonProcessingException {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            stub.putStringState(key(tenant, coinName, bucket), objectMapper.writeValueAsString(totals[bucket].toBucket(cursor)));
+        }
+    }
+
+    static String key(final Tenant tenant, final String coinName, final int bucket) {
+        return tenant.key(CHECKSUM_KEY, coinName, bucket < 10 ? "0" + bucket : Integer.toString(bucket));
+    }
+
+    static int bucket(final String txId) {
+        return Math.floorMod(txId.hashCode(), BUCKETS);
+    }
+
+    static long hash(final String assetId, final long balance) {
+        MessageDigest digest = sha256.get();
+        digest.update(assetId.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(Long.toString(balance).getBytes(StandardCharsets.UTF_8));
+        byte[] hash = digest.digest();
+
+        long value = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            value = (value << 8) | (hash[i] & 0xff);
+        }
+        return Long.remainderUnsigned(value, PRIME);
+    }
+
+    /**
+     * sum / count 누적값. 잔액이 0 인 Asset 은 넣지 않는다.
+     */
+    static final class Total {
+        private long sum;
+        private long count;
+
+        static Total of(final ChecksumBucket bucket) {
+            Total total = new Total();
+            total.sum = Long.parseLong(bucket.getSum());
+            total.count = bucket.getCount();
+            return total;
+        }
+
+        Total add(final String assetId, final long balance) {
+            if (balance != 0) {
+                sum = (sum + hash(assetId, balance)) % PRIME;
+                count++;
+            }
+            return this;
+        }
+
+        Total remove(final String assetId, final long balance) {
+            if (balance != 0) {
+                sum = (sum - hash(assetId, balance) + PRIME) % PRIME;
+                count--;
+            }
+            return this;
+        }
+
+        Total merge(final ChecksumBucket bucket) {
+            sum = (sum + Long.parseLong(bucket.getSum())) % PRIME;
+            count += bucket.getCount();
+            return this;
+        }
+
+        long getSum() {
+            return sum;
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        ChecksumBucket toBucket(final String cursor) {
+            return ChecksumBucket.builder()
+                    .sum(Long.toString(sum))
+                    .count(count)
+                    .cursor(cursor)
+                    .build();
+        }
+    }
+
+    private static final class Change {
+        private final String assetId;
+        private final long previous;
+        private final long balance;
+
+        private Change(String assetId, long previous, long balance) {
+            this.assetId = assetId;
+            this.previous = previous;
+            this.balance = balance;
+        }
+    }
+}
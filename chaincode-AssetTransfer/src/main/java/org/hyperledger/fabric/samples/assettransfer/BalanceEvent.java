@@ -0,0 +1,258 @@
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+
+/**
+ * 잔액 변경 chaincode event
+ * 트랜잭션마다 하나만 보내며(Fabric 은 마지막 setEvent 만 남긴다) 그 트랜잭션에서 바뀐 잔액을 모두 담는다.
+ * off-chain 서비스는 GetAllAssets / GetHistoryForAssetId 를 polling 하지 않고 이 event 로 잔액을 따라간다.
+ *
+ * event name : BalanceChanged
+ * payload (schema v2, 최소 JSON, 값이 없는 field 는 생략)
+ * <pre>
+ * {
+ *   "v": 2,                              schema version. 호환되지 않게 바뀌면 올린다
+ *   "t": "school1",                      tenant id. 기본 tenant 면 생략
+ *   "op": "TransferCoin",                event 를 만든 transaction 이름
+ *   "coin": "point",                     coin lifecycle(CreateCoin / RemoveCoin / DeleteCoin) 또는 UpdateAllAssetCoin 의 대상 coin
+ *   "role": "ROLE_STUDENT",              UpdateAllAssetCoin 의 대상 userRole
+ *   "delta": 10,                         UpdateAllAssetCoin 이 role 의 모든 Asset 에 더한 값
+ *   "new": ["s1", "s2"],                 새로 만든 assetId
+ *   "del": ["s3"],                       삭제한 assetId
+ *   "ch": [["s1", "point", 70], ...]     [assetId, coinName, 변경 후 잔액]
+ * }
+ * </pre>
+ * ch 의 잔액은 증감이 아니라 변경 후 값이므로 같은 event 를 두 번 적용해도 결과가 같다.
+ * assetId 와 coin 이름은 tenant 안에서만 유일하므로 소비자는 (t, assetId) 로 구분해야 한다.
+ * CreateCoin 은 모든 Asset 에 잔액 0 인 coin 이, RemoveCoin / DeleteCoin 은 모든 Asset 에서 coin 이 없어졌다는 뜻이며 ch 를 싣지 않는다.
+ * UpdateAllAssetCoin 은 Asset 수만큼 커지지 않도록 ch 대신 (coin, role, delta) 하나만 싣는다.
+ *
+ * 소비자는 event 를 txId 로 중복 제거해야 한다.
+ * delta 는 변경 후 값이 아니라 증감이라서, 같은 event 를 두 번 적용하면 role 의 모든 잔액이 두 번 바뀐다.
+ * 재연결할 때 checkpoint 한 block 부터 다시 받으면 이미 적용한 event 가 다시 온다.
+ * 그래서 적용한 txId 를 잔액과 같은 DB transaction 으로 저장하고, 이미 있는 txId 의 event 는 버린다.
+ * 변경 후 잔액이 필요하면 delta 를 더하지 않고 Asset 을 다시 읽는다.
+ *
+ * v1 은 t 와 UpdateAllAssetCoin 의 role / delta 가 없던 schema 로, parse 는 v1 event 를 기본 tenant 의 event 로 읽는다.
+ */
+public final class BalanceEvent {
+
+    public static final String EVENT_NAME = "BalanceChanged";
+    public static final int VERSION = 2;
+
+    private final String tenant;
+    private final String op;
+    private String coin;
+    private String role;
+    private Long delta;
+    private final List<String> created = new ArrayList<>();
+    private final List<String> deleted = new ArrayList<>();
+    private final List<Change> changes = new ArrayList<>();
+
+    private BalanceEvent(String tenant, String op) {
+        this.tenant = tenant;
+        this.op = op;
+    }
+
+    static BalanceEvent of(String op, Tenant tenant) {
+        return new BalanceEvent(tenant.getId(), op);
+    }
+
+    public BalanceEvent coin(String coinName) {
+        this.coin = coinName;
+        return this;
+    }
+
+    /**
+     * userRole 이 role 인 모든 Asset 의 coin 잔액에 delta 를 더했다 (UpdateAllAssetCoin)
+     */
+    public BalanceEvent changedAll(String coinName, String userRole, long delta) {
+        this.coin = coinName;
+        this.role = userRole;
+        this.delta = delta;
+        return this;
+    }
+
+    public BalanceEvent changed(String assetId, String coinName, long balance) {
+        changes.add(new Change(assetId, coinName, balance));
+        return this;
+    }
+
+    public BalanceEvent created(Asset asset) {
+        created.add(asset.getAssetId());
+        for (Map.Entry<String, String> entry : asset.getCoin().entrySet()) {
+            changed(asset.getAssetId(), entry.getKey(), Long.parseLong(entry.getValue()));
+        }
+        return this;
+    }
+
+    public BalanceEvent deleted(String assetId) {
+        deleted.add(assetId);
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return coin == null && created.isEmpty() && deleted.isEmpty() && changes.isEmpty();
+    }
+
+    /**
+     * @return tenant id, 기본 tenant 면 null
+     */
+    public String getTenant() {
+        return tenant;
+    }
+
+    public String getOp() {
+        return op;
+    }
+
+    public String getCoin() {
+        return coin;
+    }
+
+    /**
+     * @return UpdateAllAssetCoin 의 대상 userRole, 다른 event 면 null
+     */
+    public String getRole() {
+        return role;
+    }
+
+    /**
+     * @return UpdateAllAssetCoin 이 더한 값, 다른 event 면 null
+     */
+    public Long getDelta() {
+        return delta;
+    }
+
+    public List<String> getCreated() {
+        return Collections.unmodifiableList(created);
+    }
+
+    public List<String> getDeleted() {
+        return Collections.unmodifiableList(deleted);
+    }
+
+    public List<Change> getChanges() {
+        return Collections.unmodifiableList(changes);
+    }
+
+    public void emit(ChaincodeStub stub) {
+        if (!isEmpty()) {
+            stub.setEvent(EVENT_NAME, toBytes());
+        }
+    }
+
+    public byte[] toBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + changes.size() * 32);
+        try (JsonGenerator generator = AssetTransfer.objectMapper.getFactory().createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeNumberField("v", VERSION);
+            if (tenant != null) {
+                generator.writeStringField("t", tenant);
+            }
+            generator.writeStringField("op", op);
+            if (coin != null) {
+                generator.writeStringField("coin", coin);
+            }
+            if (role != null) {
+                generator.writeStringField("role", role);
+            }
+            if (delta != null) {
+                generator.writeNumberField("delta", delta);
+            }
+            writeIds(generator, "new", created);
+            writeIds(generator, "del", deleted);
+            if (!changes.isEmpty()) {
+                generator.writeArrayFieldStart("ch");
+                for (Change change : changes) {
+                    generator.writeStartArray();
+                    generator.writeString(change.assetId);
+                    generator.writeString(change.coinName);
+                    generator.writeNumber(change.balance);
+                    generator.writeEndArray();
+                }
+                generator.writeEndArray();
+            }
+            generator.writeEndObject();
+        } catch (IOException e) {
+            System.out.println("Event to Json Exception: " + e.getMessage());
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @throws IllegalArgumentException 알 수 없는 schema version
+     */
+    public static BalanceEvent parse(byte[] payload) throws IOException {
+        JsonNode root = AssetTransfer.objectMapper.readTree(payload);
+        int version = root.path("v").asInt();
+        if (version < 1 || version > VERSION) {
+            throw new IllegalArgumentException("Unsupported BalanceChanged event version " + version);
+        }
+
+        BalanceEvent event = new BalanceEvent(root.hasNonNull("t") ? root.get("t").asText() : null, root.path("op").asText());
+        if (root.hasNonNull("coin")) {
+            event.coin = root.get("coin").asText();
+        }
+        if (root.hasNonNull("role")) {
+            event.role = root.get("role").asText();
+        }
+        if (root.hasNonNull("delta")) {
+            event.delta = root.get("delta").asLong();
+        }
+        for (JsonNode assetId : root.path("new")) {
+            event.created.add(assetId.asText());
+        }
+        for (JsonNode assetId : root.path("del")) {
+            event.deleted.add(assetId.asText());
+        }
+        for (JsonNode change : root.path("ch")) {
+            event.changed(change.get(0).asText(), change.get(1).asText(), change.get(2).asLong());
+        }
+        return event;
+    }
+
+    private static void writeIds(JsonGenerator generator, String fieldName, List<String> assetIds) throws IOException {
+        if (assetIds.isEmpty()) {
+            return;
+        }
+        generator.writeArrayFieldStart(fieldName);
+        for (String assetId : assetIds) {
+            generator.writeString(assetId);
+        }
+        generator.writeEndArray();
+    }
+
+    public static final class Change {
+        private final String assetId;
+        private final String coinName;
+        private final long balance;
+
+        private Change(String assetId, String coinName, long balance) {
+            this.assetId = assetId;
+            this.coinName = coinName;
+            this.balance = balance;
+        }
+
+        public String getAssetId() {
+            return assetId;
+        }
+
+        public String getCoinName() {
+            return coinName;
+        }
+
+        public long getBalance() {
+            return balance;
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import exception.NotEnoughCoinValueException;
+
+/**
+ * 저장된 Asset JSON 에서 coin 잔액(하나 또는 여러 개)과 sender / receiver / amount 만 바꾼 JSON
+ * Asset 으로 binding 하지 않고 JsonParser 의 token 을 JsonGenerator 로 그대로 옮기면서 대상 값만 바꾼다 (Asset.modifyCoinValue / modifyCoinValues 와 같은 결과).
+ *
+ * 이 체인코드가 쓴 모양(Asset 의 field 만 한 번씩, coin 은 object)이 아닌 문서는 기존처럼 Asset 으로 binding 해서 바꾸므로
+ * 잘못된 문서의 예외도 기존과 같다.
+ */
+final class BalancePatch {
+
+    private static final int SENDER = 1;
+    private static final int RECEIVER = 1 << 1;
+    private static final int AMOUNT = 1 << 2;
+    private static final int COIN = 1 << 3;
+    private static final int PATCHED_FIELDS = SENDER | RECEIVER | AMOUNT | COIN;
+
+    private final byte[] json;
+    private final String identifier;
+    private final long[] balances;
+
+    private BalancePatch(byte[] json, String identifier, long[] balances) {
+        this.json = json;
+        this.identifier = identifier;
+        this.balances = balances;
+    }
+
+    /**
+     * streaming 으로 바꾸고, 그럴 수 없는 문서는 Asset 으로 binding 해서 바꾼다
+     *
+     * @param amount coin 에 더할 값 (음수 가능)
+     * @throws NotEnoughCoinValueException 바꾼 잔액이 음수일 때
+     * @throws NumberFormatException       amount 가 숫자가 아니거나 coin 이 없을 때
+     */
+    static BalancePatch of(final byte[] assetJSON, final String senderAssetId, final String receiverAssetId, final String coinName, final String amount) throws JsonProcessingException {
+        BalancePatch patch = apply(assetJSON, senderAssetId, receiverAssetId, coinName, amount);
+        if (patch != null) {
+            return patch;
+        }
+
+        Asset asset = AssetTransfer.objectMapper.readValue(assetJSON == null ? null : new String(assetJSON, StandardCharsets.UTF_8), Asset.class);
+        asset.modifyCoinValue(senderAssetId, receiverAssetId, coinName, amount);
+        return new BalancePatch(AssetTransfer.objectMapper.writeValueAsBytes(asset), asset.getIdentifier(), new long[]{asset.getCoin().getLong(coinName)});
+    }
+
+    /**
+     * 여러 coin 을 한 번에 바꾼다. 하나라도 잔액이 모자라면 아무것도 바꾸지 않는다.
+     *
+     * @param assetId   바꾸는 Asset (잔액이 모자랄 때 예외 메시지에 쓴다)
+     * @param coinNames 바꿀 coin (중복 없음)
+     * @param deltas    coinNames 와 같은 순서로 더할 값
+     * @param amount    amount field 에 남길 값
+     * @throws NotEnoughCoinValueException 바꾼 잔액 중 하나라도 음수일 때
+     * @throws NumberFormatException       coin 이 없을 때
+     */
+    static BalancePatch of(final byte[] assetJSON, final String assetId, final String senderAssetId, final String receiverAssetId,
+                           final String[] coinNames, final long[] deltas, final String amount) throws JsonProcessingException {
+        BalancePatch patch = apply(assetJSON, assetId, senderAssetId, receiverAssetId, coinNames, deltas, amount);
+        if (patch != null) {
+            return patch;
+        }
+
+        Asset asset = AssetTransfer.objectMapper.readValue(assetJSON == null ? null : new String(assetJSON, StandardCharsets.UTF_8), Asset.class);
+        long[] balances = asset.modifyCoinValues(senderAssetId, receiverAssetId, coinNames, deltas, amount);
+        return new BalancePatch(AssetTransfer.objectMapper.writeValueAsBytes(asset), asset.getIdentifier(), balances);
+    }
+
+    /**
+     * @param amount coin 에 더할 값 (음수 가능)
+     * @return 바꾼 문서, 이 방법으로 바꿀 수 없는 문서면 null
+     * @throws NotEnoughCoinValueException 바꾼 잔액이 음수일 때
+     * @throws NumberFormatException       amount 가 숫자가 아닐 때
+     * @throws ArithmeticException         잔액이 long 범위를 넘을 때
+     */
+    static BalancePatch apply(final byte[] assetJSON, final String senderAssetId, final String receiverAssetId, final String coinName, final String amount) {
+        long delta = Long.parseLong(amount);
+        return apply(assetJSON, senderAssetId, senderAssetId, receiverAssetId, new String[]{coinName}, new long[]{delta}, amount);
+    }
+
+    /**
+     * @return 바꾼 문서, 이 방법으로 바꿀 수 없는 문서면 null
+     * @throws NotEnoughCoinValueException 바꾼 잔액 중 하나라도 음수일 때
+     * @throws ArithmeticException         잔액이 long 범위를 넘을 때
+     */
+    static BalancePatch apply(final byte[] assetJSON, final String assetId, final String senderAssetId, final String receiverAssetId,
+                              final String[] coinNames, final long[] deltas, final String amount) {
+        if (assetJSON == null || assetJSON.length == 0) {
+            return null;
+        }
+
+        JsonFactory factory = AssetTransfer.objectMapper.getFactory();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(assetJSON.length + 16);
+        try (JsonParser parser = factory.createParser(assetJSON);
+             JsonGenerator generator = factory.createGenerator(out)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+
+            generator.writeStartObject();
+            int seen = 0;
+            String identifier = null;
+            long[] balances = null;
+            for (String field = parser.nextFieldName(); field != null; field = parser.nextFieldName()) {
+                JsonToken token = parser.nextToken();
+                int bit;
+                switch (field) {
+                    case "coin":
+                        bit = COIN;
+                        if (token != JsonToken.START_OBJECT || (seen & bit) != 0) {
+                            return null;
+                        }
+                        generator.writeFieldName(field);
+                        balances = copyCoins(parser, generator, coinNames, deltas, assetId);
+                        if (balances == null) {
+                            return null;
+                        }
+                        break;
+                    case "sender":
+                        bit = SENDER;
+                        if (!isStringOrNull(token)) {
+                            return null;
+                        }
+                        generator.writeStringField(field, senderAssetId);
+                        break;
+                    case "receiver":
+                        bit = RECEIVER;
+                        if (!isStringOrNull(token)) {
+                            return null;
+                        }
+                        generator.writeStringField(field, receiverAssetId);
+                        break;
+                    case "amount":
+                        bit = AMOUNT;
+                        if (!isStringOrNull(token)) {
+                            return null;
+                        }
+                        generator.writeStringField(field, amount);
+                        break;
+                    case "identifier":
+                        bit = 0;
+                        if (!isStringOrNull(token)) {
+                            return null;
+                        }
+                        identifier = parser.getValueAsString();
+                        generator.writeStringField(field, identifier);
+                        break;
+                    case "assetId":
+                    case "owner":
+                    case "userRole":
+                        bit = 0;
+                        if (!isStringOrNull(token)) {
+                            return null;
+                        }
+                        generator.writeFieldName(field);
+                        generator.copyCurrentEvent(parser);
+                        break;
+                    default:
+                        // binding 하면 UnrecognizedPropertyException 이 나는 문서
+                        return null;
+                }
+                if ((seen & bit) != 0) {
+                    return null;
+                }
+                seen |= bit;
+            }
+
+            if (parser.currentToken() != JsonToken.END_OBJECT || parser.nextToken() != null || seen != PATCHED_FIELDS) {
+                return null;
+            }
+            generator.writeEndObject();
+            generator.flush();
+            return new BalancePatch(out.toByteArray(), identifier, balances);
+
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // coin object 를 옮기면서 coinNames 의 값을 바꾼다. 잔액은 CoinBalances 와 같이 문자열로 쓴다.
+    // 모든 coin 을 찾아야 하고, 잔액 검사는 전부 계산한 뒤에 하므로 어느 coin 이 모자라도 같은 예외가 난다.
+    private static long[] copyCoins(JsonParser parser, JsonGenerator generator, String[] coinNames, long[] deltas, String assetId) throws IOException {
+        long[] balances = new long[coinNames.length];
+        boolean[] found = new boolean[coinNames.length];
+        int remaining = coinNames.length;
+        boolean enough = true;
+        generator.writeStartObject();
+        for (String name = parser.nextFieldName(); name != null; name = parser.nextFieldName()) {
+            JsonToken token = parser.nextToken();
+            int index = indexOf(coinNames, name);
+            if (index < 0) {
+                generator.writeFieldName(name);
+                if (token == JsonToken.VALUE_STRING && isCanonicalLong(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength())) {
+                    // 바꾸지 않는 잔액은 문자열을 만들지 않고 그대로 옮긴다
+                    generator.writeString(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                } else {
+                    Long value = coinValue(token, parser);
+                    if (value == null) {
+                        return null;
+                    }
+                    generator.writeString(Long.toString(value));
+                }
+                continue;
+            }
+
+            Long value = coinValue(token, parser);
+            if (value == null || found[index]) {
+                return null;
+            }
+            long modified = Math.addExact(value, deltas[index]);
+            enough &= modified >= 0;
+            found[index] = true;
+            remaining--;
+            balances[index] = modified;
+            generator.writeStringField(name, Long.toString(modified));
+        }
+        if (parser.currentToken() != JsonToken.END_OBJECT || remaining != 0) {
+            return null;
+        }
+        if (!enough) {
+            String errormessage = String.format("Asset %s does not have enough coin", assetId);
+            throw new NotEnoughCoinValueException(errormessage);
+        }
+        generator.writeEndObject();
+        return balances;
+    }
+
+    private static int indexOf(String[] coinNames, String name) {
+        for (int i = 0; i < coinNames.length; i++) {
+            if (coinNames[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Long coinValue(JsonToken token, JsonParser parser) throws IOException {
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getNumberType() == JsonParser.NumberType.BIG_INTEGER ? null : parser.getLongValue();
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            try {
+                return Long.parseLong(parser.getText());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    // Long.toString 이 만드는 모양 (앞의 0 이나 + 가 없고 long 범위 안) 이면 true
+    private static boolean isCanonicalLong(char[] chars, int offset, int length) {
+        int start = offset;
+        int end = offset + length;
+        if (start < end && chars[start] == '-') {
+            start++;
+        }
+        int digits = end - start;
+        if (digits == 0 || digits > 18 || (chars[start] == '0' && (digits > 1 || start > offset))) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (chars[i] < '0' || chars[i] > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isStringOrNull(JsonToken token) {
+        return token == JsonToken.VALUE_STRING || token == JsonToken.VALUE_NULL;
+    }
+
+    byte[] getJson() {
+        return json;
+    }
+
+    String getIdentifier() {
+        return identifier;
+    }
+
+    long getBalance() {
+        return balances[0];
+    }
+
+    /**
+     * @param index apply / of 에 넘긴 coinNames 의 순서
+     */
+    long getBalance(int index) {
+        return balances[index];
+    }
+}
@@ -0,0 +1,25 @@
+package org.hyperledger.fabric.samples.assettransfer;
+
+import lombok.*;
+
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class BatchItemResult {
+
+    private int index;
+
+    private String assetId;
+
+    private BatchItemStatus status;
+
+    private String message;
+
+    @Builder
+    public BatchItemResult(int index, String assetId, BatchItemStatus status, String message) {
+        this.index = index;
+        this.assetId = assetId;
+        this.status = status;
+        this.message = message;
+    }
+}
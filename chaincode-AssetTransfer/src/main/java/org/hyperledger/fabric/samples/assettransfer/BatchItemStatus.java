@@ -0,0 +1,5 @@
+package org.hyperledger.fabric.samples.assettransfer;
+
+public enum BatchItemStatus {
+    CREATED, ALREADY_EXISTS, DUPLICATE_IN_BATCH, INVALID
+}
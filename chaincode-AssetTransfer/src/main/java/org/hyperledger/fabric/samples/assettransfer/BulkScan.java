@@ -0,0 +1,144 @@
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+
+/**
+ * 범위 조회 결과 전체를 decode / 변경 / encode 하는 bulk 트랜잭션용 실행기
+ * shim iterator 는 호출한 thread 에서만 pageSize 개씩 읽고, 읽은 page 의 변환은 ForkJoinPool 에 맡긴 채 다음 page 를 미리 읽는다.
+ * 결과는 iterator 가 돌려준 key 순서 그대로 돌려주므로 putState 도 호출한 thread 에서 같은 순서로 하면 peer 마다 같은 결과가 나온다.
+ *
+ * 변환 함수는 stub 에 접근하지 않아야 한다 (stub 은 thread-safe 하지 않다).
+ * parallelism 이 1 이면 pool 없이 호출한 thread 에서 순서대로 처리한다.
+ */
+final class BulkScan {
+
+    interface Transform<T> {
+        /**
+         * @return 결과, null 이면 결과에서 뺀다
+         */
+        T apply(KeyValue keyValue) throws JsonProcessingException;
+    }
+
+    /**
+     * 변환이 끝난 state 한 건
+     */
+    static final class Write {
+        private final String key;
+        private final Asset asset;
+        private final String value;
+
+        Write(String key, Asset asset, String value) {
+            this.key = key;
+            this.asset = asset;
+            this.value = value;
+        }
+
+        String getKey() {
+            return key;
+        }
+
+        Asset getAsset() {
+            return asset;
+        }
+
+        String getValue() {
+            return value;
+        }
+    }
+
+    private final ForkJoinPool pool;
+    private final int pageSize;
+
+    BulkScan(int parallelism, int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize must be positive");
+        }
+        this.pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        this.pageSize = pageSize;
+    }
+
+    int getParallelism() {
+        return pool == null ? 1 : pool.getParallelism();
+    }
+
+    <T> List<T> map(final Iterable<KeyValue> results, final Transform<T> transform) throws JsonProcessingException {
+        Iterator<KeyValue> iterator = results.iterator();
+        List<T> mapped = new ArrayList<>();
+
+        if (pool == null) {
+            while (iterator.hasNext()) {
+                T result = transform.apply(iterator.next());
+                if (result != null) {
+                    mapped.add(result);
+                }
+            }
+            return mapped;
+        }
+
+        List<KeyValue> page = nextPage(iterator);
+        while (!page.isEmpty()) {
+            List<KeyValue> current = page;
+            Future<List<T>> pending = pool.submit(() -> current.parallelStream()
+                    .map(keyValue -> applyUnchecked(transform, keyValue))
+                    .collect(Collectors.toList()));
+
+            // pool 이 변환하는 동안 다음 page 를 읽어 둔다
+            page = nextPage(iterator);
+
+            for (T result : await(pending)) {
+                if (result != null) {
+                    mapped.add(result);
+                }
+            }
+        }
+        return mapped;
+    }
+
+    private List<KeyValue> nextPage(final Iterator<KeyValue> iterator) {
+        List<KeyValue> page = new ArrayList<>(pageSize);
+        while (page.size() < pageSize && iterator.hasNext()) {
+            page.add(iterator.next());
+        }
+        return page;
+    }
+
+    private static <T> T applyUnchecked(final Transform<T> transform, final KeyValue keyValue) {
+        try {
+            return transform.apply(keyValue);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // worker 에서 난 예외를 순차 처리 때와 같은 타입으로 다시 던진다
+    private static <T> List<T> await(final Future<List<T>> pending) throws JsonProcessingException {
+        try {
+            return pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Bulk scan interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException && cause.getCause() instanceof JsonProcessingException) {
+                throw (JsonProcessingException) cause.getCause();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package org.hyperledger.fabric.samples.assettransfer;
+
+import lombok.*;
+
+/**
+ * coin 잔액 checksum 의 bucket 하나 (checksum keyspace 에 저장)
+ * cursor 는 RebuildCoinChecksum 이 마지막으로 읽은 asset key 이고, rebuild 가 끝났으면 null 이다.
+ */
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class ChecksumBucket {
+
+    // 2^61 을 넘지 않지만 JavaScript client 가 잃지 않도록 문자열로 둔다
+    private String sum;
+
+    private Long count;
+
+    private String cursor;
+
+    @Builder
+    public ChecksumBucket(String sum, Long count, String cursor) {
+        this.sum = sum;
+        this.count = count;
+        this.cursor = cursor;
+    }
+}
@@ -0,0 +1,32 @@
+package org.hyperledger.fabric.samples.assettransfer;
+
+import lombok.*;
+
+/**
+ * GetCoinChecksumRange 의 결과: asset keyspace 한 page(firstAssetId ~ lastAssetId)의 checksum
+ * bookmark 가 빈 문자열이면 마지막 page 이다.
+ */
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class ChecksumRange {
+
+    private String firstAssetId;
+
+    private String lastAssetId;
+
+    private String sum;
+
+    private Long count;
+
+    private String bookmark;
+
+    @Builder
+    public ChecksumRange(String firstAssetId, String lastAssetId, String sum, Long count, String bookmark) {
+        this.firstAssetId = firstAssetId;
+        this.lastAssetId = lastAssetId;
+        this.sum = sum;
+        this.count = count;
+        this.bookmark = bookmark;
+    }
+}
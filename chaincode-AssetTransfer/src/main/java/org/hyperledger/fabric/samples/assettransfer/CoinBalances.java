@@ -0,0 +1,346 @@
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+/**
+ * Asset 의 coin 잔액 table
+ * coin 이름은 모든 Asset 이 같은 String 을 공유하도록 intern 하고, 잔액은 long[] 에 그대로 둔다 (open addressing, linear probing).
+ * JSON 은 기존 HashMap&lt;String, String&gt; 과 같은 {"coinName": "value"} 모양으로 읽고 쓴다.
+ * Map&lt;String, String&gt; 으로도 쓸 수 있지만 get / entrySet 은 값을 매번 String 으로 만들므로 hot path 에서는 getLong / add 를 쓴다.
+ */
+@JsonSerialize(using = CoinBalances.Serializer.class)
+@JsonDeserialize(using = CoinBalances.Deserializer.class)
+public final class CoinBalances extends AbstractMap<String, String> {
+
+    // coin 이름 pool. 악의적인 JSON 으로 무한히 커지지 않도록 상한을 둔다.
+    private static final int MAX_INTERNED_NAMES = 4096;
+    private static final Map<String, String> NAMES = new ConcurrentHashMap<>();
+
+    private static final int MIN_CAPACITY = 4;
+
+    private String[] names;
+    private long[] values;
+    private int size;
+    private boolean readOnly;
+
+    public CoinBalances() {
+        this(MIN_CAPACITY);
+    }
+
+    private CoinBalances(int capacity) {
+        this.names = new String[capacity];
+        this.values = new long[capacity];
+    }
+
+    public static CoinBalances of(Map<String, String> coin) {
+        if (coin == null) {
+            return new CoinBalances();
+        }
+        if (coin instanceof CoinBalances) {
+            return ((CoinBalances) coin).copy();
+        }
+
+        CoinBalances balances = new CoinBalances(capacityFor(coin.size()));
+        for (Map.Entry<String, String> entry : coin.entrySet()) {
+            balances.put(entry.getKey(), entry.getValue());
+        }
+        return balances;
+    }
+
+    static String intern(String name) {
+        String interned = NAMES.get(name);
+        if (interned != null) {
+            return interned;
+        }
+        if (NAMES.size() >= MAX_INTERNED_NAMES) {
+            return name;
+        }
+        interned = NAMES.putIfAbsent(name, name);
+        return interned == null ? name : interned;
+    }
+
+    public CoinBalances copy() {
+        CoinBalances copy = new CoinBalances(names.length);
+        System.arraycopy(names, 0, copy.names, 0, names.length);
+        System.arraycopy(values, 0, copy.values, 0, values.length);
+        copy.size = size;
+        return copy;
+    }
+
+    // AssetCache 의 공유 Asset 이 바뀌지 않도록 이후의 변경을 막는다 (copy 는 다시 바꿀 수 있다)
+    void readOnly() {
+        readOnly = true;
+    }
+
+    /**
+     * @throws NumberFormatException coin 이 없을 때 (기존 Integer.parseInt(null) 과 같은 예외)
+     */
+    public long getLong(String coinName) {
+        int slot = find(coinName);
+        if (slot < 0) {
+            throw new NumberFormatException("Coin " + coinName + " is not held");
+        }
+        return values[slot];
+    }
+
+    public void putLong(String coinName, long value) {
+        checkWritable();
+        int slot = find(coinName);
+        if (slot >= 0) {
+            values[slot] = value;
+            return;
+        }
+
+        if ((size + 1) * 2 > names.length) {
+            resize(names.length * 2);
+            slot = find(coinName);
+        }
+        slot = -slot - 1;
+        names[slot] = intern(coinName);
+        values[slot] = value;
+        size++;
+    }
+
+    /**
+     * @return 더한 뒤 잔액
+     */
+    public long add(String coinName, long delta) {
+        checkWritable();
+        int slot = find(coinName);
+        if (slot < 0) {
+            throw new NumberFormatException("Coin " + coinName + " is not held");
+        }
+        values[slot] = Math.addExact(values[slot], delta);
+        return values[slot];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String && find((String) key) >= 0;
+    }
+
+    @Override
+    public String get(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        int slot = find((String) key);
+        return slot < 0 ? null : Long.toString(values[slot]);
+    }
+
+    @Override
+    public String put(String key, String value) {
+        String previous = get(key);
+        putLong(key, Long.parseLong(value));
+        return previous;
+    }
+
+    @Override
+    public String remove(Object key) {
+        checkWritable();
+        if (!(key instanceof String)) {
+            return null;
+        }
+        int slot = find((String) key);
+        if (slot < 0) {
+            return null;
+        }
+        String previous = Long.toString(values[slot]);
+        removeSlot(slot);
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        checkWritable();
+        names = new String[MIN_CAPACITY];
+        values = new long[MIN_CAPACITY];
+        size = 0;
+    }
+
+    @Override
+    public Set<Map.Entry<String, String>> entrySet() {
+        return new AbstractSet<Map.Entry<String, String>>() {
+            @Override
+            public Iterator<Map.Entry<String, String>> iterator() {
+                return new SlotIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private void checkWritable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException("CoinBalances is read-only");
+        }
+    }
+
+    // 찾으면 slot, 없으면 -(넣을 slot) - 1
+    private int find(String coinName) {
+        int mask = names.length - 1;
+        int slot = mix(coinName.hashCode()) & mask;
+        while (true) {
+            String name = names[slot];
+            if (name == null) {
+                return -slot - 1;
+            }
+            if (name == coinName || name.equals(coinName)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    // tombstone 없이 뒤에 밀려난 항목을 당겨온다 (backward shift deletion)
+    private void removeSlot(int slot) {
+        int mask = names.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (names[next] != null) {
+            int home = mix(names[next].hashCode()) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                names[hole] = names[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        names[hole] = null;
+        values[hole] = 0;
+        size--;
+    }
+
+    private void resize(int capacity) {
+        String[] oldNames = names;
+        long[] oldValues = values;
+        names = new String[capacity];
+        values = new long[capacity];
+        for (int i = 0; i < oldNames.length; i++) {
+            if (oldNames[i] != null) {
+                int slot = -find(oldNames[i]) - 1;
+                names[slot] = oldNames[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int capacityFor(int expected) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expected * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    // backward shift 삭제가 이미 지나간 항목을 뒤로 옮길 수 있으므로 시작 시점의 이름 배열을 따라 돈다
+    private final class SlotIterator implements Iterator<Map.Entry<String, String>> {
+        private final String[] snapshot = names.clone();
+        private int next = advance(0);
+        private String current;
+
+        @Override
+        public boolean hasNext() {
+            return next < snapshot.length;
+        }
+
+        @Override
+        public Map.Entry<String, String> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            current = snapshot[next];
+            next = advance(next + 1);
+            return new SimpleImmutableEntry<>(current, Long.toString(getLong(current)));
+        }
+
+        @Override
+        public void remove() {
+            if (current == null) {
+                throw new IllegalStateException();
+            }
+            CoinBalances.this.remove(current);
+            current = null;
+        }
+
+        private int advance(int from) {
+            int slot = from;
+            while (slot < snapshot.length && snapshot[slot] == null) {
+                slot++;
+            }
+            return slot;
+        }
+    }
+
+    static final class Serializer extends JsonSerializer<CoinBalances> {
+        @Override
+        public void serialize(CoinBalances balances, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < balances.names.length; i++) {
+                if (balances.names[i] != null) {
+                    generator.writeFieldName(balances.names[i]);
+                    generator.writeString(Long.toString(balances.values[i]));
+                }
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    static final class Deserializer extends JsonDeserializer<CoinBalances> {
+        @Override
+        public CoinBalances deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                return (CoinBalances) context.handleUnexpectedToken(CoinBalances.class, parser);
+            }
+
+            CoinBalances balances = new CoinBalances();
+            for (String name = parser.nextFieldName(); name != null; name = parser.nextFieldName()) {
+                JsonToken token = parser.nextToken();
+                long value;
+                if (token == JsonToken.VALUE_NUMBER_INT) {
+                    value = parser.getLongValue();
+                } else if (token == JsonToken.VALUE_STRING) {
+                    String text = parser.getText();
+                    try {
+                        value = Long.parseLong(text);
+                    } catch (NumberFormatException e) {
+                        return (CoinBalances) context.handleWeirdStringValue(CoinBalances.class, text, "coin %s is not a number", name);
+                    }
+                } else {
+                    return (CoinBalances) context.handleUnexpectedToken(CoinBalances.class, parser);
+                }
+                balances.putLong(name, value);
+            }
+            return balances;
+        }
+    }
+}
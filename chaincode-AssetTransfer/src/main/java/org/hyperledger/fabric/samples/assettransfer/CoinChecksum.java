@@ -0,0 +1,29 @@
+package org.hyperledger.fabric.samples.assettransfer;
+
+import lombok.*;
+
+/**
+ * GetCoinChecksum 의 결과
+ * complete 가 false 면 bucket 이 없거나 rebuild 중이라 sum / count 를 비교할 수 없다.
+ */
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class CoinChecksum {
+
+    private String coinName;
+
+    private String sum;
+
+    private Long count;
+
+    private Boolean complete;
+
+    @Builder
+    public CoinChecksum(String coinName, String sum, Long count, Boolean complete) {
+        this.coinName = coinName;
+        this.sum = sum;
+        this.count = count;
+        this.complete = complete;
+    }
+}
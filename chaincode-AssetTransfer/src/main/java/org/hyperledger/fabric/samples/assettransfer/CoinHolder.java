@@ -0,0 +1,22 @@
+package org.hyperledger.fabric.samples.assettransfer;
+
+import lombok.*;
+
+/**
+ * GetTopHolders 의 항목
+ */
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class CoinHolder {
+
+    private String assetId;
+
+    private Long balance;
+
+    @Builder
+    public CoinHolder(String assetId, Long balance) {
+        this.assetId = assetId;
+        this.balance = balance;
+    }
+}
@@ -0,0 +1,139 @@
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+
+/**
+ * coin 별 보유량 순위 index (tenant 별)
+ * key 는 holder/coinName/(Long.MAX_VALUE - 잔액, 19자리 zero-padding)/assetId 이므로 coin 의 partial composite key 로 조회하면 잔액이 큰 순서(같으면 assetId 순서)로 나온다.
+ * 잔액이 0 인 Asset 은 index 에 넣지 않는다 (CreateAsset / CreateCoin 은 index 를 쓰지 않는다).
+ *
+ * 트랜잭션 안에서 바뀐 잔액을 모은 뒤 (assetId, coin) 마다 처음 잔액의 key 를 지우고 마지막 잔액의 key 를 쓰므로
+ * 잔액 하나가 바뀔 때 index 쓰기는 최대 2번이다.
+ * 같은 변경으로 coin 별 잔액 checksum(BalanceChecksum)도 갱신한다.
+ */
+final class HolderIndex {
+
+    static final String INDEX = "holder";
+
+    private static final byte[] PRESENT = new byte[]{0};
+    private static final int BALANCE_DIGITS = 19;
+
+    private final Tenant tenant;
+    private final Map<String, Change> changes = new LinkedHashMap<>();
+
+    private HolderIndex(Tenant tenant) {
+        this.tenant = tenant;
+    }
+
+    static HolderIndex of(final Tenant tenant) {
+        return new HolderIndex(tenant);
+    }
+
+    HolderIndex changed(final String assetId, final String coinName, final long previous, final long balance) {
+        Change change = changes.get(assetId + CompositeKey.NAMESPACE + coinName);
+        if (change == null) {
+            changes.put(assetId + CompositeKey.NAMESPACE + coinName, new Change(assetId, coinName, previous, balance));
+        } else {
+            change.balance = balance;
+        }
+        return this;
+    }
+
+    HolderIndex deleted(final Asset asset) {
+        for (String coinName : asset.getCoin().keySet()) {
+            long balance = asset.getCoin().getLong(coinName);
+            changed(asset.getAssetId(), coinName, balance, 0);
+        }
+        return this;
+    }
+
+    void apply(final ChaincodeStub stub) throws JsonProcessingException {
+        BalanceChecksum checksum = BalanceChecksum.of(tenant);
+        for (Change change : changes.values()) {
+            if (change.previous == change.balance) {
+                continue;
+            }
+            if (change.previous > 0) {
+                stub.delState(key(tenant, change.coinName, change.previous, change.assetId));
+            }
+            if (change.balance > 0) {
+                stub.putState(key(tenant, change.coinName, change.balance, change.assetId), PRESENT);
+            }
+            checksum.changed(change.assetId, change.coinName, change.previous, change.balance);
+        }
+        checksum.apply(stub);
+    }
+
+    /**
+     * Asset 의 현재 잔액 key 를 쓴다 (이미 있으면 같은 값을 다시 쓴다)
+     */
+    static int index(final ChaincodeStub stub, final Tenant tenant, final Asset asset) {
+        int written = 0;
+        for (String coinName : asset.getCoin().keySet()) {
+            long balance = asset.getCoin().getLong(coinName);
+            if (balance > 0) {
+                stub.putState(key(tenant, coinName, balance, asset.getAssetId()), PRESENT);
+                written++;
+            }
+        }
+        return written;
+    }
+
+    /**
+     * coin 의 index 를 모두 지운다 (RemoveCoin / DeleteCoin)
+     */
+    static void removeCoin(final ChaincodeStub stub, final Tenant tenant, final String coinName) {
+        QueryResultsIterator<KeyValue> holders = stub.getStateByPartialCompositeKey(coinKey(tenant, coinName));
+        for (KeyValue holder : holders) {
+            stub.delState(holder.getKey());
+        }
+    }
+
+    static CompositeKey coinKey(final Tenant tenant, final String coinName) {
+        return tenant.partialKey(INDEX, coinName);
+    }
+
+    static String key(final Tenant tenant, final String coinName, final long balance, final String assetId) {
+        return tenant.key(INDEX, coinName, invert(balance), assetId);
+    }
+
+    // String.format 은 key 하나에 Formatter 를 만들므로 직접 채운다
+    private static String invert(final long balance) {
+        String digits = Long.toString(Long.MAX_VALUE - balance);
+        StringBuilder padded = new StringBuilder(BALANCE_DIGITS);
+        for (int i = digits.length(); i < BALANCE_DIGITS; i++) {
+            padded.append('0');
+        }
+        return padded.append(digits).toString();
+    }
+
+    static CoinHolder parse(final ChaincodeStub stub, final Tenant tenant, final String key) {
+        List<String> attributes = tenant.attributes(stub, key);
+        return CoinHolder.builder()
+                .assetId(attributes.get(2))
+                .balance(Long.MAX_VALUE - Long.parseLong(attributes.get(1)))
+                .build();
+    }
+
+    private static final class Change {
+        private final String assetId;
+        private final String coinName;
+        private final long previous;
+        private long balance;
+
+        private Change(String assetId, String coinName, long previous, long balance) {
+            this.assetId = assetId;
+            this.coinName = coinName;
+            this.previous = previous;
+            this.balance = balance;
+        }
+    }
+}
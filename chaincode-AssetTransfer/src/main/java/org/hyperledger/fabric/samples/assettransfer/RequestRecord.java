@@ -0,0 +1,28 @@
+package org.hyperledger.fabric.samples.assettransfer;
+
+import lombok.*;
+
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class RequestRecord {
+
+    private String requestId;
+
+    private String function;
+
+    private String transactionId;
+
+    private long createdAt;
+
+    private String response;
+
+    @Builder
+    public RequestRecord(String requestId, String function, String transactionId, long createdAt, String response) {
+        this.requestId = requestId;
+        this.function = function;
+        this.transactionId = transactionId;
+        this.createdAt = createdAt;
+        this.response = response;
+    }
+}
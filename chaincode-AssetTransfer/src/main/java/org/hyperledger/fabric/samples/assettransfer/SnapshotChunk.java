@@ -0,0 +1,38 @@
+package org.hyperledger.fabric.samples.assettransfer;
+
+import lombok.*;
+
+/**
+ * ExportSnapshot 한 page
+ * data 는 record 들을 gzip 으로 압축한 base64 이고, sha256 / rawBytes / records 는 압축을 푼 내용 기준이다.
+ * index 는 archive 로 묶을 때 순서대로 붙는다 (ExportSnapshot 은 null).
+ */
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class SnapshotChunk {
+
+    private Integer index;
+
+    // 다음 page 의 bookmark, 마지막 page 면 빈 문자열
+    private String bookmark;
+
+    private int records;
+
+    private long rawBytes;
+
+    private String sha256;
+
+    @ToString.Exclude
+    private String data;
+
+    @Builder
+    public SnapshotChunk(Integer index, String bookmark, int records, long rawBytes, String sha256, String data) {
+        this.index = index;
+        this.bookmark = bookmark;
+        this.records = records;
+        this.rawBytes = rawBytes;
+        this.sha256 = sha256;
+        this.data = data;
+    }
+}
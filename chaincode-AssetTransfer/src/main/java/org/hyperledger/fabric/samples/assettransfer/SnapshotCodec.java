@@ -0,0 +1,153 @@
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import exception.InvalidSnapshotException;
+
+/**
+ * snapshot chunk 의 record 형식
+ * record 는 (kind 1 byte, id modified UTF-8, value 길이 int, value) 이고 value 는 저장된 JSON bytes 그대로이다.
+ * key 대신 id 를 쓰므로 key 형식(MigrateAssetKeys 이전 / 이후)과 관계없이 옮길 수 있다.
+ */
+final class SnapshotCodec {
+
+    static final int VERSION = 1;
+
+    static final byte ROOT = 'M';
+    static final byte ASSET = 'A';
+
+    private SnapshotCodec() {
+    }
+
+    static final class Record {
+        private final byte kind;
+        private final String id;
+        private final byte[] value;
+
+        Record(byte kind, String id, byte[] value) {
+            this.kind = kind;
+            this.id = id;
+            this.value = value;
+        }
+
+        byte getKind() {
+            return kind;
+        }
+
+        String getId() {
+            return id;
+        }
+
+        byte[] getValue() {
+            return value;
+        }
+    }
+
+    static SnapshotChunk encode(List<Record> records, String bookmark) {
+        try {
+            ByteArrayOutputStream raw = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(raw);
+            for (Record record : records) {
+                out.writeByte(record.kind);
+                out.writeUTF(record.id);
+                out.writeInt(record.value.length);
+                out.write(record.value);
+            }
+            out.flush();
+
+            byte[] payload = raw.toByteArray();
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(payload.length / 4 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(payload);
+            }
+
+            return SnapshotChunk.builder()
+                    .bookmark(bookmark)
+                    .records(records.size())
+                    .rawBytes(payload.length)
+                    .sha256(sha256(payload))
+                    .data(Base64.getEncoder().encodeToString(compressed.toByteArray()))
+                    .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @throws InvalidSnapshotException 압축이 깨졌거나 sha256 / rawBytes / records 가 맞지 않을 때
+     */
+    static List<Record> decode(SnapshotChunk chunk, long maxRawBytes) {
+        if (chunk.getData() == null || chunk.getSha256() == null || chunk.getRawBytes() < 0 || chunk.getRawBytes() > maxRawBytes) {
+            throw new InvalidSnapshotException("Snapshot chunk is incomplete or too large");
+        }
+
+        byte[] payload;
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(chunk.getData())))) {
+            // 선언된 크기보다 1 byte 더 읽어서 크기가 다르면 버린다 (압축 폭탄 방지)
+            payload = in.readNBytes((int) chunk.getRawBytes() + 1);
+        } catch (IllegalArgumentException | IOException e) {
+            throw new InvalidSnapshotException("Snapshot chunk is not valid gzip/base64: " + e.getMessage());
+        }
+        if (payload.length != chunk.getRawBytes() || !sha256(payload).equals(chunk.getSha256())) {
+            throw new InvalidSnapshotException("Snapshot chunk checksum mismatch");
+        }
+
+        List<Record> records = new ArrayList<>(chunk.getRecords());
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        try {
+            while (in.available() > 0) {
+                byte kind = in.readByte();
+                String id = in.readUTF();
+                int length = in.readInt();
+                if (length < 0 || length > in.available()) {
+                    throw new EOFException();
+                }
+                byte[] value = new byte[length];
+                in.readFully(value);
+                if (kind != ROOT && kind != ASSET) {
+                    throw new InvalidSnapshotException("Unknown snapshot record kind " + kind);
+                }
+                records.add(new Record(kind, id, value));
+            }
+        } catch (EOFException e) {
+            throw new InvalidSnapshotException("Snapshot chunk is truncated");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (records.size() != chunk.getRecords()) {
+            throw new InvalidSnapshotException(String.format("Snapshot chunk has %d records, expected %d", records.size(), chunk.getRecords()));
+        }
+        return records;
+    }
+
+    /**
+     * manifest digest 의 다음 값 (처음은 빈 문자열에서 시작한다)
+     */
+    static String chain(String digest, String chunkSha256) {
+        return sha256((digest + chunkSha256).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String sha256(byte[] content) {
+        try {
+            return String.format("%064x", new BigInteger(1, MessageDigest.getInstance("SHA-256").digest(content)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
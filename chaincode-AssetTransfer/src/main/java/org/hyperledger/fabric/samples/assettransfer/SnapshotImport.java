@@ -0,0 +1,29 @@
+package org.hyperledger.fabric.samples.assettransfer;
+
+import lombok.*;
+
+/**
+ * 진행 중인 ImportSnapshot 의 누적값 (meta keyspace 에 저장)
+ * FinishSnapshotImport 가 manifest 와 비교한다.
+ */
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class SnapshotImport {
+
+    private int nextIndex;
+
+    private long records;
+
+    private long rawBytes;
+
+    private String digest;
+
+    @Builder
+    public SnapshotImport(int nextIndex, long records, long rawBytes, String digest) {
+        this.nextIndex = nextIndex;
+        this.records = records;
+        this.rawBytes = rawBytes;
+        this.digest = digest;
+    }
+}
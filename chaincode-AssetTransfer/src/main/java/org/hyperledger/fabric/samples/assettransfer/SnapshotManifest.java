@@ -0,0 +1,32 @@
+package org.hyperledger.fabric.samples.assettransfer;
+
+import lombok.*;
+
+/**
+ * snapshot archive 의 합계
+ * digest 는 chunk 의 sha256 을 index 순서로 이어서 hash 한 값이다 (SnapshotCodec.chain).
+ */
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class SnapshotManifest {
+
+    private int version;
+
+    private int chunks;
+
+    private long records;
+
+    private long rawBytes;
+
+    private String digest;
+
+    @Builder
+    public SnapshotManifest(int version, int chunks, long records, long rawBytes, String digest) {
+        this.version = version;
+        this.chunks = chunks;
+        this.records = records;
+        this.rawBytes = rawBytes;
+        this.digest = digest;
+    }
+}
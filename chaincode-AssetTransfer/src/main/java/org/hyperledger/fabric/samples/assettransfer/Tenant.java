@@ -0,0 +1,97 @@
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.util.List;
+
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+
+/**
+ * 트랜잭션이 읽고 쓰는 keyspace 의 주인(학교)
+ * 기본 tenant 는 tenant 가 없던 때와 같은 key(asset/assetId, meta/rootAsset ...)를 쓰고,
+ * 이름이 있는 tenant 는 같은 key 앞에 tenant/tenantId 를 붙인다 (tenant/school1/asset/s1).
+ * rootAsset(coin 목록), 보유량 순위 index, request 기록, snapshot import 진행 상황이 모두 tenant 별로 따로 있으므로
+ * 한 tenant 를 ExportSnapshot / ImportSnapshot 으로 다른 channel 의 같은 chaincode 에 그대로 옮길 수 있다.
+ *
+ * 이름이 있는 tenant 는 tenants/tenantId 에 등록되어 GetTenantSummaries 가 순서대로 읽는다.
+ */
+final class Tenant {
+
+    static final String TENANT_KEY = "tenant";
+    static final String REGISTRY_KEY = "tenants";
+
+    static final Tenant DEFAULT = new Tenant(null);
+
+    private final String id;
+    private final String rootKey;
+    private final CompositeKey allAssets;
+
+    private Tenant(String id) {
+        this.id = id;
+        this.rootKey = key(AssetTransfer.META_KEY, AssetTransfer.ROOT_ASSET_ID);
+        this.allAssets = partialKey(AssetTransfer.ASSET_KEY);
+    }
+
+    /**
+     * @throws IllegalArgumentException tenantId 가 비어있거나 key 에 쓸 수 없는 문자가 있을 때
+     */
+    static Tenant of(final String tenantId) {
+        if (tenantId == null || tenantId.isBlank() || tenantId.contains(CompositeKey.NAMESPACE)) {
+            throw new IllegalArgumentException(String.format("Invalid tenant id '%s'", tenantId));
+        }
+        return new Tenant(tenantId);
+    }
+
+    /**
+     * @return tenant id, 기본 tenant 면 null
+     */
+    String getId() {
+        return id;
+    }
+
+    boolean isDefault() {
+        return id == null;
+    }
+
+    String key(final String objectType, final String... attributes) {
+        return partialKey(objectType, attributes).toString();
+    }
+
+    CompositeKey partialKey(final String objectType, final String... attributes) {
+        if (id == null) {
+            return new CompositeKey(objectType, attributes);
+        }
+        String[] scoped = new String[attributes.length + 2];
+        scoped[0] = id;
+        scoped[1] = objectType;
+        System.arraycopy(attributes, 0, scoped, 2, attributes.length);
+        return new CompositeKey(TENANT_KEY, scoped);
+    }
+
+    /**
+     * @return key(objectType, attributes...) 로 만든 key 의 attributes
+     */
+    List<String> attributes(final ChaincodeStub stub, final String key) {
+        List<String> attributes = stub.splitCompositeKey(key).getAttributes();
+        return id == null ? attributes : attributes.subList(2, attributes.size());
+    }
+
+    String rootKey() {
+        return rootKey;
+    }
+
+    String assetKey(final String assetId) {
+        return key(AssetTransfer.ASSET_KEY, assetId);
+    }
+
+    CompositeKey allAssets() {
+        return allAssets;
+    }
+
+    String registryKey() {
+        return new CompositeKey(REGISTRY_KEY, id).toString();
+    }
+
+    static CompositeKey registry() {
+        return new CompositeKey(REGISTRY_KEY);
+    }
+}
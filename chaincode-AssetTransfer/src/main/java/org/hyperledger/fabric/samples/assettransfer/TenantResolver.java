@@ -0,0 +1,86 @@
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.util.Locale;
+
+import org.hyperledger.fabric.contract.ClientIdentity;
+import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.shim.ChaincodeException;
+
+/**
+ * client identity 에서 tenant 를 정한다
+ * CHAINCODE_TENANT_SOURCE=none(기본값) 이면 모든 트랜잭션이 기본 tenant 를 쓰고,
+ * msp 면 client 의 MSP ID 를, attribute 면 certificate attribute CHAINCODE_TENANT_ATTRIBUTE(기본값 tenant)의 값을 tenant 로 쓴다.
+ * tenant 를 정할 수 없는 identity 의 트랜잭션은 ChaincodeException 으로 실패한다.
+ *
+ * 여러 tenant 를 보는 GetTenantSummaries 는 CHAINCODE_TENANT_ADMIN_ATTRIBUTE(기본값 tenantAdmin) attribute 가 true 인 identity 만 쓸 수 있다.
+ */
+final class TenantResolver {
+
+    static final String SOURCE_ENV = "CHAINCODE_TENANT_SOURCE";
+    static final String ATTRIBUTE_ENV = "CHAINCODE_TENANT_ATTRIBUTE";
+    static final String ADMIN_ATTRIBUTE_ENV = "CHAINCODE_TENANT_ADMIN_ATTRIBUTE";
+
+    static final String DEFAULT_ATTRIBUTE = "tenant";
+    static final String DEFAULT_ADMIN_ATTRIBUTE = "tenantAdmin";
+
+    enum Source {
+        NONE, MSP, ATTRIBUTE
+    }
+
+    private final Source source;
+    private final String attribute;
+    private final String adminAttribute;
+
+    private TenantResolver(Source source, String attribute, String adminAttribute) {
+        this.source = source;
+        this.attribute = attribute;
+        this.adminAttribute = adminAttribute;
+    }
+
+    static TenantResolver fromEnvironment() {
+        return of(
+                Source.valueOf(env(SOURCE_ENV, Source.NONE.name()).toUpperCase(Locale.ROOT)),
+                env(ATTRIBUTE_ENV, DEFAULT_ATTRIBUTE),
+                env(ADMIN_ATTRIBUTE_ENV, DEFAULT_ADMIN_ATTRIBUTE));
+    }
+
+    static TenantResolver of(Source source, String attribute, String adminAttribute) {
+        return new TenantResolver(source, attribute, adminAttribute);
+    }
+
+    Source getSource() {
+        return source;
+    }
+
+    /**
+     * @throws ChaincodeException client identity 로 tenant 를 정할 수 없을 때
+     */
+    Tenant resolve(final Context ctx) {
+        if (source == Source.NONE) {
+            return Tenant.DEFAULT;
+        }
+
+        ClientIdentity identity = ctx.getClientIdentity();
+        String tenantId = source == Source.MSP ? identity.getMSPID() : identity.getAttributeValue(attribute);
+        try {
+            return Tenant.of(tenantId);
+        } catch (IllegalArgumentException e) {
+            throw new ChaincodeException(String.format("Client identity has no tenant (%s): %s", source, e.getMessage()));
+        }
+    }
+
+    /**
+     * tenant 를 쓰지 않으면(none) tenant 가 하나뿐이므로 누구나 관리자다
+     */
+    boolean isAdmin(final Context ctx) {
+        return source == Source.NONE || ctx.getClientIdentity().assertAttributeValue(adminAttribute, "true");
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        return value.trim();
+    }
+}
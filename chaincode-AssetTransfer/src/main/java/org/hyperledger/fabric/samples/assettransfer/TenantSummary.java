@@ -0,0 +1,27 @@
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.util.Map;
+
+import lombok.*;
+
+/**
+ * GetTenantSummaries 의 항목: tenant 의 Asset 수와 coin 별 잔액 합계
+ */
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class TenantSummary {
+
+    private String tenantId;
+
+    private Long assets;
+
+    private Map<String, Long> coins;
+
+    @Builder
+    public TenantSummary(String tenantId, Long assets, Map<String, Long> coins) {
+        this.tenantId = tenantId;
+        this.assets = assets;
+        this.coins = coins;
+    }
+}
@@ -0,0 +1,24 @@
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.util.List;
+
+import lombok.*;
+
+/**
+ * GetTenantSummaries 의 결과, bookmark 가 빈 문자열이면 마지막 page 이다
+ */
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class TenantSummaryPage {
+
+    private List<TenantSummary> tenants;
+
+    private String bookmark;
+
+    @Builder
+    public TenantSummaryPage(List<TenantSummary> tenants, String bookmark) {
+        this.tenants = tenants;
+        this.bookmark = bookmark;
+    }
+}
@@ -0,0 +1,28 @@
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.util.List;
+
+import lombok.*;
+
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class TransferCoinsResponse {
+
+    private String transactionId;
+
+    private String senderIdentifier;
+
+    private String receiverIdentifier;
+
+    // 같은 coin 을 합친 뒤의 leg
+    private List<TransferLeg> legs;
+
+    @Builder
+    public TransferCoinsResponse(String transactionId, String senderIdentifier, String receiverIdentifier, List<TransferLeg> legs) {
+        this.transactionId = transactionId;
+        this.senderIdentifier = senderIdentifier;
+        this.receiverIdentifier = receiverIdentifier;
+        this.legs = legs;
+    }
+}
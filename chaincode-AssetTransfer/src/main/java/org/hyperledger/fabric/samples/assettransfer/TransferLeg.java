@@ -0,0 +1,23 @@
+package org.hyperledger.fabric.samples.assettransfer;
+
+import lombok.*;
+
+/**
+ * TransferCoins 의 coin 하나
+ * amount 가 양수면 sender 가 receiver 에게, 음수면 receiver 가 sender 에게 준다.
+ */
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class TransferLeg {
+
+    private String coinName;
+
+    private String amount;
+
+    @Builder
+    public TransferLeg(String coinName, String amount) {
+        this.coinName = coinName;
+        this.amount = amount;
+    }
+}
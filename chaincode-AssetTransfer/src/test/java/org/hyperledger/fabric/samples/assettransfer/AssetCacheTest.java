@@ -0,0 +1,95 @@
+package org.hyperledger.fabric.samples.assettransfer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("AssetCache 테스트")
+public class AssetCacheTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void 같은_내용은_한_번만_decode_하고_내용이_바뀌면_다시_decode_한다() throws JsonProcessingException {
+        //given
+        AssetCache cache = new AssetCache(objectMapper, 16, 1 << 20);
+        byte[] before = document("s1", "100");
+        byte[] after = document("s1", "70");
+
+        //when
+        Asset first = cache.view(before);
+        Asset second = cache.view(before.clone());
+        Asset changed = cache.view(after);
+
+        //then
+        assertThat(second).isSameAs(first);
+        assertThat(changed).isNotSameAs(first);
+        assertThat(changed.getCoin().getLong("point")).isEqualTo(70L);
+        assertThat(cache.getHits()).isEqualTo(1L);
+        assertThat(cache.getMisses()).isEqualTo(2L);
+        assertThat(cache.getHitRate()).isEqualTo(1.0 / 3);
+    }
+
+    @Test
+    public void cache_된_Asset_은_바꿀_수_없고_copy_는_바꿔도_cache_에_영향이_없다() throws JsonProcessingException {
+        //given
+        AssetCache cache = new AssetCache(objectMapper, 16, 1 << 20);
+        byte[] stored = document("s1", "100");
+
+        //when
+        Asset copy = cache.copy(stored);
+        copy.modifyCoinValue(null, null, "point", "-30");
+        copy.changeOwner("lee");
+        Asset view = cache.view(stored);
+
+        //then
+        assertThat(copy.getCoin().getLong("point")).isEqualTo(70L);
+        assertThat(view.getCoin().getLong("point")).isEqualTo(100L);
+        assertThat(view.getOwner()).isEqualTo("kim");
+        assertThatThrownBy(() -> view.modifyCoinValue(null, null, "point", "1")).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> view.getCoin().remove("point")).isInstanceOf(UnsupportedOperationException.class);
+        assertThat(objectMapper.writeValueAsString(view)).isEqualTo(new String(stored, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void 항목_수나_bytes_상한을_넘으면_가장_오래_쓰지_않은_항목부터_지운다() throws JsonProcessingException {
+        //given
+        byte[] s1 = document("s1", "1");
+        byte[] s2 = document("s2", "2");
+        byte[] s3 = document("s3", "3");
+        AssetCache byCount = new AssetCache(objectMapper, 2, 1 << 20);
+        AssetCache byBytes = new AssetCache(objectMapper, 16, s1.length * 2L);
+
+        //when
+        for (AssetCache cache : new AssetCache[]{byCount, byBytes}) {
+            cache.view(s1);
+            cache.view(s2);
+            cache.view(s1);
+            cache.view(s3);
+        }
+
+        //then
+        for (AssetCache cache : new AssetCache[]{byCount, byBytes}) {
+            assertThat(cache.size()).isEqualTo(2);
+            assertThat(cache.getEvictions()).isEqualTo(1L);
+            long hits = cache.getHits();
+            cache.view(s1);
+            assertThat(cache.getHits()).isEqualTo(hits + 1);
+            cache.view(s2);
+            assertThat(cache.getHits()).isEqualTo(hits + 1);
+        }
+    }
+
+    private static byte[] document(String assetId, String point) throws JsonProcessingException {
+        HashMap<String, String> coin = new HashMap<>();
+        coin.put("point", point);
+        return objectMapper.writeValueAsBytes(Asset.of(assetId, "1", "kim", coin, UserRole.ROLE_STUDENT.name(), null, null, null));
+    }
+}
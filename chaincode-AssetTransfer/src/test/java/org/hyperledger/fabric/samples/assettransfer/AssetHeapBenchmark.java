@@ -0,0 +1,74 @@
+package org.hyperledger.fabric.samples.assettransfer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("benchmark")
+@DisplayName("Asset decode heap 사용량 벤치마크")
+public class AssetHeapBenchmark {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final int ASSETS = 100_000;
+    private static final String[] COINS = {"point", "meal", "cafe"};
+
+    /**
+     * CoinBalances 이전의 Asset 과 같은 모양 (coin 을 HashMap&lt;String, String&gt; 으로 decode)
+     */
+    public static class LegacyAsset {
+        public String assetId;
+        public String identifier;
+        public String owner;
+        public HashMap<String, String> coin;
+        public String userRole;
+        public String sender;
+        public String receiver;
+        public String amount;
+    }
+
+    @Test
+    public void Asset_100k_개를_decode_했을_때_heap_사용량을_비교한다() throws Exception {
+        List<byte[]> documents = new ArrayList<>(ASSETS);
+        for (int i = 0; i < ASSETS; i++) {
+            HashMap<String, String> coin = new HashMap<>();
+            for (String coinName : COINS) {
+                coin.put(coinName, String.valueOf(i % 1000));
+            }
+            documents.add(objectMapper.writeValueAsBytes(Asset.of("asset" + i, String.valueOf(i), "owner" + i, coin, UserRole.ROLE_STUDENT.name(), null, null, null)));
+        }
+
+        long legacy = retainedBytes(documents, LegacyAsset.class);
+        long compact = retainedBytes(documents, Asset.class);
+
+        System.out.printf("heap per %d assets: HashMap %.1f MB, CoinBalances %.1f MB%n", ASSETS, legacy / 1e6, compact / 1e6);
+        assertThat(compact).isLessThan(legacy);
+    }
+
+    private static long retainedBytes(List<byte[]> documents, Class<?> type) throws Exception {
+        long before = usedHeap();
+        List<Object> decoded = new ArrayList<>(documents.size());
+        for (byte[] document : documents) {
+            decoded.add(objectMapper.readValue(document, type));
+        }
+        long after = usedHeap();
+        assertThat(decoded).hasSize(documents.size());
+        return after - before;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -2,15 +2,22 @@ package org.hyperledger.fabric.samples.assettransfer;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hyperledger.fabric.contract.ClientIdentity;
 import org.hyperledger.fabric.contract.Context;
 import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
 import org.hyperledger.fabric.shim.ledger.KeyValue;
 import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -60,14 +67,14 @@ public class AssetTransferTest {
         ChaincodeStub stub = mock(ChaincodeStub.class);
 
         when(ctx.getStub()).thenReturn(stub);
-        when(stub.getStringState("rootAsset"))
+        when(stub.getStringState(AssetTransfer.assetKey("rootAsset")))
                 .thenReturn(objectMapper.writeValueAsString(Asset.of("rootAsset", "0", "test", new HashMap<>(), UserRole.ROLE_STUDENT.name(),null, null, null)));
 
         //when
        boolean response = contract.AssetExists(ctx, "rootAsset");
 
         //then
-        verify(stub).getStringState("rootAsset");
+        verify(stub).getStringState(AssetTransfer.assetKey("rootAsset"));
         assertThat(response).isTrue();
 
     }
@@ -82,8 +89,8 @@ public class AssetTransferTest {
         coin.put("test", "0");
 
         when(ctx.getStub()).thenReturn(stub);
-        when(stub.getStringState("rootAsset"))
-                .thenReturn(objectMapper.writeValueAsString(Asset.of("rootAsset", "0", "rootOwner", coin, UserRole.ROLE_STUDENT.name(),null, null, null)));
+        when(stub.getState(AssetTransfer.ROOT_ASSET_KEY))
+                .thenReturn(objectMapper.writeValueAsBytes(Asset.of("rootAsset", "0", "rootOwner", coin, UserRole.ROLE_STUDENT.name(),null, null, null)));
 
         //when
         Asset asset = contract.CreateAsset(ctx, "testAsset", "0","test", UserRole.ROLE_STUDENT.name());
@@ -100,7 +107,7 @@ public class AssetTransferTest {
         ChaincodeStub stub = mock(ChaincodeStub.class);
 
         when(ctx.getStub()).thenReturn(stub);
-        when(stub.getStringState("rootAsset"))
+        when(stub.getStringState(AssetTransfer.assetKey("rootAsset")))
                 .thenReturn(null);
 
         //when
@@ -119,14 +126,16 @@ public class AssetTransferTest {
         ChaincodeStub stub = mock(ChaincodeStub.class);
 
         when(ctx.getStub()).thenReturn(stub);
-        when(stub.getStringState("rootAsset"))
-                .thenReturn(objectMapper.writeValueAsString(Asset.of("rootAsset", "0", "test", new HashMap<>(), UserRole.ROLE_STUDENT.name(),null, null, null)));
+        String assetJSON = objectMapper.writeValueAsString(Asset.of("rootAsset", "0", "test", new HashMap<>(), UserRole.ROLE_STUDENT.name(),null, null, null));
+        when(stub.getStringState(AssetTransfer.assetKey("rootAsset"))).thenReturn(assetJSON);
+        when(stub.getState(AssetTransfer.assetKey("rootAsset"))).thenReturn(assetJSON.getBytes(StandardCharsets.UTF_8));
 
         //when
         Asset asset = contract.GetAsset(ctx, "rootAsset");
 
         //then
-        verify(stub, times(2)).getStringState("rootAsset");
+        verify(stub).getStringState(AssetTransfer.assetKey("rootAsset"));
+        verify(stub).getState(AssetTransfer.assetKey("rootAsset"));
         assertThat(asset).isEqualTo(Asset.of("rootAsset", "0", "test", new HashMap<>(), UserRole.ROLE_STUDENT.name(),null, null, null));
     }
 
@@ -138,14 +147,16 @@ public class AssetTransferTest {
         ChaincodeStub stub = mock(ChaincodeStub.class);
 
         when(ctx.getStub()).thenReturn(stub);
-        when(stub.getStringState("rootAsset"))
-                .thenReturn(objectMapper.writeValueAsString(Asset.of("rootAsset", "0", "test", new HashMap<>(), UserRole.ROLE_STUDENT.name(),null, null, null)));
+        String assetJSON = objectMapper.writeValueAsString(Asset.of("rootAsset", "0", "test", new HashMap<>(), UserRole.ROLE_STUDENT.name(),null, null, null));
+        when(stub.getStringState(AssetTransfer.assetKey("rootAsset"))).thenReturn(assetJSON);
+        when(stub.getState(AssetTransfer.assetKey("rootAsset"))).thenReturn(assetJSON.getBytes(StandardCharsets.UTF_8));
 
         //when
         Asset asset = contract.ChangeOwner(ctx, "rootAsset", "newTest");
 
         //then
-        verify(stub, times(2)).getStringState("rootAsset");
+        verify(stub).getStringState(AssetTransfer.assetKey("rootAsset"));
+        verify(stub).getState(AssetTransfer.assetKey("rootAsset"));
         assertThat(asset.getOwner()).isEqualTo("newTest");
     }
 
@@ -156,16 +167,18 @@ public class AssetTransferTest {
         Context ctx = mock(Context.class);
         ChaincodeStub stub = mock(ChaincodeStub.class);
 
+        String assetJSON = objectMapper.writeValueAsString(Asset.of("rootAsset", "0", "test", new HashMap<>(), UserRole.ROLE_STUDENT.name(),null, null, null));
         when(ctx.getStub()).thenReturn(stub);
-        when(stub.getStringState("rootAsset"))
-                .thenReturn(objectMapper.writeValueAsString(Asset.of("rootAsset", "0", "test", new HashMap<>(), UserRole.ROLE_STUDENT.name(),null, null, null)));
+        when(stub.getStringState(AssetTransfer.assetKey("rootAsset"))).thenReturn(assetJSON);
+        // holder index 를 고치려고 지울 Asset 을 AssetCache 로 decode 한다
+        when(stub.getState(AssetTransfer.assetKey("rootAsset"))).thenReturn(assetJSON.getBytes(StandardCharsets.UTF_8));
 
         //when
         boolean response = contract.DeleteAsset(ctx, "rootAsset");
 
         //then
-        verify(stub).getStringState("rootAsset");
-        verify(stub).delState("rootAsset");
+        verify(stub).getStringState(AssetTransfer.assetKey("rootAsset"));
+        verify(stub).delState(AssetTransfer.assetKey("rootAsset"));
         assertThat(response).isTrue();
 
     }
@@ -178,14 +191,14 @@ public class AssetTransferTest {
         ChaincodeStub stub = mock(ChaincodeStub.class);
 
         when(ctx.getStub()).thenReturn(stub);
-        when(stub.getStringState("rootAsset"))
-                .thenReturn(objectMapper.writeValueAsString(Asset.of("rootAsset", "0", "test", new HashMap<>(), UserRole.ROLE_STUDENT.name(),null, null, null)));
+        when(stub.getState(AssetTransfer.ROOT_ASSET_KEY))
+                .thenReturn(objectMapper.writeValueAsBytes(Asset.of("rootAsset", "0", "test", new HashMap<>(), UserRole.ROLE_STUDENT.name(),null, null, null)));
 
         //when
         boolean response = contract.CoinExists(ctx, "test");
 
         //then
-        verify(stub).getStringState("rootAsset");
+        verify(stub).getState(AssetTransfer.ROOT_ASSET_KEY);
         assertThat(response).isFalse();
     }
 
@@ -199,14 +212,14 @@ public class AssetTransferTest {
         HashMap<String, String> coin = new HashMap<>();
         coin.put("test", "0");
         when(ctx.getStub()).thenReturn(stub);
-        when(stub.getStringState("rootAsset"))
-                .thenReturn(objectMapper.writeValueAsString(Asset.of("rootAsset", "0", "test", coin, UserRole.ROLE_STUDENT.name(),null, null, null)));
+        when(stub.getState(AssetTransfer.ROOT_ASSET_KEY))
+                .thenReturn(objectMapper.writeValueAsBytes(Asset.of("rootAsset", "0", "test", coin, UserRole.ROLE_STUDENT.name(),null, null, null)));
 
         //when
         boolean response = contract.CoinExists(ctx, "test");
 
         //then
-        verify(stub).getStringState("rootAsset");
+        verify(stub).getState(AssetTransfer.ROOT_ASSET_KEY);
         assertThat(response).isTrue();
     }
 
@@ -218,9 +231,9 @@ public class AssetTransferTest {
         ChaincodeStub stub = mock(ChaincodeStub.class);
 
         when(ctx.getStub()).thenReturn(stub);
-        when(stub.getStringState("rootAsset"))
-                .thenReturn(objectMapper.writeValueAsString(Asset.of("rootAsset", "0", "test", new HashMap<>(), UserRole.ROLE_STUDENT.name(),null, null, null)));
-        when(stub.getStateByRange("", "rootAsset")).thenReturn(new QueryResultsIterator<KeyValue>() {
+        when(stub.getState(AssetTransfer.ROOT_ASSET_KEY))
+                .thenReturn(objectMapper.writeValueAsBytes(Asset.of("rootAsset", "0", "test", new HashMap<>(), UserRole.ROLE_STUDENT.name(),null, null, null)));
+        when(stub.getStateByPartialCompositeKey(any(CompositeKey.class))).thenReturn(new QueryResultsIterator<KeyValue>() {
             @Override
             public void close() throws Exception {
 
@@ -267,7 +280,7 @@ public class AssetTransferTest {
         boolean response = contract.CreateCoin(ctx, "test");
 
         //then
-        verify(stub, times(2)).getStringState("rootAsset");
+        verify(stub, times(2)).getState(AssetTransfer.ROOT_ASSET_KEY);
         assertThat(response).isTrue();
 
     }
@@ -282,21 +295,774 @@ public class AssetTransferTest {
         HashMap<String, String> coin = new HashMap<>();
         coin.put("test", "100");
         when(ctx.getStub()).thenReturn(stub);
-        when(stub.getStringState("rootAsset"))
-                .thenReturn(objectMapper.writeValueAsString(Asset.of("rootAsset", "0", "test1", coin, UserRole.ROLE_STUDENT.name(),null, null, null)));
-        when(stub.getStringState("asset2"))
-                .thenReturn(objectMapper.writeValueAsString(Asset.of("asset2", "0", "test2", coin, UserRole.ROLE_STUDENT.name(),null, null, null)));
+        when(stub.getState(AssetTransfer.ROOT_ASSET_KEY))
+                .thenReturn(objectMapper.writeValueAsBytes(Asset.of("rootAsset", "0", "rootOwner", coin, UserRole.ROLE_STUDENT.name(),null, null, null)));
+        String senderJSON = objectMapper.writeValueAsString(Asset.of("rootAsset", "0", "test1", coin, UserRole.ROLE_STUDENT.name(),null, null, null));
+        String receiverJSON = objectMapper.writeValueAsString(Asset.of("asset2", "0", "test2", coin, UserRole.ROLE_STUDENT.name(),null, null, null));
+        when(stub.getStringState(AssetTransfer.assetKey("rootAsset"))).thenReturn(senderJSON);
+        when(stub.getState(AssetTransfer.assetKey("rootAsset"))).thenReturn(senderJSON.getBytes(StandardCharsets.UTF_8));
+        when(stub.getStringState(AssetTransfer.assetKey("asset2"))).thenReturn(receiverJSON);
+        when(stub.getState(AssetTransfer.assetKey("asset2"))).thenReturn(receiverJSON.getBytes(StandardCharsets.UTF_8));
+        when(stub.getTxId()).thenReturn("tx1");
 
         //when
         String transferResponse = contract.TransferCoin(ctx, "rootAsset", "asset2", "test", "100");
 
         //then
-        verify(stub, times(3)).getStringState("rootAsset");
-        verify(stub, times(2)).getStringState("asset2");
+        verify(stub).getState(AssetTransfer.ROOT_ASSET_KEY);
+        verify(stub).getStringState(AssetTransfer.assetKey("rootAsset"));
+        verify(stub).getState(AssetTransfer.assetKey("rootAsset"));
+        verify(stub).getStringState(AssetTransfer.assetKey("asset2"));
+        verify(stub).getState(AssetTransfer.assetKey("asset2"));
         assertThat(objectMapper.readValue(transferResponse, TransferResponse.class).getCoinName()).isEqualTo("test");
         assertThat(objectMapper.readValue(transferResponse, TransferResponse.class).getAmount()).isEqualTo("100");
 
     }
 
+    @Test
+    public void TransferCoinIdempotent_로_같은_요청을_재전송하면_처음_결과를_돌려준다() throws JsonProcessingException {
+        //given
+        AssetTransfer contract = new AssetTransfer();
+        Context ctx = mock(Context.class);
+        InMemoryChaincodeStub stub = InMemoryChaincodeStub.create();
+        when(ctx.getStub()).thenReturn(stub);
+        seedTransferAssets(stub);
+
+        //when
+        stub.nextTransaction("tx1", Instant.ofEpochSecond(1000));
+        String first = contract.TransferCoinIdempotent(ctx, "req-1", "asset1", "asset2", "test", "30");
+        stub.nextTransaction("tx2", Instant.ofEpochSecond(1001));
+        String replay = contract.TransferCoinIdempotent(ctx, "req-1", "asset1", "asset2", "test", "30");
+
+        //then
+        assertThat(replay).isEqualTo(first);
+        assertThat(objectMapper.readValue(replay, TransferResponse.class).getTransactionId()).isEqualTo("tx1");
+        assertThat(contract.GetAsset(ctx, "asset1").getCoin().get("test")).isEqualTo("70");
+        assertThat(contract.GetAsset(ctx, "asset2").getCoin().get("test")).isEqualTo("130");
+    }
+
+    @Test
+    public void UpdateAssetCoinIdempotent_로_같은_요청을_재전송하면_잔액을_다시_바꾸지_않는다() throws JsonProcessingException {
+        //given
+        AssetTransfer contract = new AssetTransfer();
+        Context ctx = mock(Context.class);
+        InMemoryChaincodeStub stub = InMemoryChaincodeStub.create();
+        when(ctx.getStub()).thenReturn(stub);
+        seedTransferAssets(stub);
+
+        //when
+        boolean first = contract.UpdateAssetCoinIdempotent(ctx, "req-1", "asset1", "test", "5");
+        boolean replay = contract.UpdateAssetCoinIdempotent(ctx, "req-1", "asset1", "test", "5");
+        boolean reusedForTransfer = contract.TransferCoinIdempotent(ctx, "req-1", "asset1", "asset2", "test", "5") != null;
+
+        //then
+        assertThat(first).isTrue();
+        assertThat(replay).isTrue();
+        assertThat(reusedForTransfer).isFalse();
+        assertThat(contract.GetAsset(ctx, "asset1").getCoin().get("test")).isEqualTo("105");
+    }
+
+    @Test
+    public void PruneRequestIds_는_만료된_요청만_chunk_단위로_삭제한다() throws JsonProcessingException {
+        //given
+        AssetTransfer contract = new AssetTransfer();
+        Context ctx = mock(Context.class);
+        InMemoryChaincodeStub stub = InMemoryChaincodeStub.create();
+        when(ctx.getStub()).thenReturn(stub);
+        seedTransferAssets(stub);
+
+        for (int i = 0; i < 5; i++) {
+            stub.nextTransaction("tx" + i, Instant.ofEpochSecond(1000 + i));
+            contract.TransferCoinIdempotent(ctx, "req-" + i, "asset1", "asset2", "test", "1");
+        }
+
+        //when
+        stub.nextTransaction("prune", Instant.ofEpochSecond(1100));
+        int firstChunk = contract.PruneRequestIds(ctx, "97", "2");
+        int secondChunk = contract.PruneRequestIds(ctx, "97", "2");
+
+        //then
+        assertThat(firstChunk).isEqualTo(2);
+        assertThat(secondChunk).isEqualTo(1);
+        assertThat(stub.getStringState(stub.createCompositeKey(AssetTransfer.REQUEST_KEY, "req-2").toString())).isEmpty();
+        assertThat(stub.getStringState(stub.createCompositeKey(AssetTransfer.REQUEST_KEY, "req-3").toString())).isNotEmpty();
+    }
+
+    @Test
+    public void CreateAssetsBatch_는_rootAsset_을_한_번만_읽고_항목별_결과를_돌려준다() throws JsonProcessingException {
+        //given
+        AssetTransfer contract = new AssetTransfer();
+        Context ctx = mock(Context.class);
+        ReadCountingStub stub = InMemoryChaincodeStub.create(ReadCountingStub.class);
+        when(ctx.getStub()).thenReturn(stub);
+        seedTransferAssets(stub);
+
+        String assetsJSON = "[[\"s1\",\"2021001\",\"kim\",\"ROLE_STUDENT\"],"
+                + "[\"asset1\",\"1\",\"test1\",\"ROLE_STUDENT\"],"
+                + "[\"s1\",\"2021001\",\"kim\",\"ROLE_STUDENT\"],"
+                + "[\"s2\",\"2021002\"],"
+                + "[\"s3\",\"2021003\",\"lee\",\"ROLE_STUDENT\"]]";
+
+        //when
+        BatchItemResult[] results = objectMapper.readValue(contract.CreateAssetsBatch(ctx, assetsJSON), BatchItemResult[].class);
+
+        //then
+        assertThat(results).extracting(BatchItemResult::getStatus).containsExactly(
+                BatchItemStatus.CREATED, BatchItemStatus.ALREADY_EXISTS, BatchItemStatus.DUPLICATE_IN_BATCH, BatchItemStatus.INVALID, BatchItemStatus.CREATED);
+        assertThat(stub.reads.get(AssetTransfer.ROOT_ASSET_KEY)).isEqualTo(1);
+        assertThat(contract.GetAsset(ctx, "s3").getCoin()).containsEntry("test", "0");
+        assertThat(contract.AssetExists(ctx, "s2")).isFalse();
+    }
+
+    @Test
+    public void CreateAssetsBatch_는_최대_크기를_넘으면_아무것도_쓰지_않는다() throws JsonProcessingException {
+        //given
+        AssetTransfer contract = new AssetTransfer();
+        Context ctx = mock(Context.class);
+        InMemoryChaincodeStub stub = InMemoryChaincodeStub.create();
+        when(ctx.getStub()).thenReturn(stub);
+        seedTransferAssets(stub);
+
+        List<String[]> tuples = new ArrayList<>();
+        for (int i = 0; i <= AssetTransfer.maxBatchSize; i++) {
+            tuples.add(new String[]{"s" + i, String.valueOf(i), "student", UserRole.ROLE_STUDENT.name()});
+        }
+
+        //when
+        String results = contract.CreateAssetsBatch(ctx, objectMapper.writeValueAsString(tuples));
+
+        //then
+        assertThat(results).isNull();
+        assertThat(contract.AssetExists(ctx, "s0")).isFalse();
+    }
+
+    @Test
+    public void GetAssets_는_요청한_field_와_coin_만_돌려주고_없는_assetId_를_따로_알려준다() throws JsonProcessingException {
+        //given
+        AssetTransfer contract = new AssetTransfer();
+        Context ctx = mock(Context.class);
+        ReadCountingStub stub = InMemoryChaincodeStub.create(ReadCountingStub.class);
+        when(ctx.getStub()).thenReturn(stub);
+        seedTransferAssets(stub);
+
+        //when
+        String response = contract.GetAssets(ctx, "[\"asset1\",\"nothing\",\"asset2\"]", "[\"assetId\",\"coin\"]", "[\"test\"]");
+
+        //then
+        assertThat(response).isEqualTo("{\"assets\":[{\"assetId\":\"asset1\",\"coin\":{\"test\":\"100\"}},"
+                + "{\"assetId\":\"asset2\",\"coin\":{\"test\":\"100\"}}],\"missing\":[\"nothing\"]}");
+        assertThat(stub.reads.get(AssetTransfer.assetKey("asset1"))).isEqualTo(1);
+    }
+
+    @Test
+    public void TransferCoin_은_바뀐_잔액을_BalanceChanged_event_하나로_보낸다() throws Exception {
+        //given
+        AssetTransfer contract = new AssetTransfer();
+        Context ctx = mock(Context.class);
+        InMemoryChaincodeStub stub = InMemoryChaincodeStub.create();
+        when(ctx.getStub()).thenReturn(stub);
+        seedTransferAssets(stub);
+
+        //when
+        contract.TransferCoin(ctx, "asset1", "asset2", "test", "30");
+        byte[] payload = stub.getEvent(BalanceEvent.EVENT_NAME);
+
+        //then
+        assertThat(new String(payload, StandardCharsets.UTF_8))
+                .isEqualTo("{\"v\":2,\"op\":\"TransferCoin\",\"ch\":[[\"asset1\",\"test\",70],[\"asset2\",\"test\",130]]}");
+        BalanceEvent event = BalanceEvent.parse(payload);
+        assertThat(event.getChanges()).extracting(BalanceEvent.Change::getBalance).containsExactly(70L, 130L);
+    }
+
+    @Test
+    public void CreateCoin_은_대상_coin_만_담은_lifecycle_event_를_보낸다() throws Exception {
+        //given
+        AssetTransfer contract = new AssetTransfer();
+        Context ctx = mock(Context.class);
+        InMemoryChaincodeStub stub = InMemoryChaincodeStub.create();
+        when(ctx.getStub()).thenReturn(stub);
+        seedTransferAssets(stub);
+
+        //when
+        contract.CreateCoin(ctx, "meal");
+        BalanceEvent event = BalanceEvent.parse(stub.getEvent(BalanceEvent.EVENT_NAME));
+
+        //then
+        assertThat(event.getOp()).isEqualTo("CreateCoin");
+        assertThat(event.getCoin()).isEqualTo("meal");
+        assertThat(event.getChanges()).isEmpty();
+        assertThat(contract.GetAsset(ctx, "asset1").getCoin()).containsEntry("meal", "0");
+    }
+
+    @Test
+    public void UpdateAllAssetCoin_은_Asset_별_잔액_대신_coin_role_delta_하나만_event_로_보낸다() throws Exception {
+        //given
+        AssetTransfer contract = new AssetTransfer();
+        Context ctx = mock(Context.class);
+        InMemoryChaincodeStub stub = InMemoryChaincodeStub.create();
+        when(ctx.getStub()).thenReturn(stub);
+        seedTransferAssets(stub);
+
+        //when
+        contract.UpdateAllAssetCoin(ctx, "test", "10", UserRole.ROLE_STUDENT.name());
+        byte[] payload = stub.getEvent(BalanceEvent.EVENT_NAME);
+
+        //then
+        assertThat(new String(payload, StandardCharsets.UTF_8))
+                .isEqualTo("{\"v\":2,\"op\":\"UpdateAllAssetCoin\",\"coin\":\"test\",\"role\":\"ROLE_STUDENT\",\"delta\":10}");
+        BalanceEvent event = BalanceEvent.parse(payload);
+        assertThat(event.getRole()).isEqualTo(UserRole.ROLE_STUDENT.name());
+        assertThat(event.getDelta()).isEqualTo(10L);
+        assertThat(event.getChanges()).isEmpty();
+        assertThat(contract.GetAsset(ctx, "asset1").getCoin()).containsEntry("test", "110");
+        assertThat(contract.GetAsset(ctx, "asset2").getCoin()).containsEntry("test", "100");
+    }
+
+    @Test
+    public void rootAsset_보다_뒤에_정렬되는_Asset_도_전체_조회와_코인_생성에_포함된다() throws JsonProcessingException {
+        //given
+        AssetTransfer contract = new AssetTransfer();
+        Context ctx = mock(Context.class);
+        InMemoryChaincodeStub stub = InMemoryChaincodeStub.create();
+        when(ctx.getStub()).thenReturn(stub);
+        seedTransferAssets(stub);
+        contract.CreateAsset(ctx, "s1001", "2021001", "kim", UserRole.ROLE_STUDENT.name());
+
+        //when
+        contract.CreateCoin(ctx, "meal");
+        Asset[] assets = objectMapper.readValue(contract.GetAllAssets(ctx), Asset[].class);
+
+        //then
+        assertThat(assets).extracting(Asset::getAssetId).containsExactly("asset1", "asset2", "s1001");
+        assertThat(contract.GetAsset(ctx, "s1001").getCoin()).containsEntry("meal", "0");
+    }
+
+    @Test
+    public void MigrateAssetKeys_로_이전_key_의_Asset_을_나눠서_옮긴다() throws JsonProcessingException {
+        //given
+        AssetTransfer contract = new AssetTransfer();
+        Context ctx = mock(Context.class);
+        InMemoryChaincodeStub stub = InMemoryChaincodeStub.create();
+        when(ctx.getStub()).thenReturn(stub);
+
+        HashMap<String, String> coin = new HashMap<>();
+        coin.put("test", "100");
+        stub.putStringState("rootAsset", objectMapper.writeValueAsString(Asset.of("rootAsset", "0", "rootOwner", new HashMap<>(coin), null, null, null, null)));
+        stub.putStringState("asset1", objectMapper.writeValueAsString(Asset.of("asset1", "1", "test1", new HashMap<>(coin), UserRole.ROLE_STUDENT.name(), null, null, null)));
+        stub.putStringState("asset2", objectMapper.writeValueAsString(Asset.of("asset2", "2", "test2", new HashMap<>(coin), UserRole.ROLE_STUDENT.name(), null, null, null)));
+        stub.putStringState("s1001", objectMapper.writeValueAsString(Asset.of("s1001", "2021001", "kim", new HashMap<>(coin), UserRole.ROLE_STUDENT.name(), null, null, null)));
+
+        //when
+        int first = contract.MigrateAssetKeys(ctx, "2");
+        boolean rootMovedEarly = stub.getLedger().containsKey(AssetTransfer.ROOT_ASSET_KEY);
+        int second = contract.MigrateAssetKeys(ctx, "2");
+        int third = contract.MigrateAssetKeys(ctx, "2");
+
+        //then
+        assertThat(first).isEqualTo(2);
+        assertThat(rootMovedEarly).isFalse();
+        assertThat(second).isEqualTo(2);
+        assertThat(third).isZero();
+        assertThat(stub.getLedger().keySet()).containsExactlyInAnyOrder(AssetTransfer.ROOT_ASSET_KEY,
+                AssetTransfer.assetKey("asset1"), AssetTransfer.assetKey("asset2"), AssetTransfer.assetKey("s1001"));
+        assertThat(contract.CoinExists(ctx, "test")).isTrue();
+        assertThat(contract.GetAsset(ctx, "s1001").getCoin()).containsEntry("test", "100");
+    }
+
+    @Test
+    public void MigrateAssetKeys_는_호출한_tenant_와_상관없이_기본_tenant_로_옮기고_관리자만_실행한다() throws JsonProcessingException {
+        //given
+        AssetTransfer contract = new AssetTransfer(TenantResolver.of(TenantResolver.Source.ATTRIBUTE, "tenant", "tenantAdmin"));
+        InMemoryChaincodeStub stub = InMemoryChaincodeStub.create();
+        Context student = tenantContext(stub, "school1", false);
+        Context admin = tenantContext(stub, "school1", true);
+
+        HashMap<String, String> coin = new HashMap<>();
+        coin.put("test", "100");
+        stub.putStringState("rootAsset", objectMapper.writeValueAsString(Asset.of("rootAsset", "0", "rootOwner", new HashMap<>(coin), null, null, null, null)));
+        stub.putStringState("asset1", objectMapper.writeValueAsString(Asset.of("asset1", "1", "test1", new HashMap<>(coin), UserRole.ROLE_STUDENT.name(), null, null, null)));
+
+        //when
+        int denied = contract.MigrateAssetKeys(student, "10");
+        boolean untouched = stub.getLedger().containsKey("asset1");
+        int migrated = contract.MigrateAssetKeys(admin, "10");
+
+        //then
+        assertThat(denied).isZero();
+        assertThat(untouched).isTrue();
+        assertThat(migrated).isEqualTo(2);
+        assertThat(stub.getLedger()).containsKeys(AssetTransfer.ROOT_ASSET_KEY, AssetTransfer.assetKey("asset1"));
+        assertThat(stub.getLedger()).doesNotContainKey(new CompositeKey(Tenant.TENANT_KEY, "school1", AssetTransfer.ASSET_KEY, "asset1").toString());
+        assertThat(contract.GetAsset(admin, "asset1")).isNull();
+    }
+
+    public abstract static class ReadCountingStub extends InMemoryChaincodeStub {
+        final Map<String, Integer> reads = new HashMap<>();
+
+        @Override
+        public byte[] getState(String key) {
+            reads.merge(key, 1, Integer::sum);
+            return super.getState(key);
+        }
+    }
+
+    @Test
+    public void TransferCoins_는_여러_coin_을_양방향으로_한번에_옮긴다() throws JsonProcessingException {
+        //given
+        AssetTransfer contract = new AssetTransfer();
+        Context ctx = mock(Context.class);
+        CountingChaincodeStub stub = InMemoryChaincodeStub.create(CountingChaincodeStub.class);
+        when(ctx.getStub()).thenReturn(stub);
+        seedTransferAssets(stub);
+        contract.CreateCoin(ctx, "meal");
+        contract.UpdateAssetCoin(ctx, "asset2", "meal", "10");
+        stub.resetCounters();
+
+        //when
+        String response = contract.TransferCoins(ctx, "asset1", "asset2",
+                "[{\"coinName\":\"test\",\"amount\":\"20\"},{\"coinName\":\"meal\",\"amount\":\"-4\"},{\"coinName\":\"test\",\"amount\":\"10\"}]");
+
+        //then
+        TransferCoinsResponse receipt = objectMapper.readValue(response, TransferCoinsResponse.class);
+        assertThat(receipt.getSenderIdentifier()).isEqualTo("1");
+        assertThat(receipt.getReceiverIdentifier()).isEqualTo("2");
+        assertThat(receipt.getLegs()).extracting(TransferLeg::getAmount).containsExactly("30", "-4");
+        // Asset 2개 + 보유량 index 7개 (잔액이 0 이던 asset1 의 meal 은 지울 key 가 없다) + meal 의 checksum bucket 1개
+        // 읽기는 rootAsset, Asset 2개와 coin 별 checksum bucket 2개다 (seed 한 test coin 은 bucket 이 없어 쓰지 않는다)
+        assertThat(stub.getWrites()).isEqualTo(10L);
+        assertThat(stub.getReads()).isEqualTo(5L);
+
+        Asset sender = contract.GetAsset(ctx, "asset1");
+        Asset receiver = contract.GetAsset(ctx, "asset2");
+        assertThat(sender.getCoin().getLong("test")).isEqualTo(70L);
+        assertThat(sender.getCoin().getLong("meal")).isEqualTo(4L);
+        assertThat(receiver.getCoin().getLong("test")).isEqualTo(130L);
+        assertThat(receiver.getCoin().getLong("meal")).isEqualTo(6L);
+        assertThat(sender.getAmount()).isEqualTo("test:30,meal:-4");
+    }
+
+    @Test
+    public void TransferCoins_는_한_leg_라도_잔액이_모자라면_아무것도_쓰지_않는다() throws JsonProcessingException {
+        //given
+        AssetTransfer contract = new AssetTransfer();
+        Context ctx = mock(Context.class);
+        InMemoryChaincodeStub stub = InMemoryChaincodeStub.create();
+        when(ctx.getStub()).thenReturn(stub);
+        seedTransferAssets(stub);
+        contract.CreateCoin(ctx, "meal");
+        Map<String, byte[]> before = new HashMap<>(stub.getLedger());
+        stub.nextTransaction("tx2", Instant.ofEpochSecond(1001));
+
+        //when
+        String response = contract.TransferCoins(ctx, "asset1", "asset2",
+                "[{\"coinName\":\"test\",\"amount\":\"30\"},{\"coinName\":\"meal\",\"amount\":\"-1\"}]");
+
+        //then
+        assertThat(response).isNull();
+        assertThat(stub.getLedger()).isEqualTo(before);
+        assertThat(stub.getEvent(BalanceEvent.EVENT_NAME)).isNull();
+    }
+
+    @Test
+    public void ExportSnapshot_chunk_를_ImportSnapshot_으로_다른_ledger_에_옮긴다() throws JsonProcessingException {
+        //given
+        AssetTransfer contract = new AssetTransfer();
+        Context source = mock(Context.class);
+        InMemoryChaincodeStub sourceStub = InMemoryChaincodeStub.create();
+        when(source.getStub()).thenReturn(sourceStub);
+        seedTransferAssets(sourceStub);
+        contract.CreateAsset(source, "asset3", "3", "test3", UserRole.ROLE_STUDENT.name());
+
+        Context target = mock(Context.class);
+        InMemoryChaincodeStub targetStub = InMemoryChaincodeStub.create();
+        when(target.getStub()).thenReturn(targetStub);
+
+        //when
+        List<SnapshotChunk> chunks = new ArrayList<>();
+        String bookmark = "";
+        do {
+            SnapshotChunk chunk = objectMapper.readValue(contract.ExportSnapshot(source, bookmark, "2"), SnapshotChunk.class);
+            chunks.add(chunk);
+            bookmark = chunk.getBookmark();
+        } while (!bookmark.isEmpty());
+
+        String digest = "";
+        long records = 0;
+        long rawBytes = 0;
+        for (int i = 0; i < chunks.size(); i++) {
+            SnapshotChunk chunk = chunks.get(i);
+            contract.ImportSnapshot(target, objectMapper.writeValueAsString(indexed(chunk, i)));
+            digest = SnapshotCodec.chain(digest, chunk.getSha256());
+            records += chunk.getRecords();
+            rawBytes += chunk.getRawBytes();
+        }
+        // 같은 chunk 를 다시 보내도 누적값이 바뀌지 않는다
+        contract.ImportSnapshot(target, objectMapper.writeValueAsString(indexed(chunks.get(0), 0)));
+        boolean verified = contract.FinishSnapshotImport(target, objectMapper.writeValueAsString(SnapshotManifest.builder()
+                .version(SnapshotCodec.VERSION).chunks(chunks.size()).records(records).rawBytes(rawBytes).digest(digest).build()));
+
+        //then
+        assertThat(chunks).extracting(SnapshotChunk::getRecords).containsExactly(3, 1);
+        assertThat(verified).isTrue();
+        assertThat(targetStub.getLedger().keySet()).containsAll(sourceStub.getLedger().keySet());
+        for (String key : sourceStub.getLedger().keySet()) {
+            assertThat(targetStub.getState(key)).isEqualTo(sourceStub.getState(key));
+        }
+        // 가져온 잔액은 보유량 index 에도 들어간다 (asset3 의 잔액 0 은 index 에 넣지 않는다)
+        assertThat(contract.GetTopHolders(target, "test", "10"))
+                .isEqualTo("[{\"assetId\":\"asset1\",\"balance\":100},{\"assetId\":\"asset2\",\"balance\":100}]");
+    }
+
+    @Test
+    public void ImportSnapshot_은_덮어쓴_Asset_의_보유량_index_를_고치고_바뀐_잔액을_event_로_보낸다() throws Exception {
+        //given
+        AssetTransfer contract = new AssetTransfer();
+        Context source = mock(Context.class);
+        InMemoryChaincodeStub sourceStub = InMemoryChaincodeStub.create();
+        when(source.getStub()).thenReturn(sourceStub);
+        seedTransferAssets(sourceStub);
+        SnapshotChunk chunk = objectMapper.readValue(contract.ExportSnapshot(source, "", "10"), SnapshotChunk.class);
+
+        Context target = mock(Context.class);
+        InMemoryChaincodeStub targetStub = InMemoryChaincodeStub.create();
+        when(target.getStub()).thenReturn(targetStub);
+        contract.InitLedger(target);
+        contract.CreateCoin(target, "test");
+        contract.CreateAsset(target, "asset1", "1", "test1", UserRole.ROLE_STUDENT.name());
+        contract.UpdateAssetCoin(target, "asset1", "test", "30");
+        targetStub.nextTransaction("tx1", Instant.EPOCH);
+
+        //when
+        String imported = contract.ImportSnapshot(target, objectMapper.writeValueAsString(indexed(chunk, 0)));
+        BalanceEvent event = BalanceEvent.parse(targetStub.getEvent(BalanceEvent.EVENT_NAME));
+        List<CoinHolder> holders = Arrays.asList(objectMapper.readValue(contract.GetTopHolders(target, "test", "10"), CoinHolder[].class));
+
+        //then
+        assertThat(imported).isNotNull();
+        assertThat(event.getOp()).isEqualTo("ImportSnapshot");
+        assertThat(event.getCreated()).containsExactly("asset2");
+        assertThat(event.getChanges()).extracting(BalanceEvent.Change::getAssetId).containsExactly("asset1", "asset2");
+        assertThat(event.getChanges()).extracting(BalanceEvent.Change::getBalance).containsExactly(100L, 100L);
+        assertThat(holders).extracting(CoinHolder::getAssetId).containsExactly("asset1", "asset2");
+        assertThat(holders).extracting(CoinHolder::getBalance).containsExactly(100L, 100L);
+        String index = HolderIndex.coinKey(Tenant.DEFAULT, "test").toString();
+        assertThat(targetStub.getLedger().subMap(index, index + Character.MAX_VALUE)).hasSize(2);
+    }
+
+    @Test
+    public void ImportSnapshot_은_검증에_실패한_chunk_를_쓰지_않는다() throws JsonProcessingException {
+        //given
+        AssetTransfer contract = new AssetTransfer();
+        Context source = mock(Context.class);
+        InMemoryChaincodeStub sourceStub = InMemoryChaincodeStub.create();
+        when(source.getStub()).thenReturn(sourceStub);
+        seedTransferAssets(sourceStub);
+        SnapshotChunk chunk = objectMapper.readValue(contract.ExportSnapshot(source, "", "10"), SnapshotChunk.class);
+
+        Context target = mock(Context.class);
+        InMemoryChaincodeStub targetStub = InMemoryChaincodeStub.create();
+        when(target.getStub()).thenReturn(targetStub);
+
+        //when
+        String tampered = contract.ImportSnapshot(target, objectMapper.writeValueAsString(SnapshotChunk.builder()
+                .index(0).bookmark("").records(chunk.getRecords()).rawBytes(chunk.getRawBytes())
+                .sha256(SnapshotCodec.sha256(new byte[0])).data(chunk.getData()).build()));
+        String outOfOrder = contract.ImportSnapshot(target, objectMapper.writeValueAsString(indexed(chunk, 1)));
+        boolean verified = contract.FinishSnapshotImport(target, objectMapper.writeValueAsString(SnapshotManifest.builder()
+                .version(SnapshotCodec.VERSION).chunks(1).records(chunk.getRecords()).rawBytes(chunk.getRawBytes())
+                .digest(SnapshotCodec.chain("", chunk.getSha256())).build()));
+
+        //then
+        assertThat(tampered).isNull();
+        assertThat(outOfOrder).isNull();
+        assertThat(verified).isFalse();
+        assertThat(targetStub.getLedger()).isEmpty();
+    }
+
+    @Test
+    public void GetTopHolders_는_잔액이_바뀔_때마다_순위를_따라간다() throws JsonProcessingException {
+        //given
+        AssetTransfer contract = new AssetTransfer();
+        Context ctx = mock(Context.class);
+        InMemoryChaincodeStub stub = InMemoryChaincodeStub.create();
+        when(ctx.getStub()).thenReturn(stub);
+        contract.InitLedger(ctx);
+        contract.CreateCoin(ctx, "point");
+        for (String assetId : new String[]{"s1", "s2", "s3", "s4"}) {
+            contract.CreateAsset(ctx, assetId, assetId, "student", UserRole.ROLE_STUDENT.name());
+        }
+
+        //when
+        contract.UpdateAssetCoin(ctx, "s1", "point", "50");
+        contract.UpdateAssetCoin(ctx, "s2", "point", "30");
+        contract.UpdateAssetCoin(ctx, "s3", "point", "30");
+        contract.TransferCoin(ctx, "s1", "s4", "point", "45");
+        contract.DeleteAsset(ctx, "s3");
+        List<CoinHolder> top = Arrays.asList(objectMapper.readValue(contract.GetTopHolders(ctx, "point", "2"), CoinHolder[].class));
+        List<CoinHolder> all = Arrays.asList(objectMapper.readValue(contract.GetTopHolders(ctx, "point", "10"), CoinHolder[].class));
+
+        //then
+        assertThat(top).extracting(CoinHolder::getAssetId).containsExactly("s4", "s2");
+        assertThat(top).extracting(CoinHolder::getBalance).containsExactly(45L, 30L);
+        assertThat(all).extracting(CoinHolder::getAssetId).containsExactly("s4", "s2", "s1");
+        String index = HolderIndex.coinKey(Tenant.DEFAULT, "point").toString();
+        assertThat(stub.getLedger().subMap(index, index + Character.MAX_VALUE)).hasSize(3);
+    }
+
+    @Test
+    public void IndexHolders_는_index_가_없던_Asset_의_순위를_채운다() throws JsonProcessingException {
+        //given
+        AssetTransfer contract = new AssetTransfer();
+        Context ctx = mock(Context.class);
+        InMemoryChaincodeStub stub = InMemoryChaincodeStub.create();
+        when(ctx.getStub()).thenReturn(stub);
+        seedTransferAssets(stub);
+        contract.UpdateAssetCoin(ctx, "asset2", "test", "5");
+
+        //when
+        String before = contract.GetTopHolders(ctx, "test", "10");
+        String bookmark = contract.IndexHolders(ctx, "", "1");
+        while (!bookmark.isEmpty()) {
+            bookmark = contract.IndexHolders(ctx, bookmark, "1");
+        }
+        contract.IndexHolders(ctx, "", "10");
+        List<CoinHolder> after = Arrays.asList(objectMapper.readValue(contract.GetTopHolders(ctx, "test", "10"), CoinHolder[].class));
 
+        //then
+        assertThat(before).isEqualTo("[{\"assetId\":\"asset2\",\"balance\":105}]");
+        assertThat(after).extracting(CoinHolder::getAssetId).containsExactly("asset2", "asset1");
+        assertThat(after).extracting(CoinHolder::getBalance).containsExactly(105L, 100L);
+    }
+
+    @Test
+    public void tenant_가_다르면_같은_assetId_와_coin_을_써도_서로_보이지_않는다() throws Exception {
+        //given
+        AssetTransfer contract = new AssetTransfer(TenantResolver.of(TenantResolver.Source.ATTRIBUTE, "tenant", "tenantAdmin"));
+        InMemoryChaincodeStub stub = InMemoryChaincodeStub.create();
+        Context school1 = tenantContext(stub, "school1", false);
+        Context school2 = tenantContext(stub, "school2", false);
+        for (Context ctx : new Context[]{school1, school2}) {
+            contract.InitLedger(ctx);
+            contract.CreateAsset(ctx, "s1", "1", "student", UserRole.ROLE_STUDENT.name());
+        }
+        contract.CreateCoin(school1, "point");
+
+        //when
+        contract.UpdateAssetCoin(school1, "s1", "point", "50");
+        BalanceEvent event = BalanceEvent.parse(stub.getEvent(BalanceEvent.EVENT_NAME));
+        boolean missingCoin = contract.UpdateAssetCoin(school2, "s1", "point", "50");
+        Asset asset1 = contract.GetAsset(school1, "s1");
+        Asset asset2 = contract.GetAsset(school2, "s1");
+
+        //then
+        assertThat(missingCoin).isFalse();
+        assertThat(event.getTenant()).isEqualTo("school1");
+        assertThat(asset1.getCoin()).containsEntry("point", "50");
+        assertThat(asset2.getCoin()).isEmpty();
+        assertThat(contract.GetTopHolders(school1, "point", "10")).isEqualTo("[{\"assetId\":\"s1\",\"balance\":50}]");
+        assertThat(contract.GetTopHolders(school2, "point", "10")).isEqualTo("[]");
+        assertThat(stub.getLedger()).containsKey(new CompositeKey(Tenant.TENANT_KEY, "school1", AssetTransfer.ASSET_KEY, "s1").toString());
+        assertThat(stub.getLedger()).doesNotContainKey(AssetTransfer.assetKey("s1"));
+    }
+
+    @Test
+    public void GetTenantSummaries_는_관리자에게만_tenant_별_합계를_page_단위로_돌려준다() throws JsonProcessingException {
+        //given
+        AssetTransfer contract = new AssetTransfer(TenantResolver.of(TenantResolver.Source.ATTRIBUTE, "tenant", "tenantAdmin"));
+        InMemoryChaincodeStub stub = InMemoryChaincodeStub.create();
+        for (String tenantId : new String[]{"school1", "school2", "school3"}) {
+            Context ctx = tenantContext(stub, tenantId, false);
+            contract.InitLedger(ctx);
+            contract.CreateCoin(ctx, "point");
+            contract.CreateAsset(ctx, "s1", "1", "student", UserRole.ROLE_STUDENT.name());
+            contract.UpdateAssetCoin(ctx, "s1", "point", String.valueOf(tenantId.length() * 10));
+        }
+        Context admin = tenantContext(stub, "school1", true);
+        Context student = tenantContext(stub, "school1", false);
+
+        //when
+        TenantSummaryPage first = objectMapper.readValue(contract.GetTenantSummaries(admin, "", "2"), TenantSummaryPage.class);
+        TenantSummaryPage second = objectMapper.readValue(contract.GetTenantSummaries(admin, first.getBookmark(), "2"), TenantSummaryPage.class);
+        String denied = contract.GetTenantSummaries(student, "", "2");
+
+        //then
+        assertThat(first.getTenants()).extracting(TenantSummary::getTenantId).containsExactly("school1", "school2");
+        assertThat(second.getTenants()).extracting(TenantSummary::getTenantId).containsExactly("school3");
+        assertThat(second.getBookmark()).isEmpty();
+        assertThat(second.getTenants().get(0).getAssets()).isEqualTo(1L);
+        assertThat(second.getTenants().get(0).getCoins()).containsEntry("point", 70L);
+        assertThat(denied).isNull();
+    }
+
+    @Test
+    public void GetCoinChecksum_은_잔액이_바뀔_때마다_전체_Asset_의_checksum_과_같다() throws JsonProcessingException {
+        //given
+        AssetTransfer contract = new AssetTransfer();
+        Context ctx = mock(Context.class);
+        InMemoryChaincodeStub stub = InMemoryChaincodeStub.create();
+        when(ctx.getStub()).thenReturn(stub);
+        contract.InitLedger(ctx);
+        contract.CreateCoin(ctx, "point");
+        for (String assetId : new String[]{"s1", "s2", "s3", "s4"}) {
+            contract.CreateAsset(ctx, assetId, assetId, "student", UserRole.ROLE_STUDENT.name());
+        }
+        CoinChecksum empty = objectMapper.readValue(contract.GetCoinChecksum(ctx, "point"), CoinChecksum.class);
+
+        //when
+        stub.nextTransaction("tx1", Instant.EPOCH);
+        contract.UpdateAssetCoin(ctx, "s1", "point", "50");
+        stub.nextTransaction("tx2", Instant.EPOCH);
+        contract.UpdateAssetCoin(ctx, "s2", "point", "30");
+        stub.nextTransaction("tx3", Instant.EPOCH);
+        contract.TransferCoin(ctx, "s1", "s3", "point", "20");
+        stub.nextTransaction("tx4", Instant.EPOCH);
+        contract.TransferCoins(ctx, "s2", "s4", "[{\"coinName\":\"point\",\"amount\":\"30\"}]");
+        stub.nextTransaction("tx5", Instant.EPOCH);
+        contract.DeleteAsset(ctx, "s3");
+        CoinChecksum checksum = objectMapper.readValue(contract.GetCoinChecksum(ctx, "point"), CoinChecksum.class);
+        ChecksumRange first = objectMapper.readValue(contract.GetCoinChecksumRange(ctx, "point", "", "2"), ChecksumRange.class);
+        ChecksumRange second = objectMapper.readValue(contract.GetCoinChecksumRange(ctx, "point", first.getBookmark(), "2"), ChecksumRange.class);
+
+        //then
+        long expected = (BalanceChecksum.hash("s1", 30) + BalanceChecksum.hash("s4", 30)) % BalanceChecksum.PRIME;
+        assertThat(empty.getComplete()).isTrue();
+        assertThat(empty.getCount()).isEqualTo(0L);
+        assertThat(checksum.getComplete()).isTrue();
+        assertThat(checksum.getSum()).isEqualTo(Long.toString(expected));
+        assertThat(checksum.getCount()).isEqualTo(2L);
+        assertThat(first.getFirstAssetId()).isEqualTo("s1");
+        assertThat(first.getLastAssetId()).isEqualTo("s2");
+        assertThat(second.getBookmark()).isEmpty();
+        assertThat((Long.parseLong(first.getSum()) + Long.parseLong(second.getSum())) % BalanceChecksum.PRIME).isEqualTo(expected);
+    }
+
+    @Test
+    public void 잔액_변경은_txId_로_고른_checksum_bucket_하나만_고친다() throws JsonProcessingException {
+        //given
+        AssetTransfer contract = new AssetTransfer();
+        Context ctx = mock(Context.class);
+        InMemoryChaincodeStub stub = InMemoryChaincodeStub.create();
+        when(ctx.getStub()).thenReturn(stub);
+        contract.InitLedger(ctx);
+        contract.CreateCoin(ctx, "point");
+        contract.CreateAsset(ctx, "s1", "1", "student", UserRole.ROLE_STUDENT.name());
+        contract.CreateAsset(ctx, "s2", "2", "student", UserRole.ROLE_STUDENT.name());
+        Map<String, byte[]> before = new HashMap<>(stub.getLedger());
+
+        //when
+        stub.nextTransaction("tx1", Instant.EPOCH);
+        contract.UpdateAssetCoin(ctx, "s1", "point", "50");
+        stub.nextTransaction("tx2", Instant.EPOCH);
+        contract.TransferCoin(ctx, "s1", "s2", "point", "20");
+
+        //then
+        String first = BalanceChecksum.key(Tenant.DEFAULT, "point", BalanceChecksum.bucket("tx1"));
+        String second = BalanceChecksum.key(Tenant.DEFAULT, "point", BalanceChecksum.bucket("tx2"));
+        for (int bucket = 0; bucket < BalanceChecksum.BUCKETS; bucket++) {
+            String key = BalanceChecksum.key(Tenant.DEFAULT, "point", bucket);
+            if (!key.equals(first) && !key.equals(second)) {
+                assertThat(stub.getLedger().get(key)).isSameAs(before.get(key));
+            }
+        }
+        ChecksumBucket transfer = objectMapper.readValue(new String(stub.getLedger().get(second), StandardCharsets.UTF_8), ChecksumBucket.class);
+        long expected = (BalanceChecksum.hash("s1", 30) + BalanceChecksum.hash("s2", 20) + BalanceChecksum.PRIME - BalanceChecksum.hash("s1", 50)) % BalanceChecksum.PRIME;
+        assertThat(first).isNotEqualTo(second);
+        assertThat(transfer.getSum()).isEqualTo(Long.toString(expected));
+        assertThat(transfer.getCount()).isEqualTo(1L);
+        assertThat(stub.getLedger().keySet()).noneMatch(key -> key.contains("checksumDelta"));
+    }
+
+    @Test
+    public void RebuildCoinChecksum_은_진행_중의_잔액_변경을_놓치지_않는다() throws JsonProcessingException {
+        //given
+        AssetTransfer contract = new AssetTransfer();
+        Context ctx = mock(Context.class);
+        InMemoryChaincodeStub stub = InMemoryChaincodeStub.create();
+        when(ctx.getStub()).thenReturn(stub);
+        seedTransferAssets(stub);
+        contract.CreateAsset(ctx, "asset3", "3", "test3", UserRole.ROLE_STUDENT.name());
+        stub.nextTransaction("tx1", Instant.EPOCH);
+        contract.UpdateAssetCoin(ctx, "asset3", "test", "80");
+        CoinChecksum untracked = objectMapper.readValue(contract.GetCoinChecksum(ctx, "test"), CoinChecksum.class);
+
+        //when
+        String first = contract.RebuildCoinChecksum(ctx, "test", "", "1");
+        stub.nextTransaction("tx2", Instant.EPOCH);
+        contract.TransferCoin(ctx, "asset1", "asset3", "test", "40");
+        stub.nextTransaction("tx3", Instant.EPOCH);
+        contract.UpdateAssetCoin(ctx, "asset2", "test", "5");
+        String bookmark = contract.RebuildCoinChecksum(ctx, "test", first, "1");
+        String behind = contract.RebuildCoinChecksum(ctx, "test", first, "1");
+        while (!bookmark.isEmpty()) {
+            bookmark = contract.RebuildCoinChecksum(ctx, "test", bookmark, "1");
+        }
+        CoinChecksum rebuilt = objectMapper.readValue(contract.GetCoinChecksum(ctx, "test"), CoinChecksum.class);
+
+        //then
+        long expected = (BalanceChecksum.hash("asset1", 60) + BalanceChecksum.hash("asset2", 105) + BalanceChecksum.hash("asset3", 120)) % BalanceChecksum.PRIME;
+        assertThat(untracked.getComplete()).isFalse();
+        assertThat(behind).isNull();
+        assertThat(rebuilt.getComplete()).isTrue();
+        assertThat(rebuilt.getCount()).isEqualTo(3L);
+        assertThat(rebuilt.getSum()).isEqualTo(Long.toString(expected));
+    }
+
+    @Test
+    public void ImportSnapshot_으로_덮어쓴_잔액도_checksum_에_반영된다() throws JsonProcessingException {
+        //given
+        AssetTransfer contract = new AssetTransfer();
+        Context source = mock(Context.class);
+        InMemoryChaincodeStub sourceStub = InMemoryChaincodeStub.create();
+        when(source.getStub()).thenReturn(sourceStub);
+        seedTransferAssets(sourceStub);
+        SnapshotChunk chunk = objectMapper.readValue(contract.ExportSnapshot(source, "", "10"), SnapshotChunk.class);
+
+        Context target = mock(Context.class);
+        InMemoryChaincodeStub targetStub = InMemoryChaincodeStub.create();
+        when(target.getStub()).thenReturn(targetStub);
+        contract.InitLedger(target);
+        contract.CreateCoin(target, "test");
+        contract.CreateAsset(target, "asset1", "1", "test1", UserRole.ROLE_STUDENT.name());
+        contract.UpdateAssetCoin(target, "asset1", "test", "30");
+        targetStub.nextTransaction("tx1", Instant.EPOCH);
+
+        //when
+        contract.ImportSnapshot(target, objectMapper.writeValueAsString(indexed(chunk, 0)));
+        CoinChecksum checksum = objectMapper.readValue(contract.GetCoinChecksum(target, "test"), CoinChecksum.class);
+
+        //then
+        long expected = (BalanceChecksum.hash("asset1", 100) + BalanceChecksum.hash("asset2", 100)) % BalanceChecksum.PRIME;
+        assertThat(checksum.getComplete()).isTrue();
+        assertThat(checksum.getCount()).isEqualTo(2L);
+        assertThat(checksum.getSum()).isEqualTo(Long.toString(expected));
+    }
+
+    private static Context tenantContext(ChaincodeStub stub, String tenantId, boolean admin) {
+        Context ctx = mock(Context.class);
+        ClientIdentity identity = mock(ClientIdentity.class);
+        when(ctx.getStub()).thenReturn(stub);
+        when(ctx.getClientIdentity()).thenReturn(identity);
+        when(identity.getAttributeValue("tenant")).thenReturn(tenantId);
+        when(identity.assertAttributeValue("tenantAdmin", "true")).thenReturn(admin);
+        return ctx;
+    }
+
+    private static SnapshotChunk indexed(SnapshotChunk chunk, int index) {
+        return SnapshotChunk.builder()
+                .index(index)
+                .bookmark(chunk.getBookmark())
+                .records(chunk.getRecords())
+                .rawBytes(chunk.getRawBytes())
+                .sha256(chunk.getSha256())
+                .data(chunk.getData())
+                .build();
+    }
+
+    private static void seedTransferAssets(InMemoryChaincodeStub stub) throws JsonProcessingException {
+        HashMap<String, String> coin = new HashMap<>();
+        coin.put("test", "100");
+        stub.putStringState(AssetTransfer.ROOT_ASSET_KEY, objectMapper.writeValueAsString(Asset.of("rootAsset", "0", "rootOwner", new HashMap<>(coin), null, null, null, null)));
+        stub.putStringState(AssetTransfer.assetKey("asset1"), objectMapper.writeValueAsString(Asset.of("asset1", "1", "test1", new HashMap<>(coin), UserRole.ROLE_STUDENT.name(), null, null, null)));
+        stub.putStringState(AssetTransfer.assetKey("asset2"), objectMapper.writeValueAsString(Asset.of("asset2", "2", "test2", new HashMap<>(coin), UserRole.ROLE_STOREMANAGER.name(), null, null, null)));
+    }
 }
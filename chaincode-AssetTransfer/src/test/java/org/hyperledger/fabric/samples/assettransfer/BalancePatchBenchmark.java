@@ -0,0 +1,74 @@
+package org.hyperledger.fabric.samples.assettransfer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("benchmark")
+@DisplayName("TransferCoin 잔액 변경 벤치마크")
+public class BalancePatchBenchmark {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final int DOCUMENTS = 1_000;
+    private static final int ROUNDS = 200;
+    private static final String[] COINS = {"point", "meal", "cafe", "print", "gym"};
+
+    @Test
+    public void Asset_binding_과_streaming_patch_의_문서당_시간을_비교한다() throws Exception {
+        List<byte[]> documents = new ArrayList<>(DOCUMENTS);
+        for (int i = 0; i < DOCUMENTS; i++) {
+            HashMap<String, String> coin = new HashMap<>();
+            for (String coinName : COINS) {
+                coin.put(coinName, String.valueOf(1_000_000 + i));
+            }
+            documents.add(objectMapper.writeValueAsBytes(Asset.of("s" + i, String.valueOf(i), "owner" + i, coin, UserRole.ROLE_STUDENT.name(), "m" + i, "s" + i, "1")));
+        }
+
+        // JIT warm-up
+        bind(documents, ROUNDS / 4);
+        patch(documents, ROUNDS / 4);
+
+        double bound = bind(documents, ROUNDS);
+        double patched = patch(documents, ROUNDS);
+
+        System.out.printf("per document: binding %.0f ns, streaming patch %.0f ns (%.1fx)%n", bound, patched, bound / patched);
+        assertThat(patched).isLessThan(bound);
+    }
+
+    private static double bind(List<byte[]> documents, int rounds) throws Exception {
+        long sink = 0;
+        long started = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            for (byte[] document : documents) {
+                Asset asset = objectMapper.readValue(document, Asset.class);
+                asset.modifyCoinValue("s1", "m1", "point", "-1");
+                sink += objectMapper.writeValueAsBytes(asset).length;
+            }
+        }
+        return elapsed(started, sink, documents.size() * rounds);
+    }
+
+    private static double patch(List<byte[]> documents, int rounds) {
+        long sink = 0;
+        long started = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            for (byte[] document : documents) {
+                sink += BalancePatch.apply(document, "s1", "m1", "point", "-1").getJson().length;
+            }
+        }
+        return elapsed(started, sink, documents.size() * rounds);
+    }
+
+    private static double elapsed(long started, long sink, int operations) {
+        assertThat(sink).isPositive();
+        return (System.nanoTime() - started) / (double) operations;
+    }
+}
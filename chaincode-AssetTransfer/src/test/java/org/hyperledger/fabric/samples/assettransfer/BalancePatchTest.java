@@ -0,0 +1,73 @@
+package org.hyperledger.fabric.samples.assettransfer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import exception.NotEnoughCoinValueException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("BalancePatch 테스트")
+public class BalancePatchTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void streaming_patch_는_Asset_binding_과_같은_문서를_만든다() throws IOException {
+        //given
+        HashMap<String, String> coin = new HashMap<>();
+        coin.put("point", "100");
+        coin.put("meal", "3");
+        byte[] stored = objectMapper.writeValueAsBytes(Asset.of("s1", "2021001", "kim", coin, UserRole.ROLE_STUDENT.name(), "m1", "s1", "5"));
+        Asset bound = objectMapper.readValue(stored, Asset.class);
+        bound.modifyCoinValue("s1", "m1", "point", "-30");
+
+        //when
+        BalancePatch patch = BalancePatch.apply(stored, "s1", "m1", "point", "-30");
+
+        //then
+        assertThat(patch).isNotNull();
+        // coin 순서는 저장된 순서를 따르므로 JSON tree 로 비교한다
+        assertThat(objectMapper.readTree(patch.getJson())).isEqualTo(objectMapper.readTree(objectMapper.writeValueAsBytes(bound)));
+        assertThat(patch.getBalance()).isEqualTo(70L);
+        assertThat(patch.getIdentifier()).isEqualTo("2021001");
+    }
+
+    @Test
+    public void 잔액이_모자라면_예외가_발생한다() throws JsonProcessingException {
+        //given
+        HashMap<String, String> coin = new HashMap<>();
+        coin.put("point", "10");
+        byte[] stored = objectMapper.writeValueAsBytes(Asset.of("s1", "2021001", "kim", coin, UserRole.ROLE_STUDENT.name(), null, null, null));
+
+        //when
+
+        //then
+        assertThatThrownBy(() -> BalancePatch.apply(stored, "s1", "m1", "point", "-11"))
+                .isInstanceOf(NotEnoughCoinValueException.class);
+    }
+
+    @Test
+    public void 이전_형식의_문서는_Asset_binding_으로_바꾼다() throws IOException {
+        //given
+        byte[] legacy = "{\"assetId\":\"s1\",\"identifier\":\"2021001\",\"owner\":\"kim\",\"coin\":{\"point\":100},\"userRole\":\"ROLE_STUDENT\"}"
+                .getBytes(StandardCharsets.UTF_8);
+
+        //when
+        BalancePatch streamed = BalancePatch.apply(legacy, "s1", "m1", "point", "-30");
+        BalancePatch patch = BalancePatch.of(legacy, "s1", "m1", "point", "-30");
+
+        //then
+        assertThat(streamed).isNull();
+        Asset asset = objectMapper.readValue(patch.getJson(), Asset.class);
+        assertThat(asset.getCoin().getLong("point")).isEqualTo(70L);
+        assertThat(asset.getSender()).isEqualTo("s1");
+        assertThat(asset.getAmount()).isEqualTo("-30");
+    }
+}
@@ -0,0 +1,298 @@
+package org.hyperledger.fabric.samples.assettransfer;
+
+import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.contract.annotation.Transaction;
+import org.hyperledger.fabric.samples.assettransfer.ledger.BlockFileReader;
+import org.hyperledger.fabric.samples.assettransfer.ledger.KeyWrite;
+import org.hyperledger.fabric.samples.assettransfer.ledger.LedgerBlock;
+import org.hyperledger.fabric.samples.assettransfer.ledger.LedgerTransaction;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * block 파일에 기록된 트랜잭션을 현재 AssetTransfer 로 다시 실행한다
+ * peer 가 commit 한 valid endorser 트랜잭션 중 namespace(체인코드 이름)가 같은 것의 proposal args 를 block 순서대로
+ * in-process ledger 에 실행하고, 트랜잭션마다 실행 시간, state I/O, 기록된 write set 과 같은지를 돌려준다.
+ *
+ * write set 은 Fabric 과 같이 key 별 마지막 put / del 이고 값은 byte 단위로 비교한다.
+ * tx ID 와 timestamp 는 기록된 값을 쓰므로 같은 block 을 몇 번 실행해도 같은 write set 이 나온다.
+ */
+public final class BlockReplay {
+
+    public enum Status {
+        MATCH, MISMATCH, UNKNOWN_FUNCTION, FAILED
+    }
+
+    /**
+     * 기록된 트랜잭션 한 건: proposal args 와 write set (del 은 값이 null)
+     */
+    public static final class Recorded {
+        private final long blockNumber;
+        private final String txId;
+        private final Instant timestamp;
+        private final List<String> args;
+        private final NavigableMap<String, byte[]> writes;
+
+        public Recorded(long blockNumber, String txId, Instant timestamp, List<String> args, NavigableMap<String, byte[]> writes) {
+            this.blockNumber = blockNumber;
+            this.txId = txId;
+            this.timestamp = timestamp;
+            this.args = args;
+            this.writes = writes;
+        }
+
+        static Recorded of(LedgerTransaction transaction, String namespace) {
+            NavigableMap<String, byte[]> writes = new TreeMap<>();
+            for (KeyWrite write : transaction.getWrites(namespace)) {
+                writes.put(write.getKey(), write.isDelete() ? null : write.getValue());
+            }
+            return new Recorded(transaction.getBlockNumber(), transaction.getTxId(), transaction.getTimestamp(), transaction.getStringArgs(), writes);
+        }
+
+        public long getBlockNumber() {
+            return blockNumber;
+        }
+
+        public String getTxId() {
+            return txId;
+        }
+
+        public Instant getTimestamp() {
+            return timestamp;
+        }
+
+        public String getFunction() {
+            return args.isEmpty() ? "" : args.get(0);
+        }
+
+        public List<String> getArgs() {
+            return args;
+        }
+
+        public NavigableMap<String, byte[]> getWrites() {
+            return writes;
+        }
+    }
+
+    /**
+     * 다시 실행한 결과 한 건
+     */
+    public static final class Result {
+        private final long blockNumber;
+        private final String txId;
+        private final String function;
+        private final Status status;
+        private final long nanos;
+        private final long reads;
+        private final long writes;
+        private final long rangeKeys;
+        private final List<String> mismatchedKeys;
+        private final String error;
+
+        private Result(Recorded recorded, Status status, long nanos, CountingChaincodeStub stub, List<String> mismatchedKeys, String error) {
+            this.blockNumber = recorded.getBlockNumber();
+            this.txId = recorded.getTxId();
+            this.function = recorded.getFunction();
+            this.status = status;
+            this.nanos = nanos;
+            this.reads = stub.getReads();
+            this.writes = stub.getWrites();
+            this.rangeKeys = stub.getRangeKeys();
+            this.mismatchedKeys = mismatchedKeys;
+            this.error = error;
+        }
+
+        public long getBlockNumber() {
+            return blockNumber;
+        }
+
+        public String getTxId() {
+            return txId;
+        }
+
+        public String getFunction() {
+            return function;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        public long getReads() {
+            return reads;
+        }
+
+        public long getWrites() {
+            return writes;
+        }
+
+        public long getRangeKeys() {
+            return rangeKeys;
+        }
+
+        /**
+         * 값이 다르거나 한쪽 write set 에만 있는 key
+         */
+        public List<String> getMismatchedKeys() {
+            return mismatchedKeys;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+
+    /**
+     * 트랜잭션 안의 put / del 을 write set 으로 모으는 in-process ledger
+     */
+    public abstract static class WriteSetChaincodeStub extends CountingChaincodeStub {
+
+        private final NavigableMap<String, byte[]> writeSet = new TreeMap<>();
+
+        @Override
+        public void nextTransaction(String txId, Instant txTimestamp) {
+            super.nextTransaction(txId, txTimestamp);
+            writeSet.clear();
+            resetCounters();
+        }
+
+        @Override
+        public void putState(String key, byte[] value) {
+            super.putState(key, value);
+            writeSet.put(key, value);
+        }
+
+        @Override
+        public void delState(String key) {
+            super.delState(key);
+            writeSet.put(key, null);
+        }
+
+        public NavigableMap<String, byte[]> getWriteSet() {
+            return writeSet;
+        }
+    }
+
+    private static final Map<String, Method> transactions = transactions();
+
+    private final AssetTransfer contract;
+    private final WriteSetChaincodeStub stub;
+    private final Context ctx;
+
+    public BlockReplay(AssetTransfer contract) {
+        this.contract = contract;
+        this.stub = InMemoryChaincodeStub.create(WriteSetChaincodeStub.class);
+        this.ctx = mock(Context.class);
+        when(ctx.getStub()).thenReturn(stub);
+    }
+
+    /**
+     * chainsDir 의 block 파일에서 namespace 의 valid endorser 트랜잭션을 block 순서대로 읽는다
+     */
+    public static List<Recorded> read(Path chainsDir, String namespace) throws IOException {
+        List<Recorded> recorded = new ArrayList<>();
+        for (LedgerBlock block : BlockFileReader.open(chainsDir)) {
+            for (LedgerTransaction transaction : block.getTransactions()) {
+                if (transaction.isEndorserTransaction() && transaction.isValid() && namespace.equals(transaction.getChaincodeName())) {
+                    recorded.add(Recorded.of(transaction, namespace));
+                }
+            }
+        }
+        return recorded;
+    }
+
+    public List<Result> replay(List<Recorded> recorded) {
+        List<Result> results = new ArrayList<>(recorded.size());
+        for (Recorded transaction : recorded) {
+            results.add(replay(transaction));
+        }
+        return results;
+    }
+
+    /**
+     * 트랜잭션 하나를 실행한다. 실패한 트랜잭션의 write 도 ledger 에 남으므로 (rollback 하지 않는다) 뒤의 결과는 참고만 한다.
+     */
+    public Result replay(Recorded recorded) {
+        stub.nextTransaction(recorded.getTxId(), recorded.getTimestamp());
+
+        Method method = transactions.get(recorded.getFunction() + "/" + (recorded.getArgs().size() - 1));
+        if (method == null) {
+            return new Result(recorded, Status.UNKNOWN_FUNCTION, 0, stub, new ArrayList<>(recorded.getWrites().keySet()), null);
+        }
+
+        Object[] parameters = new Object[recorded.getArgs().size()];
+        parameters[0] = ctx;
+        for (int i = 1; i < parameters.length; i++) {
+            parameters[i] = recorded.getArgs().get(i);
+        }
+
+        long started = System.nanoTime();
+        try {
+            method.invoke(contract, parameters);
+        } catch (InvocationTargetException e) {
+            long nanos = System.nanoTime() - started;
+            return new Result(recorded, Status.FAILED, nanos, stub, new ArrayList<>(recorded.getWrites().keySet()), String.valueOf(e.getCause()));
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+        long nanos = System.nanoTime() - started;
+
+        List<String> mismatchedKeys = diff(recorded.getWrites(), stub.getWriteSet());
+        return new Result(recorded, mismatchedKeys.isEmpty() ? Status.MATCH : Status.MISMATCH, nanos, stub, mismatchedKeys, null);
+    }
+
+    public WriteSetChaincodeStub getStub() {
+        return stub;
+    }
+
+    static List<String> diff(NavigableMap<String, byte[]> recorded, NavigableMap<String, byte[]> replayed) {
+        TreeSet<String> keys = new TreeSet<>(recorded.keySet());
+        keys.addAll(replayed.keySet());
+
+        List<String> mismatchedKeys = new ArrayList<>();
+        for (String key : keys) {
+            if (recorded.containsKey(key) != replayed.containsKey(key) || !Arrays.equals(recorded.get(key), replayed.get(key))) {
+                mismatchedKeys.add(key);
+            }
+        }
+        return mismatchedKeys;
+    }
+
+    // 함수 이름/인자 수 -> @Transaction 메소드 (Context 다음 인자가 모두 String 인 것)
+    private static Map<String, Method> transactions() {
+        Map<String, Method> transactions = new HashMap<>();
+        for (Method method : AssetTransfer.class.getMethods()) {
+            Class<?>[] types = method.getParameterTypes();
+            if (!method.isAnnotationPresent(Transaction.class) || types.length == 0 || types[0] != Context.class) {
+                continue;
+            }
+            boolean stringArgs = true;
+            for (int i = 1; i < types.length; i++) {
+                stringArgs &= types[i] == String.class;
+            }
+            if (stringArgs) {
+                transactions.put(method.getName() + "/" + (types.length - 1), method);
+            }
+        }
+        return transactions;
+    }
+}
@@ -0,0 +1,91 @@
+package org.hyperledger.fabric.samples.assettransfer;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 기록된 block 을 현재 AssetTransfer 로 다시 실행하는 회귀 벤치마크
+ * ledger.backup.dir(기본값 network/backup) 의 peer0.org1 block 파일에서 replay.namespace(기본값 basic) 트랜잭션을 읽어
+ * 빈 ledger 에서 ROUNDS 번 다시 실행하고, 트랜잭션별 가장 빠른 실행 시간과 state I/O, write set 일치 여부를 출력한다.
+ *
+ * 다른 peer 의 ledger 는 ledger.backup.dir 을 바꿔서 쓴다.
+ * replay.strict=true 면 모든 트랜잭션의 write set 이 기록과 같아야 통과한다.
+ */
+@Tag("benchmark")
+@DisplayName("기록된 block 재실행 벤치마크")
+public class BlockReplayBenchmark {
+
+    private static final Path CHAINS = Paths.get(System.getProperty("ledger.backup.dir", "../network/backup"))
+            .resolve("peer0.org1/ledgersData/chains/chains")
+            .resolve(System.getProperty("replay.channel", "mychannel"));
+    private static final String NAMESPACE = System.getProperty("replay.namespace", "basic");
+    private static final boolean STRICT = Boolean.getBoolean("replay.strict");
+
+    private static final int ROUNDS = 20;
+
+    @Test
+    public void 기록된_트랜잭션을_순서대로_다시_실행하고_write_set_을_비교한다() throws IOException {
+        //given
+        Assumptions.assumeTrue(Files.isDirectory(CHAINS), CHAINS + " does not exist");
+        List<BlockReplay.Recorded> recorded = BlockReplay.read(CHAINS, NAMESPACE);
+
+        //when
+        List<BlockReplay.Result> first = null;
+        long[] bestNanos = new long[recorded.size()];
+        for (int round = 0; round < ROUNDS; round++) {
+            List<BlockReplay.Result> results = new BlockReplay(new AssetTransfer()).replay(recorded);
+            for (int i = 0; i < results.size(); i++) {
+                long nanos = results.get(i).getNanos();
+                bestNanos[i] = round == 0 ? nanos : Math.min(bestNanos[i], nanos);
+            }
+            if (first == null) {
+                first = results;
+            }
+            // 같은 block 을 다시 실행하면 결과가 같아야 한다
+            assertThat(statuses(results)).isEqualTo(statuses(first));
+        }
+
+        //then
+        Map<BlockReplay.Status, Integer> summary = new EnumMap<>(BlockReplay.Status.class);
+        System.out.printf("%-8s %-24s %-18s %10s %6s %6s %6s  %s%n", "block", "function", "status", "best(us)", "reads", "writes", "range", "mismatched keys");
+        for (int i = 0; i < first.size(); i++) {
+            BlockReplay.Result result = first.get(i);
+            summary.merge(result.getStatus(), 1, Integer::sum);
+            System.out.printf("%-8d %-24s %-18s %10.1f %6d %6d %6d  %s%n",
+                    result.getBlockNumber(), result.getFunction(), result.getStatus(), bestNanos[i] / 1e3,
+                    result.getReads(), result.getWrites(), result.getRangeKeys(),
+                    result.getError() == null ? printable(result.getMismatchedKeys()) : result.getError());
+        }
+        System.out.println(recorded.size() + " transactions from " + CHAINS + ": " + summary);
+
+        if (STRICT) {
+            assertThat(summary.keySet()).containsOnly(BlockReplay.Status.MATCH);
+        }
+    }
+
+    private static List<BlockReplay.Status> statuses(List<BlockReplay.Result> results) {
+        List<BlockReplay.Status> statuses = new ArrayList<>(results.size());
+        for (BlockReplay.Result result : results) {
+            statuses.add(result.getStatus());
+        }
+        return statuses;
+    }
+
+    // composite key 의 0x00 을 / 로 보여준다
+    private static String printable(List<String> keys) {
+        return keys.toString().replace('\u0000', '/');
+    }
+}
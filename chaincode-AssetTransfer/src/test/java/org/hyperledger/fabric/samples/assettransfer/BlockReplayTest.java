@@ -0,0 +1,68 @@
+package org.hyperledger.fabric.samples.assettransfer;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("기록된 block 재실행 테스트")
+public class BlockReplayTest {
+
+    private static final Path CHAINS = Paths.get(System.getProperty("ledger.backup.dir", "../network/backup"))
+            .resolve("peer0.org1/ledgersData/chains/chains/mychannel");
+
+    @Test
+    public void 기록과_같은_write_set_은_MATCH_다른_값은_MISMATCH_로_알려준다() {
+        //given
+        BlockReplay reference = new BlockReplay(new AssetTransfer());
+        reference.replay(recorded(1, "InitLedger", new TreeMap<>()));
+        NavigableMap<String, byte[]> initLedger = new TreeMap<>(reference.getStub().getWriteSet());
+
+        NavigableMap<String, byte[]> tampered = new TreeMap<>(initLedger);
+        tampered.put(AssetTransfer.ROOT_ASSET_KEY, "{}".getBytes(StandardCharsets.UTF_8));
+        tampered.put(AssetTransfer.assetKey("s1"), null);
+
+        //when
+        BlockReplay.Result match = new BlockReplay(new AssetTransfer()).replay(recorded(1, "InitLedger", initLedger));
+        BlockReplay.Result mismatch = new BlockReplay(new AssetTransfer()).replay(recorded(1, "InitLedger", tampered));
+        BlockReplay.Result unknown = new BlockReplay(new AssetTransfer()).replay(recorded(2, "NoSuchTransaction", new TreeMap<>()));
+
+        //then
+        assertThat(initLedger).containsOnlyKeys(AssetTransfer.ROOT_ASSET_KEY);
+        assertThat(match.getStatus()).isEqualTo(BlockReplay.Status.MATCH);
+        assertThat(match.getWrites()).isEqualTo(1L);
+        assertThat(mismatch.getStatus()).isEqualTo(BlockReplay.Status.MISMATCH);
+        assertThat(mismatch.getMismatchedKeys()).containsExactly(AssetTransfer.assetKey("s1"), AssetTransfer.ROOT_ASSET_KEY);
+        assertThat(unknown.getStatus()).isEqualTo(BlockReplay.Status.UNKNOWN_FUNCTION);
+    }
+
+    @Test
+    public void network_backup_의_basic_트랜잭션을_순서대로_다시_실행한다() throws Exception {
+        //given
+        List<BlockReplay.Recorded> recorded = BlockReplay.read(CHAINS, "basic");
+
+        //when
+        List<BlockReplay.Result> results = new BlockReplay(new AssetTransfer()).replay(recorded);
+
+        //then
+        // backup 은 fabric-samples 의 asset-transfer-basic 으로 기록되어 이 체인코드와 write set 이 다르다
+        assertThat(recorded).extracting(BlockReplay.Recorded::getFunction).containsExactly("InitLedger", "TransferAsset");
+        assertThat(results).extracting(BlockReplay.Result::getStatus)
+                .containsExactly(BlockReplay.Status.MISMATCH, BlockReplay.Status.UNKNOWN_FUNCTION);
+        assertThat(results.get(0).getMismatchedKeys())
+                .contains("asset1", "asset6", AssetTransfer.ROOT_ASSET_KEY);
+    }
+
+    private static BlockReplay.Recorded recorded(long blockNumber, String function, NavigableMap<String, byte[]> writes) {
+        return new BlockReplay.Recorded(blockNumber, "tx" + blockNumber, Instant.ofEpochSecond(blockNumber), Arrays.asList(function), writes);
+    }
+}
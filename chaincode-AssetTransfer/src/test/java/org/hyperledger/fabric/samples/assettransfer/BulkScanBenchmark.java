@@ -0,0 +1,81 @@
+package org.hyperledger.fabric.samples.assettransfer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("benchmark")
+@DisplayName("BulkScan core 수별 처리 시간 벤치마크")
+public class BulkScanBenchmark {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final CompositeKey ALL_ASSETS = new CompositeKey(AssetTransfer.ASSET_KEY);
+
+    private static final int ASSETS = 100_000;
+    private static final int COINS = 8;
+    private static final int ROUNDS = 5;
+
+    @Test
+    public void CreateCoin_과_같은_decode_변경_encode_를_core_수별로_비교한다() throws JsonProcessingException {
+        //given
+        InMemoryChaincodeStub stub = InMemoryChaincodeStub.create();
+        seed(stub);
+        BulkScan.Transform<BulkScan.Write> createCoin = keyValue -> {
+            Asset asset = objectMapper.readValue(keyValue.getStringValue(), Asset.class);
+            asset.createCoin("benchmark");
+            return new BulkScan.Write(keyValue.getKey(), asset, objectMapper.writeValueAsString(asset));
+        };
+
+        List<Integer> parallelisms = new ArrayList<>();
+        for (int parallelism = 1; parallelism < Runtime.getRuntime().availableProcessors(); parallelism *= 2) {
+            parallelisms.add(parallelism);
+        }
+        parallelisms.add(Runtime.getRuntime().availableProcessors());
+
+        //when, then
+        List<String> expected = null;
+        double serialMillis = 0;
+        for (int parallelism : parallelisms) {
+            BulkScan bulkScan = new BulkScan(parallelism, AssetTransfer.DEFAULT_SCAN_PAGE_SIZE);
+            double bestMillis = Double.MAX_VALUE;
+            List<String> values = null;
+            for (int round = 0; round < ROUNDS; round++) {
+                long started = System.nanoTime();
+                List<BulkScan.Write> writes = bulkScan.map(stub.getStateByPartialCompositeKey(ALL_ASSETS), createCoin);
+                bestMillis = Math.min(bestMillis, (System.nanoTime() - started) / 1e6);
+                values = new ArrayList<>(writes.size());
+                for (BulkScan.Write write : writes) {
+                    values.add(write.getKey() + "=" + write.getValue());
+                }
+            }
+
+            if (expected == null) {
+                expected = values;
+                serialMillis = bestMillis;
+            }
+            System.out.printf("parallelism %2d: %8.1f ms (x%.2f)%n", parallelism, bestMillis, serialMillis / bestMillis);
+            // core 수와 상관없이 putState 할 key 와 값, 순서가 같아야 한다
+            assertThat(values).isEqualTo(expected);
+        }
+    }
+
+    private static void seed(InMemoryChaincodeStub stub) throws JsonProcessingException {
+        for (int i = 0; i < ASSETS; i++) {
+            HashMap<String, String> coin = new HashMap<>();
+            for (int c = 0; c < COINS; c++) {
+                coin.put("coin" + c, String.valueOf(i * c));
+            }
+            String assetId = String.format("asset%06d", i);
+            stub.putStringState(AssetTransfer.assetKey(assetId), objectMapper.writeValueAsString(Asset.of(assetId, assetId, "owner", coin, UserRole.ROLE_STUDENT.name(), null, null, null)));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package org.hyperledger.fabric.samples.assettransfer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import exception.NotEnoughCoinValueException;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("BulkScan 테스트")
+public class BulkScanTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final CompositeKey ALL_ASSETS = new CompositeKey(AssetTransfer.ASSET_KEY);
+
+    @Test
+    public void 병렬로_변환해도_조회한_key_순서대로_돌려준다() throws JsonProcessingException {
+        //given
+        InMemoryChaincodeStub stub = InMemoryChaincodeStub.create();
+        for (int i = 0; i < 50; i++) {
+            putAsset(stub, "asset" + i, i % 2 == 0 ? UserRole.ROLE_STUDENT : UserRole.ROLE_STOREMANAGER, "100");
+        }
+        BulkScan.Transform<String> students = keyValue -> {
+            Asset asset = objectMapper.readValue(keyValue.getStringValue(), Asset.class);
+            return asset.getUserRole().equals(UserRole.ROLE_STUDENT.name()) ? keyValue.getKey() : null;
+        };
+
+        //when
+        List<String> serial = new BulkScan(1, 7).map(stub.getStateByPartialCompositeKey(ALL_ASSETS), students);
+        List<String> parallel = new BulkScan(4, 7).map(stub.getStateByPartialCompositeKey(ALL_ASSETS), students);
+
+        //then
+        assertThat(serial).hasSize(25);
+        assertThat(parallel).isEqualTo(serial);
+        assertThat(parallel).isSorted();
+    }
+
+    @Test
+    public void worker_에서_난_예외는_순차_처리와_같은_타입으로_던진다() throws JsonProcessingException {
+        //given
+        InMemoryChaincodeStub stub = InMemoryChaincodeStub.create();
+        for (int i = 0; i < 20; i++) {
+            putAsset(stub, "asset" + i, UserRole.ROLE_STUDENT, "100");
+        }
+        putAsset(stub, "poor", UserRole.ROLE_STUDENT, "1");
+        BulkScan bulkScan = new BulkScan(4, 3);
+
+        //when, then
+        assertThatThrownBy(() -> bulkScan.map(stub.getStateByPartialCompositeKey(ALL_ASSETS), keyValue -> {
+            Asset asset = objectMapper.readValue(keyValue.getStringValue(), Asset.class);
+            asset.modifyCoinValue(null, null, "point", "-10");
+            return asset;
+        })).isInstanceOf(NotEnoughCoinValueException.class);
+
+        stub.putStringState(AssetTransfer.assetKey("broken"), "{\"assetId\":");
+        assertThatThrownBy(() -> bulkScan.map(stub.getStateByPartialCompositeKey(ALL_ASSETS),
+                keyValue -> objectMapper.readValue(keyValue.getStringValue(), Asset.class)))
+                .isInstanceOf(JsonProcessingException.class);
+    }
+
+    private static void putAsset(InMemoryChaincodeStub stub, String assetId, UserRole userRole, String point) throws JsonProcessingException {
+        HashMap<String, String> coin = new HashMap<>();
+        coin.put("point", point);
+        stub.putStringState(AssetTransfer.assetKey(assetId), objectMapper.writeValueAsString(Asset.of(assetId, assetId, "owner", coin, userRole.name(), null, null, null)));
+    }
+}
@@ -0,0 +1,84 @@
+package org.hyperledger.fabric.samples.assettransfer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("CoinBalances 테스트")
+public class CoinBalancesTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void 기존_HashMap_과_같은_JSON_모양으로_읽고_쓴다() throws JsonProcessingException {
+        //given
+        HashMap<String, String> coin = new HashMap<>();
+        coin.put("point", "100");
+        coin.put("meal", "3");
+        String legacyJSON = objectMapper.writeValueAsString(Asset.of("asset1", "1", "kim", coin, UserRole.ROLE_STUDENT.name(), null, null, null));
+
+        //when
+        Asset asset = objectMapper.readValue(legacyJSON, Asset.class);
+        Map<String, Object> written = objectMapper.readValue(objectMapper.writeValueAsString(asset), Map.class);
+
+        //then
+        assertThat(asset.getCoin()).isEqualTo(coin);
+        assertThat(asset.getCoin().getLong("point")).isEqualTo(100L);
+        assertThat(written.get("coin")).isEqualTo(coin);
+    }
+
+    @Test
+    public void 숫자가_아닌_잔액은_읽지_않는다() {
+        assertThatThrownBy(() -> objectMapper.readValue("{\"point\":\"ten\"}", CoinBalances.class))
+                .isInstanceOf(JsonProcessingException.class);
+    }
+
+    @Test
+    public void 같은_coin_이름은_Asset_끼리_공유한다() throws JsonProcessingException {
+        //when
+        CoinBalances first = objectMapper.readValue("{\"point\":\"1\"}", CoinBalances.class);
+        CoinBalances second = objectMapper.readValue("{\"point\":\"2\"}", CoinBalances.class);
+
+        //then
+        assertThat(first.keySet().iterator().next()).isSameAs(second.keySet().iterator().next());
+    }
+
+    @Test
+    public void 삭제와_확장_후에도_모든_coin_을_찾는다() {
+        //given
+        CoinBalances balances = new CoinBalances();
+        for (int i = 0; i < 100; i++) {
+            balances.putLong("coin" + i, i);
+        }
+
+        //when
+        for (int i = 0; i < 100; i += 3) {
+            balances.remove("coin" + i);
+        }
+        Iterator<Map.Entry<String, String>> iterator = balances.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getKey().endsWith("5")) {
+                iterator.remove();
+            }
+        }
+
+        //then
+        for (int i = 0; i < 100; i++) {
+            boolean removed = i % 3 == 0 || i % 10 == 5;
+            assertThat(balances.containsKey("coin" + i)).isEqualTo(!removed);
+            if (!removed) {
+                assertThat(balances.getLong("coin" + i)).isEqualTo((long) i);
+            }
+        }
+        assertThat(balances.add("coin1", 10)).isEqualTo(11L);
+        assertThatThrownBy(() -> balances.add("coin0", 1)).isInstanceOf(NumberFormatException.class);
+    }
+}
@@ -0,0 +1,84 @@
+package org.hyperledger.fabric.samples.assettransfer;
+
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+
+import java.util.List;
+
+/**
+ * state 접근 횟수와 bytes 를 세는 in-process ledger
+ * getStringState / putStringState 는 ChaincodeStub 의 default 메소드가 getState / putState 를 부르므로 같이 세어진다.
+ * 범위 조회는 peer 가 읽어서 돌려주는 key 수(pagination 의 다음 bookmark 포함)를 센다.
+ */
+public abstract class CountingChaincodeStub extends InMemoryChaincodeStub {
+
+    private long reads;
+    private long readBytes;
+    private long writes;
+    private long writeBytes;
+    private long rangeKeys;
+    private long rangeBytes;
+
+    public void resetCounters() {
+        reads = 0;
+        readBytes = 0;
+        writes = 0;
+        writeBytes = 0;
+        rangeKeys = 0;
+        rangeBytes = 0;
+    }
+
+    @Override
+    public byte[] getState(String key) {
+        byte[] value = super.getState(key);
+        reads++;
+        readBytes += value.length;
+        return value;
+    }
+
+    @Override
+    public void putState(String key, byte[] value) {
+        super.putState(key, value);
+        writes++;
+        writeBytes += value.length;
+    }
+
+    @Override
+    public void delState(String key) {
+        super.delState(key);
+        writes++;
+    }
+
+    @Override
+    protected List<KeyValue> scan(String startKey, String endKey, int limit) {
+        List<KeyValue> results = super.scan(startKey, endKey, limit);
+        rangeKeys += results.size();
+        for (KeyValue result : results) {
+            rangeBytes += result.getValue().length;
+        }
+        return results;
+    }
+
+    public long getReads() {
+        return reads;
+    }
+
+    public long getReadBytes() {
+        return readBytes;
+    }
+
+    public long getWrites() {
+        return writes;
+    }
+
+    public long getWriteBytes() {
+        return writeBytes;
+    }
+
+    public long getRangeKeys() {
+        return rangeKeys;
+    }
+
+    public long getRangeBytes() {
+        return rangeBytes;
+    }
+}
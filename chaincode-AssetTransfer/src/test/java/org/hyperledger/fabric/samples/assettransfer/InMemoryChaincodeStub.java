@@ -0,0 +1,209 @@
+package org.hyperledger.fabric.samples.assettransfer;
+
+import org.hyperledger.fabric.protos.peer.ChaincodeShim;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIteratorWithMetadata;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * 테스트용 in-process ledger
+ * ChaincodeStub 중 체인코드가 사용하는 메소드만 구현하고 나머지는 Mockito 가 채운다.
+ * Fabric 과 같이 simple key 범위 조회에는 composite key(0x00 prefix)가 포함되지 않는다.
+ */
+public abstract class InMemoryChaincodeStub implements ChaincodeStub {
+
+    private static final String MIN_SIMPLE_KEY = "\u0001";
+    private static final String MAX_UNICODE_RUNE = "\uDBFF\uDFFF";
+
+    protected final NavigableMap<String, byte[]> state = new ConcurrentSkipListMap<>();
+    protected final Map<String, byte[]> events = new ConcurrentSkipListMap<>();
+
+    private String txId = "tx0";
+    private Instant txTimestamp = Instant.EPOCH;
+
+    public static InMemoryChaincodeStub create() {
+        return create(InMemoryChaincodeStub.class);
+    }
+
+    public static <T extends InMemoryChaincodeStub> T create(Class<T> stubClass) {
+        return mock(stubClass, withSettings().stubOnly().useConstructor().defaultAnswer(CALLS_REAL_METHODS));
+    }
+
+    public void nextTransaction(String txId, Instant txTimestamp) {
+        this.txId = txId;
+        this.txTimestamp = txTimestamp;
+        this.events.clear();
+    }
+
+    public NavigableMap<String, byte[]> getLedger() {
+        return state;
+    }
+
+    public byte[] getEvent(String name) {
+        return events.get(name);
+    }
+
+    @Override
+    public String getTxId() {
+        return txId;
+    }
+
+    @Override
+    public Instant getTxTimestamp() {
+        return txTimestamp;
+    }
+
+    @Override
+    public byte[] getState(String key) {
+        byte[] value = state.get(key);
+        return value == null ? new byte[0] : value;
+    }
+
+    @Override
+    public void putState(String key, byte[] value) {
+        state.put(key, value);
+    }
+
+    @Override
+    public void delState(String key) {
+        state.remove(key);
+    }
+
+    @Override
+    public void setEvent(String name, byte[] payload) {
+        events.clear();
+        events.put(name, payload);
+    }
+
+    @Override
+    public CompositeKey createCompositeKey(String objectType, String... attributes) {
+        return new CompositeKey(objectType, attributes);
+    }
+
+    @Override
+    public CompositeKey splitCompositeKey(String compositeKey) {
+        return CompositeKey.parseCompositeKey(compositeKey);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByRange(String startKey, String endKey) {
+        return new Results(scan(simpleStart(startKey), simpleEnd(endKey), Integer.MAX_VALUE), "");
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getStateByRangeWithPagination(String startKey, String endKey, int pageSize, String bookmark) {
+        String start = bookmark == null || bookmark.isEmpty() ? simpleStart(startKey) : bookmark;
+        return page(start, simpleEnd(endKey), pageSize);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(CompositeKey compositeKey) {
+        String start = compositeKey.toString();
+        return new Results(scan(start, start + MAX_UNICODE_RUNE, Integer.MAX_VALUE), "");
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getStateByPartialCompositeKeyWithPagination(CompositeKey compositeKey, int pageSize, String bookmark) {
+        String prefix = compositeKey.toString();
+        String start = bookmark == null || bookmark.isEmpty() ? prefix : bookmark;
+        return page(start, prefix + MAX_UNICODE_RUNE, pageSize);
+    }
+
+    private static String simpleStart(String startKey) {
+        return startKey == null || startKey.isEmpty() ? MIN_SIMPLE_KEY : startKey;
+    }
+
+    private static String simpleEnd(String endKey) {
+        return endKey == null || endKey.isEmpty() ? MAX_UNICODE_RUNE : endKey;
+    }
+
+    protected List<KeyValue> scan(String startKey, String endKey, int limit) {
+        List<KeyValue> results = new ArrayList<>();
+        if (startKey.compareTo(endKey) >= 0) {
+            return results;
+        }
+        for (Map.Entry<String, byte[]> entry : state.subMap(startKey, true, endKey, false).entrySet()) {
+            if (results.size() == limit) {
+                break;
+            }
+            results.add(new Entry(entry.getKey(), entry.getValue()));
+        }
+        return results;
+    }
+
+    private Results page(String startKey, String endKey, int pageSize) {
+        List<KeyValue> results = scan(startKey, endKey, pageSize + 1);
+        String bookmark = "";
+        if (results.size() > pageSize) {
+            bookmark = results.remove(pageSize).getKey();
+        }
+        return new Results(results, bookmark);
+    }
+
+    private static final class Entry implements KeyValue {
+        private final String key;
+        private final byte[] value;
+
+        private Entry(String key, byte[] value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public byte[] getValue() {
+            return value;
+        }
+
+        @Override
+        public String getStringValue() {
+            return new String(value, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static final class Results implements QueryResultsIterator<KeyValue>, QueryResultsIteratorWithMetadata<KeyValue> {
+        private final List<KeyValue> results;
+        private final String bookmark;
+
+        private Results(List<KeyValue> results, String bookmark) {
+            this.results = results;
+            this.bookmark = bookmark;
+        }
+
+        @Override
+        public ChaincodeShim.QueryResponseMetadata getMetadata() {
+            return ChaincodeShim.QueryResponseMetadata.newBuilder()
+                    .setFetchedRecordsCount(results.size())
+                    .setBookmark(bookmark)
+                    .build();
+        }
+
+        @Override
+        public Iterator<KeyValue> iterator() {
+            return results.iterator();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package org.hyperledger.fabric.samples.assettransfer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.metrics.Metrics;
+import org.hyperledger.fabric.protos.peer.Chaincode.ChaincodeID;
+import org.hyperledger.fabric.protos.peer.Chaincode.ChaincodeInput;
+import org.hyperledger.fabric.protos.peer.ChaincodeShim.ChaincodeMessage;
+import org.hyperledger.fabric.protos.peer.ChaincodeShim.DelState;
+import org.hyperledger.fabric.protos.peer.ChaincodeShim.GetState;
+import org.hyperledger.fabric.protos.peer.ChaincodeShim.PutState;
+import org.hyperledger.fabric.protos.peer.ProposalPackage.SignedProposal;
+import org.hyperledger.fabric.shim.ChaincodeBase;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.impl.InvocationTaskManager;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * shim 의 InvocationTaskManager 에 TRANSACTION 메시지를 넣어 TransferCoin 처리량을 잰다.
+ * getState/putState 는 peer 와 round-trip 하므로 가짜 peer 가 STATE_LATENCY_MICROS 뒤에 RESPONSE 를 돌려준다.
+ * shim 기본값(TP_CORE_POOL_SIZE=5)과 src/main/resources/config.props 의 값을 같은 부하로 비교한다.
+ */
+@Tag("benchmark")
+@DisplayName("shim invocation pool 처리량 벤치마크")
+public class InvocationPoolBenchmark {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final int INVOCATIONS = 2_000;
+    private static final int ASSET_PAIRS = 200;
+    private static final long STATE_LATENCY_MICROS = 2_000;
+    private static final String CHANNEL = "mychannel";
+
+    @BeforeAll
+    public static void initializeMetrics() {
+        // ChaincodeBase.start 를 거치지 않으므로 InvocationTaskManager 가 쓰는 metrics provider 를 직접 만든다
+        Metrics.initialize(new Properties());
+    }
+
+    @Test
+    public void shim_기본_pool_과_config_props_의_처리량을_비교한다() throws Exception {
+        Properties defaults = new Properties();
+        Properties tuned = loadConfigProps();
+
+        double shimDefault = run(defaults);
+        double configured = run(tuned);
+
+        System.out.printf("shim default(core %s): %.0f tx/s, config.props(core %s, queue %s): %.0f tx/s%n",
+                "5", shimDefault, tuned.getProperty("TP_CORE_POOL_SIZE"), tuned.getProperty("TP_QUEUE_SIZE"), configured);
+        assertThat(configured).isGreaterThan(shimDefault);
+    }
+
+    private double run(Properties config) throws Exception {
+        BenchmarkChaincode chaincode = new BenchmarkChaincode(config);
+        FakePeer peer = new FakePeer(INVOCATIONS);
+        seed(peer.ledger);
+
+        InvocationTaskManager manager = new InvocationTaskManager(chaincode, ChaincodeID.newBuilder().setName("basic").build());
+        manager.setResponseConsumer(peer);
+        peer.manager = manager;
+        manager.register();
+        manager.onChaincodeMessage(ChaincodeMessage.newBuilder().setType(ChaincodeMessage.Type.REGISTERED).build());
+        manager.onChaincodeMessage(ChaincodeMessage.newBuilder().setType(ChaincodeMessage.Type.READY).build());
+
+        try {
+            long started = System.nanoTime();
+            for (int i = 0; i < INVOCATIONS; i++) {
+                int pair = i % ASSET_PAIRS;
+                manager.onChaincodeMessage(transaction("tx" + i, "s" + pair, "m" + pair));
+            }
+            assertThat(peer.completed.await(2, TimeUnit.MINUTES)).isTrue();
+            double throughput = INVOCATIONS / ((System.nanoTime() - started) / 1e9);
+            assertThat(peer.failed.get()).isZero();
+            return throughput;
+        } finally {
+            manager.shutdown();
+            peer.scheduler.shutdownNow();
+        }
+    }
+
+    private static ChaincodeMessage transaction(String txId, String sender, String receiver) {
+        ChaincodeInput input = ChaincodeInput.newBuilder()
+                .addArgs(ByteString.copyFromUtf8("TransferCoin"))
+                .addArgs(ByteString.copyFromUtf8(sender))
+                .addArgs(ByteString.copyFromUtf8(receiver))
+                .addArgs(ByteString.copyFromUtf8("point"))
+                .addArgs(ByteString.copyFromUtf8("1"))
+                .build();
+        return ChaincodeMessage.newBuilder()
+                .setType(ChaincodeMessage.Type.TRANSACTION)
+                .setChannelId(CHANNEL)
+                .setTxid(txId)
+                .setPayload(input.toByteString())
+                .setProposal(SignedProposal.getDefaultInstance())
+                .build();
+    }
+
+    private static Properties loadConfigProps() throws IOException {
+        Properties props = new Properties();
+        try (InputStream in = InvocationPoolBenchmark.class.getClassLoader().getResourceAsStream("config.props")) {
+            assertThat(in).as("src/main/resources/config.props").isNotNull();
+            props.load(in);
+        }
+        return props;
+    }
+
+    private static void seed(Map<String, ByteString> ledger) throws JsonProcessingException {
+        HashMap<String, String> rootCoin = new HashMap<>();
+        rootCoin.put("point", "0");
+        put(ledger, AssetTransfer.ROOT_ASSET_KEY, Asset.of("rootAsset", "0", "rootOwner", rootCoin, null, null, null, null));
+
+        for (int pair = 0; pair < ASSET_PAIRS; pair++) {
+            HashMap<String, String> coin = new HashMap<>();
+            coin.put("point", String.valueOf(INVOCATIONS));
+            put(ledger, AssetTransfer.assetKey("s" + pair), Asset.of("s" + pair, "s" + pair, "student", coin, UserRole.ROLE_STUDENT.name(), null, null, null));
+            put(ledger, AssetTransfer.assetKey("m" + pair), Asset.of("m" + pair, "m" + pair, "store", new HashMap<>(coin), UserRole.ROLE_STOREMANAGER.name(), null, null, null));
+        }
+    }
+
+    private static void put(Map<String, ByteString> ledger, String key, Asset asset) throws JsonProcessingException {
+        ledger.put(key, ByteString.copyFrom(objectMapper.writeValueAsString(asset), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * ContractRouter 대신 invoke 에서 바로 TransferCoin 을 부르는 chaincode
+     * getChaincodeConfig 만 바꿔 InvocationTaskManager 의 pool 설정을 주입한다.
+     */
+    private static final class BenchmarkChaincode extends ChaincodeBase {
+
+        private final AssetTransfer contract = new AssetTransfer();
+        private final Properties config;
+
+        private BenchmarkChaincode(Properties config) {
+            this.config = config;
+        }
+
+        @Override
+        public Properties getChaincodeConfig() {
+            return config;
+        }
+
+        @Override
+        public Response init(ChaincodeStub stub) {
+            return newSuccessResponse();
+        }
+
+        @Override
+        public Response invoke(ChaincodeStub stub) {
+            Context ctx = mock(Context.class);
+            when(ctx.getStub()).thenReturn(stub);
+            String[] args = stub.getParameters().toArray(new String[0]);
+            String result = contract.TransferCoin(ctx, args[0], args[1], args[2], args[3]);
+            return result == null ? newErrorResponse("TransferCoin failed") : newSuccessResponse(result);
+        }
+    }
+
+    /**
+     * GET_STATE, PUT_STATE, DEL_STATE 에 지연을 두고 RESPONSE 를 보내는 peer
+     * 쓰기는 트랜잭션별로 모아 두었다가 COMPLETED 를 받으면 ledger 에 반영한다.
+     */
+    private static final class FakePeer implements Consumer<ChaincodeMessage> {
+
+        private final Map<String, ByteString> ledger = new ConcurrentHashMap<>();
+        private final Map<String, Map<String, Optional<ByteString>>> writeSets = new ConcurrentHashMap<>();
+        private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
+        private final CountDownLatch completed;
+        private final AtomicInteger failed = new AtomicInteger();
+        private volatile InvocationTaskManager manager;
+
+        private FakePeer(int transactions) {
+            this.completed = new CountDownLatch(transactions);
+        }
+
+        @Override
+        public void accept(ChaincodeMessage message) {
+            try {
+                switch (message.getType()) {
+                    case REGISTER:
+                        return;
+                    case GET_STATE:
+                        ByteString value = ledger.getOrDefault(GetState.parseFrom(message.getPayload()).getKey(), ByteString.EMPTY);
+                        respond(message, value);
+                        return;
+                    case PUT_STATE:
+                        PutState put = PutState.parseFrom(message.getPayload());
+                        writeSet(message).put(put.getKey(), Optional.of(put.getValue()));
+                        respond(message, ByteString.EMPTY);
+                        return;
+                    case DEL_STATE:
+                        writeSet(message).put(DelState.parseFrom(message.getPayload()).getKey(), Optional.empty());
+                        respond(message, ByteString.EMPTY);
+                        return;
+                    case COMPLETED:
+                        Map<String, Optional<ByteString>> writes = writeSets.remove(message.getTxid());
+                        if (writes != null) {
+                            writes.forEach((key, write) -> {
+                                if (write.isPresent()) {
+                                    ledger.put(key, write.get());
+                                } else {
+                                    ledger.remove(key);
+                                }
+                            });
+                        }
+                        completed.countDown();
+                        return;
+                    default:
+                        System.out.println("unexpected " + message.getType() + " " + message.getPayload().toStringUtf8());
+                        failed.incrementAndGet();
+                        writeSets.remove(message.getTxid());
+                        completed.countDown();
+                }
+            } catch (InvalidProtocolBufferException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private Map<String, Optional<ByteString>> writeSet(ChaincodeMessage message) {
+            return writeSets.computeIfAbsent(message.getTxid(), txId -> new ConcurrentHashMap<>());
+        }
+
+        private void respond(ChaincodeMessage request, ByteString payload) {
+            ChaincodeMessage response = ChaincodeMessage.newBuilder()
+                    .setType(ChaincodeMessage.Type.RESPONSE)
+                    .setChannelId(request.getChannelId())
+                    .setTxid(request.getTxid())
+                    .setPayload(payload)
+                    .build();
+            scheduler.schedule(() -> manager.onChaincodeMessage(response), STATE_LATENCY_MICROS, TimeUnit.MICROSECONDS);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package org.hyperledger.fabric.samples.assettransfer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hyperledger.fabric.contract.Context;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Properties;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 트랜잭션 한 번이 쓰는 state I/O 와 할당량을 perf-budgets.properties 와 비교한다.
+ * reads / writes / rangeKeys 는 seed ledger 에서 정확히 정해지는 값이라 같아야 하고, bytes 와 할당량은 budget 을 넘으면 안 된다.
+ * 할당량은 JVM / library 에 따라 흔들리므로 budget 을 실측값보다 넉넉하게 잡고, 그래도 넘으면 할당이 늘어난 것으로 보고 실패한다.
+ * budget 을 바꾸려면 출력되는 실측값을 보고 properties 를 같이 고친다.
+ *
+ * I/O 는 ASSETS 개의 Asset 이 있는 ledger 에서 한 번 호출한 값이고,
+ * 할당량은 warm-up 뒤 MEASURED_CALLS 번 호출의 평균 중 가장 작은 round 의 값이다 (test stub 과 mock 의 할당 포함).
+ * BulkScan 은 decode / encode 를 pool thread 에서 하므로 할당량은 살아 있는 모든 thread 의 합으로 잰다.
+ * pool 크기에 따라 값이 달라지므로 perfTest 는 CHAINCODE_SCAN_PARALLELISM 을 고정해서 돌린다.
+ */
+@Tag("perf")
+@DisplayName("트랜잭션 I/O, 할당 budget 테스트")
+public class TransactionBudgetTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final Properties budgets = loadBudgets("/perf-budgets.properties");
+
+    private static final int ASSETS = 100;
+    private static final int WARMUP_CALLS = 500;
+    private static final int MEASURED_CALLS = 200;
+    private static final int MEASURED_ROUNDS = 5;
+
+    private final AssetTransfer contract = new AssetTransfer();
+    private CountingChaincodeStub stub;
+    private Context ctx;
+    private int sequence;
+
+    @BeforeEach
+    public void setUp() throws JsonProcessingException {
+        stub = InMemoryChaincodeStub.create(CountingChaincodeStub.class);
+        ctx = mock(Context.class);
+        when(ctx.getStub()).thenReturn(stub);
+        seed(stub);
+        // 운영과 같은 상태에서 재도록 seed 한 coin 의 checksum 을 만든다 (잔액 변경은 coin 마다 checksum bucket 하나를 읽고 쓴다)
+        contract.RebuildCoinChecksum(ctx, "point", "", String.valueOf(ASSETS));
+        contract.RebuildCoinChecksum(ctx, "mileage", "", String.valueOf(ASSETS));
+    }
+
+    @Test
+    public void CreateAsset_의_budget_을_확인한다() {
+        assertWithinBudget("CreateAsset", () -> contract.CreateAsset(ctx, "new" + sequence++, "20210000", "student", UserRole.ROLE_STUDENT.name()));
+    }
+
+    @Test
+    public void CreateAssetsBatch_의_budget_을_확인한다() {
+        assertWithinBudget("CreateAssetsBatch", () -> {
+            StringBuilder tuples = new StringBuilder("[");
+            for (int i = 0; i < 10; i++) {
+                String assetId = "batch" + sequence++;
+                tuples.append(i == 0 ? "" : ",").append("[\"").append(assetId).append("\",\"").append(assetId).append("\",\"student\",\"ROLE_STUDENT\"]");
+            }
+            return contract.CreateAssetsBatch(ctx, tuples.append("]").toString());
+        });
+    }
+
+    @Test
+    public void GetAsset_의_budget_을_확인한다() {
+        assertWithinBudget("GetAsset", () -> contract.GetAsset(ctx, "s1"));
+    }
+
+    @Test
+    public void GetAssets_의_budget_을_확인한다() {
+        assertWithinBudget("GetAssets", () -> contract.GetAssets(ctx, "[\"s1\",\"m1\",\"s2\",\"none\"]", "[\"assetId\",\"coin\"]", "[\"point\"]"));
+    }
+
+    @Test
+    public void GetAllAssets_의_budget_을_확인한다() {
+        assertWithinBudget("GetAllAssets", () -> contract.GetAllAssets(ctx));
+    }
+
+    @Test
+    public void CreateCoin_의_budget_을_확인한다() {
+        assertWithinBudget("CreateCoin", () -> contract.CreateCoin(ctx, "stamp"), () -> contract.RemoveCoin(ctx, "stamp"));
+    }
+
+    @Test
+    public void RemoveCoin_의_budget_을_확인한다() {
+        assertWithinBudget("RemoveCoin", () -> contract.RemoveCoin(ctx, "stamp"), () -> contract.CreateCoin(ctx, "stamp"), () -> contract.CreateCoin(ctx, "stamp"));
+    }
+
+    @Test
+    public void UpdateAllAssetCoin_의_budget_을_확인한다() {
+        assertWithinBudget("UpdateAllAssetCoin", () -> contract.UpdateAllAssetCoin(ctx, "point", "1", UserRole.ROLE_STUDENT.name()));
+    }
+
+    @Test
+    public void CoinExists_의_budget_을_확인한다() {
+        assertWithinBudget("CoinExists", () -> contract.CoinExists(ctx, "point"));
+    }
+
+    @Test
+    public void ChangeOwner_의_budget_을_확인한다() {
+        assertWithinBudget("ChangeOwner", () -> contract.ChangeOwner(ctx, "s1", "owner" + sequence++));
+    }
+
+    @Test
+    public void UpdateAssetCoin_의_budget_을_확인한다() {
+        assertWithinBudget("UpdateAssetCoin", () -> contract.UpdateAssetCoin(ctx, "s1", "point", "1"));
+    }
+
+    @Test
+    public void TransferCoin_의_budget_을_확인한다() {
+        assertWithinBudget("TransferCoin", () -> contract.TransferCoin(ctx, "s1", "m1", "point", "1"));
+    }
+
+    @Test
+    public void TransferCoins_의_budget_을_확인한다() {
+        assertWithinBudget("TransferCoins", () -> contract.TransferCoins(ctx, "s1", "m1", "[{\"coinName\":\"point\",\"amount\":\"2\"},{\"coinName\":\"mileage\",\"amount\":\"-1\"}]"));
+    }
+
+    @Test
+    public void TransferCoinIdempotent_의_budget_을_확인한다() {
+        assertWithinBudget("TransferCoinIdempotent", () -> {
+            stub.nextTransaction("tx" + sequence, Instant.ofEpochSecond(1000 + sequence));
+            return contract.TransferCoinIdempotent(ctx, "req-" + sequence++, "s1", "m1", "point", "1");
+        });
+    }
+
+    private void assertWithinBudget(String transaction, Supplier<Object> call) {
+        assertWithinBudget(transaction, call, () -> null);
+    }
+
+    private void assertWithinBudget(String transaction, Supplier<Object> call, Supplier<Object> undo) {
+        assertWithinBudget(transaction, call, undo, () -> null);
+    }
+
+    /**
+     * @param undo  호출마다 다음 호출이 같은 상태에서 시작하도록 되돌린다 (I/O, 할당량에 넣지 않는다)
+     * @param given 처음 호출 전에 한 번 실행한다
+     */
+    private void assertWithinBudget(String transaction, Supplier<Object> call, Supplier<Object> undo, Supplier<Object> given) {
+        given.get();
+        stub.resetCounters();
+        Object response = call.get();
+        assertThat(response).as("%s response", transaction).isNotNull();
+        assertThat(response).as("%s response", transaction).isNotEqualTo(false);
+
+        System.out.printf("%s: reads=%d readBytes=%d writes=%d writeBytes=%d rangeKeys=%d rangeBytes=%d%n", transaction,
+                stub.getReads(), stub.getReadBytes(), stub.getWrites(), stub.getWriteBytes(), stub.getRangeKeys(), stub.getRangeBytes());
+        assertExactCount(transaction, "reads", stub.getReads());
+        assertBudget(transaction, "readBytes", stub.getReadBytes());
+        assertExactCount(transaction, "writes", stub.getWrites());
+        assertBudget(transaction, "writeBytes", stub.getWriteBytes());
+        assertExactCount(transaction, "rangeKeys", stub.getRangeKeys());
+        assertBudget(transaction, "rangeBytes", stub.getRangeBytes());
+        undo.get();
+
+        com.sun.management.ThreadMXBean threads = allocationCounter();
+        long allocatedBytes = allocatedBytesPerCall(threads, call, undo);
+        System.out.printf("%s: allocatedBytes=%d (budget %d)%n", transaction, allocatedBytes, budget(transaction, "allocatedBytes"));
+        assertBudget(transaction, "allocatedBytes", allocatedBytes);
+    }
+
+    private static void assertExactCount(String transaction, String metric, long actual) {
+        assertThat(actual).as(transaction + "." + metric).isEqualTo(budget(transaction, metric));
+    }
+
+    private static void assertBudget(String transaction, String metric, long actual) {
+        assertThat(actual).as(transaction + "." + metric).isLessThanOrEqualTo(budget(transaction, metric));
+    }
+
+    private static long budget(String transaction, String metric) {
+        String key = transaction + "." + metric;
+        String budget = budgets.getProperty(key);
+        assertThat(budget).as("budget %s is missing", key).isNotNull();
+        return Long.parseLong(budget.trim());
+    }
+
+    private static long allocatedBytesPerCall(com.sun.management.ThreadMXBean threads, Supplier<Object> call, Supplier<Object> undo) {
+        for (int i = 0; i < WARMUP_CALLS; i++) {
+            call.get();
+            undo.get();
+        }
+
+        // warm-up 으로 BulkScan pool thread 가 이미 떠 있다
+        long[] threadIds = threads.getAllThreadIds();
+        long min = Long.MAX_VALUE;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            long allocated = 0;
+            for (int i = 0; i < MEASURED_CALLS; i++) {
+                long before = allocatedBytes(threads, threadIds);
+                call.get();
+                allocated += allocatedBytes(threads, threadIds) - before;
+                undo.get();
+            }
+            min = Math.min(min, allocated / MEASURED_CALLS);
+        }
+        return min;
+    }
+
+    // 호출한 thread 와 BulkScan pool thread 를 모두 더한다. 끝난 thread 는 -1 이 나오므로 뺀다.
+    private static long allocatedBytes(com.sun.management.ThreadMXBean threads, long[] threadIds) {
+        long total = 0;
+        for (long bytes : threads.getThreadAllocatedBytes(threadIds)) {
+            if (bytes > 0) {
+                total += bytes;
+            }
+        }
+        return total;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        boolean supported = threads instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported();
+        Assumptions.assumeTrue(supported, "requires per-thread allocation counters");
+
+        com.sun.management.ThreadMXBean allocation = (com.sun.management.ThreadMXBean) threads;
+        allocation.setThreadAllocatedMemoryEnabled(true);
+        return allocation;
+    }
+
+    private static Properties loadBudgets(String resource) {
+        Properties properties = new Properties();
+        try (InputStream in = TransactionBudgetTest.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException(resource + " not found");
+            }
+            properties.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return properties;
+    }
+
+    private static void seed(InMemoryChaincodeStub stub) throws JsonProcessingException {
+        HashMap<String, String> rootCoin = new HashMap<>();
+        rootCoin.put("point", "0");
+        rootCoin.put("mileage", "0");
+        stub.putStringState(AssetTransfer.ROOT_ASSET_KEY, objectMapper.writeValueAsString(Asset.of("rootAsset", "0", "rootOwner", rootCoin, null, null, null, null)));
+
+        for (int i = 0; i < ASSETS / 2; i++) {
+            HashMap<String, String> coin = new HashMap<>();
+            coin.put("point", "1000000");
+            coin.put("mileage", "1000000");
+            stub.putStringState(AssetTransfer.assetKey("s" + i), objectMapper.writeValueAsString(Asset.of("s" + i, "2021" + i, "student", coin, UserRole.ROLE_STUDENT.name(), null, null, null)));
+            stub.putStringState(AssetTransfer.assetKey("m" + i), objectMapper.writeValueAsString(Asset.of("m" + i, "m" + i, "store", new HashMap<>(coin), UserRole.ROLE_STOREMANAGER.name(), null, null, null)));
+        }
+    }
+}